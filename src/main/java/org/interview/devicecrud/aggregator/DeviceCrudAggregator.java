@@ -1,21 +1,59 @@
 package org.interview.devicecrud.aggregator;
 
+import org.interview.devicecrud.constants.BatchOperationStatus;
+import org.interview.devicecrud.constants.BatchOperationType;
 import org.interview.devicecrud.constants.DeviceState;
+import org.interview.devicecrud.constants.ImportFormat;
+import org.interview.devicecrud.constants.OperationType;
+import org.interview.devicecrud.event.DeviceChangeEvent;
 import org.interview.devicecrud.exception.DuplicateDeviceException;
 import org.interview.devicecrud.exception.InvalidDeletionException;
 import org.interview.devicecrud.exception.InvalidDeviceIdException;
+import org.interview.devicecrud.exception.InvalidDeviceUpdateException;
+import org.interview.devicecrud.exception.MongoDBException;
+import org.interview.devicecrud.exception.SearchUnavailableException;
 import org.interview.devicecrud.model.Device;
+import org.interview.devicecrud.model.DeviceBatchOperation;
+import org.interview.devicecrud.model.DeviceBatchRequest;
+import org.interview.devicecrud.model.DeviceBatchResult;
+import org.interview.devicecrud.model.DeviceBatchWriteResult;
+import org.interview.devicecrud.model.DeviceBulkUpdateResult;
 import org.interview.devicecrud.model.DeviceCreationRequest;
+import org.interview.devicecrud.model.DeviceFilter;
+import org.interview.devicecrud.model.DeviceImportResult;
+import org.interview.devicecrud.model.DeviceMultiGetResult;
+import org.interview.devicecrud.model.DeviceSearchHit;
 import org.interview.devicecrud.model.DeviceUpdationRequest;
+import org.interview.devicecrud.service.CircuitBreaker;
+import org.interview.devicecrud.service.ConcurrencyLimiter;
 import org.interview.devicecrud.service.DeviceCrudService;
+import org.interview.devicecrud.service.DeviceIdBloomFilter;
 import org.interview.devicecrud.service.DeviceIdGenerator;
+import org.interview.devicecrud.service.DeviceImportService;
+import org.interview.devicecrud.service.DeviceIndex;
+import org.interview.devicecrud.service.DeviceSearchIndex;
+import org.interview.devicecrud.service.RequestDeadline;
+import org.interview.devicecrud.service.SingleFlight;
 import org.interview.devicecrud.validator.DeviceCrudValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
+import java.io.InputStream;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.interview.devicecrud.constants.DeviceCrudConstants.*;
 
 @Component
 public class DeviceCrudAggregator {
@@ -25,13 +63,34 @@ public class DeviceCrudAggregator {
     private final DeviceCrudService deviceService;
     private final DeviceIdGenerator deviceIdGenerator;
     private final DeviceCrudValidator validator;
+    private final DeviceIdBloomFilter idFilter;
+    private final DeviceIndex deviceIndex;
+    private final SingleFlight singleFlight;
+    private final DeviceSearchIndex searchIndex;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final CircuitBreaker circuitBreaker;
+    private final DeviceImportService importService;
 
     private DeviceCrudAggregator(DeviceCrudService deviceService,
                                  DeviceIdGenerator deviceIdGenerator,
-                                 DeviceCrudValidator validator) {
+                                 DeviceCrudValidator validator,
+                                 DeviceIdBloomFilter idFilter,
+                                 DeviceIndex deviceIndex,
+                                 SingleFlight singleFlight,
+                                 DeviceSearchIndex searchIndex,
+                                 ConcurrencyLimiter concurrencyLimiter,
+                                 CircuitBreaker circuitBreaker,
+                                 DeviceImportService importService) {
         this.deviceService = deviceService;
         this.deviceIdGenerator = deviceIdGenerator;
         this.validator = validator;
+        this.idFilter = idFilter;
+        this.deviceIndex = deviceIndex;
+        this.singleFlight = singleFlight;
+        this.searchIndex = searchIndex;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.circuitBreaker = circuitBreaker;
+        this.importService = importService;
     }
 
     /**
@@ -47,14 +106,18 @@ public class DeviceCrudAggregator {
         //Generate unique device id
         String deviceId = deviceIdGenerator.generateId(deviceRequest.getName(),
                 deviceRequest.getBrand());
-        //check if id already exists in db
-        if (deviceService.deviceExists(deviceId)) {
+        RequestDeadline.check();
+        //check if id already exists in db, unless the id filter rules it out or
+        //the id is not derived from the device and the unique index decides
+        if (!deviceIdGenerator.isUniqueByIndex() && idFilter.mightContain(deviceId)
+                && circuitBreaker.execute(OperationType.WRITE, () -> deviceService.deviceExists(deviceId))) {
             throw new DuplicateDeviceException("Device with same name and brand already exists.");
         }
         Device device = Device.builder().id(deviceId).name(deviceRequest.getName())
                 .brand(deviceRequest.getBrand()).state(DeviceState.fromString(deviceRequest.getState()))
                 .creationTime(deviceRequest.getCreationTime()).build();
-        return deviceService.createNewDevice(device);
+        RequestDeadline.check();
+        return circuitBreaker.execute(OperationType.WRITE, () -> deviceService.createNewDevice(device));
     }
 
     /**
@@ -71,12 +134,14 @@ public class DeviceCrudAggregator {
             logger.error("Device id is empty");
             throw new InvalidDeviceIdException("Device ID must not be blank.", id);
         }
-        Device existingDevice = deviceService.fetchDeviceById(id);
+        RequestDeadline.check();
+        Device existingDevice = circuitBreaker.execute(OperationType.WRITE, () -> deviceService.fetchDeviceById(id));
         validator.validateDeviceUpdateRequest(updateRequest, existingDevice);
         Device updatedDevice = Device.builder().id(existingDevice.getId()).name(updateRequest.getName())
                 .brand(updateRequest.getBrand()).state(DeviceState.fromString(updateRequest.getState()))
                 .creationTime(existingDevice.getCreationTime()).build();
-        return deviceService.updateDevice(id, updatedDevice);
+        RequestDeadline.check();
+        return circuitBreaker.execute(OperationType.WRITE, () -> deviceService.updateDevice(id, updatedDevice));
     }
 
     /**
@@ -86,28 +151,135 @@ public class DeviceCrudAggregator {
      */
     public Device getDeviceById(String id) {
         validator.validateId(id);
-        return deviceService.fetchDeviceById(id);
+        if (!idFilter.mightContain(id)) {
+            logger.info("Device id {} was never issued, skipping lookup", id);
+            throw new MongoDBException("Device not found with id: ", id);
+        }
+        RequestDeadline.check();
+        // concurrent lookups of the same id share one query
+        return circuitBreaker.read(OperationType.POINT_READ, id, () -> singleFlight.execute("fetchById", id,
+                () -> concurrencyLimiter.execute(OperationType.POINT_READ, () -> deviceService.fetchDeviceById(id))));
     }
 
     /**
-     * This method is used to fetch all devices, devices of a
-     * particular brand or state or both
-     * @param brand  The brand of devices to be fetched
-     * @param state  The state of devices to be fetched
+     * Fetch many devices by id with a single query
+     * @param ids ids of the devices to be fetched
+     * @return the devices found and the ids not found, both in request order
+     */
+    public DeviceMultiGetResult getDevicesByIds(List<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new InvalidDeviceIdException("Please enter at least one device id", null);
+        }
+        if (ids.size() > MAX_MULTI_GET_IDS) {
+            logger.error("Multi-get of {} ids exceeds the limit", ids.size());
+            throw new IllegalArgumentException("At most " + MAX_MULTI_GET_IDS + " ids may be fetched at once");
+        }
+        Set<String> requested = new LinkedHashSet<>();
+        for (String id : ids) {
+            validator.validateId(id);
+            requested.add(id);
+        }
+        List<String> candidates = requested.stream().filter(idFilter::mightContain).toList();
+        Map<String, Device> found = new HashMap<>();
+        RequestDeadline.check();
+        circuitBreaker.read(OperationType.SCAN, "ids:" + candidates, () -> concurrencyLimiter.execute(
+                        OperationType.SCAN, () -> deviceService.fetchDevicesByIds(candidates)))
+                .forEach(device -> found.put(device.getId(), device));
+        List<String> archived = candidates.stream().filter(id -> !found.containsKey(id)).toList();
+        if (!archived.isEmpty()) {
+            RequestDeadline.check();
+            circuitBreaker.read(OperationType.SCAN, "archived:" + archived, () -> concurrencyLimiter.execute(
+                            OperationType.SCAN, () -> deviceService.fetchArchivedDevicesByIds(archived)))
+                    .forEach(device -> found.put(device.getId(), device));
+        }
+
+        List<Device> devices = new ArrayList<>(found.size());
+        List<String> missing = new ArrayList<>();
+        for (String id : requested) {
+            Device device = found.get(id);
+            if (device != null) {
+                devices.add(device);
+            } else {
+                missing.add(id);
+            }
+        }
+        return DeviceMultiGetResult.builder().devices(devices).missing(missing).build();
+    }
+
+    /**
+     * This method is used to fetch all devices, or the devices matching any
+     * of the given brands, any of the given states and a creation time range
+     * @param brands  The brands of devices to be fetched, may be null
+     * @param states  The states of devices to be fetched, may be null
+     * @param createdFrom earliest creation time, inclusive, may be null
+     * @param createdTo latest creation time, inclusive, may be null
      * @return list of devices
      */
-    public List<Device> fetchDevices(String brand, String state){
-        if (StringUtils.hasText(state) && !DeviceState.isValidState(state)) {
-            logger.error("Invalid or blank device state. Must be one of: AVAILABLE, IN-USE, INACTIVE");
-            throw new IllegalArgumentException("Invalid or blank device state. Must be one of: AVAILABLE, IN_USE, INACTIVE");
+    public List<Device> fetchDevices(List<String> brands, List<String> states,
+                                     LocalDateTime createdFrom, LocalDateTime createdTo) {
+        List<DeviceState> deviceStates = new ArrayList<>();
+        if (states != null) {
+            for (String state : states) {
+                if (!StringUtils.hasText(state)) {
+                    continue;
+                }
+                if (!DeviceState.isValidState(state)) {
+                    logger.error("Invalid or blank device state. Must be one of: AVAILABLE, IN-USE, INACTIVE");
+                    throw new IllegalArgumentException("Invalid or blank device state. Must be one of: AVAILABLE, IN_USE, INACTIVE");
+                }
+                deviceStates.add(DeviceState.fromString(state));
+            }
+        }
+        if (createdFrom != null && createdTo != null && createdFrom.isAfter(createdTo)) {
+            logger.error("Creation time range is empty: {} is after {}", createdFrom, createdTo);
+            throw new IllegalArgumentException("createdFrom must not be after createdTo");
+        }
+        DeviceFilter filter = DeviceFilter.builder()
+                .brands(brands == null ? List.of() : brands.stream().distinct().toList())
+                .states(deviceStates.stream().distinct().toList())
+                .createdFrom(createdFrom)
+                .createdTo(createdTo)
+                .build();
+        if (deviceIndex.isServable()) {
+            return deviceIndex.find(filter);
         }
-        DeviceState deviceState = DeviceState.fromString(state);
-        return switch ((brand != null ? 1 : 0) + (state != null ? 2 : 0)) {
-            case 3 -> deviceService.getDevicesByBrandAndState(brand, deviceState); // filter based on brand and state
-            case 1 -> deviceService.getDevicesByBrand(brand);                // filter based only on brand
-            case 2 -> deviceService.getDevicesByState(deviceState);                // filter based only on state
-            default -> deviceService.getAllDevices();                        // no filter, fetch all devices
-        };
+        RequestDeadline.check();
+        return circuitBreaker.read(OperationType.SCAN, filter.toString(),
+                () -> singleFlight.execute("fetchDevices", filter.toString(),
+                        () -> concurrencyLimiter.execute(OperationType.SCAN, () -> deviceService.findDevices(filter))));
+    }
+
+    /**
+     * Typeahead search over device names and brands
+     * @param query text to look for, case insensitive
+     * @param limit maximum number of hits, may be null
+     * @return ranked hits, best first
+     */
+    public List<DeviceSearchHit> searchDevices(String query, Integer limit) {
+        if (!StringUtils.hasText(query)) {
+            logger.error("Search query is empty");
+            throw new IllegalArgumentException("Search query must not be blank");
+        }
+        int maxHits = limit == null ? DEFAULT_SEARCH_LIMIT : limit;
+        if (maxHits < 1 || maxHits > MAX_SEARCH_LIMIT) {
+            throw new IllegalArgumentException("Search limit must be between 1 and " + MAX_SEARCH_LIMIT);
+        }
+        if (!searchIndex.isReady()) {
+            logger.warn("Search requested while the search index is not available");
+            throw new SearchUnavailableException("Device search is not available");
+        }
+        return searchIndex.search(query, maxHits);
+    }
+
+    /**
+     * Updates the brand of a device that is not in use
+     * @param id id of the device
+     * @param newBrand brand to set
+     * @return Response message stating the brand has been updated
+     */
+    public String updateBrand(String id, String newBrand) {
+        RequestDeadline.check();
+        return circuitBreaker.execute(OperationType.WRITE, () -> deviceService.updateBrandIfNotInUse(id, newBrand));
     }
 
     /**
@@ -120,12 +292,249 @@ public class DeviceCrudAggregator {
             logger.error("Device id to delete is empty");
             throw new InvalidDeviceIdException("Device ID for deletion must not be blank.", id);
         }
-        Device existingDevice = deviceService.fetchDeviceById(id);
+        RequestDeadline.check();
+        Device existingDevice = circuitBreaker.execute(OperationType.WRITE, () -> deviceService.fetchDeviceById(id));
         if (existingDevice.getState() == DeviceState.IN_USE) {
             logger.error("Cannot delete device that is in use: {}",id);
             throw new InvalidDeletionException("Cannot delete device that is in use");
         }
-        return deviceService.deleteDevice(id);
+        RequestDeadline.check();
+        return circuitBreaker.execute(OperationType.WRITE, () -> deviceService.deleteDevice(id));
+    }
+
+    /**
+     * Moves every device of a brand that is not in use to a new brand
+     * @param brand current brand
+     * @param newBrand brand to move to
+     * @return matched and modified counts
+     */
+    public DeviceBulkUpdateResult rebrandDevices(String brand, String newBrand) {
+        validator.isBrandValid(brand);
+        validator.isBrandValid(newBrand);
+        RequestDeadline.check();
+        return circuitBreaker.execute(OperationType.WRITE, () -> deviceService.rebrandDevices(brand, newBrand));
+    }
+
+    /**
+     * Moves every device in one state, optionally of one brand, to another state
+     * @param brand brand to limit to, may be null
+     * @param from current state
+     * @param to target state
+     * @return matched and modified counts
+     */
+    public DeviceBulkUpdateResult transitionDevices(String brand, String from, String to) {
+        validator.isStateValid(from);
+        validator.isStateValid(to);
+        RequestDeadline.check();
+        return circuitBreaker.execute(OperationType.WRITE,
+                () -> deviceService.transitionDevices(brand, DeviceState.fromString(from), DeviceState.fromString(to)));
+    }
+
+    /**
+     * Imports devices from an NDJSON or CSV stream. The import checks the
+     * request deadline before every chunk it hands to the writers.
+     * @param in request body
+     * @param format name of the input format
+     * @return counts and the location of the report file
+     */
+    public DeviceImportResult importDevices(InputStream in, String format) {
+        ImportFormat importFormat = ImportFormat.fromString(format);
+        RequestDeadline.check();
+        return circuitBreaker.execute(OperationType.WRITE, () -> importService.importDevices(in, importFormat));
+    }
+
+    /**
+     * Claims one available device, optionally of one of the given brands
+     * @param brands brands to choose from, may be null or empty for any brand
+     * @param leaseSeconds seconds after which the device is returned automatically, may be null
+     * @return the claimed device, now in use
+     */
+    public Device checkoutDevice(List<String> brands, Long leaseSeconds) {
+        Duration lease = null;
+        if (leaseSeconds != null) {
+            if (leaseSeconds < 1 || leaseSeconds > MAX_LEASE_SECONDS) {
+                logger.error("Invalid lease of {} seconds", leaseSeconds);
+                throw new IllegalArgumentException("Lease must be between 1 and " + MAX_LEASE_SECONDS + " seconds");
+            }
+            lease = Duration.ofSeconds(leaseSeconds);
+        }
+        List<String> brandFilter = brands == null ? List.of() : brands.stream().filter(StringUtils::hasText).toList();
+        Duration leaseDuration = lease;
+        RequestDeadline.check();
+        return circuitBreaker.execute(OperationType.WRITE,
+                () -> deviceService.checkoutDevice(DeviceFilter.builder().brands(brandFilter).build(), leaseDuration));
     }
 
+    /**
+     * Returns a checked out device so it becomes available again
+     * @param id id of the device
+     * @return the released device
+     */
+    public Device checkinDevice(String id) {
+        validator.validateId(id);
+        RequestDeadline.check();
+        return circuitBreaker.execute(OperationType.WRITE, () -> deviceService.checkinDevice(id));
+    }
+
+    /**
+     * Applies a list of create, update, brand update and delete operations with
+     * the same rules as the single-device endpoints, then writes all of them in
+     * one bulk operation. Devices touched by the batch are loaded with a single
+     * query and later operations see the effect of earlier ones. Creates are
+     * checked against the archive like single creates.
+     *
+     * @param request the operations and whether they are ordered
+     * @return one result per operation, in request order
+     */
+    public List<DeviceBatchResult> applyBatch(DeviceBatchRequest request) {
+        List<DeviceBatchOperation> operations = request.getOperations() == null ? List.of() : request.getOperations();
+        if (operations.size() > MAX_BATCH_OPERATIONS) {
+            logger.error("Batch of {} operations exceeds the limit", operations.size());
+            throw new IllegalArgumentException("A batch may contain at most " + MAX_BATCH_OPERATIONS + " operations");
+        }
+        DeviceBatchResult[] results = new DeviceBatchResult[operations.size()];
+        String[] ids = new String[operations.size()];
+        for (int i = 0; i < operations.size(); i++) {
+            try {
+                ids[i] = resolveBatchId(operations.get(i));
+            } catch (RuntimeException e) {
+                results[i] = batchResult(i, operations.get(i), operations.get(i).getId(),
+                        BatchOperationStatus.FAILED, e.getMessage());
+            }
+        }
+
+        Set<String> touched = new LinkedHashSet<>(Arrays.stream(ids).filter(Objects::nonNull).toList());
+        Map<String, Device> known = new HashMap<>();
+        RequestDeadline.check();
+        circuitBreaker.execute(OperationType.WRITE, () -> deviceService.fetchDevicesByIds(touched))
+                .forEach(device -> known.put(device.getId(), device));
+        List<Device> creates = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            if (ids[i] != null && operations.get(i).getOperation() == BatchOperationType.CREATE) {
+                creates.add(Device.builder().id(ids[i]).name(operations.get(i).getName())
+                        .brand(operations.get(i).getBrand()).build());
+            }
+        }
+        Set<String> archived = creates.isEmpty() ? Set.of()
+                : circuitBreaker.execute(OperationType.WRITE, () -> deviceService.archivedDuplicates(creates));
+
+        List<DeviceChangeEvent> changes = new ArrayList<>();
+        List<Integer> changeOperations = new ArrayList<>();
+        boolean halted = false;
+        for (int i = 0; i < operations.size(); i++) {
+            DeviceBatchOperation operation = operations.get(i);
+            if (halted) {
+                results[i] = batchResult(i, operation, ids[i], BatchOperationStatus.SKIPPED,
+                        "Not executed: an earlier operation failed");
+                continue;
+            }
+            if (results[i] == null) {
+                try {
+                    changes.add(planBatchChange(operation, ids[i], known, archived));
+                    changeOperations.add(i);
+                    results[i] = batchResult(i, operation, ids[i], BatchOperationStatus.APPLIED, null);
+                } catch (RuntimeException e) {
+                    results[i] = batchResult(i, operation, ids[i], BatchOperationStatus.FAILED, e.getMessage());
+                }
+            }
+            halted = request.isOrdered() && results[i].getStatus() == BatchOperationStatus.FAILED;
+        }
+
+        RequestDeadline.check();
+        DeviceBatchWriteResult written = circuitBreaker.execute(OperationType.WRITE,
+                () -> deviceService.applyChanges(changes, request.isOrdered()));
+        Map<Integer, String> failures = written.getFailures();
+        for (int c = 0; c < changes.size(); c++) {
+            int i = changeOperations.get(c);
+            if (failures.containsKey(c)) {
+                results[i] = batchResult(i, operations.get(i), ids[i], BatchOperationStatus.FAILED, failures.get(c));
+            } else if (c >= written.getExecuted()) {
+                results[i] = batchResult(i, operations.get(i), ids[i], BatchOperationStatus.SKIPPED,
+                        "Not executed: an earlier operation failed");
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private String resolveBatchId(DeviceBatchOperation operation) {
+        if (operation.getOperation() == null) {
+            throw new IllegalArgumentException("Operation must be one of: CREATE, UPDATE, UPDATE_BRAND, DELETE");
+        }
+        if (operation.getOperation() == BatchOperationType.CREATE) {
+            if (operation.getCreationTime() == null) {
+                throw new IllegalArgumentException("Creation time is required");
+            }
+            validator.validateDeviceCreateRequest(toCreationRequest(operation));
+            return deviceIdGenerator.generateId(operation.getName(), operation.getBrand());
+        }
+        validator.validateId(operation.getId());
+        return operation.getId();
+    }
+
+    private DeviceChangeEvent planBatchChange(DeviceBatchOperation operation, String id, Map<String, Device> known,
+                                              Set<String> archived) {
+        switch (operation.getOperation()) {
+            case CREATE -> {
+                if (known.containsKey(id) || archived.contains(id)) {
+                    throw new DuplicateDeviceException("Device with same name and brand already exists.");
+                }
+                Device device = Device.builder().id(id).name(operation.getName())
+                        .brand(operation.getBrand()).state(DeviceState.fromString(operation.getState()))
+                        .creationTime(operation.getCreationTime()).build();
+                known.put(id, device);
+                return new DeviceChangeEvent(DeviceChangeEvent.Type.CREATED, id, device);
+            }
+            case UPDATE -> {
+                Device existing = requireKnown(known, id);
+                DeviceUpdationRequest updateRequest = DeviceUpdationRequest.builder().name(operation.getName())
+                        .brand(operation.getBrand()).state(operation.getState()).build();
+                validator.validateDeviceUpdateRequest(updateRequest, existing);
+                Device updated = Device.builder().id(id).name(operation.getName())
+                        .brand(operation.getBrand()).state(DeviceState.fromString(operation.getState()))
+                        .creationTime(existing.getCreationTime()).build();
+                known.put(id, updated);
+                return new DeviceChangeEvent(DeviceChangeEvent.Type.UPDATED, id, updated);
+            }
+            case UPDATE_BRAND -> {
+                Device existing = requireKnown(known, id);
+                if (!StringUtils.hasText(operation.getBrand())) {
+                    throw new IllegalArgumentException("Brand should not be empty");
+                }
+                if (existing.getState() == DeviceState.IN_USE) {
+                    throw new InvalidDeviceUpdateException("Device is currently in use and brand cannot be updated");
+                }
+                known.put(id, new Device(id, existing.getName(), operation.getBrand(),
+                        existing.getState(), existing.getCreationTime()));
+                return new DeviceChangeEvent(DeviceChangeEvent.Type.BRAND_UPDATED, id,
+                        Device.builder().id(id).brand(operation.getBrand()).build());
+            }
+            default -> {
+                Device existing = requireKnown(known, id);
+                if (existing.getState() == DeviceState.IN_USE) {
+                    throw new InvalidDeletionException("Cannot delete device that is in use");
+                }
+                known.remove(id);
+                return new DeviceChangeEvent(DeviceChangeEvent.Type.DELETED, id, null);
+            }
+        }
+    }
+
+    private Device requireKnown(Map<String, Device> known, String id) {
+        Device device = known.get(id);
+        if (device == null) {
+            throw new MongoDBException("Device not found with id: " + id, id);
+        }
+        return device;
+    }
+
+    private DeviceCreationRequest toCreationRequest(DeviceBatchOperation operation) {
+        return DeviceCreationRequest.builder().name(operation.getName()).brand(operation.getBrand())
+                .state(operation.getState()).creationTime(operation.getCreationTime()).build();
+    }
+
+    private DeviceBatchResult batchResult(int index, DeviceBatchOperation operation, String id,
+                                          BatchOperationStatus status, String message) {
+        return DeviceBatchResult.builder().index(index).operation(operation.getOperation())
+                .id(id).status(status).message(message).build();
+    }
 }
@@ -0,0 +1,173 @@
+package org.interview.devicecrud.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.interview.devicecrud.exception.IdempotencyConflictException;
+import org.interview.devicecrud.model.IdempotencyRecord;
+import org.interview.devicecrud.service.IdempotencyService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies {@link IdempotencyService} to device creation and update requests that
+ * carry an {@value IdempotencyService#HEADER} header. A replayed response is
+ * written without reaching the controller and is marked with
+ * {@value IdempotencyService#REPLAYED_HEADER}.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyFilter.class);
+    private static final AntPathMatcher PATHS = new AntPathMatcher();
+    private static final List<String> IDEMPOTENT_ENDPOINTS = List.of(
+            "POST /private/v1/device/create",
+            "PUT /private/v1/device/update/*");
+
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
+
+    public IdempotencyFilter(IdempotencyService idempotencyService, ObjectMapper objectMapper) {
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!idempotencyService.isEnabled() || !StringUtils.hasText(request.getHeader(IdempotencyService.HEADER))) {
+            return true;
+        }
+        String endpoint = request.getMethod() + " " + request.getRequestURI().substring(request.getContextPath().length());
+        return IDEMPOTENT_ENDPOINTS.stream().noneMatch(pattern -> PATHS.match(pattern, endpoint));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        byte[] body = request.getInputStream().readAllBytes();
+        String operation = request.getMethod() + " " + request.getRequestURI();
+        IdempotencyService.Claim claim;
+        try {
+            claim = idempotencyService.claim(operation, request.getHeader(IdempotencyService.HEADER).trim(), body);
+        } catch (IdempotencyConflictException e) {
+            logger.warn("Idempotent request rejected: {}", e.getMessage());
+            writeError(response, e.getStatus(), e.getMessage());
+            return;
+        }
+        if (claim.getReplay() != null) {
+            logger.info("Replaying response of {} for idempotent retry", operation);
+            write(response, claim.getReplay());
+            return;
+        }
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(new CachedBodyRequest(request, body), wrapper);
+        } catch (IOException | ServletException | RuntimeException e) {
+            idempotencyService.abandon(claim, e);
+            throw e;
+        }
+        idempotencyService.complete(claim, IdempotencyRecord.builder()
+                .status(wrapper.getStatus())
+                .contentType(wrapper.getContentType())
+                .body(wrapper.getContentAsByteArray())
+                .build());
+        wrapper.copyBodyToResponse();
+    }
+
+    private void write(HttpServletResponse response, IdempotencyRecord record) throws IOException {
+        response.setStatus(record.getStatus());
+        response.setHeader(IdempotencyService.REPLAYED_HEADER, "true");
+        if (record.getContentType() != null) {
+            response.setContentType(record.getContentType());
+        }
+        if (record.getBody() != null) {
+            response.setContentLength(record.getBody().length);
+            response.getOutputStream().write(record.getBody());
+        }
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", message);
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    /**
+     * Request whose body has already been read for hashing.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            Charset charset = getCharacterEncoding() == null
+                    ? StandardCharsets.UTF_8 : Charset.forName(getCharacterEncoding());
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.interview.devicecrud.config;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.interview.devicecrud.aggregator.DeviceCrudAggregator;
+import org.interview.devicecrud.controller.DeviceBulkController;
+import org.interview.devicecrud.controller.DeviceCrudController;
+import org.interview.devicecrud.service.DeviceCrudService;
+import org.interview.devicecrud.service.DeviceIdGenerator;
+import org.interview.devicecrud.validator.DeviceCrudValidator;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.Map;
+
+import static org.interview.devicecrud.constants.DeviceCrudConstants.TRACE_LAYER_KEY;
+import static org.interview.devicecrud.constants.DeviceCrudConstants.TRACE_LAYER_OBSERVATION;
+
+/**
+ * Wraps every public method of the request path layers in an observation named
+ * {@code device.layer}, tagged with the layer and the method, when
+ * {@code device.tracing.enabled} is set. Besides feeding the
+ * {@code DeviceTraceRecorder} this gives a timer per layer and method.
+ * Calls a bean makes on itself are not observed.
+ */
+@Component
+public class LayerObservationPostProcessor implements BeanPostProcessor {
+
+    private static final Map<Class<?>, String> LAYERS = Map.of(
+            DeviceCrudController.class, "controller",
+            DeviceBulkController.class, "controller",
+            DeviceCrudValidator.class, "validator",
+            DeviceIdGenerator.class, "id-generation",
+            DeviceCrudAggregator.class, "aggregator",
+            DeviceCrudService.class, "service");
+
+    private final ObjectProvider<ObservationRegistry> registries;
+    private final boolean enabled;
+    private volatile ObservationRegistry registry;
+
+    public LayerObservationPostProcessor(ObjectProvider<ObservationRegistry> registries,
+                                         @Value("${device.tracing.enabled:false}") boolean enabled) {
+        this.registries = registries;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!enabled) {
+            return bean;
+        }
+        Class<?> type = ClassUtils.getUserClass(bean);
+        String layer = LAYERS.get(type);
+        if (layer == null) {
+            return bean;
+        }
+        ProxyFactory proxy = new ProxyFactory(bean);
+        proxy.setProxyTargetClass(true);
+        proxy.addAdvice(observe(layer, type.getSimpleName()));
+        return proxy.getProxy(type.getClassLoader());
+    }
+
+    private MethodInterceptor observe(String layer, String type) {
+        return invocation -> {
+            if (invocation.getMethod().getDeclaringClass() == Object.class) {
+                return invocation.proceed();
+            }
+            String operation = type + "." + invocation.getMethod().getName();
+            return Observation.createNotStarted(TRACE_LAYER_OBSERVATION, registry())
+                    .contextualName(operation)
+                    .lowCardinalityKeyValue(TRACE_LAYER_KEY, layer)
+                    .lowCardinalityKeyValue("method", operation)
+                    .observeChecked(invocation::proceed);
+        };
+    }
+
+    private ObservationRegistry registry() {
+        ObservationRegistry current = registry;
+        if (current == null) {
+            current = registries.getIfAvailable(() -> ObservationRegistry.NOOP);
+            registry = current;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,105 @@
+package org.interview.devicecrud.config;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.interview.devicecrud.constants.DeviceStorageLayout;
+import org.interview.devicecrud.converter.DeviceFieldNamingStrategy;
+import org.interview.devicecrud.converter.DeviceReadConverter;
+import org.interview.devicecrud.converter.DeviceStateCodeConverter;
+import org.interview.devicecrud.converter.DeviceWriteConverter;
+import org.interview.devicecrud.converter.EpochMillisConverter;
+import org.interview.devicecrud.model.Device;
+import org.interview.devicecrud.service.ConsistencyTiers;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.autoconfigure.mongo.MongoProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoManagedTypes;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.observability.ContextProviderFactory;
+import org.springframework.data.mongodb.observability.MongoObservationCommandListener;
+
+import java.util.List;
+
+import static org.interview.devicecrud.constants.DeviceCrudConstants.FIELD_CREATION_TIME;
+import static org.interview.devicecrud.constants.DeviceCrudConstants.FIELD_STATE;
+
+@Configuration
+public class MongoConfig {
+
+    @Bean
+    public DeviceStorageLayout deviceStorageLayout(@Value("${device.storage.layout:STANDARD}") String layout) {
+        return DeviceStorageLayout.fromString(layout);
+    }
+
+    /**
+     * Registers the hand-written {@link org.interview.devicecrud.model.Device}
+     * converters so that template and repository reads bypass reflective mapping.
+     * Under the compact layout the state and creation time in criteria and
+     * updates are converted the same way the converters store them.
+     */
+    @Bean
+    public MongoCustomConversions mongoCustomConversions(DeviceStorageLayout layout) {
+        return MongoCustomConversions.create(adapter -> {
+            adapter.registerConverters(List.of(
+                    new DeviceReadConverter(),
+                    new DeviceWriteConverter(layout)));
+            if (layout == DeviceStorageLayout.COMPACT) {
+                adapter.configurePropertyConversions(registrar -> registrar
+                        .registerConverter(Device.class, FIELD_STATE, new DeviceStateCodeConverter())
+                        .registerConverter(Device.class, FIELD_CREATION_TIME, new EpochMillisConverter()));
+            }
+        });
+    }
+
+    /**
+     * Same as the auto-configured mapping context, with the device properties
+     * named after the configured {@link DeviceStorageLayout}.
+     */
+    @Bean
+    public MongoMappingContext mongoMappingContext(MongoProperties properties,
+                                                   MongoCustomConversions conversions,
+                                                   MongoManagedTypes managedTypes,
+                                                   DeviceStorageLayout layout) {
+        MongoMappingContext context = new MongoMappingContext();
+        if (properties.isAutoIndexCreation() != null) {
+            context.setAutoIndexCreation(properties.isAutoIndexCreation());
+        }
+        context.setManagedTypes(managedTypes);
+        context.setFieldNamingStrategy(new DeviceFieldNamingStrategy(layout));
+        context.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        return context;
+    }
+
+    /**
+     * Observes every Mongo command as a child of the observation it was issued
+     * in, so that request traces show the time spent in the database apart from
+     * the service layer. Only applied with {@code device.tracing.enabled}.
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoObservation(ObservationRegistry registry,
+                                                                 @Value("${device.tracing.enabled:false}") boolean enabled) {
+        return builder -> {
+            if (enabled) {
+                builder.contextProvider(ContextProviderFactory.create(registry))
+                        .addCommandListener(new MongoObservationCommandListener(registry));
+            }
+        };
+    }
+
+    /**
+     * Replaces the auto-configured template so that writes pick their write
+     * concern from the {@link ConsistencyTiers} of the running operation.
+     */
+    @Bean
+    public MongoTemplate mongoTemplate(MongoDatabaseFactory factory, MongoConverter converter,
+                                       ConsistencyTiers consistencyTiers) {
+        MongoTemplate template = new MongoTemplate(factory, converter);
+        template.setWriteConcernResolver(consistencyTiers);
+        return template;
+    }
+}
@@ -0,0 +1,79 @@
+package org.interview.devicecrud.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.interview.devicecrud.service.RequestDeadline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+
+/**
+ * Starts the {@link RequestDeadline} of every controller call. The budget is
+ * taken from the {@value #TIMEOUT_HEADER} header when present, otherwise from the
+ * {@link RequestTimeout} of the endpoint, otherwise from
+ * {@code device.deadline.default-ms}. It never exceeds {@code device.deadline.max-ms}.
+ */
+@Component
+public class RequestDeadlineInterceptor implements HandlerInterceptor {
+
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout-Ms";
+
+    private final Environment environment;
+    private final boolean enabled;
+    private final long defaultMs;
+    private final long maxMs;
+
+    public RequestDeadlineInterceptor(Environment environment,
+                                      @Value("${device.deadline.enabled:true}") boolean enabled,
+                                      @Value("${device.deadline.default-ms:5000}") long defaultMs,
+                                      @Value("${device.deadline.max-ms:60000}") long maxMs) {
+        this.environment = environment;
+        this.enabled = enabled;
+        this.defaultMs = defaultMs;
+        this.maxMs = maxMs;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (enabled && handler instanceof HandlerMethod method) {
+            RequestDeadline.start(Duration.ofMillis(Math.min(maxMs, budgetMs(request, method))));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        RequestDeadline.clear();
+    }
+
+    private long budgetMs(HttpServletRequest request, HandlerMethod method) {
+        String header = request.getHeader(TIMEOUT_HEADER);
+        if (StringUtils.hasText(header)) {
+            return parse(header.trim(), TIMEOUT_HEADER + " header");
+        }
+        RequestTimeout timeout = method.getMethodAnnotation(RequestTimeout.class);
+        if (timeout != null) {
+            return parse(environment.resolveRequiredPlaceholders(timeout.value()),
+                    "Request timeout of " + method.getShortLogMessage());
+        }
+        return defaultMs;
+    }
+
+    private long parse(String value, String source) {
+        try {
+            long ms = Long.parseLong(value);
+            if (ms > 0) {
+                return ms;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException(source + " must be a positive number of milliseconds");
+    }
+}
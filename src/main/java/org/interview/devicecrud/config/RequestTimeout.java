@@ -0,0 +1,18 @@
+package org.interview.devicecrud.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Default time budget of an endpoint in milliseconds, used when the request does
+ * not carry {@value RequestDeadlineInterceptor#TIMEOUT_HEADER}. Property
+ * placeholders are resolved, e.g. {@code @RequestTimeout("${device.deadline.scan-ms:10000}")}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequestTimeout {
+
+    String value();
+}
@@ -0,0 +1,7 @@
+package org.interview.devicecrud.constants;
+
+public enum BatchOperationStatus {
+    APPLIED,
+    FAILED,
+    SKIPPED
+}
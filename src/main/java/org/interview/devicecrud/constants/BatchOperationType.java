@@ -0,0 +1,8 @@
+package org.interview.devicecrud.constants;
+
+public enum BatchOperationType {
+    CREATE,
+    UPDATE,
+    UPDATE_BRAND,
+    DELETE
+}
@@ -0,0 +1,47 @@
+package org.interview.devicecrud.constants;
+
+import com.mongodb.ReadConcern;
+import com.mongodb.WriteConcern;
+
+/**
+ * Durability of writes and consistency of reads an operation runs with.
+ */
+public enum ConsistencyTier {
+    /** whatever the connection string sets */
+    DEFAULT(null, null),
+    /** acknowledged by the primary only, reads the node's latest data */
+    FAST(WriteConcern.W1, ReadConcern.LOCAL),
+    /** acknowledged and journaled by a majority, reads only majority-committed data */
+    DURABLE(WriteConcern.MAJORITY.withJournal(true), ReadConcern.MAJORITY);
+
+    private final WriteConcern writeConcern;
+    private final ReadConcern readConcern;
+
+    ConsistencyTier(WriteConcern writeConcern, ReadConcern readConcern) {
+        this.writeConcern = writeConcern;
+        this.readConcern = readConcern;
+    }
+
+    /**
+     * @return the write concern, or {@code null} for the default
+     */
+    public WriteConcern getWriteConcern() {
+        return writeConcern;
+    }
+
+    /**
+     * @return the read concern, or {@code null} for the default
+     */
+    public ReadConcern getReadConcern() {
+        return readConcern;
+    }
+
+    public static ConsistencyTier fromString(String tier) {
+        for (ConsistencyTier t : ConsistencyTier.values()) {
+            if (t.name().equalsIgnoreCase(tier)) {
+                return t;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported consistency tier " + tier + ". Must be one of: DEFAULT, FAST, DURABLE");
+    }
+}
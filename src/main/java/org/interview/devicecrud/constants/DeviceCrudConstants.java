@@ -2,4 +2,31 @@ package org.interview.devicecrud.constants;
 
 public class DeviceCrudConstants {
 
+    public static final String DEVICE_COLLECTION = "device";
+    public static final String ARCHIVE_COLLECTION = "device_archive";
+
+    public static final String TRACES_PATH = "/private/v1/device/traces";
+    public static final String TRACE_LAYER_OBSERVATION = "device.layer";
+    public static final String TRACE_LAYER_KEY = "layer";
+
+    public static final String FIELD_ID = "_id";
+    public static final String FIELD_NAME = "name";
+    public static final String FIELD_BRAND = "brand";
+    public static final String FIELD_STATE = "state";
+    public static final String FIELD_CREATION_TIME = "creationTime";
+    public static final String FIELD_LEASE_EXPIRES_AT = "leaseExpiresAt";
+    public static final String FIELD_INACTIVE_SINCE = "inactiveSince";
+    public static final String FIELD_ARCHIVED_AT = "archivedAt";
+
+    public static final int MAX_BATCH_OPERATIONS = 1000;
+    public static final int MAX_MULTI_GET_IDS = 1000;
+    public static final int DEFAULT_SEARCH_LIMIT = 10;
+    public static final int MAX_SEARCH_LIMIT = 50;
+    public static final long MAX_LEASE_SECONDS = 7 * 24 * 3600;
+    public static final int MAX_EXPORT_PARALLELISM = 16;
+    public static final int MAX_HISTORY_PAGE_SIZE = 100;
+    public static final int MIN_ARCHIVE_AFTER_DAYS = 1;
+
+    private DeviceCrudConstants() {
+    }
 }
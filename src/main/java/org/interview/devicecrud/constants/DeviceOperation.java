@@ -0,0 +1,34 @@
+package org.interview.devicecrud.constants;
+
+/**
+ * Individual operations of {@code DeviceCrudService}, each of which can be given
+ * its own {@link ConsistencyTier} with {@code device.consistency.<key>}.
+ */
+public enum DeviceOperation {
+    CREATE,
+    UPDATE,
+    UPDATE_BRAND,
+    DELETE,
+    TRANSITION,
+    REBRAND,
+    CHECKOUT,
+    CHECKIN,
+    BATCH,
+    POINT_READ,
+    SCAN,
+    /** writes and reads of the device history */
+    HISTORY,
+    /** copies of inactive devices to the archive and their removal from the device collection */
+    ARCHIVE,
+    /** rewrites of device documents into another storage layout */
+    MIGRATE,
+    /** bulk inserts of imported devices */
+    IMPORT;
+
+    /**
+     * @return the property key, e.g. {@code update-brand}
+     */
+    public String key() {
+        return name().toLowerCase().replace('_', '-');
+    }
+}
@@ -1,21 +1,30 @@
 package org.interview.devicecrud.constants;
 
 public enum DeviceState {
-    AVAILABLE("AVAILABLE"),
-    IN_USE("IN_USE"),
-    INACTIVE("INACTIVE"),
-    INVALID("INVALID");  // New invalid state
+    AVAILABLE("AVAILABLE", 1),
+    IN_USE("IN_USE", 2),
+    INACTIVE("INACTIVE", 3),
+    INVALID("INVALID", 0);  // New invalid state
 
     private final String value;
+    private final int code;
 
-    DeviceState(String value) {
+    DeviceState(String value, int code) {
         this.value = value;
+        this.code = code;
     }
 
     public String getValue() {
         return value;
     }
 
+    /**
+     * @return the number stored for this state in the compact storage layout
+     */
+    public int getCode() {
+        return code;
+    }
+
     public static boolean isValidState(String state) {
         for (DeviceState ds : DeviceState.values()) {
             if (ds.getValue().equalsIgnoreCase(state) && ds != INVALID) {
@@ -33,4 +42,40 @@ public enum DeviceState {
         }
         return INVALID;
     }
+
+    /**
+     * Resolves the state from its stored value. Stored values are always
+     * written in their canonical form, so an exact switch avoids scanning
+     * {@link #values()} on every decoded document.
+     *
+     * @param value the persisted state value
+     * @return the matching state, or {@link #INVALID} if unknown
+     */
+    public static DeviceState fromValue(String value) {
+        if (value == null) {
+            return INVALID;
+        }
+        return switch (value) {
+            case "AVAILABLE" -> AVAILABLE;
+            case "IN_USE" -> IN_USE;
+            case "INACTIVE" -> INACTIVE;
+            case "INVALID" -> INVALID;
+            default -> fromString(value);
+        };
+    }
+
+    /**
+     * Resolves the state from its compact storage code.
+     *
+     * @param code the persisted state code
+     * @return the matching state, or {@link #INVALID} if unknown
+     */
+    public static DeviceState fromCode(int code) {
+        return switch (code) {
+            case 1 -> AVAILABLE;
+            case 2 -> IN_USE;
+            case 3 -> INACTIVE;
+            default -> INVALID;
+        };
+    }
 }
@@ -0,0 +1,126 @@
+package org.interview.devicecrud.constants;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.interview.devicecrud.constants.DeviceCrudConstants.*;
+
+/**
+ * How a device is laid out in its Mongo document, chosen with
+ * {@code device.storage.layout}.
+ * <p>
+ * {@link #STANDARD} keeps the full property names, the state as its name and the
+ * creation time as a date. {@link #COMPACT} uses one letter keys, the state
+ * {@linkplain DeviceState#getCode() code} and the creation time in epoch
+ * millis, which saves about a third of every document and of the indexes on
+ * state and creation time. Reading accepts both layouts, so documents can be
+ * migrated while the application runs.
+ */
+public enum DeviceStorageLayout {
+    STANDARD(FIELD_NAME, FIELD_BRAND, FIELD_STATE, FIELD_CREATION_TIME),
+    COMPACT("n", "b", "s", "t");
+
+    private final String nameKey;
+    private final String brandKey;
+    private final String stateKey;
+    private final String creationTimeKey;
+
+    DeviceStorageLayout(String nameKey, String brandKey, String stateKey, String creationTimeKey) {
+        this.nameKey = nameKey;
+        this.brandKey = brandKey;
+        this.stateKey = stateKey;
+        this.creationTimeKey = creationTimeKey;
+    }
+
+    /**
+     * @param property a {@code Device} property, e.g. {@link DeviceCrudConstants#FIELD_BRAND}
+     * @return the key it is stored under, the property itself for keys the layout does not change
+     */
+    public String field(String property) {
+        return switch (property) {
+            case FIELD_NAME -> nameKey;
+            case FIELD_BRAND -> brandKey;
+            case FIELD_STATE -> stateKey;
+            case FIELD_CREATION_TIME -> creationTimeKey;
+            default -> property;
+        };
+    }
+
+    /**
+     * @return the keys of the device properties in this layout
+     */
+    public List<String> keys() {
+        return List.of(nameKey, brandKey, stateKey, creationTimeKey);
+    }
+
+    public Object writeState(DeviceState state) {
+        if (state == null) {
+            return null;
+        }
+        return this == COMPACT ? state.getCode() : state.getValue();
+    }
+
+    public Object writeCreationTime(LocalDateTime creationTime) {
+        if (creationTime == null) {
+            return null;
+        }
+        Instant instant = creationTime.atZone(ZoneId.systemDefault()).toInstant();
+        return this == COMPACT ? instant.toEpochMilli() : Date.from(instant);
+    }
+
+    /**
+     * @return the value of a device property in a stored document of either layout
+     */
+    public static Object read(Map<String, Object> document, String property) {
+        for (DeviceStorageLayout layout : values()) {
+            Object value = document.get(layout.field(property));
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads a stored state in either layout.
+     */
+    public static DeviceState readState(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number code) {
+            return DeviceState.fromCode(code.intValue());
+        }
+        return DeviceState.fromValue(value.toString());
+    }
+
+    /**
+     * Reads a stored creation time in either layout.
+     */
+    public static LocalDateTime readCreationTime(Object value) {
+        if (value instanceof Date date) {
+            return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+        }
+        if (value instanceof Number millis) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis.longValue()), ZoneId.systemDefault());
+        }
+        if (value instanceof LocalDateTime localDateTime) {
+            return localDateTime;
+        }
+        return null;
+    }
+
+    public static DeviceStorageLayout fromString(String layout) {
+        for (DeviceStorageLayout l : DeviceStorageLayout.values()) {
+            if (l.name().equalsIgnoreCase(layout)) {
+                return l;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported device storage layout " + layout
+                + ". Must be one of: STANDARD, COMPACT");
+    }
+}
@@ -0,0 +1,23 @@
+package org.interview.devicecrud.constants;
+
+/**
+ * What the device history does with a change when its buffer is full.
+ */
+public enum HistoryOverflowPolicy {
+    /** discard the new change, the request is never delayed */
+    DROP_NEWEST,
+    /** discard the oldest buffered change to make room, the request is never delayed */
+    DROP_OLDEST,
+    /** wait a bounded time for room, then discard the new change */
+    BLOCK;
+
+    public static HistoryOverflowPolicy fromString(String policy) {
+        for (HistoryOverflowPolicy p : HistoryOverflowPolicy.values()) {
+            if (p.name().equalsIgnoreCase(policy)) {
+                return p;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported history overflow policy " + policy
+                + ". Must be one of: DROP_NEWEST, DROP_OLDEST, BLOCK");
+    }
+}
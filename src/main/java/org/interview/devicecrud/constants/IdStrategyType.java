@@ -0,0 +1,21 @@
+package org.interview.devicecrud.constants;
+
+/**
+ * How new device ids are built, chosen with {@code device.id.strategy}.
+ */
+public enum IdStrategyType {
+    /** {@code ENV-NAME-BRAND-HASH}, derived from the name and brand */
+    HASHED,
+    /** {@code ENV-} and a time-ordered random id, duplicates are caught by a unique name and brand index */
+    TIME_ORDERED;
+
+    public static IdStrategyType fromString(String strategy) {
+        for (IdStrategyType s : IdStrategyType.values()) {
+            if (s.name().equalsIgnoreCase(strategy)) {
+                return s;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported device id strategy " + strategy
+                + ". Must be one of: HASHED, TIME_ORDERED");
+    }
+}
@@ -0,0 +1,15 @@
+package org.interview.devicecrud.constants;
+
+public enum ImportFormat {
+    NDJSON,
+    CSV;
+
+    public static ImportFormat fromString(String format) {
+        for (ImportFormat f : ImportFormat.values()) {
+            if (f.name().equalsIgnoreCase(format)) {
+                return f;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported import format. Must be one of: NDJSON, CSV");
+    }
+}
@@ -0,0 +1,9 @@
+package org.interview.devicecrud.constants;
+
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    CANCELLED
+}
@@ -0,0 +1,9 @@
+package org.interview.devicecrud.constants;
+
+public enum JobType {
+    IMPORT,
+    REBRAND,
+    EXPORT,
+    ARCHIVE,
+    MIGRATE_LAYOUT
+}
@@ -0,0 +1,14 @@
+package org.interview.devicecrud.constants;
+
+/**
+ * Cost class of a call into {@code DeviceCrudService}, used to keep budgets
+ * and failure handling of cheap and expensive operations apart.
+ */
+public enum OperationType {
+    /** lookup of a single device by id */
+    POINT_READ,
+    /** listing or multi-device read */
+    SCAN,
+    /** any insert, update or delete */
+    WRITE
+}
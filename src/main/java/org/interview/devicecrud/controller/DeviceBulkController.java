@@ -0,0 +1,137 @@
+package org.interview.devicecrud.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.interview.devicecrud.aggregator.DeviceCrudAggregator;
+import org.interview.devicecrud.config.RequestTimeout;
+import org.interview.devicecrud.model.DeviceBatchRequest;
+import org.interview.devicecrud.model.DeviceBatchResult;
+import org.interview.devicecrud.model.DeviceBulkUpdateResult;
+import org.interview.devicecrud.model.DeviceImportResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.util.List;
+
+@RestController
+@RequestMapping("/private/v1/device")
+@Tag(name = "Device bulk operations", description = "This API facilitates bulk operations on Devices")
+public class DeviceBulkController {
+    private static final Logger logger = LoggerFactory.getLogger(DeviceBulkController.class);
+
+    private final DeviceCrudAggregator deviceAggregator;
+
+    public DeviceBulkController(DeviceCrudAggregator deviceAggregator) {
+        this.deviceAggregator = deviceAggregator;
+    }
+
+    @Operation(summary = "Import devices from an NDJSON or CSV request body")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import finished, see the report file for rejected lines",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = DeviceImportResult.class),
+                            examples = @io.swagger.v3.oas.annotations.media.ExampleObject(value = "{\"processed\":1000,\"inserted\":998,\"failed\":2,\"reportFile\":\"/tmp/device-import-1716540000000.log\"}")
+                    )),
+            @ApiResponse(responseCode = "400", description = "Unsupported import format",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(example = "{\"timestamp\":\"2025-05-25T12:34:56\",\"status\":400,\"error\":\"Bad Request\",\"message\":\"Unsupported import format. Must be one of: NDJSON, CSV\"}")
+                    )),
+            @ApiResponse(responseCode = "500", description = "Internal server error during import",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(example = "{\"timestamp\":\"2025-05-25T12:34:56\",\"status\":500,\"error\":\"Internal Server Error\",\"message\":\"Failed to import devices\"}")
+                    ))
+    })
+    @PostMapping("/import")
+    @RequestTimeout("${device.deadline.bulk-ms:60000}")
+    public ResponseEntity<DeviceImportResult> importDevices(@RequestParam(defaultValue = "NDJSON") String format,
+                                                            InputStream body) {
+        logger.info("Received device import request in {} format", format);
+        DeviceImportResult result = deviceAggregator.importDevices(body, format);
+        logger.info("Imported {} of {} devices", result.getInserted(), result.getProcessed());
+        return ResponseEntity.ok(result);
+    }
+
+    @Operation(summary = "Apply an ordered list of create, update, brand update and delete operations")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed, see the per-operation status",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = DeviceBatchResult.class, type = "array"),
+                            examples = @io.swagger.v3.oas.annotations.media.ExampleObject(value = "[{\"index\":0,\"operation\":\"CREATE\",\"id\":\"DEV-GALA-SAMS-1A2B3C\",\"status\":\"APPLIED\",\"message\":null},{\"index\":1,\"operation\":\"DELETE\",\"id\":\"DEV-XPS1-DELL-4D5E6F\",\"status\":\"FAILED\",\"message\":\"Cannot delete device that is in use\"}]")
+                    )),
+            @ApiResponse(responseCode = "400", description = "Too many operations in the batch",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(example = "{\"timestamp\":\"2025-05-25T12:34:56\",\"status\":400,\"error\":\"Bad Request\",\"message\":\"A batch may contain at most 1000 operations\"}")
+                    )),
+            @ApiResponse(responseCode = "500", description = "Internal server error during batch",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(example = "{\"timestamp\":\"2025-05-25T12:34:56\",\"status\":500,\"error\":\"Internal Server Error\",\"message\":\"Failed to apply device batch\"}")
+                    ))
+    })
+    @PostMapping("/batch")
+    @RequestTimeout("${device.deadline.bulk-ms:60000}")
+    public ResponseEntity<List<DeviceBatchResult>> batch(@RequestBody DeviceBatchRequest batchRequest) {
+        logger.debug("Received device batch request: {}", batchRequest);
+        List<DeviceBatchResult> results = deviceAggregator.applyBatch(batchRequest);
+        logger.info("Processed batch of {} operations", results.size());
+        return ResponseEntity.ok(results);
+    }
+
+    @Operation(summary = "Move every device of a brand that is not in use to a new brand")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Devices rebranded",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = DeviceBulkUpdateResult.class),
+                            examples = @io.swagger.v3.oas.annotations.media.ExampleObject(value = "{\"matched\":120,\"modified\":120}")
+                    )),
+            @ApiResponse(responseCode = "400", description = "Invalid brand",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(example = "{\"timestamp\":\"2025-05-25T12:34:56\",\"status\":400,\"error\":\"Bad Request\",\"message\":\"Device brand cannot be empty.Please enter a valid brand.\"}")
+                    )),
+            @ApiResponse(responseCode = "500", description = "Internal server error during rebrand",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(example = "{\"timestamp\":\"2025-05-25T12:34:56\",\"status\":500,\"error\":\"Internal Server Error\",\"message\":\"Failed to rebrand devices\"}")
+                    ))
+    })
+    @PutMapping("/rebrand/{brand}/{newBrand}")
+    @RequestTimeout("${device.deadline.bulk-ms:60000}")
+    public ResponseEntity<DeviceBulkUpdateResult> rebrand(@PathVariable String brand, @PathVariable String newBrand) {
+        logger.debug("Received request to rebrand devices of brand {} to {}", brand, newBrand);
+        DeviceBulkUpdateResult result = deviceAggregator.rebrandDevices(brand, newBrand);
+        logger.info("Rebranded {} devices from {} to {}", result.getModified(), brand, newBrand);
+        return ResponseEntity.ok(result);
+    }
+
+    @Operation(summary = "Move every device in a state, optionally of one brand, to another state")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Devices transitioned",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = DeviceBulkUpdateResult.class),
+                            examples = @io.swagger.v3.oas.annotations.media.ExampleObject(value = "{\"matched\":40,\"modified\":40}")
+                    )),
+            @ApiResponse(responseCode = "400", description = "Invalid state",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(example = "{\"timestamp\":\"2025-05-25T12:34:56\",\"status\":400,\"error\":\"Bad Request\",\"message\":\"Invalid or blank device state. Must be one of: AVAILABLE, IN_USE, INACTIVE\"}")
+                    )),
+            @ApiResponse(responseCode = "500", description = "Internal server error during transition",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(example = "{\"timestamp\":\"2025-05-25T12:34:56\",\"status\":500,\"error\":\"Internal Server Error\",\"message\":\"Failed to transition devices\"}")
+                    ))
+    })
+    @PutMapping("/transition")
+    @RequestTimeout("${device.deadline.bulk-ms:60000}")
+    public ResponseEntity<DeviceBulkUpdateResult> transition(@RequestParam(required = false) String brand,
+                                                             @RequestParam String from,
+                                                             @RequestParam String to) {
+        logger.debug("Received request to move devices of brand {} from {} to {}", brand, from, to);
+        DeviceBulkUpdateResult result = deviceAggregator.transitionDevices(brand, from, to);
+        logger.info("Moved {} devices from {} to {}", result.getModified(), from, to);
+        return ResponseEntity.ok(result);
+    }
+}
@@ -8,16 +8,20 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.interview.devicecrud.aggregator.DeviceCrudAggregator;
+import org.interview.devicecrud.config.RequestTimeout;
 import org.interview.devicecrud.model.Device;
 import org.interview.devicecrud.model.DeviceCreationRequest;
+import org.interview.devicecrud.model.DeviceMultiGetResult;
+import org.interview.devicecrud.model.DeviceSearchHit;
 import org.interview.devicecrud.model.DeviceUpdationRequest;
-import org.interview.devicecrud.service.DeviceCrudService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -27,14 +31,13 @@ public class DeviceCrudController {
     private static final Logger logger = LoggerFactory.getLogger(DeviceCrudController.class);
 
     private final DeviceCrudAggregator deviceAggregator;
-    private final DeviceCrudService deviceService;
 
-    public DeviceCrudController(DeviceCrudAggregator deviceAggregator, DeviceCrudService deviceService) {
+    public DeviceCrudController(DeviceCrudAggregator deviceAggregator) {
         this.deviceAggregator = deviceAggregator;
-        this.deviceService = deviceService;
     }
 
-    @Operation(summary = "Create a device")
+    @Operation(summary = "Create a device",
+            description = "Send an Idempotency-Key header to make retries safe: a retry with the same key and body gets the original response.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Device created successfully",
                     content = @Content(mediaType = "application/json",
@@ -62,7 +65,8 @@ public class DeviceCrudController {
         return new ResponseEntity<>(createdDevice, HttpStatus.CREATED);
     }
 
-    @Operation(summary = "Update a device")
+    @Operation(summary = "Update a device",
+            description = "Send an Idempotency-Key header to make retries safe: a retry with the same key and body gets the original response.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Device updated successfully",
                     content = @Content(mediaType = "application/json",
@@ -86,7 +90,8 @@ public class DeviceCrudController {
         return ResponseEntity.ok(updatedDevice);
     }
 
-    @Operation(summary = "Update brand of a device if it is not in use")
+    @Operation(summary = "Update brand of a device if it is not in use",
+            description = "An archived device is restored to the device collection with the new brand.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Brand updated successfully",
                     content = @Content(mediaType = "application/json",
@@ -104,7 +109,7 @@ public class DeviceCrudController {
     @PutMapping("updateBrand/{id}/{newBrand}")
     public ResponseEntity<String> update(@PathVariable String id, @PathVariable String newBrand) {
         logger.debug("Received request to update brand for device id: {} to new brand: {}", id, newBrand);
-        String response = deviceService.updateBrandIfNotInUse(id, newBrand);
+        String response = deviceAggregator.updateBrand(id, newBrand);
         logger.info("Brand updated to {} for device id {}", newBrand, id);
         return ResponseEntity.ok(response);
     }
@@ -126,6 +131,7 @@ public class DeviceCrudController {
                     ))
     })
     @GetMapping("/fetch/{id}")
+    @RequestTimeout("${device.deadline.point-read-ms:1000}")
     public ResponseEntity<Device> get(@PathVariable String id) {
         logger.debug("Start fetch device details for id : {}", id);
         Device device = deviceAggregator.getDeviceById(id);
@@ -133,7 +139,32 @@ public class DeviceCrudController {
         return ResponseEntity.ok(device);
     }
 
-    @Operation(summary = "Fetch all devices with optional filters")
+    @Operation(summary = "Fetch many devices by ID in one call")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Devices fetched successfully",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = DeviceMultiGetResult.class),
+                            examples = @io.swagger.v3.oas.annotations.media.ExampleObject(value = "{\"devices\":[{\"id\":\"123\",\"brand\":\"Apple\",\"model\":\"iPhone 14\",\"state\":\"NEW\"}],\"missing\":[\"124\"]}")
+                    )),
+            @ApiResponse(responseCode = "400", description = "Invalid or too many device IDs",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(example = "{\"timestamp\":\"2025-05-25T12:34:56\",\"status\":400,\"error\":\"Bad Request\",\"message\":\"Please enter a valid device id\"}")
+                    )),
+            @ApiResponse(responseCode = "500", description = "Internal server error during fetch",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(example = "{\"timestamp\":\"2025-05-25T12:34:56\",\"status\":500,\"error\":\"Internal Server Error\",\"message\":\"Database error occurred\"}")
+                    ))
+    })
+    @PostMapping("/fetchMany")
+    @RequestTimeout("${device.deadline.scan-ms:10000}")
+    public ResponseEntity<DeviceMultiGetResult> getMany(@RequestBody List<String> ids) {
+        logger.debug("Start fetch device details for {} ids", ids.size());
+        DeviceMultiGetResult result = deviceAggregator.getDevicesByIds(ids);
+        logger.info("Fetched {} devices, {} missing", result.getDevices().size(), result.getMissing().size());
+        return ResponseEntity.ok(result);
+    }
+
+    @Operation(summary = "Fetch all devices with optional filters. brand and state may be repeated to match any of several values")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Devices fetched successfully",
                     content = @Content(mediaType = "application/json",
@@ -146,18 +177,88 @@ public class DeviceCrudController {
                     ))
     })
     @GetMapping("/fetch")
-    public ResponseEntity<List<Device>> getAll(@RequestParam(required = false) String brand,
-                                               @RequestParam(required = false) String state) {
-        logger.debug("Fetching devices{}",
-                (brand != null && state != null) ? String.format(" with brand='%s' and state='%s'", brand, state)
-                        : (brand != null) ? String.format(" with brand='%s'", brand)
-                        : (state != null) ? String.format(" with state='%s'", state)
-                        : " : ALL");
-        List<Device> deviceList = deviceAggregator.fetchDevices(brand, state);
+    @RequestTimeout("${device.deadline.scan-ms:10000}")
+    public ResponseEntity<List<Device>> getAll(@RequestParam(required = false) List<String> brand,
+                                               @RequestParam(required = false) List<String> state,
+                                               @RequestParam(required = false)
+                                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+                                               @RequestParam(required = false)
+                                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo) {
+        logger.debug("Fetching devices with brand={}, state={}, createdFrom={}, createdTo={}",
+                brand, state, createdFrom, createdTo);
+        List<Device> deviceList = deviceAggregator.fetchDevices(brand, state, createdFrom, createdTo);
         logger.info("Fetched {} devices", deviceList.size());
         return ResponseEntity.ok(deviceList);
     }
 
+    @Operation(summary = "Search devices by partial name or brand")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Ranked matches, best first",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = DeviceSearchHit.class, type = "array"),
+                            examples = @io.swagger.v3.oas.annotations.media.ExampleObject(value = "[{\"id\":\"123\",\"name\":\"iPhone 14\",\"brand\":\"Apple\"}]")
+                    )),
+            @ApiResponse(responseCode = "400", description = "Blank query or invalid limit",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(example = "{\"timestamp\":\"2025-05-25T12:34:56\",\"status\":400,\"error\":\"Bad Request\",\"message\":\"Search query must not be blank\"}")
+                    )),
+            @ApiResponse(responseCode = "503", description = "Search index not enabled or still building",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(example = "{\"timestamp\":\"2025-05-25T12:34:56\",\"status\":503,\"error\":\"Service Unavailable\",\"message\":\"Device search is not available\"}")
+                    ))
+    })
+    @GetMapping("/search")
+    public ResponseEntity<List<DeviceSearchHit>> search(@RequestParam String q,
+                                                        @RequestParam(required = false) Integer limit) {
+        logger.debug("Searching devices for '{}'", q);
+        List<DeviceSearchHit> hits = deviceAggregator.searchDevices(q, limit);
+        logger.info("Search for '{}' returned {} devices", q, hits.size());
+        return ResponseEntity.ok(hits);
+    }
+
+    @Operation(summary = "Check out an available device", description = "Atomically claims one AVAILABLE device, optionally of the given brands, and marks it IN_USE. With a lease the device is returned automatically once it expires. Archived devices are inactive and never checked out.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Device checked out",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = Device.class)
+                    )),
+            @ApiResponse(responseCode = "400", description = "Invalid lease",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(example = "{\"timestamp\":\"2025-05-25T12:34:56\",\"status\":400,\"error\":\"Bad Request\",\"message\":\"Lease must be between 1 and 604800 seconds\"}")
+                    )),
+            @ApiResponse(responseCode = "404", description = "No available device matches",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(example = "{\"timestamp\":\"2025-05-25T12:34:56\",\"status\":404,\"error\":\"Not Found\",\"message\":\"No available device matches the request\"}")
+                    ))
+    })
+    @PostMapping("/checkout")
+    public ResponseEntity<Device> checkout(@RequestParam(required = false) List<String> brand,
+                                           @RequestParam(required = false) Long leaseSeconds) {
+        logger.info("Received checkout request for brands {} with lease {}s", brand, leaseSeconds);
+        Device device = deviceAggregator.checkoutDevice(brand, leaseSeconds);
+        logger.info("Checked out device {}", device.getId());
+        return ResponseEntity.ok(device);
+    }
+
+    @Operation(summary = "Check in a device", description = "Returns a checked out device so it becomes AVAILABLE again.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Device checked in",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = Device.class)
+                    )),
+            @ApiResponse(responseCode = "500", description = "Device not in use or not found",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(example = "{\"timestamp\":\"2025-05-25T12:34:56\",\"status\":500,\"error\":\"Internal Server Error\",\"message\":\"Device is either not in use or not found.\"}")
+                    ))
+    })
+    @PostMapping("/checkin/{id}")
+    public ResponseEntity<Device> checkin(@PathVariable String id) {
+        logger.info("Received checkin request for device id: {}", id);
+        Device device = deviceAggregator.checkinDevice(id);
+        logger.info("Checked in device {}", id);
+        return ResponseEntity.ok(device);
+    }
+
     @Operation(summary = "Delete a device by ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Device deleted successfully",
@@ -1,8 +1,10 @@
 package org.interview.devicecrud.controller;
 
+import com.mongodb.MongoExecutionTimeoutException;
 import org.interview.devicecrud.exception.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -56,12 +58,49 @@ public class DeviceCrudControllerAdvice {
         return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
     }
 
+    @ExceptionHandler(SearchUnavailableException.class)
+    public ResponseEntity<Object> handleSearchUnavailable(SearchUnavailableException ex) {
+        logger.warn("Search unavailable: {}", ex.getMessage());
+        return buildResponse(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+    }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<Object> handleServiceOverloaded(ServiceOverloadedException ex) {
+        logger.warn("Request shed: {}", ex.getMessage());
+        ResponseEntity<Object> response = buildResponse(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+        return ResponseEntity.status(response.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(response.getBody());
+    }
+
+    @ExceptionHandler(NoAvailableDeviceException.class)
+    public ResponseEntity<Object> handleNoAvailableDevice(NoAvailableDeviceException ex) {
+        logger.warn("Checkout failed: {}", ex.getMessage());
+        return buildResponse(HttpStatus.NOT_FOUND, ex.getMessage());
+    }
+
+    @ExceptionHandler(DeadlineExceededException.class)
+    public ResponseEntity<Object> handleDeadlineExceeded(DeadlineExceededException ex) {
+        logger.warn("Request abandoned: {}", ex.getMessage());
+        return buildResponse(HttpStatus.GATEWAY_TIMEOUT, ex.getMessage());
+    }
 
     @ExceptionHandler(MongoDBException.class)
     public ResponseEntity<Object> handleMongoDBException(MongoDBException ex) {
+        if (exceededMaxTime(ex)) {
+            logger.warn("Query stopped at the request deadline: {}", ex.getMessage());
+            return buildResponse(HttpStatus.GATEWAY_TIMEOUT, "Request deadline exceeded");
+        }
         logger.error("MongoDB operation failed: {}", ex.getMessage(), ex);
         return buildResponse(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage()+" "+ ex.getException());
     }
+
+    @ExceptionHandler(DeviceFileException.class)
+    public ResponseEntity<Object> handleDeviceFileException(DeviceFileException ex) {
+        logger.error("File operation failed: {}", ex.getMessage(), ex);
+        return buildResponse(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage() + " " + ex.getException());
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<Object> handleMongoDBException(IllegalArgumentException ex) {
         logger.error("MongoDB operation failed: {}", ex.getMessage(), ex);
@@ -73,4 +112,13 @@ public class DeviceCrudControllerAdvice {
         logger.error("Unhandled exception occurred: {}", ex.getMessage(), ex);
         return buildResponse(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred.");
     }
+
+    private boolean exceededMaxTime(Throwable error) {
+        for (Throwable t = error; t != null && t.getCause() != t; t = t.getCause()) {
+            if (t instanceof MongoExecutionTimeoutException || t instanceof DeadlineExceededException) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,50 @@
+package org.interview.devicecrud.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.interview.devicecrud.config.RequestTimeout;
+import org.interview.devicecrud.model.DeviceHistoryPage;
+import org.interview.devicecrud.service.DeviceHistoryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/private/v1/device/history")
+@Tag(name = "Device history", description = "This API returns the recorded changes of a Device")
+public class DeviceHistoryController {
+    private static final Logger logger = LoggerFactory.getLogger(DeviceHistoryController.class);
+
+    private final DeviceHistoryService historyService;
+
+    public DeviceHistoryController(DeviceHistoryService historyService) {
+        this.historyService = historyService;
+    }
+
+    @Operation(summary = "Fetch the change history of a device, newest change first",
+            description = "History is written asynchronously, so the latest change may take up to the flush interval to appear.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "History page",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = DeviceHistoryPage.class),
+                            examples = @io.swagger.v3.oas.annotations.media.ExampleObject(value = "{\"deviceId\":\"DEV-GALA-SAMS-1A2B3C\",\"page\":0,\"size\":20,\"hasMore\":false,\"entries\":[{\"id\":\"6650f1c2a1b2c3d4e5f60718\",\"deviceId\":\"DEV-GALA-SAMS-1A2B3C\",\"type\":\"UPDATED\",\"name\":\"Galaxy\",\"brand\":\"Samsung\",\"state\":\"IN_USE\",\"changedAt\":\"2025-05-25T12:34:56.000+00:00\"}]}")
+                    )),
+            @ApiResponse(responseCode = "400", description = "Invalid page or page size",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(example = "{\"timestamp\":\"2025-05-25T12:34:56\",\"status\":400,\"error\":\"Bad Request\",\"message\":\"History page size must be between 1 and 100\"}")
+                    ))
+    })
+    @GetMapping("/{id}")
+    @RequestTimeout("${device.deadline.scan-ms:10000}")
+    public ResponseEntity<DeviceHistoryPage> getHistory(@PathVariable String id,
+                                                        @RequestParam(defaultValue = "0") int page,
+                                                        @RequestParam(defaultValue = "20") int size) {
+        logger.debug("Fetching history page {} of device {}", page, id);
+        return ResponseEntity.ok(historyService.getHistory(id, page, size));
+    }
+}
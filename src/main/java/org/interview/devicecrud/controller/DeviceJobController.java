@@ -0,0 +1,161 @@
+package org.interview.devicecrud.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.interview.devicecrud.constants.DeviceStorageLayout;
+import org.interview.devicecrud.constants.ImportFormat;
+import org.interview.devicecrud.model.DeviceJob;
+import org.interview.devicecrud.service.DeviceJobService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+
+import static org.interview.devicecrud.constants.DeviceCrudConstants.DEVICE_COLLECTION;
+
+@RestController
+@RequestMapping("/private/v1/device/jobs")
+@Tag(name = "Device jobs", description = "This API runs long bulk operations on Devices in the background")
+public class DeviceJobController {
+    private static final Logger logger = LoggerFactory.getLogger(DeviceJobController.class);
+
+    private final DeviceJobService jobService;
+
+    public DeviceJobController(DeviceJobService jobService) {
+        this.jobService = jobService;
+    }
+
+    @Operation(summary = "Import devices from an NDJSON or CSV request body in the background")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Job queued",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = DeviceJob.class)
+                    )),
+            @ApiResponse(responseCode = "400", description = "Unsupported import format",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(example = "{\"timestamp\":\"2025-05-25T12:34:56\",\"status\":400,\"error\":\"Bad Request\",\"message\":\"Unsupported import format. Must be one of: NDJSON, CSV\"}")
+                    ))
+    })
+    @PostMapping("/import")
+    public ResponseEntity<DeviceJob> importDevices(@RequestParam(defaultValue = "NDJSON") String format,
+                                                   InputStream body) {
+        logger.info("Received import job in {} format", format);
+        return accepted(jobService.submitImport(body, ImportFormat.fromString(format)));
+    }
+
+    @Operation(summary = "Move every device of a brand that is not in use to a new brand in the background")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Job queued",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = DeviceJob.class)
+                    )),
+            @ApiResponse(responseCode = "400", description = "Invalid brand",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(example = "{\"timestamp\":\"2025-05-25T12:34:56\",\"status\":400,\"error\":\"Bad Request\",\"message\":\"Device brand cannot be empty.Please enter a valid brand.\"}")
+                    ))
+    })
+    @PostMapping("/rebrand/{brand}/{newBrand}")
+    public ResponseEntity<DeviceJob> rebrand(@PathVariable String brand, @PathVariable String newBrand) {
+        logger.info("Received rebrand job from {} to {}", brand, newBrand);
+        return accepted(jobService.submitRebrand(brand, newBrand));
+    }
+
+    @Operation(summary = "Export all devices to gzip compressed NDJSON files in the background",
+            description = "The id space is split into parallelism ranges written concurrently. The job message points to a manifest with counts and SHA-256 checksums per file.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Job queued",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = DeviceJob.class)
+                    )),
+            @ApiResponse(responseCode = "400", description = "Invalid field or parallelism",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(example = "{\"timestamp\":\"2025-05-25T12:34:56\",\"status\":400,\"error\":\"Bad Request\",\"message\":\"Export parallelism must be between 1 and 16\"}")
+                    ))
+    })
+    @PostMapping("/export")
+    public ResponseEntity<DeviceJob> export(@RequestParam(required = false) List<String> fields,
+                                            @RequestParam(defaultValue = "4") int parallelism) {
+        logger.info("Received export job for fields {} with parallelism {}", fields, parallelism);
+        return accepted(jobService.submitExport(fields, parallelism));
+    }
+
+    @Operation(summary = "Move devices inactive for more than the given number of days to the archive in the background",
+            description = "Archived devices are still returned by id. While an archive job is queued or running that job is returned instead of a new one.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Job queued",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = DeviceJob.class)
+                    )),
+            @ApiResponse(responseCode = "400", description = "Invalid number of days",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(example = "{\"timestamp\":\"2025-05-25T12:34:56\",\"status\":400,\"error\":\"Bad Request\",\"message\":\"Devices can only be archived after at least 1 day of inactivity\"}")
+                    ))
+    })
+    @PostMapping("/archive")
+    public ResponseEntity<DeviceJob> archive(@RequestParam(defaultValue = "${device.archive.after-days:90}") int afterDays) {
+        logger.info("Received archive job for devices inactive for {} days", afterDays);
+        return accepted(jobService.submitArchive(afterDays));
+    }
+
+    @Operation(summary = "Rewrite the devices of a collection into another storage layout in the background",
+            description = "Devices stay readable in either layout throughout. Devices changed while their page is rewritten are counted as failed and picked up by running the job again.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Job queued",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = DeviceJob.class)
+                    )),
+            @ApiResponse(responseCode = "400", description = "Unsupported layout or collection",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(example = "{\"timestamp\":\"2025-05-25T12:34:56\",\"status\":400,\"error\":\"Bad Request\",\"message\":\"Unsupported device storage layout TINY. Must be one of: STANDARD, COMPACT\"}")
+                    ))
+    })
+    @PostMapping("/migrate-layout")
+    public ResponseEntity<DeviceJob> migrateLayout(@RequestParam String target,
+                                                   @RequestParam(defaultValue = DEVICE_COLLECTION) String collection) {
+        logger.info("Received layout migration job of {} to {}", collection, target);
+        return accepted(jobService.submitLayoutMigration(DeviceStorageLayout.fromString(target), collection));
+    }
+
+    @Operation(summary = "Fetch the status, progress and errors of a job")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Job found",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = DeviceJob.class)
+                    )),
+            @ApiResponse(responseCode = "500", description = "Job not found",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(example = "{\"timestamp\":\"2025-05-25T12:34:56\",\"status\":500,\"error\":\"Internal Server Error\",\"message\":\"Job not found with id: \"}")
+                    ))
+    })
+    @GetMapping("/{id}")
+    public ResponseEntity<DeviceJob> getJob(@PathVariable String id) {
+        logger.debug("Fetching job {}", id);
+        return ResponseEntity.ok(jobService.getJob(id));
+    }
+
+    @Operation(summary = "Cancel a job", description = "Queued jobs are cancelled immediately, running jobs stop after their current batch.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cancellation recorded",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = DeviceJob.class)
+                    ))
+    })
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<DeviceJob> cancel(@PathVariable String id) {
+        logger.info("Received cancel request for job {}", id);
+        return ResponseEntity.ok(jobService.cancel(id));
+    }
+
+    private ResponseEntity<DeviceJob> accepted(DeviceJob job) {
+        logger.info("Accepted {} job {}", job.getType(), job.getId());
+        return ResponseEntity.accepted().location(URI.create("/private/v1/device/jobs/" + job.getId())).body(job);
+    }
+}
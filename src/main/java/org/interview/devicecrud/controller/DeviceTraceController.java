@@ -0,0 +1,63 @@
+package org.interview.devicecrud.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.interview.devicecrud.model.DeviceTraceEndpoint;
+import org.interview.devicecrud.model.DeviceTraceExport;
+import org.interview.devicecrud.service.DeviceTraceBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+import static org.interview.devicecrud.constants.DeviceCrudConstants.TRACES_PATH;
+
+@RestController
+@RequestMapping(TRACES_PATH)
+@Tag(name = "Device traces", description = "This API returns recent and slow requests broken down by layer")
+public class DeviceTraceController {
+    private static final Logger logger = LoggerFactory.getLogger(DeviceTraceController.class);
+
+    private final DeviceTraceBuffer traceBuffer;
+
+    public DeviceTraceController(DeviceTraceBuffer traceBuffer) {
+        this.traceBuffer = traceBuffer;
+    }
+
+    @Operation(summary = "Fetch the latest and the slowest traces per endpoint",
+            description = "Each trace lists the controller, validator, id generation, aggregator, service and Mongo spans of one request. Empty unless device.tracing.enabled is set.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Traces per endpoint",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = DeviceTraceEndpoint.class, type = "array")
+                    ))
+    })
+    @GetMapping
+    public ResponseEntity<List<DeviceTraceEndpoint>> getTraces(@RequestParam(required = false) String endpoint) {
+        logger.debug("Fetching traces of {}", endpoint == null ? "all endpoints" : endpoint);
+        return ResponseEntity.ok(traceBuffer.snapshot(endpoint));
+    }
+
+    @Operation(summary = "Write the buffered traces to a local file, one JSON trace per line")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Traces written",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = DeviceTraceExport.class)
+                    )),
+            @ApiResponse(responseCode = "500", description = "File could not be written",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(example = "{\"timestamp\":\"2025-05-25T12:34:56\",\"status\":500,\"error\":\"Internal Server Error\",\"message\":\"Failed to write traces-1748176496000.ndjson: \"}")
+                    ))
+    })
+    @PostMapping("/export")
+    public ResponseEntity<DeviceTraceExport> export() {
+        logger.info("Received trace export");
+        return ResponseEntity.ok(traceBuffer.export());
+    }
+}
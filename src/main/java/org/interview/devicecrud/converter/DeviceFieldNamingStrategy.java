@@ -0,0 +1,29 @@
+package org.interview.devicecrud.converter;
+
+import org.interview.devicecrud.constants.DeviceStorageLayout;
+import org.interview.devicecrud.model.Device;
+import org.springframework.data.mapping.PersistentProperty;
+import org.springframework.data.mapping.model.FieldNamingStrategy;
+import org.springframework.data.mapping.model.PropertyNameFieldNamingStrategy;
+
+/**
+ * Names the {@link Device} properties after the configured
+ * {@link DeviceStorageLayout}, so that criteria, updates and projections written
+ * against property names address the keys the documents are stored under. Plays
+ * the part of {@code @Field} on the model while leaving the layout a deployment
+ * choice; every other entity keeps its property names.
+ */
+public class DeviceFieldNamingStrategy implements FieldNamingStrategy {
+
+    private final DeviceStorageLayout layout;
+
+    public DeviceFieldNamingStrategy(DeviceStorageLayout layout) {
+        this.layout = layout;
+    }
+
+    @Override
+    public String getFieldName(PersistentProperty<?> property) {
+        String name = PropertyNameFieldNamingStrategy.INSTANCE.getFieldName(property);
+        return Device.class.equals(property.getOwner().getType()) ? layout.field(name) : name;
+    }
+}
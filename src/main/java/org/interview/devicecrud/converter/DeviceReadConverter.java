@@ -0,0 +1,31 @@
+package org.interview.devicecrud.converter;
+
+import org.bson.Document;
+import org.interview.devicecrud.constants.DeviceStorageLayout;
+import org.interview.devicecrud.model.Device;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+
+import static org.interview.devicecrud.constants.DeviceCrudConstants.*;
+
+/**
+ * Hand-written mapping from a stored document to {@link Device}. Registered as a
+ * custom conversion so that reads skip the reflective entity mapping done by
+ * {@code MappingMongoConverter}.
+ * <p>
+ * Reads either {@link DeviceStorageLayout}, so documents stay readable while
+ * {@code LayoutMigrationJobHandler} moves them from one layout to the other.
+ */
+@ReadingConverter
+public class DeviceReadConverter implements Converter<Document, Device> {
+
+    @Override
+    public Device convert(Document source) {
+        return new Device(
+                source.getString(FIELD_ID),
+                (String) DeviceStorageLayout.read(source, FIELD_NAME),
+                (String) DeviceStorageLayout.read(source, FIELD_BRAND),
+                DeviceStorageLayout.readState(DeviceStorageLayout.read(source, FIELD_STATE)),
+                DeviceStorageLayout.readCreationTime(DeviceStorageLayout.read(source, FIELD_CREATION_TIME)));
+    }
+}
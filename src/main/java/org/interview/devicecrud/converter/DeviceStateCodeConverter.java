@@ -0,0 +1,24 @@
+package org.interview.devicecrud.converter;
+
+import org.interview.devicecrud.constants.DeviceState;
+import org.interview.devicecrud.constants.DeviceStorageLayout;
+import org.springframework.data.mongodb.core.convert.MongoConversionContext;
+import org.springframework.data.mongodb.core.convert.MongoValueConverter;
+
+/**
+ * Maps {@code Device.state} to its {@linkplain DeviceState#getCode() code} in
+ * criteria and updates under the {@link DeviceStorageLayout#COMPACT} layout.
+ * Whole devices go through {@link DeviceWriteConverter} instead.
+ */
+public class DeviceStateCodeConverter implements MongoValueConverter<DeviceState, Object> {
+
+    @Override
+    public DeviceState read(Object value, MongoConversionContext context) {
+        return DeviceStorageLayout.readState(value);
+    }
+
+    @Override
+    public Object write(DeviceState value, MongoConversionContext context) {
+        return DeviceStorageLayout.COMPACT.writeState(value);
+    }
+}
@@ -0,0 +1,39 @@
+package org.interview.devicecrud.converter;
+
+import org.bson.Document;
+import org.interview.devicecrud.constants.DeviceStorageLayout;
+import org.interview.devicecrud.model.Device;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.WritingConverter;
+
+import static org.interview.devicecrud.constants.DeviceCrudConstants.*;
+
+/**
+ * Counterpart of {@link DeviceReadConverter}. Writes the configured
+ * {@link DeviceStorageLayout}; the standard layout is the one the reflective
+ * mapping produced, minus the {@code _class} type hint.
+ */
+@WritingConverter
+public class DeviceWriteConverter implements Converter<Device, Document> {
+
+    private final DeviceStorageLayout layout;
+
+    public DeviceWriteConverter() {
+        this(DeviceStorageLayout.STANDARD);
+    }
+
+    public DeviceWriteConverter(DeviceStorageLayout layout) {
+        this.layout = layout;
+    }
+
+    @Override
+    public Document convert(Device source) {
+        Document document = new Document();
+        document.put(FIELD_ID, source.getId());
+        document.put(layout.field(FIELD_NAME), source.getName());
+        document.put(layout.field(FIELD_BRAND), source.getBrand());
+        document.put(layout.field(FIELD_STATE), layout.writeState(source.getState()));
+        document.put(layout.field(FIELD_CREATION_TIME), layout.writeCreationTime(source.getCreationTime()));
+        return document;
+    }
+}
@@ -0,0 +1,25 @@
+package org.interview.devicecrud.converter;
+
+import org.interview.devicecrud.constants.DeviceStorageLayout;
+import org.springframework.data.mongodb.core.convert.MongoConversionContext;
+import org.springframework.data.mongodb.core.convert.MongoValueConverter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Maps {@code Device.creationTime} to epoch millis in criteria and updates
+ * under the {@link DeviceStorageLayout#COMPACT} layout, so range filters compare
+ * numbers with numbers.
+ */
+public class EpochMillisConverter implements MongoValueConverter<LocalDateTime, Object> {
+
+    @Override
+    public LocalDateTime read(Object value, MongoConversionContext context) {
+        return DeviceStorageLayout.readCreationTime(value);
+    }
+
+    @Override
+    public Object write(LocalDateTime value, MongoConversionContext context) {
+        return DeviceStorageLayout.COMPACT.writeCreationTime(value);
+    }
+}
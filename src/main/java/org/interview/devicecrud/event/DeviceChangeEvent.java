@@ -0,0 +1,26 @@
+package org.interview.devicecrud.event;
+
+import org.interview.devicecrud.model.Device;
+
+/**
+ * Published by {@link org.interview.devicecrud.service.DeviceCrudService} after a
+ * write has been acknowledged by Mongo, so that in-process views of the device
+ * collection can stay current without re-querying it.
+ *
+ * @param type     kind of change
+ * @param deviceId id of the changed device
+ * @param device   state after the change. For {@link Type#BRAND_UPDATED} only id
+ *                 and brand are set; for {@link Type#DELETED} it is {@code null}.
+ *                 {@link Type#BULK_UPDATED} stands for a set-based update of an
+ *                 unknown number of devices, so both id and device are {@code null}
+ */
+public record DeviceChangeEvent(Type type, String deviceId, Device device) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        BRAND_UPDATED,
+        DELETED,
+        BULK_UPDATED
+    }
+}
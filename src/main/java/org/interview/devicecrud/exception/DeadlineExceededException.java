@@ -0,0 +1,17 @@
+package org.interview.devicecrud.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class DeadlineExceededException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public DeadlineExceededException(String message) {
+        super(message);
+        this.status = HttpStatus.GATEWAY_TIMEOUT;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,21 @@
+package org.interview.devicecrud.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * A local file used by imports, exports or trace dumps could not be read or
+ * written.
+ */
+@Getter
+public class DeviceFileException extends RuntimeException {
+
+    private final HttpStatus status;
+    private final String exception;
+
+    public DeviceFileException(String message, String exception, Throwable cause) {
+        super(message, cause);
+        this.exception = exception;
+        this.status = HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+}
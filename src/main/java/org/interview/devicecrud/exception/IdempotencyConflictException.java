@@ -0,0 +1,17 @@
+package org.interview.devicecrud.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class IdempotencyConflictException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public IdempotencyConflictException(String message, HttpStatus status) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
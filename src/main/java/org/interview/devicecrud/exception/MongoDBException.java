@@ -16,6 +16,12 @@ public class MongoDBException extends RuntimeException {
         this.status = HttpStatus.INTERNAL_SERVER_ERROR;
     }
 
+    public MongoDBException(String message, String exception, Throwable cause) {
+        super(message, cause);
+        this.exception = exception;
+        this.status = HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+
 
 
 
@@ -0,0 +1,17 @@
+package org.interview.devicecrud.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class NoAvailableDeviceException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public NoAvailableDeviceException(String message) {
+        super(message);
+        this.status = HttpStatus.NOT_FOUND;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
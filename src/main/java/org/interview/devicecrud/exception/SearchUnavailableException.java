@@ -0,0 +1,17 @@
+package org.interview.devicecrud.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class SearchUnavailableException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public SearchUnavailableException(String message) {
+        super(message);
+        this.status = HttpStatus.SERVICE_UNAVAILABLE;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
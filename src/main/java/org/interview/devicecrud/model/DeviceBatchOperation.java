@@ -0,0 +1,28 @@
+package org.interview.devicecrud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.interview.devicecrud.constants.BatchOperationType;
+
+import java.time.LocalDateTime;
+
+/**
+ * One step of a batch request. Which fields are read depends on the operation:
+ * CREATE uses name, brand, state and creationTime; UPDATE uses id, name, brand
+ * and state; UPDATE_BRAND uses id and brand; DELETE uses id.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeviceBatchOperation {
+
+    private BatchOperationType operation;
+    private String id;
+    private String name;
+    private String brand;
+    private String state;
+    private LocalDateTime creationTime;
+}
@@ -0,0 +1,21 @@
+package org.interview.devicecrud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeviceBatchRequest {
+
+    /**
+     * When true, the first failing operation stops every operation after it.
+     */
+    private boolean ordered;
+    private List<DeviceBatchOperation> operations;
+}
@@ -0,0 +1,21 @@
+package org.interview.devicecrud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.interview.devicecrud.constants.BatchOperationStatus;
+import org.interview.devicecrud.constants.BatchOperationType;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeviceBatchResult {
+
+    private int index;
+    private BatchOperationType operation;
+    private String id;
+    private BatchOperationStatus status;
+    private String message;
+}
@@ -0,0 +1,26 @@
+package org.interview.devicecrud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeviceBatchWriteResult {
+
+    /**
+     * Error message per failed change, keyed by its position in the batch.
+     */
+    private Map<Integer, String> failures;
+
+    /**
+     * Number of leading changes that were executed; an ordered batch stops
+     * after its first failing write.
+     */
+    private int executed;
+}
@@ -0,0 +1,16 @@
+package org.interview.devicecrud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeviceBulkUpdateResult {
+
+    private long matched;
+    private long modified;
+}
@@ -0,0 +1,22 @@
+package org.interview.devicecrud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeviceExportManifest {
+
+    private LocalDateTime createdAt;
+    private String format;
+    private List<String> fields;
+    private long totalCount;
+    private List<DeviceExportPart> parts;
+}
@@ -0,0 +1,25 @@
+package org.interview.devicecrud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One output file of an export, covering ids from {@code fromId} (inclusive)
+ * to {@code toId} (exclusive). A {@code null} bound is open.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeviceExportPart {
+
+    private int index;
+    private String fromId;
+    private String toId;
+    private String file;
+    private long count;
+    private long bytes;
+    private String sha256;
+}
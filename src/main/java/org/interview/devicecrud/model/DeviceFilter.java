@@ -0,0 +1,35 @@
+package org.interview.devicecrud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.interview.devicecrud.constants.DeviceState;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Filter for device listings. Empty or {@code null} lists and bounds do not
+ * restrict the result; values within a list are alternatives.
+ */
+@Data
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeviceFilter {
+
+    private List<String> brands;
+    private List<DeviceState> states;
+    private LocalDateTime createdFrom;
+    private LocalDateTime createdTo;
+
+    public boolean matches(Device device) {
+        return (brands == null || brands.isEmpty() || brands.contains(device.getBrand()))
+                && (states == null || states.isEmpty() || states.contains(device.getState()))
+                && (createdFrom == null || (device.getCreationTime() != null
+                        && !device.getCreationTime().isBefore(createdFrom)))
+                && (createdTo == null || (device.getCreationTime() != null
+                        && !device.getCreationTime().isAfter(createdTo)));
+    }
+}
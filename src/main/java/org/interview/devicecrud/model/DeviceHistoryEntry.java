@@ -0,0 +1,40 @@
+package org.interview.devicecrud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.interview.devicecrud.constants.DeviceState;
+import org.interview.devicecrud.event.DeviceChangeEvent;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * One change of a device as recorded in the append-only history. Only the
+ * fields known after the change are set: a brand change carries just the brand
+ * and a deletion none.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "device_history")
+public class DeviceHistoryEntry {
+
+    @Id
+    private String id;
+
+    private String deviceId;
+
+    private DeviceChangeEvent.Type type;
+
+    private String name;
+
+    private String brand;
+
+    private DeviceState state;
+
+    private Date changedAt;
+}
@@ -0,0 +1,28 @@
+package org.interview.devicecrud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of the history of a device, newest change first.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeviceHistoryPage {
+
+    private String deviceId;
+
+    private int page;
+
+    private int size;
+
+    private boolean hasMore;
+
+    private List<DeviceHistoryEntry> entries;
+}
@@ -0,0 +1,18 @@
+package org.interview.devicecrud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeviceImportResult {
+
+    private long processed;
+    private long inserted;
+    private long failed;
+    private String reportFile;
+}
@@ -0,0 +1,58 @@
+package org.interview.devicecrud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.interview.devicecrud.constants.JobStatus;
+import org.interview.devicecrud.constants.JobType;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A long-running bulk operation together with its last checkpoint. The
+ * checkpoint is opaque to the job framework; each handler stores whatever it
+ * needs to continue after a restart without repeating finished batches.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "jobs")
+public class DeviceJob {
+
+    @Id
+    private String id;
+
+    private JobType type;
+
+    private JobStatus status;
+
+    private Map<String, String> params;
+
+    private String checkpoint;
+
+    private long processed;
+
+    private long failed;
+
+    private double throughputPerSecond;
+
+    private List<String> errors;
+
+    private String message;
+
+    private boolean cancelRequested;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,28 @@
+package org.interview.devicecrud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One recorded request with the time spent in each layer it passed through.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeviceTrace {
+
+    private String id;
+    private String endpoint;
+    private int status;
+    private Instant startedAt;
+    private double durationMs;
+    private List<DeviceTraceSpan> spans;
+    /** spans beyond {@code device.tracing.max-spans} that were not kept */
+    private int droppedSpans;
+}
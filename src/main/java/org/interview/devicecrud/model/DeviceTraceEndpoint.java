@@ -0,0 +1,24 @@
+package org.interview.devicecrud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The traces kept for one endpoint: the latest ones, newest first, and the
+ * slowest ones, slowest first.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeviceTraceEndpoint {
+
+    private String endpoint;
+    private long recorded;
+    private List<DeviceTrace> recent;
+    private List<DeviceTrace> slowest;
+}
@@ -0,0 +1,25 @@
+package org.interview.devicecrud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One layer of a {@link DeviceTrace}, e.g. the aggregator or a Mongo command.
+ * Spans are listed in start order; {@code depth} is the nesting below the
+ * request, which is depth 0.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeviceTraceSpan {
+
+    private String layer;
+    private String operation;
+    private int depth;
+    private double offsetMs;
+    private double durationMs;
+    private String error;
+}
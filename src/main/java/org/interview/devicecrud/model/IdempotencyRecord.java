@@ -0,0 +1,47 @@
+package org.interview.devicecrud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Response recorded for an {@code Idempotency-Key}. While the first request is
+ * still running only the id, the request hash and the creation time are set.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecord {
+
+    /**
+     * Operation and key, e.g. {@code POST /private/v1/device/create:3f2a...}.
+     */
+    @Id
+    private String id;
+
+    /**
+     * SHA-256 of the request body, to detect a key reused for a different request.
+     */
+    private String requestHash;
+
+    /**
+     * HTTP status of the response, {@code null} while the request is in progress.
+     */
+    private Integer status;
+
+    private String contentType;
+
+    private byte[] body;
+
+    /**
+     * Start of the first request; the TTL index expires records from here.
+     */
+    private Date createdAt;
+}
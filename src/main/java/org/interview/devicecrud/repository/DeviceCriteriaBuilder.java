@@ -0,0 +1,88 @@
+package org.interview.devicecrud.repository;
+
+import org.interview.devicecrud.constants.DeviceState;
+import org.interview.devicecrud.constants.DeviceStorageLayout;
+import org.interview.devicecrud.model.DeviceFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+
+import static org.interview.devicecrud.constants.DeviceCrudConstants.*;
+
+/**
+ * Composes device query criteria one field at a time. Single values become
+ * equality matches and multiple values a single {@code $in}, so the brand and
+ * state indexes serve every combination with one query.
+ */
+public final class DeviceCriteriaBuilder {
+
+    private Criteria criteria;
+
+    public static DeviceCriteriaBuilder from(DeviceFilter filter) {
+        return new DeviceCriteriaBuilder()
+                .brands(filter.getBrands())
+                .states(filter.getStates())
+                .createdBetween(filter.getCreatedFrom(), filter.getCreatedTo());
+    }
+
+    /**
+     * Matches stored documents in the given state whichever
+     * {@link DeviceStorageLayout} they are in, for raw queries that bypass the
+     * entity mapping.
+     */
+    public static Criteria storedStateIs(DeviceState state) {
+        return new Criteria().orOperator(Arrays.stream(DeviceStorageLayout.values())
+                .map(layout -> Criteria.where(layout.field(FIELD_STATE)).is(layout.writeState(state)))
+                .toList());
+    }
+
+    public DeviceCriteriaBuilder brands(Collection<String> brands) {
+        return anyOf(FIELD_BRAND, brands);
+    }
+
+    public DeviceCriteriaBuilder states(Collection<DeviceState> states) {
+        return anyOf(FIELD_STATE, states);
+    }
+
+    public DeviceCriteriaBuilder createdBetween(LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) {
+            return this;
+        }
+        Criteria range = field(FIELD_CREATION_TIME);
+        if (from != null) {
+            range.gte(from);
+        }
+        if (to != null) {
+            range.lte(to);
+        }
+        return this;
+    }
+
+    public Criteria build() {
+        return criteria == null ? new Criteria() : criteria;
+    }
+
+    public Query toQuery() {
+        return new Query(build());
+    }
+
+    private DeviceCriteriaBuilder anyOf(String key, Collection<?> values) {
+        if (values == null || values.isEmpty()) {
+            return this;
+        }
+        if (values.size() == 1) {
+            field(key).is(values.iterator().next());
+        } else {
+            field(key).in(values);
+        }
+        return this;
+    }
+
+    private Criteria field(String key) {
+        criteria = criteria == null ? Criteria.where(key) : criteria.and(key);
+        return criteria;
+    }
+}
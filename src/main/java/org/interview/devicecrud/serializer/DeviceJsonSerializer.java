@@ -0,0 +1,58 @@
+package org.interview.devicecrud.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.interview.devicecrud.model.Device;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes {@link Device} straight to the generator instead of going through bean
+ * introspection of the Lombok getters. Field names are pre-quoted once and the
+ * creation time uses the same ISO format the default Java time module emits, so
+ * the response body is unchanged.
+ */
+@JsonComponent
+public class DeviceJsonSerializer extends StdSerializer<Device> {
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString BRAND = new SerializedString("brand");
+    private static final SerializableString STATE = new SerializedString("state");
+    private static final SerializableString CREATION_TIME = new SerializedString("creationTime");
+
+    private static final DateTimeFormatter CREATION_TIME_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    public DeviceJsonSerializer() {
+        super(Device.class);
+    }
+
+    @Override
+    public void serialize(Device device, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(device);
+        gen.writeFieldName(ID);
+        gen.writeString(device.getId());
+        gen.writeFieldName(NAME);
+        gen.writeString(device.getName());
+        gen.writeFieldName(BRAND);
+        gen.writeString(device.getBrand());
+        gen.writeFieldName(STATE);
+        if (device.getState() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(device.getState().name());
+        }
+        gen.writeFieldName(CREATION_TIME);
+        if (device.getCreationTime() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(CREATION_TIME_FORMAT.format(device.getCreationTime()));
+        }
+        gen.writeEndObject();
+    }
+}
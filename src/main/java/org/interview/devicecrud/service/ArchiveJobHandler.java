@@ -0,0 +1,159 @@
+package org.interview.devicecrud.service;
+
+import org.bson.Document;
+import org.interview.devicecrud.constants.DeviceOperation;
+import org.interview.devicecrud.constants.DeviceState;
+import org.interview.devicecrud.constants.JobType;
+import org.interview.devicecrud.event.DeviceChangeEvent;
+import org.interview.devicecrud.model.DeviceJob;
+import org.interview.devicecrud.repository.DeviceCriteriaBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.interview.devicecrud.constants.DeviceCrudConstants.*;
+
+/**
+ * Moves devices that have been {@code INACTIVE} since before the job's cutoff
+ * from the device collection to {@code device_archive}, in pages ordered by id.
+ * <p>
+ * The device documents carry no state history, so a run first stamps
+ * {@code inactiveSince} on every inactive device that has none yet. Writes that
+ * change the state drop the stamp again, which makes it accurate to within one
+ * archival interval. Each page is upserted into the archive before it is
+ * removed from the device collection, both with the {@code archive} consistency
+ * tier; the removal repeats the inactivity condition, so a device changed in
+ * between stays where it is and its archive copy is dropped again. Pages are
+ * separated by {@code device.archive.batch-delay-ms} to keep the job from
+ * competing with live traffic. The checkpoint is the last id of the last
+ * finished page.
+ */
+@Component
+public class ArchiveJobHandler implements DeviceJobHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveJobHandler.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ConsistencyTiers consistencyTiers;
+    private final int batchSize;
+    private final long batchDelayMs;
+
+    public ArchiveJobHandler(MongoTemplate mongoTemplate,
+                             ApplicationEventPublisher eventPublisher,
+                             ConsistencyTiers consistencyTiers,
+                             @Value("${device.archive.batch-size:500}") int batchSize,
+                             @Value("${device.archive.batch-delay-ms:200}") long batchDelayMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.consistencyTiers = consistencyTiers;
+        this.batchSize = batchSize;
+        this.batchDelayMs = batchDelayMs;
+    }
+
+    /**
+     * Only inactive devices carry the stamp, so the sparse index stays small.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndex() {
+        try {
+            mongoTemplate.indexOps(DEVICE_COLLECTION)
+                    .ensureIndex(new Index().on(FIELD_INACTIVE_SINCE, Sort.Direction.ASC).sparse());
+        } catch (Exception e) {
+            logger.warn("Unable to create inactivity index: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public JobType type() {
+        return JobType.ARCHIVE;
+    }
+
+    @Override
+    public String run(DeviceJob job, DeviceJobContext context) throws InterruptedException {
+        Date cutoff = new Date(Long.parseLong(job.getParams().get("cutoff")));
+        String lastId = context.getCheckpoint();
+        long archived = job.getProcessed();
+        if (!context.isCancelled()) {
+            long stamped = mongoTemplate.updateMulti(
+                    new Query(DeviceCriteriaBuilder.storedStateIs(DeviceState.INACTIVE)
+                            .and(FIELD_INACTIVE_SINCE).exists(false)),
+                    new Update().set(FIELD_INACTIVE_SINCE, new Date()), DEVICE_COLLECTION).getModifiedCount();
+            logger.info("Marked {} newly inactive devices", stamped);
+        }
+        while (!context.isCancelled()) {
+            Criteria page = inactiveBefore(cutoff);
+            if (lastId != null) {
+                page.and(FIELD_ID).gt(lastId);
+            }
+            Query query = new Query(page).with(Sort.by(FIELD_ID)).limit(batchSize);
+            List<Document> devices = mongoTemplate.find(query, Document.class, DEVICE_COLLECTION);
+            if (devices.isEmpty()) {
+                break;
+            }
+            archived += archive(devices, cutoff);
+            lastId = devices.get(devices.size() - 1).getString(FIELD_ID);
+            context.checkpoint(lastId, archived, job.getFailed());
+            if (devices.size() == batchSize && batchDelayMs > 0) {
+                try {
+                    Thread.sleep(batchDelayMs);
+                } catch (InterruptedException e) {
+                    // keep the flag so the job is left to resume from its checkpoint
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+        return String.format("Archived %d devices inactive since before %s", archived, cutoff.toInstant());
+    }
+
+    private long archive(List<Document> devices, Date cutoff) {
+        List<String> ids = devices.stream().map(device -> device.getString(FIELD_ID)).toList();
+        Date now = new Date();
+        BulkOperations copy = consistencyTiers.bulkOps(DeviceOperation.ARCHIVE, mongoTemplate,
+                BulkOperations.BulkMode.UNORDERED, ARCHIVE_COLLECTION);
+        for (Document device : devices) {
+            device.put(FIELD_ARCHIVED_AT, now);
+            copy.replaceOne(new Query(Criteria.where(FIELD_ID).is(device.getString(FIELD_ID))), device,
+                    FindAndReplaceOptions.options().upsert());
+        }
+        copy.execute();
+
+        Query moved = new Query(inactiveBefore(cutoff).and(FIELD_ID).in(ids));
+        long removed = consistencyTiers.write(DeviceOperation.ARCHIVE,
+                () -> mongoTemplate.remove(moved, DEVICE_COLLECTION)).getDeletedCount();
+        if (removed < ids.size()) {
+            // changed since the page was read; the device collection keeps the current version
+            Query kept = new Query(Criteria.where(FIELD_ID).in(ids));
+            kept.fields().include(FIELD_ID);
+            List<Object> keptIds = mongoTemplate.find(kept, Document.class, DEVICE_COLLECTION).stream()
+                    .map(device -> device.get(FIELD_ID)).toList();
+            if (!keptIds.isEmpty()) {
+                mongoTemplate.remove(new Query(Criteria.where(FIELD_ID).in(keptIds)), ARCHIVE_COLLECTION);
+            }
+        }
+        if (removed > 0) {
+            eventPublisher.publishEvent(new DeviceChangeEvent(DeviceChangeEvent.Type.BULK_UPDATED, null, null));
+        }
+        return removed;
+    }
+
+    private static Criteria inactiveBefore(Date cutoff) {
+        return DeviceCriteriaBuilder.storedStateIs(DeviceState.INACTIVE).and(FIELD_INACTIVE_SINCE).lt(cutoff);
+    }
+}
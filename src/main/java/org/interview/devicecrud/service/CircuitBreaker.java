@@ -0,0 +1,365 @@
+package org.interview.devicecrud.service;
+
+import com.mongodb.MongoExecutionTimeoutException;
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import org.interview.devicecrud.constants.OperationType;
+import org.interview.devicecrud.event.DeviceChangeEvent;
+import org.interview.devicecrud.exception.ServiceOverloadedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * One circuit breaker per {@link OperationType} around calls into Mongo.
+ * <p>
+ * A breaker opens once the share of infrastructure failures (timeouts, lost
+ * connections) among its recent calls reaches the threshold. Business outcomes
+ * such as "device not found" count as successes. While open, writes fail at once
+ * with 503, and reads are answered from the last result seen for the same key,
+ * flagged with the {@value #STALE_HEADER} response header. Without a snapshot
+ * they fail with 503 too. Snapshots are bounded per operation type by the
+ * number of devices they hold, {@code device.breaker.snapshot-size}, so a few
+ * large scan results cannot pin an unbounded amount of memory; a result larger
+ * than that on its own is not kept. After the open period a few probe calls go through. If
+ * all of them succeed the breaker closes again; a single failure reopens it.
+ */
+@Component
+public class CircuitBreaker {
+
+    public static final String STALE_HEADER = "X-Device-Stale";
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private final boolean enabled;
+    private final Map<OperationType, Breaker> breakers = new EnumMap<>(OperationType.class);
+    private final Map<OperationType, Snapshot> snapshots = new EnumMap<>(OperationType.class);
+    private final Counter staleReads;
+    private final Map<OperationType, Counter> rejections = new EnumMap<>(OperationType.class);
+
+    public CircuitBreaker(MeterRegistry meterRegistry,
+                          @Value("${device.breaker.enabled:true}") boolean enabled,
+                          @Value("${device.breaker.window-size:20}") int windowSize,
+                          @Value("${device.breaker.minimum-calls:10}") int minimumCalls,
+                          @Value("${device.breaker.failure-rate-threshold:50}") int failureRateThreshold,
+                          @Value("${device.breaker.open-duration-ms:10000}") long openDurationMs,
+                          @Value("${device.breaker.half-open-calls:3}") int halfOpenCalls,
+                          @Value("${device.breaker.snapshot-size:10000}") int snapshotSize) {
+        this.enabled = enabled;
+        this.staleReads = meterRegistry.counter("device.breaker.stale.reads");
+        for (OperationType operation : OperationType.values()) {
+            Breaker breaker = new Breaker(operation, windowSize, minimumCalls, failureRateThreshold,
+                    openDurationMs, halfOpenCalls);
+            breakers.put(operation, breaker);
+            snapshots.put(operation, new Snapshot(snapshotSize));
+            String tag = operation.name().toLowerCase();
+            Gauge.builder("device.breaker.state", breaker, b -> b.getState().ordinal())
+                    .tag("operation", tag).register(meterRegistry);
+            rejections.put(operation, meterRegistry.counter("device.breaker.rejections", "operation", tag));
+        }
+    }
+
+    /**
+     * Runs a call that has no fallback, failing fast while the breaker is open.
+     */
+    public <T> T execute(OperationType operation, Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        Breaker breaker = breakers.get(operation);
+        if (!breaker.tryAcquire()) {
+            throw rejected(operation, breaker);
+        }
+        return invoke(breaker, call);
+    }
+
+    /**
+     * Runs a read and remembers its result under the given key. While the
+     * breaker is open, or when the read fails on infrastructure, the remembered
+     * result is returned instead and the response is marked stale.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T read(OperationType operation, String key, Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        Breaker breaker = breakers.get(operation);
+        Snapshot snapshot = snapshots.get(operation);
+        if (!breaker.tryAcquire()) {
+            Object cached = snapshot.get(key);
+            if (cached == null) {
+                throw rejected(operation, breaker);
+            }
+            return (T) stale(cached);
+        }
+        try {
+            T result = invoke(breaker, call);
+            if (result != null) {
+                snapshot.put(key, result);
+            }
+            return result;
+        } catch (RuntimeException e) {
+            Object cached = isInfrastructureFailure(e) ? snapshot.get(key) : null;
+            if (cached == null) {
+                throw e;
+            }
+            return (T) stale(cached);
+        }
+    }
+
+    /**
+     * Keeps the point read snapshot in step with writes made through this instance.
+     */
+    @EventListener
+    public void onDeviceChange(DeviceChangeEvent event) {
+        Snapshot devices = snapshots.get(OperationType.POINT_READ);
+        switch (event.type()) {
+            case CREATED, UPDATED -> devices.replace(event.deviceId(), event.device());
+            case BRAND_UPDATED, DELETED -> devices.remove(event.deviceId());
+            default -> {
+                // bulk changes cannot be applied per key; snapshots are only served marked stale
+            }
+        }
+    }
+
+    public Breaker.State getState(OperationType operation) {
+        return breakers.get(operation).getState();
+    }
+
+    private <T> T invoke(Breaker breaker, Supplier<T> call) {
+        try {
+            T result = call.get();
+            breaker.onSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            // a query stopped at the caller's own deadline says nothing about the storage
+            if (isInfrastructureFailure(e) && !RequestDeadline.isExpired()) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+            throw e;
+        }
+    }
+
+    private Object stale(Object cached) {
+        staleReads.increment();
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpServletResponse response = attributes.getResponse();
+            if (response != null) {
+                response.setHeader(STALE_HEADER, "true");
+            }
+        }
+        return cached;
+    }
+
+    private ServiceOverloadedException rejected(OperationType operation, Breaker breaker) {
+        rejections.get(operation).increment();
+        logger.warn("Circuit for {} is {}, failing fast", operation, breaker.getState());
+        return new ServiceOverloadedException("Device storage is temporarily unavailable, please retry later",
+                breaker.retryAfterSeconds());
+    }
+
+    static boolean isInfrastructureFailure(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof DataAccessResourceFailureException
+                    || t instanceof TransientDataAccessException
+                    || t instanceof MongoSocketException
+                    || t instanceof MongoTimeoutException
+                    || t instanceof MongoExecutionTimeoutException) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Last results per key, least recently used first, holding at most
+     * {@code capacity} elements in total. A collection weighs its size, any
+     * other result one.
+     */
+    static final class Snapshot {
+
+        private final int capacity;
+        private final LinkedHashMap<String, Object> results = new LinkedHashMap<>(16, 0.75f, true);
+        private long weight;
+
+        Snapshot(int capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized Object get(String key) {
+            return results.get(key);
+        }
+
+        synchronized void put(String key, Object result) {
+            int size = weigh(result);
+            if (size > capacity) {
+                remove(key);
+                return;
+            }
+            Object previous = results.put(key, result);
+            weight += size - (previous == null ? 0 : weigh(previous));
+            Iterator<Object> eldest = results.values().iterator();
+            while (weight > capacity && eldest.hasNext()) {
+                weight -= weigh(eldest.next());
+                eldest.remove();
+            }
+        }
+
+        synchronized void replace(String key, Object result) {
+            if (results.containsKey(key)) {
+                put(key, result);
+            }
+        }
+
+        synchronized void remove(String key) {
+            Object removed = results.remove(key);
+            if (removed != null) {
+                weight -= weigh(removed);
+            }
+        }
+
+        synchronized long weight() {
+            return weight;
+        }
+
+        private static int weigh(Object result) {
+            if (result instanceof Collection<?> collection) {
+                return Math.max(1, collection.size());
+            }
+            if (result instanceof Map<?, ?> map) {
+                return Math.max(1, map.size());
+            }
+            return 1;
+        }
+    }
+
+    /**
+     * State machine of a single breaker over a fixed window of recent calls.
+     */
+    public static final class Breaker {
+
+        public enum State { CLOSED, OPEN, HALF_OPEN }
+
+        private final OperationType operation;
+        private final boolean[] window;
+        private final int minimumCalls;
+        private final int failureRateThreshold;
+        private final long openDurationMs;
+        private final int halfOpenCalls;
+
+        private State state = State.CLOSED;
+        private int position;
+        private int recorded;
+        private int failures;
+        private long openedAt;
+        private int probesStarted;
+        private int probesSucceeded;
+
+        Breaker(OperationType operation, int windowSize, int minimumCalls, int failureRateThreshold,
+                long openDurationMs, int halfOpenCalls) {
+            this.operation = operation;
+            this.window = new boolean[windowSize];
+            this.minimumCalls = minimumCalls;
+            this.failureRateThreshold = failureRateThreshold;
+            this.openDurationMs = openDurationMs;
+            this.halfOpenCalls = halfOpenCalls;
+        }
+
+        synchronized boolean tryAcquire() {
+            if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openDurationMs) {
+                logger.info("Circuit for {} half-open, probing", operation);
+                state = State.HALF_OPEN;
+                probesStarted = 0;
+                probesSucceeded = 0;
+            }
+            return switch (state) {
+                case CLOSED -> true;
+                case OPEN -> false;
+                case HALF_OPEN -> probesStarted++ < halfOpenCalls;
+            };
+        }
+
+        synchronized void onSuccess() {
+            if (state == State.HALF_OPEN) {
+                if (++probesSucceeded >= halfOpenCalls) {
+                    logger.info("Circuit for {} closed", operation);
+                    state = State.CLOSED;
+                    resetWindow();
+                }
+                return;
+            }
+            record(false);
+        }
+
+        synchronized void onFailure() {
+            if (state == State.HALF_OPEN) {
+                open();
+                return;
+            }
+            record(true);
+            if (state == State.CLOSED && recorded >= minimumCalls
+                    && failures * 100 >= failureRateThreshold * recorded) {
+                open();
+            }
+        }
+
+        synchronized State getState() {
+            return state;
+        }
+
+        synchronized long retryAfterSeconds() {
+            long remaining = openDurationMs - (System.currentTimeMillis() - openedAt);
+            return Math.max(1, (remaining + 999) / 1000);
+        }
+
+        private void record(boolean failed) {
+            if (recorded == window.length) {
+                if (window[position]) {
+                    failures--;
+                }
+            } else {
+                recorded++;
+            }
+            window[position] = failed;
+            if (failed) {
+                failures++;
+            }
+            position = (position + 1) % window.length;
+        }
+
+        private void open() {
+            logger.warn("Circuit for {} opened", operation);
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            resetWindow();
+        }
+
+        private void resetWindow() {
+            position = 0;
+            recorded = 0;
+            failures = 0;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package org.interview.devicecrud.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.interview.devicecrud.constants.OperationType;
+import org.interview.devicecrud.exception.ServiceOverloadedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Adaptive concurrency limits in front of {@link DeviceCrudService}, one budget
+ * per {@link OperationType}. Point reads and scans have separate budgets, so a
+ * pile-up of slow listings cannot use up the concurrency that point reads need.
+ * <p>
+ * Each budget follows the gradient approach: it compares a short-term average of
+ * request latency with a slowly moving long-term baseline. While latency stays
+ * at the baseline the limit grows by about the square root of itself. Once
+ * requests start queueing in the driver and latency rises, the ratio drops below
+ * one and the limit shrinks with it. Calls above the limit are rejected right
+ * away with {@link ServiceOverloadedException} rather than waiting for a
+ * connection.
+ */
+@Component
+public class ConcurrencyLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimiter.class);
+
+    private final boolean enabled;
+    private final long retryAfterSeconds;
+    private final Map<OperationType, GradientLimit> limits = new EnumMap<>(OperationType.class);
+    private final Map<OperationType, Counter> rejections = new EnumMap<>(OperationType.class);
+
+    public ConcurrencyLimiter(MeterRegistry meterRegistry,
+                              @Value("${device.limiter.enabled:true}") boolean enabled,
+                              @Value("${device.limiter.retry-after-seconds:1}") long retryAfterSeconds,
+                              @Value("${device.limiter.point-read.initial-limit:100}") int pointReadInitial,
+                              @Value("${device.limiter.point-read.min-limit:10}") int pointReadMin,
+                              @Value("${device.limiter.point-read.max-limit:500}") int pointReadMax,
+                              @Value("${device.limiter.scan.initial-limit:20}") int scanInitial,
+                              @Value("${device.limiter.scan.min-limit:2}") int scanMin,
+                              @Value("${device.limiter.scan.max-limit:100}") int scanMax) {
+        this.enabled = enabled;
+        this.retryAfterSeconds = retryAfterSeconds;
+        register(meterRegistry, OperationType.POINT_READ, new GradientLimit(pointReadInitial, pointReadMin, pointReadMax));
+        register(meterRegistry, OperationType.SCAN, new GradientLimit(scanInitial, scanMin, scanMax));
+    }
+
+    private void register(MeterRegistry meterRegistry, OperationType operation, GradientLimit limit) {
+        limits.put(operation, limit);
+        String tag = operation.name().toLowerCase();
+        Gauge.builder("device.limiter.limit", limit, GradientLimit::getLimit)
+                .tag("operation", tag).register(meterRegistry);
+        Gauge.builder("device.limiter.inflight", limit, GradientLimit::getInFlight)
+                .tag("operation", tag).register(meterRegistry);
+        rejections.put(operation, meterRegistry.counter("device.limiter.rejections", "operation", tag));
+    }
+
+    /**
+     * Runs the call within the budget of its operation type. Operation types
+     * without a budget run unrestricted.
+     *
+     * @throws ServiceOverloadedException when the budget is used up
+     */
+    public <T> T execute(OperationType operation, Supplier<T> call) {
+        GradientLimit limit = limits.get(operation);
+        if (!enabled || limit == null) {
+            return call.get();
+        }
+        if (!limit.tryAcquire()) {
+            rejections.get(operation).increment();
+            logger.warn("Shedding {} request, {} in flight at limit {}", operation, limit.getInFlight(),
+                    (int) limit.getLimit());
+            throw new ServiceOverloadedException("Device service is overloaded, please retry later",
+                    retryAfterSeconds);
+        }
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            limit.release(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Gradient based limit of one budget.
+     */
+    static final class GradientLimit {
+
+        private static final double LONG_RTT_SMOOTHING = 2.0 / (600 + 1);
+        private static final double SHORT_RTT_SMOOTHING = 2.0 / (10 + 1);
+        private static final double LIMIT_SMOOTHING = 0.2;
+
+        private final int minLimit;
+        private final int maxLimit;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile double limit;
+        private double shortRtt;
+        private double longRtt;
+
+        GradientLimit(int initialLimit, int minLimit, int maxLimit) {
+            this.limit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+        }
+
+        boolean tryAcquire() {
+            while (true) {
+                int current = inFlight.get();
+                if (current >= (int) limit) {
+                    return false;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release(long rttNanos) {
+            int concurrent = inFlight.getAndDecrement();
+            sample(rttNanos, concurrent);
+        }
+
+        synchronized void sample(long rttNanos, int concurrent) {
+            if (longRtt == 0) {
+                shortRtt = rttNanos;
+                longRtt = rttNanos;
+                return;
+            }
+            shortRtt += (rttNanos - shortRtt) * SHORT_RTT_SMOOTHING;
+            longRtt += (rttNanos - longRtt) * LONG_RTT_SMOOTHING;
+            // let the baseline recover quickly after a period of high latency
+            if (longRtt > shortRtt * 2) {
+                longRtt *= 0.95;
+            }
+            // an under-used limit carries no information about how far it could go
+            if (concurrent < limit / 2) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, longRtt / shortRtt));
+            double target = limit * gradient + Math.sqrt(limit);
+            double next = limit * (1 - LIMIT_SMOOTHING) + target * LIMIT_SMOOTHING;
+            limit = Math.max(minLimit, Math.min(maxLimit, next));
+        }
+
+        double getLimit() {
+            return limit;
+        }
+
+        int getInFlight() {
+            return inFlight.get();
+        }
+    }
+}
@@ -9,6 +9,8 @@ public class ConfigService {
 
     private String env;
 
+    private String strategy;
+
     public String getEnv() {
         return env;
     }
@@ -16,4 +18,12 @@ public class ConfigService {
     public void setEnv(String env) {
         this.env = env;
     }
+
+    public String getStrategy() {
+        return strategy;
+    }
+
+    public void setStrategy(String strategy) {
+        this.strategy = strategy;
+    }
 }
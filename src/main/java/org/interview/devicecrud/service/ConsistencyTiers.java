@@ -0,0 +1,150 @@
+package org.interview.devicecrud.service;
+
+import com.mongodb.WriteConcern;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.interview.devicecrud.constants.ConsistencyTier;
+import org.interview.devicecrud.constants.DeviceOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoAction;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.WriteConcernResolver;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Chooses the write and read concern of every {@link DeviceOperation} from
+ * {@code device.consistency.<operation>}, so durability can be traded for
+ * latency per endpoint, e.g. brand changes acknowledged by the primary alone
+ * while state transitions wait for a majority.
+ * <p>
+ * Reads get the read concern of their tier on the query. Writes run inside
+ * {@link #write}, which marks the current thread with the operation; the
+ * template consults this class as its {@link WriteConcernResolver} for every
+ * insert, save, update and remove, including those issued by the repository;
+ * bulk writes are started through {@link #bulkOps}.
+ * Every use is counted in {@code device.consistency.operations} tagged with the
+ * operation and the tier.
+ */
+@Component
+public class ConsistencyTiers implements WriteConcernResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsistencyTiers.class);
+
+    private final MeterRegistry meterRegistry;
+    private final Map<DeviceOperation, ConsistencyTier> tiers;
+    private final ThreadLocal<DeviceOperation> current = new ThreadLocal<>();
+    private final Map<ConsistencyTier, MongoTemplate> tierTemplates = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ConsistencyTiers(Environment environment, MeterRegistry meterRegistry) {
+        this(meterRegistry, fromEnvironment(environment));
+    }
+
+    ConsistencyTiers(MeterRegistry meterRegistry, Map<DeviceOperation, ConsistencyTier> tiers) {
+        this.meterRegistry = meterRegistry;
+        this.tiers = new EnumMap<>(DeviceOperation.class);
+        for (DeviceOperation operation : DeviceOperation.values()) {
+            this.tiers.put(operation, tiers.getOrDefault(operation, ConsistencyTier.DEFAULT));
+        }
+        logger.info("Consistency tiers: {}", this.tiers);
+    }
+
+    private static Map<DeviceOperation, ConsistencyTier> fromEnvironment(Environment environment) {
+        Map<DeviceOperation, ConsistencyTier> tiers = new EnumMap<>(DeviceOperation.class);
+        for (DeviceOperation operation : DeviceOperation.values()) {
+            String tier = environment.getProperty("device.consistency." + operation.key());
+            if (tier != null) {
+                tiers.put(operation, ConsistencyTier.fromString(tier.trim()));
+            }
+        }
+        return tiers;
+    }
+
+    public ConsistencyTier getTier(DeviceOperation operation) {
+        return tiers.get(operation);
+    }
+
+    /**
+     * Runs the writes of one operation with the write concern of its tier.
+     */
+    public <T> T write(DeviceOperation operation, Supplier<T> call) {
+        count(operation);
+        DeviceOperation previous = current.get();
+        current.set(operation);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                current.remove();
+            } else {
+                current.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Starts a bulk write with the write concern of the tier. Bulk writes do not
+     * go through the resolver, so they are started from a copy of the template
+     * whose default write concern is the tier's.
+     */
+    public BulkOperations bulkOps(DeviceOperation operation, MongoTemplate template,
+                                  BulkOperations.BulkMode mode, String collection) {
+        return template(operation, template).bulkOps(mode, collection);
+    }
+
+    /**
+     * @see #bulkOps(DeviceOperation, MongoTemplate, BulkOperations.BulkMode, String)
+     */
+    public BulkOperations bulkOps(DeviceOperation operation, MongoTemplate template,
+                                  BulkOperations.BulkMode mode, Class<?> entityType) {
+        return template(operation, template).bulkOps(mode, entityType);
+    }
+
+    /**
+     * Sets the read concern of the tier on the query.
+     *
+     * @return the same query
+     */
+    public Query read(DeviceOperation operation, Query query) {
+        count(operation);
+        ConsistencyTier tier = tiers.get(operation);
+        if (tier.getReadConcern() != null) {
+            query.withReadConcern(tier.getReadConcern());
+        }
+        return query;
+    }
+
+    @Override
+    public WriteConcern resolve(MongoAction action) {
+        DeviceOperation operation = current.get();
+        WriteConcern writeConcern = operation == null ? null : tiers.get(operation).getWriteConcern();
+        return writeConcern != null ? writeConcern : action.getDefaultWriteConcern();
+    }
+
+    private MongoTemplate template(DeviceOperation operation, MongoTemplate template) {
+        count(operation);
+        ConsistencyTier tier = tiers.get(operation);
+        if (tier.getWriteConcern() == null) {
+            return template;
+        }
+        return tierTemplates.computeIfAbsent(tier, t -> {
+            MongoTemplate copy = new MongoTemplate(template.getMongoDatabaseFactory(), template.getConverter());
+            copy.setWriteConcern(t.getWriteConcern());
+            return copy;
+        });
+    }
+
+    private void count(DeviceOperation operation) {
+        meterRegistry.counter("device.consistency.operations",
+                "operation", operation.key(), "tier", tiers.get(operation).name().toLowerCase()).increment();
+    }
+}
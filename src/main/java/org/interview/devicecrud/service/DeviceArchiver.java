@@ -0,0 +1,44 @@
+package org.interview.devicecrud.service;
+
+import org.interview.devicecrud.model.DeviceJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically queues an archival of long inactive devices as a background
+ * job, see {@link ArchiveJobHandler}.
+ */
+@Component
+public class DeviceArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceArchiver.class);
+
+    private final DeviceJobService jobService;
+    private final boolean enabled;
+    private final int afterDays;
+
+    public DeviceArchiver(DeviceJobService jobService,
+                          @Value("${device.archive.enabled:false}") boolean enabled,
+                          @Value("${device.archive.after-days:90}") int afterDays) {
+        this.jobService = jobService;
+        this.enabled = enabled;
+        this.afterDays = afterDays;
+    }
+
+    @Scheduled(initialDelayString = "${device.archive.initial-delay-ms:600000}",
+            fixedDelayString = "${device.archive.interval-ms:86400000}")
+    public void archive() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            DeviceJob job = jobService.submitArchive(afterDays);
+            logger.info("Archive job {} is {}", job.getId(), job.getStatus());
+        } catch (Exception e) {
+            logger.error("Unable to queue archive job: {}", e.getMessage());
+        }
+    }
+}
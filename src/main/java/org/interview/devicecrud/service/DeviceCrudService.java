@@ -1,139 +1,636 @@
 package org.interview.devicecrud.service;
 
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.client.result.UpdateResult;
+import org.interview.devicecrud.constants.DeviceOperation;
 import org.interview.devicecrud.constants.DeviceState;
+import org.interview.devicecrud.event.DeviceChangeEvent;
+import org.interview.devicecrud.exception.DuplicateDeviceException;
 import org.interview.devicecrud.exception.MongoDBException;
+import org.interview.devicecrud.exception.NoAvailableDeviceException;
 import org.interview.devicecrud.model.Device;
+import org.interview.devicecrud.model.DeviceBatchWriteResult;
+import org.interview.devicecrud.model.DeviceBulkUpdateResult;
+import org.interview.devicecrud.model.DeviceFilter;
+import org.interview.devicecrud.repository.DeviceCriteriaBuilder;
 import org.interview.devicecrud.repository.DeviceCrudMongoRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
-
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.interview.devicecrud.constants.DeviceCrudConstants.ARCHIVE_COLLECTION;
+import static org.interview.devicecrud.constants.DeviceCrudConstants.FIELD_INACTIVE_SINCE;
+import static org.interview.devicecrud.constants.DeviceCrudConstants.FIELD_LEASE_EXPIRES_AT;
 
 @Service
 public class DeviceCrudService {
     private static final Logger logger = LoggerFactory.getLogger(DeviceCrudService.class);
+    private static final int DUPLICATE_KEY_CODE = 11000;
     private final DeviceCrudMongoRepository repository;
     private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final WriteCoalescer writeCoalescer;
+    private final ConsistencyTiers consistencyTiers;
+    private final boolean fanOut;
+    private final boolean archiveFallback;
+    private final DeviceIdGenerator deviceIdGenerator;
 
-    public DeviceCrudService(DeviceCrudMongoRepository repository, MongoTemplate mongoTemplate) {
+    public DeviceCrudService(DeviceCrudMongoRepository repository, MongoTemplate mongoTemplate,
+                             ApplicationEventPublisher eventPublisher, WriteCoalescer writeCoalescer,
+                             ConsistencyTiers consistencyTiers, DeviceIdGenerator deviceIdGenerator,
+                             @Value("${device.query.fan-out:false}") boolean fanOut,
+                             @Value("${device.archive.read-fallback:true}") boolean archiveFallback) {
         this.repository = repository;
         this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.writeCoalescer = writeCoalescer;
+        this.consistencyTiers = consistencyTiers;
+        this.deviceIdGenerator = deviceIdGenerator;
+        this.fanOut = fanOut;
+        this.archiveFallback = archiveFallback;
+    }
+
+    /**
+     * Ids that are not derived from the device cannot reveal a duplicate, so a
+     * unique index on name and brand rejects it instead. The index only covers
+     * documents holding a name under the configured storage layout, so that
+     * documents not migrated yet do not all collide on the missing keys. It
+     * does not see the archive, which {@link #archivedDuplicates} checks.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureNameBrandIndex() {
+        if (!deviceIdGenerator.isUniqueByIndex()) {
+            return;
+        }
+        try {
+            mongoTemplate.indexOps(Device.class).ensureIndex(new Index()
+                    .on("name", Sort.Direction.ASC).on("brand", Sort.Direction.ASC).unique()
+                    .partial(PartialIndexFilter.of(Criteria.where("name").exists(true))));
+        } catch (Exception e) {
+            logger.error("Unable to create unique name and brand index, duplicates go undetected: {}",
+                    e.getMessage(), e);
+        }
     }
 
     public Device createNewDevice(Device device) {
+        if (deviceIdGenerator.isUniqueByIndex() && !archivedDuplicates(List.of(device)).isEmpty()) {
+            logger.error("Device {} has the name and brand of an archived device", device.getId());
+            throw new DuplicateDeviceException("Device with same name and brand already exists.");
+        }
         try {
             logger.debug("Creating new device : {}", device);
-            return repository.save(device);
+            Device created = consistencyTiers.write(DeviceOperation.CREATE, () -> repository.save(device));
+            eventPublisher.publishEvent(new DeviceChangeEvent(DeviceChangeEvent.Type.CREATED, created.getId(), created));
+            return created;
+        } catch (DuplicateKeyException e) {
+            logger.error("Device {} has the name and brand of an existing device", device.getId());
+            throw new DuplicateDeviceException("Device with same name and brand already exists.");
         } catch (Exception e) {
             logger.error("Error while creating device: {}", e.getMessage());
-            throw new MongoDBException( "Failed to create device : ", e.getMessage());
+            throw new MongoDBException( "Failed to create device : ", e.getMessage(), e);
         }
     }
 
+    /**
+     * Sets the fields of the device rather than replacing the document, so that
+     * keys the model does not carry, such as the lease of a checked out device,
+     * survive the update. The lease is dropped once the device leaves
+     * {@code IN_USE}. An archived device is written back to the device
+     * collection and its archived copy removed.
+     */
     public Device updateDevice(String id, Device update) {
         try {
-            return repository.save(update);
+            Query query = new Query(Criteria.where("id").is(id));
+            Update set = fieldsOf(update);
+            boolean inserted = writeCoalescer.isEnabled()
+                    ? writeCoalescer.upsert(DeviceOperation.UPDATE, id, query, set)
+                    : consistencyTiers.write(DeviceOperation.UPDATE,
+                            () -> mongoTemplate.upsert(query, set, Device.class)).getUpsertedId() != null;
+            if (inserted) {
+                mongoTemplate.remove(new Query(Criteria.where("id").is(id)), Device.class, ARCHIVE_COLLECTION);
+            }
+            eventPublisher.publishEvent(new DeviceChangeEvent(DeviceChangeEvent.Type.UPDATED, id, update));
+            return update;
         } catch (Exception e) {
             logger.error("Error updating device with id {}: {}", id, e.getMessage(), e);
-            throw new MongoDBException( "Failed to update device", e.getMessage());
+            throw new MongoDBException( "Failed to update device", e.getMessage(), e);
+        }
+    }
+
+    private static Update fieldsOf(Device device) {
+        Update update = new Update().set("name", device.getName()).set("brand", device.getBrand())
+                .set("state", device.getState()).setOnInsert("creationTime", device.getCreationTime())
+                .unset(FIELD_INACTIVE_SINCE);
+        if (device.getState() != DeviceState.IN_USE) {
+            update.unset(FIELD_LEASE_EXPIRES_AT);
         }
+        return update;
     }
 
+    /**
+     * Moves the device to a new brand unless it is in use. An archived device
+     * is restored to the device collection with the new brand, the same as
+     * {@link #updateDevice} restores it.
+     */
     public String updateBrandIfNotInUse(String deviceId, String newBrand) {
         if(!StringUtils.hasText(newBrand)) {
             logger.error("Brand should not be empty");
             throw new IllegalArgumentException("Brand should not be empty");
         }
         try {
-            Query query = new Query(Criteria.where("id").is(deviceId).and("state").ne("IN_USE"));
+            Query query = new Query(Criteria.where("id").is(deviceId).and("state").ne(DeviceState.IN_USE));
             Update update = new Update().set("brand", newBrand);
-            UpdateResult result = mongoTemplate.updateFirst(query, update, Device.class);
-
-            if (result.getModifiedCount() == 0) {
+            boolean matched = writeCoalescer.isEnabled()
+                    ? writeCoalescer.apply(DeviceOperation.UPDATE_BRAND, deviceId, query, update)
+                    : consistencyTiers.write(DeviceOperation.UPDATE_BRAND,
+                            () -> mongoTemplate.updateFirst(query, update, Device.class)).getMatchedCount() > 0;
+            if (!matched && archiveFallback) {
+                matched = restoreArchived(deviceId, newBrand);
+            }
+            if (!matched) {
                 throw new MongoDBException("Device is either in use or not found.", deviceId);
             }
+            eventPublisher.publishEvent(new DeviceChangeEvent(DeviceChangeEvent.Type.BRAND_UPDATED, deviceId,
+                    Device.builder().id(deviceId).brand(newBrand).build()));
 
             return String.format("Brand of the device with id: %s updated to \"%s\"", deviceId, newBrand);
         } catch (Exception e) {
             logger.error("Error updating brand: {}", e.getMessage(), e);
-            throw new MongoDBException("Failed to update brand", e.getMessage());
+            throw new MongoDBException("Failed to update brand", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Moves an archived device back to the device collection under a new brand.
+     * The insert fails when the device is in the device collection after all,
+     * in use, so it is never overwritten.
+     *
+     * @return whether the device was restored
+     */
+    private boolean restoreArchived(String id, String newBrand) {
+        Query query = new Query(Criteria.where("id").is(id));
+        Device archived = mongoTemplate.findOne(query, Device.class, ARCHIVE_COLLECTION);
+        if (archived == null) {
+            return false;
+        }
+        archived.setBrand(newBrand);
+        try {
+            consistencyTiers.write(DeviceOperation.UPDATE_BRAND, () -> mongoTemplate.insert(archived));
+        } catch (DuplicateKeyException e) {
+            return false;
         }
+        mongoTemplate.remove(query, Device.class, ARCHIVE_COLLECTION);
+        logger.info("Restored archived device {} to update its brand", id);
+        return true;
     }
 
     public Device fetchDeviceById(String id) {
         try {
             logger.info("Fetching device by id : {}", id);
-            return repository.findById(id)
-                    .orElseThrow(() -> new MongoDBException("Device not found with id: ",id));
+            Query query = RequestDeadline.bound(new Query(Criteria.where("id").is(id)));
+            Device device = mongoTemplate.findOne(consistencyTiers.read(DeviceOperation.POINT_READ, query),
+                    Device.class);
+            if (device == null && archiveFallback) {
+                device = mongoTemplate.findOne(query, Device.class, ARCHIVE_COLLECTION);
+            }
+            if (device == null) {
+                throw new MongoDBException("Device not found with id: ", id);
+            }
+            return device;
         }catch (Exception e) {
             if (e instanceof MongoDBException mongoEx) throw mongoEx;
             logger.error("Unexpected error fetching device with id {}: {}", id, e.getMessage(), e);
-            throw new MongoDBException("Failed to fetch device ", e.getMessage());
+            throw new MongoDBException("Failed to fetch device ", e.getMessage(), e);
         }
     }
 
-    public List<Device> getAllDevices() {
+    /**
+     * Lists the devices matching the filter with one indexed query. With
+     * {@code device.query.fan-out} enabled, a filter on several brands is instead
+     * run as one query per brand on virtual threads and merged.
+     *
+     * @param filter brands, states and creation time range to match
+     * @return matching devices
+     */
+    public List<Device> findDevices(DeviceFilter filter) {
         try {
-            return repository.findAll();
+            if (fanOut && filter.getBrands() != null && filter.getBrands().size() > 1) {
+                return findDevicesPerBrand(filter);
+            }
+            return mongoTemplate.find(scan(DeviceCriteriaBuilder.from(filter).toQuery()), Device.class);
         } catch (Exception e) {
-            logger.error("Error fetching all devices: {}", e.getMessage(), e);
-            throw new MongoDBException("Failed to fetch devices", e.getMessage());
+            logger.error("Error fetching devices for filter {}: {}", filter, e.getMessage(), e);
+            throw new MongoDBException("Failed to fetch devices: ", e.getMessage(), e);
+        }
+    }
+
+    private List<Device> findDevicesPerBrand(DeviceFilter filter) throws InterruptedException, ExecutionException {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<List<Device>>> perBrand = new ArrayList<>();
+            for (String brand : filter.getBrands()) {
+                // bound on the calling thread, the deadline does not follow into the executor
+                Query query = scan(DeviceCriteriaBuilder.from(filter.toBuilder().brands(List.of(brand)).build())
+                        .toQuery());
+                perBrand.add(executor.submit(() -> mongoTemplate.find(query, Device.class)));
+            }
+            List<Device> merged = new ArrayList<>();
+            try {
+                for (Future<List<Device>> devices : perBrand) {
+                    merged.addAll(devices.get());
+                }
+            } catch (ExecutionException e) {
+                perBrand.forEach(devices -> devices.cancel(true));
+                throw e;
+            }
+            return merged;
         }
     }
 
     public boolean deviceExists(String id) {
         try {
-            return repository.existsById(id);
+            return repository.existsById(id) || (archiveFallback
+                    && mongoTemplate.exists(new Query(Criteria.where("id").is(id)), Device.class, ARCHIVE_COLLECTION));
         } catch (Exception e) {
             logger.error("Error checking device existence: {}", e.getMessage(), e);
-            throw new MongoDBException("Failed to verify device existence: ", e.getMessage());
+            throw new MongoDBException("Failed to verify device existence: ", e.getMessage(), e);
         }
     }
 
-    public List<Device> getDevicesByBrand(String brand) {
+    public String deleteDevice(String id) {
         try {
-            return repository.findByBrand(brand);
+            consistencyTiers.write(DeviceOperation.DELETE, () -> {
+                repository.deleteById(id);
+                if (archiveFallback) {
+                    mongoTemplate.remove(new Query(Criteria.where("id").is(id)), Device.class, ARCHIVE_COLLECTION);
+                }
+                return null;
+            });
+            eventPublisher.publishEvent(new DeviceChangeEvent(DeviceChangeEvent.Type.DELETED, id, null));
+            return String.format("Device with id: %s deleted", id);
         } catch (Exception e) {
-            logger.error("Error fetching devices by brand: {}", e.getMessage(), e);
-            throw new MongoDBException( "Failed to fetch devices by brand: ", e.getMessage());
+            logger.error("Error deleting device: {}", e.getMessage(), e);
+            throw new MongoDBException("Failed to delete device: ", e.getMessage(), e);
         }
     }
 
-    public List<Device> getDevicesByState(DeviceState state) {
+    public List<Device> fetchDevicesByIds(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
         try {
-            return repository.findByState(state);
+            Query query = new Query(Criteria.where("id").in(ids));
+            return mongoTemplate.find(scan(query), Device.class);
         } catch (Exception e) {
-            logger.error("Error fetching devices by state: {}", e.getMessage(), e);
-            throw new MongoDBException("Failed to fetch devices by state: ",e.getMessage());
+            logger.error("Error fetching devices by ids: {}", e.getMessage(), e);
+            throw new MongoDBException("Failed to fetch devices by ids: ", e.getMessage(), e);
         }
     }
 
-    public List<Device> getDevicesByBrandAndState(String brand, DeviceState state) {
+    /**
+     * Looks up devices that were moved to the archive. Used for ids that a
+     * read did not find in the device collection.
+     *
+     * @param ids ids to look up
+     * @return archived devices among the ids, in no particular order
+     */
+    public List<Device> fetchArchivedDevicesByIds(Collection<String> ids) {
+        if (!archiveFallback || ids.isEmpty()) {
+            return List.of();
+        }
         try {
-            Query query = new Query();
-            query.addCriteria(Criteria.where("brand").is(brand).and("state").is(state));
-            return mongoTemplate.find(query, Device.class);
+            Query query = new Query(Criteria.where("id").in(ids));
+            return mongoTemplate.find(scan(query), Device.class, ARCHIVE_COLLECTION);
         } catch (Exception e) {
-            logger.error("Error fetching devices by brand and state: {}", e.getMessage(), e);
-            throw new MongoDBException("Failed to fetch devices by brand and state: ", e.getMessage());
+            logger.error("Error fetching archived devices by ids: {}", e.getMessage(), e);
+            throw new MongoDBException("Failed to fetch archived devices by ids: ", e.getMessage(), e);
         }
     }
 
-    public String deleteDevice(String id) {
+    /**
+     * Finds the new devices that would duplicate an archived device, by id or,
+     * when ids do not reveal duplicates, by name and brand. The device
+     * collection checks both itself, through its id and unique index.
+     *
+     * @param devices devices about to be created
+     * @return ids of the devices among them that are taken by the archive
+     */
+    public Set<String> archivedDuplicates(Collection<Device> devices) {
+        if (!archiveFallback || devices.isEmpty()) {
+            return Set.of();
+        }
+        boolean byNameAndBrand = deviceIdGenerator.isUniqueByIndex();
+        List<Criteria> taken = new ArrayList<>();
+        taken.add(Criteria.where("id").in(devices.stream().map(Device::getId).toList()));
+        if (byNameAndBrand) {
+            devices.forEach(device -> taken.add(Criteria.where("name").is(device.getName())
+                    .and("brand").is(device.getBrand())));
+        }
         try {
-            repository.deleteById(id);
-            return String.format("Device with id: %s deleted", id);
+            Query query = new Query(new Criteria().orOperator(taken));
+            query.fields().include("id", "name", "brand");
+            List<Device> archived = mongoTemplate.find(scan(query), Device.class, ARCHIVE_COLLECTION);
+            Set<String> archivedIds = archived.stream().map(Device::getId).collect(Collectors.toSet());
+            Set<List<String>> archivedNames = archived.stream()
+                    .map(device -> List.of(String.valueOf(device.getName()), String.valueOf(device.getBrand())))
+                    .collect(Collectors.toSet());
+            return devices.stream()
+                    .filter(device -> archivedIds.contains(device.getId()) || (byNameAndBrand
+                            && archivedNames.contains(List.of(String.valueOf(device.getName()),
+                            String.valueOf(device.getBrand())))))
+                    .map(Device::getId)
+                    .collect(Collectors.toSet());
         } catch (Exception e) {
-            logger.error("Error deleting device: {}", e.getMessage(), e);
-            throw new MongoDBException("Failed to delete device: ", e.getMessage());
+            logger.error("Error checking the archive for duplicates: {}", e.getMessage(), e);
+            throw new MongoDBException("Failed to check archived devices: ", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Applies the given changes as a single bulk write and publishes an event for
+     * every change that was applied. Brand changes keep the "not IN_USE" guard of
+     * {@link #updateBrandIfNotInUse(String, String)}; a brand change whose guard
+     * matched nothing, because the device was checked out or removed after the
+     * batch was planned, is reported as failed, as is an update of a device
+     * removed meanwhile.
+     *
+     * @param changes changes in execution order
+     * @param ordered whether Mongo should stop at the first failing write
+     * @return the failed changes and how many changes were executed
+     */
+    public DeviceBatchWriteResult applyChanges(List<DeviceChangeEvent> changes, boolean ordered) {
+        Map<Integer, String> failures = new HashMap<>();
+        int executed = changes.size();
+        if (changes.isEmpty()) {
+            return DeviceBatchWriteResult.builder().failures(failures).executed(executed).build();
+        }
+        try {
+            BulkOperations bulk = consistencyTiers.bulkOps(DeviceOperation.BATCH, mongoTemplate,
+                    ordered ? BulkOperations.BulkMode.ORDERED : BulkOperations.BulkMode.UNORDERED, Device.class);
+            for (DeviceChangeEvent change : changes) {
+                switch (change.type()) {
+                    case CREATED -> bulk.insert(change.device());
+                    case UPDATED -> bulk.updateOne(new Query(Criteria.where("id").is(change.deviceId())),
+                            fieldsOf(change.device()));
+                    case BRAND_UPDATED -> bulk.updateOne(
+                            new Query(Criteria.where("id").is(change.deviceId()).and("state").ne(DeviceState.IN_USE)),
+                            new Update().set("brand", change.device().getBrand()));
+                    case DELETED -> bulk.remove(new Query(Criteria.where("id").is(change.deviceId())));
+                }
+            }
+            BulkWriteResult result;
+            try {
+                result = bulk.execute();
+            } catch (BulkOperationException e) {
+                for (BulkWriteError error : e.getErrors()) {
+                    failures.put(error.getIndex(), batchError(changes.get(error.getIndex()), error));
+                }
+                logger.warn("Batch applied with {} failed writes", failures.size());
+                result = e.getResult();
+                if (ordered) {
+                    executed = failures.keySet().stream().mapToInt(Integer::intValue).min().orElse(-1) + 1;
+                }
+            }
+            failUnmatchedChanges(changes, executed, failures, result);
+        } catch (Exception e) {
+            logger.error("Error applying device batch: {}", e.getMessage(), e);
+            throw new MongoDBException("Failed to apply device batch: ", e.getMessage(), e);
+        }
+        for (int i = 0; i < executed; i++) {
+            if (!failures.containsKey(i)) {
+                eventPublisher.publishEvent(changes.get(i));
+            }
+        }
+        return DeviceBatchWriteResult.builder().failures(failures).executed(executed).build();
+    }
+
+    /**
+     * A create that hits the id or the unique name and brand index fails the
+     * same way as {@link #createNewDevice(Device)}.
+     */
+    private static String batchError(DeviceChangeEvent change, BulkWriteError error) {
+        if (change.type() == DeviceChangeEvent.Type.CREATED && error.getCode() == DUPLICATE_KEY_CODE) {
+            return "Device with same name and brand already exists.";
+        }
+        return error.getMessage();
+    }
+
+    /**
+     * The bulk result only counts matches in total, so only when it falls short
+     * of the executed updates one query finds the updates that did not take
+     * effect. An update followed by another write to the same device in the
+     * batch cannot be checked against the final document and is left as applied.
+     */
+    private void failUnmatchedChanges(List<DeviceChangeEvent> changes, int executed,
+                                      Map<Integer, String> failures, BulkWriteResult result) {
+        Map<String, Integer> lastWrite = new HashMap<>();
+        int updates = 0;
+        for (int i = 0; i < executed; i++) {
+            if (failures.containsKey(i)) {
+                continue;
+            }
+            DeviceChangeEvent.Type type = changes.get(i).type();
+            if (type == DeviceChangeEvent.Type.UPDATED || type == DeviceChangeEvent.Type.BRAND_UPDATED) {
+                updates++;
+            }
+            lastWrite.put(changes.get(i).deviceId(), i);
+        }
+        if (result.getMatchedCount() >= updates) {
+            return;
+        }
+        List<Integer> checked = new ArrayList<>();
+        List<Criteria> applied = new ArrayList<>();
+        for (int i : lastWrite.values()) {
+            DeviceChangeEvent change = changes.get(i);
+            if (change.type() == DeviceChangeEvent.Type.UPDATED) {
+                applied.add(Criteria.where("id").is(change.deviceId()));
+                checked.add(i);
+            } else if (change.type() == DeviceChangeEvent.Type.BRAND_UPDATED) {
+                applied.add(Criteria.where("id").is(change.deviceId()).and("brand").is(change.device().getBrand()));
+                checked.add(i);
+            }
+        }
+        if (checked.isEmpty()) {
+            return;
+        }
+        Query query = new Query(new Criteria().orOperator(applied));
+        query.fields().include("id");
+        Set<String> appliedIds = mongoTemplate.find(query, Device.class).stream()
+                .map(Device::getId)
+                .collect(Collectors.toSet());
+        for (int i : checked) {
+            DeviceChangeEvent change = changes.get(i);
+            if (!appliedIds.contains(change.deviceId())) {
+                failures.put(i, change.type() == DeviceChangeEvent.Type.UPDATED
+                        ? "Device not found."
+                        : "Device is either in use or not found.");
+            }
+        }
+    }
+
+    /**
+     * Moves every device of a brand that is not in use to a new brand in one
+     * update, using the same guard as {@link #updateBrandIfNotInUse(String, String)}.
+     *
+     * @param brand    current brand
+     * @param newBrand brand to move to
+     * @return matched and modified counts
+     */
+    public DeviceBulkUpdateResult rebrandDevices(String brand, String newBrand) {
+        try {
+            Query query = new Query(Criteria.where("brand").is(brand).and("state").ne(DeviceState.IN_USE));
+            Update update = new Update().set("brand", newBrand);
+            return consistencyTiers.write(DeviceOperation.REBRAND, () -> bulkUpdate(query, update));
+        } catch (Exception e) {
+            logger.error("Error rebranding devices of brand {}: {}", brand, e.getMessage(), e);
+            throw new MongoDBException("Failed to rebrand devices: ", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Moves every device in state {@code from}, optionally limited to one brand,
+     * to state {@code to} in one update. Devices in use are never matched.
+     *
+     * @param brand brand to limit to, or {@code null} for all brands
+     * @param from  current state
+     * @param to    target state
+     * @return matched and modified counts
+     */
+    public DeviceBulkUpdateResult transitionDevices(String brand, DeviceState from, DeviceState to) {
+        if (from == DeviceState.IN_USE) {
+            logger.error("Devices in use cannot be transitioned");
+            throw new IllegalArgumentException("Devices in use cannot be transitioned");
+        }
+        try {
+            Criteria criteria = Criteria.where("state").is(from);
+            if (brand != null) {
+                criteria.and("brand").is(brand);
+            }
+            return consistencyTiers.write(DeviceOperation.TRANSITION,
+                    () -> bulkUpdate(new Query(criteria), new Update().set("state", to).unset(FIELD_INACTIVE_SINCE)));
+        } catch (Exception e) {
+            logger.error("Error transitioning devices from {} to {}: {}", from, to, e.getMessage(), e);
+            throw new MongoDBException("Failed to transition devices: ", e.getMessage(), e);
+        }
+    }
+
+    private Query scan(Query query) {
+        return consistencyTiers.read(DeviceOperation.SCAN, RequestDeadline.bound(query));
+    }
+
+    private DeviceBulkUpdateResult bulkUpdate(Query query, Update update) {
+        UpdateResult result = mongoTemplate.updateMulti(query, update, Device.class);
+        if (result.getModifiedCount() > 0) {
+            eventPublisher.publishEvent(new DeviceChangeEvent(DeviceChangeEvent.Type.BULK_UPDATED, null, null));
+        }
+        return DeviceBulkUpdateResult.builder()
+                .matched(result.getMatchedCount())
+                .modified(result.getModifiedCount())
+                .build();
+    }
+
+    /**
+     * Atomically claims one {@code AVAILABLE} device matching the filter and
+     * marks it {@code IN_USE}, optionally with a lease after which the sweeper
+     * returns it. Archived devices are all {@code INACTIVE}, so the archive is
+     * never searched.
+     *
+     * @param filter brands to choose from; states are ignored
+     * @param lease  how long the device may be held, or {@code null} for no expiry
+     * @return the claimed device
+     */
+    public Device checkoutDevice(DeviceFilter filter, Duration lease) {
+        Device claimed;
+        try {
+            Query query = DeviceCriteriaBuilder.from(filter.toBuilder().states(List.of(DeviceState.AVAILABLE)).build())
+                    .toQuery();
+            Update update = new Update().set("state", DeviceState.IN_USE);
+            if (lease != null) {
+                update.set(FIELD_LEASE_EXPIRES_AT, Date.from(Instant.now().plus(lease)));
+            }
+            claimed = consistencyTiers.write(DeviceOperation.CHECKOUT, () -> mongoTemplate.findAndModify(
+                    RequestDeadline.bound(query), update, FindAndModifyOptions.options().returnNew(true), Device.class));
+        } catch (Exception e) {
+            logger.error("Error checking out device: {}", e.getMessage(), e);
+            throw new MongoDBException("Failed to check out device: ", e.getMessage(), e);
+        }
+        if (claimed == null) {
+            logger.warn("No available device for filter {}", filter);
+            throw new NoAvailableDeviceException("No available device matches the request");
+        }
+        eventPublisher.publishEvent(new DeviceChangeEvent(DeviceChangeEvent.Type.UPDATED, claimed.getId(), claimed));
+        return claimed;
+    }
+
+    /**
+     * Returns a checked out device, marking it {@code AVAILABLE} and dropping its lease.
+     *
+     * @param id id of the device
+     * @return the released device
+     */
+    public Device checkinDevice(String id) {
+        Device released;
+        try {
+            Query query = new Query(Criteria.where("id").is(id).and("state").is(DeviceState.IN_USE));
+            Update update = new Update().set("state", DeviceState.AVAILABLE).unset(FIELD_LEASE_EXPIRES_AT);
+            released = consistencyTiers.write(DeviceOperation.CHECKIN, () -> mongoTemplate.findAndModify(
+                    RequestDeadline.bound(query), update, FindAndModifyOptions.options().returnNew(true), Device.class));
+        } catch (Exception e) {
+            logger.error("Error checking in device {}: {}", id, e.getMessage(), e);
+            throw new MongoDBException("Failed to check in device: ", e.getMessage(), e);
+        }
+        if (released == null) {
+            throw new MongoDBException("Device is either not in use or not found.", id);
+        }
+        eventPublisher.publishEvent(new DeviceChangeEvent(DeviceChangeEvent.Type.UPDATED, id, released));
+        return released;
+    }
+
+    /**
+     * Returns every device whose lease has expired to {@code AVAILABLE}.
+     *
+     * @return number of devices released
+     */
+    public long releaseExpiredLeases() {
+        try {
+            Query query = new Query(Criteria.where("state").is(DeviceState.IN_USE)
+                    .and(FIELD_LEASE_EXPIRES_AT).lt(new Date()));
+            Update update = new Update().set("state", DeviceState.AVAILABLE).unset(FIELD_LEASE_EXPIRES_AT);
+            return consistencyTiers.write(DeviceOperation.CHECKIN, () -> bulkUpdate(query, update)).getModified();
+        } catch (Exception e) {
+            logger.error("Error releasing expired leases: {}", e.getMessage(), e);
+            throw new MongoDBException("Failed to release expired leases: ", e.getMessage(), e);
         }
     }
 }
@@ -0,0 +1,314 @@
+package org.interview.devicecrud.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.interview.devicecrud.exception.DeviceFileException;
+import org.interview.devicecrud.exception.MongoDBException;
+import org.interview.devicecrud.model.Device;
+import org.interview.devicecrud.model.DeviceExportManifest;
+import org.interview.devicecrud.model.DeviceExportPart;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.interview.devicecrud.constants.DeviceCrudConstants.*;
+
+/**
+ * Writes the device collection to gzip compressed NDJSON files on local disk.
+ * <p>
+ * An export is planned first: the id space is cut into ranges of roughly equal
+ * size by skipping along the {@code _id} index, and the plan is stored in the
+ * output directory. Each range is then streamed with a cursor sorted by id and
+ * restricted to the requested fields, and written through a buffered file
+ * channel to its own part file, with several ranges in parallel. A finished part
+ * leaves a small metadata file next to it, so a resumed export only writes the
+ * parts that are missing. The manifest lists every part with its id range,
+ * device count, size and SHA-256 checksum.
+ */
+@Service
+public class DeviceExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceExportService.class);
+    private static final String FORMAT = "ndjson+gzip";
+    private static final String PLAN_FILE = "plan.json";
+    private static final String MANIFEST_FILE = "manifest.json";
+    private static final List<String> EXPORTABLE_FIELDS =
+            List.of(FIELD_NAME, FIELD_BRAND, FIELD_STATE, FIELD_CREATION_TIME);
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int CANCEL_CHECK_INTERVAL = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final Path exportDir;
+    private final int cursorBatchSize;
+
+    public DeviceExportService(MongoTemplate mongoTemplate,
+                               ObjectMapper objectMapper,
+                               @Value("${device.export.dir:${java.io.tmpdir}/device-exports}") String exportDir,
+                               @Value("${device.export.cursor-batch-size:5000}") int cursorBatchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.exportDir = Paths.get(exportDir);
+        this.cursorBatchSize = cursorBatchSize;
+    }
+
+    /**
+     * Cuts the collection into id ranges and stores the plan in a new output directory.
+     *
+     * @param fields      fields to export besides the id, empty for all
+     * @param parallelism number of ranges
+     * @return the output directory
+     */
+    public Path plan(List<String> fields, int parallelism) {
+        List<String> exported = validateFields(fields);
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Export parallelism must be at least 1");
+        }
+        try {
+            long total = mongoTemplate.getCollection(DEVICE_COLLECTION).estimatedDocumentCount();
+            List<String> bounds = new ArrayList<>();
+            for (int i = 1; i < parallelism && total > 0; i++) {
+                Query boundary = new Query().with(Sort.by(Sort.Direction.ASC, "id"))
+                        .skip(total * i / parallelism).limit(1);
+                boundary.fields().include("id");
+                Device device = mongoTemplate.findOne(boundary, Device.class);
+                if (device != null && (bounds.isEmpty() || !bounds.get(bounds.size() - 1).equals(device.getId()))) {
+                    bounds.add(device.getId());
+                }
+            }
+            List<DeviceExportPart> parts = new ArrayList<>();
+            for (int i = 0; i <= bounds.size(); i++) {
+                parts.add(DeviceExportPart.builder()
+                        .index(i)
+                        .fromId(i == 0 ? null : bounds.get(i - 1))
+                        .toId(i == bounds.size() ? null : bounds.get(i))
+                        .file(String.format("part-%05d.ndjson.gz", i))
+                        .build());
+            }
+            Path dir = exportDir.resolve("devices-"
+                    + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS")));
+            Files.createDirectories(dir);
+            writeJson(dir.resolve(PLAN_FILE), DeviceExportManifest.builder()
+                    .createdAt(LocalDateTime.now()).format(FORMAT).fields(exported).parts(parts).build());
+            logger.info("Planned export of ~{} devices in {} parts to {}", total, parts.size(), dir);
+            return dir;
+        } catch (IOException e) {
+            logger.error("Unable to create export directory: {}", e.getMessage(), e);
+            throw new DeviceFileException("Failed to plan export: ", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes every part of the plan in the given directory that has not been
+     * written yet, then the manifest.
+     *
+     * @param dir      directory returned by {@link #plan}
+     * @param progress receives finished parts and is asked whether to stop
+     * @return the manifest, or {@code null} when the export was cancelled
+     */
+    public DeviceExportManifest export(Path dir, Progress progress) {
+        DeviceExportManifest plan = readJson(dir.resolve(PLAN_FILE), DeviceExportManifest.class);
+        List<DeviceExportPart> parts = plan.getParts();
+        List<DeviceExportPart> finished = new ArrayList<>();
+        List<DeviceExportPart> pending = new ArrayList<>();
+        for (DeviceExportPart part : parts) {
+            Path done = doneFile(dir, part);
+            if (Files.exists(done)) {
+                finished.add(readJson(done, DeviceExportPart.class));
+            } else {
+                pending.add(part);
+            }
+        }
+        AtomicLong exported = new AtomicLong(finished.stream().mapToLong(DeviceExportPart::getCount).sum());
+        ExecutorService writers = Executors.newFixedThreadPool(Math.max(1, pending.size()));
+        try {
+            List<Future<DeviceExportPart>> futures = new ArrayList<>();
+            for (DeviceExportPart part : pending) {
+                futures.add(writers.submit(() -> {
+                    DeviceExportPart written = writePart(dir, part, plan.getFields(), progress);
+                    if (written != null) {
+                        writeJson(doneFile(dir, written), written);
+                        progress.partFinished(written, exported.addAndGet(written.getCount()));
+                    }
+                    return written;
+                }));
+            }
+            for (Future<DeviceExportPart> future : futures) {
+                DeviceExportPart written = future.get();
+                if (written != null) {
+                    finished.add(written);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MongoDBException("Device export interrupted", e.getMessage());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            logger.error("Error exporting devices: {}", cause.getMessage(), cause);
+            if (cause instanceof DeviceFileException file) {
+                throw file;
+            }
+            if (cause instanceof IOException) {
+                throw new DeviceFileException("Failed to export devices: ", cause.getMessage(), cause);
+            }
+            throw new MongoDBException("Failed to export devices: ", cause.getMessage());
+        } catch (Exception e) {
+            logger.error("Error exporting devices: {}", e.getMessage(), e);
+            throw new MongoDBException("Failed to export devices: ", e.getMessage());
+        } finally {
+            writers.shutdownNow();
+        }
+        if (progress.isCancelled()) {
+            logger.info("Export to {} cancelled with {} of {} parts written", dir, finished.size(), parts.size());
+            return null;
+        }
+        finished.sort(Comparator.comparingInt(DeviceExportPart::getIndex));
+        DeviceExportManifest manifest = DeviceExportManifest.builder()
+                .createdAt(plan.getCreatedAt())
+                .format(FORMAT)
+                .fields(plan.getFields())
+                .totalCount(exported.get())
+                .parts(finished)
+                .build();
+        writeJson(dir.resolve(MANIFEST_FILE), manifest);
+        logger.info("Exported {} devices to {}", manifest.getTotalCount(), dir);
+        return manifest;
+    }
+
+    private DeviceExportPart writePart(Path dir, DeviceExportPart part, List<String> fields, Progress progress)
+            throws IOException, NoSuchAlgorithmException {
+        Criteria range = Criteria.where("id");
+        boolean bounded = false;
+        if (part.getFromId() != null) {
+            range.gte(part.getFromId());
+            bounded = true;
+        }
+        if (part.getToId() != null) {
+            range.lt(part.getToId());
+            bounded = true;
+        }
+        Query query = (bounded ? new Query(range) : new Query())
+                .with(Sort.by(Sort.Direction.ASC, "id"))
+                .cursorBatchSize(cursorBatchSize);
+        query.fields().include(fields.toArray(String[]::new));
+
+        ObjectWriter writer = objectMapper.writerFor(Device.class);
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        Path tmp = dir.resolve(part.getFile() + ".tmp");
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             OutputStream out = new GZIPOutputStream(new BufferedOutputStream(
+                     new DigestOutputStream(Channels.newOutputStream(channel), digest), BUFFER_SIZE), BUFFER_SIZE);
+             Stream<Device> devices = mongoTemplate.stream(query, Device.class)) {
+            var iterator = devices.iterator();
+            while (iterator.hasNext()) {
+                out.write(writer.writeValueAsBytes(iterator.next()));
+                out.write('\n');
+                if (++count % CANCEL_CHECK_INTERVAL == 0 && progress.isCancelled()) {
+                    break;
+                }
+            }
+        }
+        if (progress.isCancelled()) {
+            Files.deleteIfExists(tmp);
+            return null;
+        }
+        Path file = dir.resolve(part.getFile());
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return DeviceExportPart.builder()
+                .index(part.getIndex())
+                .fromId(part.getFromId())
+                .toId(part.getToId())
+                .file(part.getFile())
+                .count(count)
+                .bytes(Files.size(file))
+                .sha256(HexFormat.of().formatHex(digest.digest()))
+                .build();
+    }
+
+    private List<String> validateFields(List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return EXPORTABLE_FIELDS;
+        }
+        for (String field : fields) {
+            if (!EXPORTABLE_FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Unknown export field " + field + ". Must be one of: "
+                        + String.join(", ", EXPORTABLE_FIELDS));
+            }
+        }
+        return List.copyOf(fields);
+    }
+
+    private Path doneFile(Path dir, DeviceExportPart part) {
+        return dir.resolve(part.getFile() + ".json");
+    }
+
+    private void writeJson(Path file, Object value) {
+        try {
+            objectMapper.writeValue(file.toFile(), value);
+        } catch (IOException e) {
+            throw new DeviceFileException("Failed to write " + file.getFileName() + ": ", e.getMessage(), e);
+        }
+    }
+
+    private <T> T readJson(Path file, Class<T> type) {
+        try {
+            return objectMapper.readValue(file.toFile(), type);
+        } catch (IOException e) {
+            throw new DeviceFileException("Failed to read " + file.getFileName() + ": ", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Receives the progress of an export.
+     */
+    public interface Progress {
+
+        Progress NONE = new Progress() {
+        };
+
+        /**
+         * @param part     the part just written
+         * @param exported devices in all finished parts, including earlier runs
+         */
+        default void partFinished(DeviceExportPart part, long exported) {
+        }
+
+        default boolean isCancelled() {
+            return false;
+        }
+    }
+}
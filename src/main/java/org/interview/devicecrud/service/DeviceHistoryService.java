@@ -0,0 +1,278 @@
+package org.interview.devicecrud.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.interview.devicecrud.constants.DeviceOperation;
+import org.interview.devicecrud.constants.HistoryOverflowPolicy;
+import org.interview.devicecrud.event.DeviceChangeEvent;
+import org.interview.devicecrud.exception.MongoDBException;
+import org.interview.devicecrud.model.Device;
+import org.interview.devicecrud.model.DeviceHistoryEntry;
+import org.interview.devicecrud.model.DeviceHistoryPage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.interview.devicecrud.constants.DeviceCrudConstants.MAX_HISTORY_PAGE_SIZE;
+
+/**
+ * Append-only history of device changes in the {@code device_history}
+ * collection.
+ * <p>
+ * Changes are taken from the {@link DeviceChangeEvent}s the service publishes
+ * and put into a bounded in-memory buffer; the request thread does nothing
+ * else. A background thread writes the buffer in batches once
+ * {@code device.history.batch-size} changes are waiting or
+ * {@code device.history.flush-interval-ms} has passed since the first of them.
+ * <p>
+ * Durability is traded for latency on purpose: changes still in the buffer are
+ * lost if the process dies, at most one flush interval's worth, and a full
+ * buffer handles new changes by the configured {@link HistoryOverflowPolicy}.
+ * Batches are written with the {@code history} consistency tier. Set-based
+ * bulk updates carry no per-device data and are not recorded.
+ */
+@Service
+public class DeviceHistoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceHistoryService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ConsistencyTiers consistencyTiers;
+    private final boolean enabled;
+    private final HistoryOverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long blockTimeoutMs;
+    private final BlockingQueue<DeviceHistoryEntry> buffer;
+    private final Counter dropped;
+    private final Counter written;
+    private final Counter failed;
+    private final DistributionSummary batchSizes;
+
+    private volatile boolean running = true;
+    private Thread flusher;
+
+    public DeviceHistoryService(MongoTemplate mongoTemplate,
+                                ConsistencyTiers consistencyTiers,
+                                MeterRegistry meterRegistry,
+                                @Value("${device.history.enabled:true}") boolean enabled,
+                                @Value("${device.history.buffer-size:10000}") int bufferSize,
+                                @Value("${device.history.overflow-policy:DROP_NEWEST}") String overflowPolicy,
+                                @Value("${device.history.batch-size:500}") int batchSize,
+                                @Value("${device.history.flush-interval-ms:1000}") long flushIntervalMs,
+                                @Value("${device.history.block-timeout-ms:50}") long blockTimeoutMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.consistencyTiers = consistencyTiers;
+        this.enabled = enabled;
+        this.overflowPolicy = HistoryOverflowPolicy.fromString(overflowPolicy);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        meterRegistry.gauge("device.history.buffered", buffer, BlockingQueue::size);
+        this.dropped = meterRegistry.counter("device.history.dropped");
+        this.written = meterRegistry.counter("device.history.written");
+        this.failed = meterRegistry.counter("device.history.failed");
+        this.batchSizes = meterRegistry.summary("device.history.batch.size");
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        flusher = new Thread(this::run, "device-history-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Stops taking changes and writes what is still buffered.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.interrupt();
+            flusher.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 5000);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndex() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            mongoTemplate.indexOps(DeviceHistoryEntry.class)
+                    .ensureIndex(new Index().on("deviceId", Sort.Direction.ASC).on("changedAt", Sort.Direction.DESC));
+        } catch (Exception e) {
+            logger.warn("Unable to create device history index: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onDeviceChange(DeviceChangeEvent event) {
+        if (!enabled || !running || event.deviceId() == null) {
+            return;
+        }
+        Device device = event.device();
+        DeviceHistoryEntry entry = DeviceHistoryEntry.builder()
+                .deviceId(event.deviceId())
+                .type(event.type())
+                .name(device == null ? null : device.getName())
+                .brand(device == null ? null : device.getBrand())
+                .state(device == null ? null : device.getState())
+                .changedAt(new Date())
+                .build();
+        if (!offer(entry)) {
+            dropped.increment();
+            logger.debug("History buffer full, dropped {} of {}", event.type(), event.deviceId());
+        }
+    }
+
+    private boolean offer(DeviceHistoryEntry entry) {
+        switch (overflowPolicy) {
+            case DROP_OLDEST -> {
+                while (!buffer.offer(entry)) {
+                    if (buffer.poll() != null) {
+                        dropped.increment();
+                    }
+                }
+                return true;
+            }
+            case BLOCK -> {
+                try {
+                    return buffer.offer(entry, blockTimeoutMs, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            default -> {
+                return buffer.offer(entry);
+            }
+        }
+    }
+
+    /**
+     * Reads one page of the history of a device, newest change first.
+     *
+     * @param deviceId id of the device
+     * @param page     zero based page number
+     * @param size     entries per page
+     */
+    public DeviceHistoryPage getHistory(String deviceId, int page, int size) {
+        if (page < 0) {
+            throw new IllegalArgumentException("History page must not be negative");
+        }
+        if (size < 1 || size > MAX_HISTORY_PAGE_SIZE) {
+            throw new IllegalArgumentException("History page size must be between 1 and " + MAX_HISTORY_PAGE_SIZE);
+        }
+        List<DeviceHistoryEntry> entries;
+        try {
+            Query query = new Query(Criteria.where("deviceId").is(deviceId))
+                    .with(Sort.by(Sort.Direction.DESC, "changedAt", "id"))
+                    .skip((long) page * size)
+                    .limit(size + 1);
+            entries = mongoTemplate.find(consistencyTiers.read(DeviceOperation.HISTORY, RequestDeadline.bound(query)),
+                    DeviceHistoryEntry.class);
+        } catch (Exception e) {
+            logger.error("Error fetching history of device {}: {}", deviceId, e.getMessage(), e);
+            throw new MongoDBException("Failed to fetch device history: ", e.getMessage(), e);
+        }
+        boolean hasMore = entries.size() > size;
+        return DeviceHistoryPage.builder()
+                .deviceId(deviceId)
+                .page(page)
+                .size(size)
+                .hasMore(hasMore)
+                .entries(hasMore ? entries.subList(0, size) : entries)
+                .build();
+    }
+
+    private void run() {
+        while (running || !buffer.isEmpty()) {
+            try {
+                List<DeviceHistoryEntry> batch = collect();
+                if (!batch.isEmpty()) {
+                    write(batch);
+                }
+            } catch (InterruptedException e) {
+                // stop() interrupts the wait; the loop drains the rest of the buffer
+                if (running) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            } catch (Exception e) {
+                logger.error("Device history flush failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private List<DeviceHistoryEntry> collect() throws InterruptedException {
+        List<DeviceHistoryEntry> batch = new ArrayList<>(batchSize);
+        DeviceHistoryEntry first = running
+                ? buffer.poll(flushIntervalNanos, TimeUnit.NANOSECONDS)
+                : buffer.poll();
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+        long flushAt = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize) {
+            buffer.drainTo(batch, batchSize - batch.size());
+            long wait = flushAt - System.nanoTime();
+            if (batch.size() >= batchSize || wait <= 0 || !running) {
+                break;
+            }
+            DeviceHistoryEntry next = buffer.poll(wait, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    /**
+     * Writes everything currently buffered without waiting for more.
+     */
+    void flushBuffered() {
+        List<DeviceHistoryEntry> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    private void write(List<DeviceHistoryEntry> batch) {
+        try {
+            consistencyTiers.write(DeviceOperation.HISTORY,
+                    () -> mongoTemplate.insert(batch, DeviceHistoryEntry.class));
+            written.increment(batch.size());
+            batchSizes.record(batch.size());
+        } catch (Exception e) {
+            failed.increment(batch.size());
+            logger.error("Unable to write {} history entries: {}", batch.size(), e.getMessage(), e);
+        }
+    }
+}
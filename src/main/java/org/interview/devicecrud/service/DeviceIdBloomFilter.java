@@ -0,0 +1,224 @@
+package org.interview.devicecrud.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.interview.devicecrud.event.DeviceChangeEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+import static org.interview.devicecrud.constants.DeviceCrudConstants.ARCHIVE_COLLECTION;
+import static org.interview.devicecrud.constants.DeviceCrudConstants.DEVICE_COLLECTION;
+import static org.interview.devicecrud.constants.DeviceCrudConstants.FIELD_ID;
+
+/**
+ * In-memory Bloom filter over every issued device id. A negative answer from
+ * {@link #mightContain(String)} is definite, which lets existence checks and
+ * not-found lookups skip Mongo entirely.
+ * <p>
+ * The filter is built from an id-only scan, fed on every create and rebuilt on a
+ * fixed delay so that deleted ids eventually drop out. Until the first build has
+ * finished, or when disabled, every id is reported as possibly present. Since a
+ * negative answer is trusted, the filter should only be enabled when this
+ * instance sees every create, i.e. a single writer.
+ */
+@Component
+public class DeviceIdBloomFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceIdBloomFilter.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final int expectedInsertions;
+    private final double falsePositiveRate;
+    private final Counter definiteMisses;
+
+    private final Object lock = new Object();
+    private volatile Bits current;
+    private Bits building;
+
+    public DeviceIdBloomFilter(MongoTemplate mongoTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${device.bloom.enabled:false}") boolean enabled,
+                               @Value("${device.bloom.expected-insertions:1000000}") int expectedInsertions,
+                               @Value("${device.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.definiteMisses = meterRegistry.counter("device.bloom.definite.misses");
+        Gauge.builder("device.bloom.expected.fpp", this, DeviceIdBloomFilter::expectedFalsePositiveRate)
+                .register(meterRegistry);
+        Gauge.builder("device.bloom.memory.bytes", this, DeviceIdBloomFilter::memoryBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param id device id
+     * @return {@code false} only if the id has definitely never been issued
+     */
+    public boolean mightContain(String id) {
+        Bits bits = current;
+        if (!enabled || bits == null || id == null) {
+            return true;
+        }
+        boolean present = bits.mightContain(id);
+        if (!present) {
+            definiteMisses.increment();
+        }
+        return present;
+    }
+
+    public void put(String id) {
+        if (!enabled || id == null) {
+            return;
+        }
+        synchronized (lock) {
+            if (current != null) {
+                current.put(id);
+            }
+            if (building != null) {
+                building.put(id);
+            }
+        }
+    }
+
+    @EventListener
+    public void onDeviceChange(DeviceChangeEvent event) {
+        if (event.type() == DeviceChangeEvent.Type.CREATED) {
+            put(event.deviceId());
+        }
+    }
+
+    /**
+     * Rebuilds the filter from an id-only scan of the device and archive
+     * collections and swaps it in. Ids created while the scan runs are added to
+     * both filters.
+     */
+    @Scheduled(fixedDelayString = "${device.bloom.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        Bits fresh = new Bits(expectedInsertions, falsePositiveRate);
+        synchronized (lock) {
+            building = fresh;
+        }
+        try {
+            Query query = new Query();
+            query.fields().include(FIELD_ID);
+            // archived devices are still readable by id
+            for (String collection : List.of(DEVICE_COLLECTION, ARCHIVE_COLLECTION)) {
+                try (Stream<Document> ids = mongoTemplate.stream(query, Document.class, collection)) {
+                    ids.forEach(doc -> fresh.put(doc.getString(FIELD_ID)));
+                }
+            }
+            synchronized (lock) {
+                current = fresh;
+                building = null;
+            }
+            logger.info("Device id bloom filter rebuilt with {} ids", fresh.count());
+        } catch (Exception e) {
+            synchronized (lock) {
+                building = null;
+            }
+            logger.error("Failed to rebuild device id bloom filter: {}", e.getMessage(), e);
+        }
+    }
+
+    double expectedFalsePositiveRate() {
+        Bits bits = current;
+        return bits == null ? 1.0 : bits.expectedFalsePositiveRate();
+    }
+
+    double memoryBytes() {
+        Bits bits = current;
+        return bits == null ? 0 : bits.sizeInBits() / 8.0;
+    }
+
+    /**
+     * Fixed-size bit array using double hashing over a 64-bit FNV-1a hash.
+     */
+    static final class Bits {
+
+        private final AtomicLongArray words;
+        private final long numBits;
+        private final int numHashes;
+        private final AtomicLong count = new AtomicLong();
+
+        Bits(int expectedInsertions, double falsePositiveRate) {
+            long n = Math.max(1, expectedInsertions);
+            long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.max(1, (m + 63) / 64);
+            this.words = new AtomicLongArray(words);
+            this.numBits = (long) words * 64;
+            this.numHashes = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+        }
+
+        void put(String id) {
+            long hash = hash(id);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= numHashes; i++) {
+                long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % numBits;
+                int index = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long word;
+                do {
+                    word = words.get(index);
+                    if ((word & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(index, word, word | mask));
+            }
+            count.incrementAndGet();
+        }
+
+        boolean mightContain(String id) {
+            long hash = hash(id);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= numHashes; i++) {
+                long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % numBits;
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long count() {
+            return count.get();
+        }
+
+        long sizeInBits() {
+            return numBits;
+        }
+
+        double expectedFalsePositiveRate() {
+            return Math.pow(1 - Math.exp(-numHashes * (double) count.get() / numBits), numHashes);
+        }
+
+        private static long hash(String id) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < id.length(); i++) {
+                hash ^= id.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+    }
+}
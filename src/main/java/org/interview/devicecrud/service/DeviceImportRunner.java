@@ -0,0 +1,49 @@
+package org.interview.devicecrud.service;
+
+import org.interview.devicecrud.constants.ImportFormat;
+import org.interview.devicecrud.model.DeviceImportResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Imports a local file on startup when launched with
+ * {@code --device.import.file=<path>}. The format defaults to the file extension.
+ */
+@Component
+@ConditionalOnProperty(name = "device.import.file")
+public class DeviceImportRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceImportRunner.class);
+
+    private final DeviceImportService importService;
+    private final String file;
+    private final String format;
+
+    public DeviceImportRunner(DeviceImportService importService,
+                              @Value("${device.import.file}") String file,
+                              @Value("${device.import.format:}") String format) {
+        this.importService = importService;
+        this.file = file;
+        this.format = format;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Path path = Paths.get(file);
+        ImportFormat importFormat = format.isBlank()
+                ? (file.toLowerCase().endsWith(".csv") ? ImportFormat.CSV : ImportFormat.NDJSON)
+                : ImportFormat.fromString(format);
+        logger.info("Importing devices from {} as {}", path, importFormat);
+        DeviceImportResult result = importService.importFile(path, importFormat);
+        logger.info("Import of {} finished: processed={}, inserted={}, failed={}, report={}", path,
+                result.getProcessed(), result.getInserted(), result.getFailed(), result.getReportFile());
+    }
+}
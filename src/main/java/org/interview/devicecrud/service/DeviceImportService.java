@@ -0,0 +1,488 @@
+package org.interview.devicecrud.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import org.interview.devicecrud.constants.DeviceOperation;
+import org.interview.devicecrud.constants.DeviceState;
+import org.interview.devicecrud.constants.ImportFormat;
+import org.interview.devicecrud.event.DeviceChangeEvent;
+import org.interview.devicecrud.exception.DeadlineExceededException;
+import org.interview.devicecrud.exception.DeviceFileException;
+import org.interview.devicecrud.exception.MongoDBException;
+import org.interview.devicecrud.model.Device;
+import org.interview.devicecrud.model.DeviceCreationRequest;
+import org.interview.devicecrud.model.DeviceImportResult;
+import org.interview.devicecrud.validator.DeviceCrudValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams devices from NDJSON or CSV input into Mongo. Input is parsed line by
+ * line, validated with {@link DeviceCrudValidator}, given an id by
+ * {@link DeviceIdGenerator} and written as unordered bulk inserts of a fixed
+ * chunk size. At most {@code max-in-flight} chunks are written concurrently;
+ * once that many are pending the parser blocks, so memory stays bounded by
+ * chunk size times in-flight chunks regardless of input size.
+ * <p>
+ * Duplicate ids are reported by the bulk insert itself instead of a
+ * per-device existence check; one query per chunk rejects the devices that
+ * duplicate an archived one. Progress and every rejected line are written to
+ * a report file.
+ */
+@Service
+public class DeviceImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceImportService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ConsistencyTiers consistencyTiers;
+    private final DeviceCrudValidator validator;
+    private final DeviceIdGenerator deviceIdGenerator;
+    private final DeviceCrudService deviceService;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+    private final int maxInFlight;
+    private final Path reportDir;
+
+    public DeviceImportService(MongoTemplate mongoTemplate,
+                               ConsistencyTiers consistencyTiers,
+                               DeviceCrudValidator validator,
+                               DeviceIdGenerator deviceIdGenerator,
+                               DeviceCrudService deviceService,
+                               ObjectMapper objectMapper,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${device.import.chunk-size:1000}") int chunkSize,
+                               @Value("${device.import.max-in-flight:4}") int maxInFlight,
+                               @Value("${device.import.report-dir:${java.io.tmpdir}}") String reportDir) {
+        this.mongoTemplate = mongoTemplate;
+        this.consistencyTiers = consistencyTiers;
+        this.validator = validator;
+        this.deviceIdGenerator = deviceIdGenerator;
+        this.deviceService = deviceService;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+        this.maxInFlight = maxInFlight;
+        this.reportDir = Paths.get(reportDir);
+    }
+
+    /**
+     * Imports every device in the given file.
+     *
+     * @param file   local NDJSON or CSV file
+     * @param format input format
+     * @return counts and the location of the report file
+     */
+    public DeviceImportResult importFile(Path file, ImportFormat format) {
+        try (InputStream in = Files.newInputStream(file)) {
+            return importDevices(in, format);
+        } catch (IOException e) {
+            logger.error("Error reading import file {}: {}", file, e.getMessage(), e);
+            throw new DeviceFileException("Failed to read " + file.getFileName() + ": ", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Imports every device in the given stream. The stream is read to the end but
+     * not closed.
+     *
+     * @param in     NDJSON or CSV input
+     * @param format input format
+     * @return counts and the location of the report file
+     */
+    public DeviceImportResult importDevices(InputStream in, ImportFormat format) {
+        return importDevices(in, format, 0, Progress.NONE);
+    }
+
+    /**
+     * Imports a local file starting after the given line, reporting every line
+     * up to which all input has been written.
+     *
+     * @param file            local NDJSON or CSV file
+     * @param format          input format
+     * @param resumeAfterLine lines up to and including this one are skipped
+     * @param progress        receives checkpoints and is asked whether to stop
+     * @return counts of this run and the location of the report file
+     */
+    public DeviceImportResult importFile(Path file, ImportFormat format, long resumeAfterLine, Progress progress) {
+        try (InputStream in = Files.newInputStream(file)) {
+            return importDevices(in, format, resumeAfterLine, progress);
+        } catch (IOException e) {
+            logger.error("Error reading import file {}: {}", file, e.getMessage(), e);
+            throw new DeviceFileException("Failed to read " + file.getFileName() + ": ", e.getMessage(), e);
+        }
+    }
+
+    private DeviceImportResult importDevices(InputStream in, ImportFormat format, long resumeAfterLine,
+                                             Progress progress) {
+        Path reportFile;
+        BufferedWriter report;
+        try {
+            Files.createDirectories(reportDir);
+            // unique per run, so concurrent imports never share a report
+            reportFile = Files.createTempFile(reportDir, "device-import-", ".log");
+            report = Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            logger.error("Unable to create import report in {}: {}", reportDir, e.getMessage(), e);
+            throw new DeviceFileException("Failed to create import report: ", e.getMessage(), e);
+        }
+        ExecutorService writers = Executors.newFixedThreadPool(maxInFlight);
+        try (report) {
+            ImportRun run = new ImportRun(report, progress, resumeAfterLine);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            Semaphore permits = new Semaphore(maxInFlight);
+            List<Future<?>> pending = new ArrayList<>();
+            Chunk chunk = new Chunk(chunkSize, 0);
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null && !progress.isCancelled()) {
+                lineNumber++;
+                if (lineNumber <= resumeAfterLine || line.isBlank()
+                        || (format == ImportFormat.CSV && lineNumber == 1 && isCsvHeader(line))) {
+                    continue;
+                }
+                run.processed.incrementAndGet();
+                Device device = parse(line, lineNumber, format, run);
+                if (device == null) {
+                    continue;
+                }
+                chunk.add(device, lineNumber);
+                if (chunk.isFull()) {
+                    // an abandoned request stops at the next chunk instead of reading the whole body
+                    RequestDeadline.check();
+                    chunk.endLine = lineNumber;
+                    pending.add(submit(chunk, run, writers, permits));
+                    pending.removeIf(Future::isDone);
+                    chunk = new Chunk(chunkSize, chunk.sequence + 1);
+                }
+            }
+            RequestDeadline.check();
+            chunk.endLine = lineNumber;
+            pending.add(submit(chunk, run, writers, permits));
+            for (Future<?> future : pending) {
+                future.get();
+            }
+            run.progress();
+            logger.info("Device import finished: processed={}, inserted={}, failed={}",
+                    run.processed.get(), run.inserted.get(), run.failed.get());
+            return DeviceImportResult.builder()
+                    .processed(run.processed.get())
+                    .inserted(run.inserted.get())
+                    .failed(run.failed.get())
+                    .reportFile(reportFile.toString())
+                    .build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MongoDBException("Device import interrupted", e.getMessage());
+        } catch (DeadlineExceededException e) {
+            logger.warn("Device import stopped at its deadline, partial report in {}", reportFile);
+            throw e;
+        } catch (IOException e) {
+            logger.error("Error reading import input: {}", e.getMessage(), e);
+            throw new DeviceFileException("Failed to read import input: ", e.getMessage(), e);
+        } catch (Exception e) {
+            logger.error("Error importing devices: {}", e.getMessage(), e);
+            throw new MongoDBException("Failed to import devices: ", e.getMessage());
+        } finally {
+            writers.shutdownNow();
+        }
+    }
+
+    private Future<?> submit(Chunk chunk, ImportRun run, ExecutorService writers, Semaphore permits)
+            throws InterruptedException {
+        // back-pressure: block the parser until a writer slot frees up
+        permits.acquire();
+        try {
+            return writers.submit(() -> {
+                try {
+                    write(chunk, run);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void write(Chunk chunk, ImportRun run) {
+        if (chunk.isEmpty()) {
+            run.committed(chunk);
+            return;
+        }
+        Set<Integer> failedIndexes = new HashSet<>();
+        List<Integer> sent = new ArrayList<>(chunk.devices.size());
+        try {
+            Set<String> archived = deviceService.archivedDuplicates(chunk.devices);
+            List<Device> inserts = new ArrayList<>(chunk.devices.size());
+            for (int i = 0; i < chunk.devices.size(); i++) {
+                if (archived.contains(chunk.devices.get(i).getId())) {
+                    failedIndexes.add(i);
+                    run.reject(chunk.lines.get(i), "Device with same name and brand already exists.");
+                } else {
+                    inserts.add(chunk.devices.get(i));
+                    sent.add(i);
+                }
+            }
+            if (!inserts.isEmpty()) {
+                consistencyTiers.bulkOps(DeviceOperation.IMPORT, mongoTemplate, BulkOperations.BulkMode.UNORDERED,
+                                Device.class)
+                        .insert(inserts)
+                        .execute();
+            }
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                int index = sent.get(error.getIndex());
+                failedIndexes.add(index);
+                run.reject(chunk.lines.get(index), error.getMessage());
+            }
+        } catch (Exception e) {
+            for (int i = 0; i < chunk.devices.size(); i++) {
+                if (failedIndexes.add(i)) {
+                    run.reject(chunk.lines.get(i), "Insert failed: " + e.getMessage());
+                }
+            }
+        }
+        for (int i = 0; i < chunk.devices.size(); i++) {
+            if (!failedIndexes.contains(i)) {
+                Device device = chunk.devices.get(i);
+                eventPublisher.publishEvent(
+                        new DeviceChangeEvent(DeviceChangeEvent.Type.CREATED, device.getId(), device));
+            }
+        }
+        run.inserted.addAndGet(chunk.devices.size() - failedIndexes.size());
+        run.progress();
+        run.committed(chunk);
+    }
+
+    private Device parse(String line, long lineNumber, ImportFormat format, ImportRun run) {
+        try {
+            DeviceCreationRequest request = format == ImportFormat.NDJSON
+                    ? objectMapper.readValue(line, DeviceCreationRequest.class)
+                    : parseCsv(line);
+            if (request.getCreationTime() == null) {
+                throw new IllegalArgumentException("Creation time is required");
+            }
+            validator.validateDeviceCreateRequest(request);
+            String deviceId = deviceIdGenerator.generateId(request.getName(), request.getBrand());
+            return Device.builder().id(deviceId).name(request.getName())
+                    .brand(request.getBrand()).state(DeviceState.fromString(request.getState()))
+                    .creationTime(request.getCreationTime()).build();
+        } catch (Exception e) {
+            run.reject(lineNumber, e.getMessage());
+            return null;
+        }
+    }
+
+    private DeviceCreationRequest parseCsv(String line) {
+        List<String> columns = csvFields(line);
+        if (columns.size() != 4) {
+            throw new IllegalArgumentException("Expected 4 columns: name,brand,state,creationTime");
+        }
+        return DeviceCreationRequest.builder()
+                .name(columns.get(0).trim())
+                .brand(columns.get(1).trim())
+                .state(columns.get(2).trim())
+                .creationTime(columns.get(3).isBlank() ? null : LocalDateTime.parse(columns.get(3).trim()))
+                .build();
+    }
+
+    /**
+     * Splits one CSV record as RFC 4180 does: a field in double quotes may hold
+     * commas, and a doubled quote inside it stands for one quote. Records are
+     * read line by line, so a quoted field cannot span lines.
+     */
+    private static List<String> csvFields(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+        while (true) {
+            int start = i;
+            while (i < line.length() && line.charAt(i) == ' ') {
+                i++;
+            }
+            if (i < line.length() && line.charAt(i) == '"') {
+                i++;
+                while (true) {
+                    if (i >= line.length()) {
+                        throw new IllegalArgumentException("Unterminated quoted field in column " + (fields.size() + 1));
+                    }
+                    char c = line.charAt(i++);
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                while (i < line.length() && line.charAt(i) == ' ') {
+                    i++;
+                }
+                if (i < line.length() && line.charAt(i) != ',') {
+                    throw new IllegalArgumentException("Unexpected text after quoted field in column " + (fields.size() + 1));
+                }
+            } else {
+                i = start;
+                while (i < line.length() && line.charAt(i) != ',') {
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        throw new IllegalArgumentException("Unexpected quote in unquoted field in column " + (fields.size() + 1));
+                    }
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            field.setLength(0);
+            if (i >= line.length()) {
+                return fields;
+            }
+            i++;
+        }
+    }
+
+    private boolean isCsvHeader(String line) {
+        return line.trim().toLowerCase().startsWith("name,");
+    }
+
+    /**
+     * Devices of one bulk insert together with the input line each came from.
+     */
+    private static final class Chunk {
+
+        private final int capacity;
+        private final long sequence;
+        private final List<Device> devices;
+        private final List<Long> lines;
+        private long endLine;
+
+        Chunk(int capacity, long sequence) {
+            this.capacity = capacity;
+            this.sequence = sequence;
+            this.devices = new ArrayList<>(capacity);
+            this.lines = new ArrayList<>(capacity);
+        }
+
+        void add(Device device, long line) {
+            devices.add(device);
+            lines.add(line);
+        }
+
+        boolean isFull() {
+            return devices.size() >= capacity;
+        }
+
+        boolean isEmpty() {
+            return devices.isEmpty();
+        }
+    }
+
+    /**
+     * Receives the progress of an import. Chunks are written concurrently and may
+     * finish out of order, so a line is only reported once every chunk up to it
+     * has been written.
+     */
+    public interface Progress {
+
+        Progress NONE = new Progress() {
+        };
+
+        /**
+         * @param line      every input line up to and including this one has been written
+         * @param processed lines processed by this run so far
+         * @param inserted  devices inserted by this run so far
+         * @param failed    lines rejected by this run so far
+         */
+        default void committed(long line, long processed, long inserted, long failed) {
+        }
+
+        default void rejected(long line, String message) {
+        }
+
+        default boolean isCancelled() {
+            return false;
+        }
+    }
+
+    /**
+     * Counters and report file of a single import.
+     */
+    private static final class ImportRun {
+
+        private final BufferedWriter report;
+        private final Progress progress;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong inserted = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final TreeMap<Long, Long> finishedChunks = new TreeMap<>();
+        private long nextChunk;
+        private long committedLine;
+
+        ImportRun(BufferedWriter report, Progress progress, long committedLine) {
+            this.report = report;
+            this.progress = progress;
+            this.committedLine = committedLine;
+        }
+
+        void reject(long line, String message) {
+            failed.incrementAndGet();
+            progress.rejected(line, message);
+            write("line " + line + ": " + message);
+        }
+
+        synchronized void committed(Chunk chunk) {
+            finishedChunks.put(chunk.sequence, chunk.endLine);
+            long before = committedLine;
+            while (finishedChunks.containsKey(nextChunk)) {
+                committedLine = finishedChunks.remove(nextChunk++);
+            }
+            if (committedLine > before) {
+                progress.committed(committedLine, processed.get(), inserted.get(), failed.get());
+            }
+        }
+
+        void progress() {
+            write(String.format("progress: processed=%d, inserted=%d, failed=%d",
+                    processed.get(), inserted.get(), failed.get()));
+        }
+
+        private synchronized void write(String entry) {
+            try {
+                report.write(entry);
+                report.newLine();
+            } catch (IOException e) {
+                logger.warn("Unable to write import report entry: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package org.interview.devicecrud.service;
+
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.interview.devicecrud.constants.DeviceState;
+import org.interview.devicecrud.event.DeviceChangeEvent;
+import org.interview.devicecrud.model.Device;
+import org.interview.devicecrud.model.DeviceFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static org.interview.devicecrud.constants.DeviceCrudConstants.DEVICE_COLLECTION;
+
+/**
+ * Optional in-process materialized view of the device collection, serving the
+ * brand and state filtered listings without a Mongo round trip.
+ * <p>
+ * The view holds an id to device map plus brand and state postings. It is kept
+ * current from {@link DeviceChangeEvent}s for writes made by this instance and,
+ * where the deployment supports it, from a change stream for external writers.
+ * A periodic reload doubles as a consistency check: it counts how far the view
+ * had drifted from Mongo before swapping in the fresh copy. Changes arriving
+ * while a reload streams the collection are recorded and replayed onto the
+ * fresh copy before the swap, so a device read before its write is not put
+ * back stale. A bulk change cannot be replayed, so a reload that overlapped one
+ * swaps in its copy without marking it fresh. Listings hand out copies, never
+ * the cached devices. Without a
+ * running change stream the view is only served while the last reload is
+ * younger than the configured staleness bound.
+ */
+@Component
+public class DeviceIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceIndex.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final boolean changeStreamEnabled;
+    private final long maxStalenessMs;
+
+    private final Object lock = new Object();
+    private volatile Postings current;
+    private List<DeviceChangeEvent> pending;
+    private long invalidations;
+    private volatile long lastReloadMillis;
+    private volatile long lastDrift;
+    private volatile boolean changeStreamActive;
+    private volatile boolean running = true;
+    private volatile MongoChangeStreamCursor<ChangeStreamDocument<Document>> changeCursor;
+
+    public DeviceIndex(MongoTemplate mongoTemplate,
+                       MeterRegistry meterRegistry,
+                       @Value("${device.index.enabled:false}") boolean enabled,
+                       @Value("${device.index.change-stream.enabled:true}") boolean changeStreamEnabled,
+                       @Value("${device.index.max-staleness-ms:60000}") long maxStalenessMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.changeStreamEnabled = changeStreamEnabled;
+        this.maxStalenessMs = maxStalenessMs;
+        Gauge.builder("device.index.size", this, DeviceIndex::size).register(meterRegistry);
+        Gauge.builder("device.index.drift", this, index -> index.lastDrift).register(meterRegistry);
+        Gauge.builder("device.index.change.stream.active", this, index -> index.changeStreamActive ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return whether listings may currently be answered from the index
+     */
+    public boolean isServable() {
+        if (!enabled || current == null) {
+            return false;
+        }
+        return changeStreamActive || System.currentTimeMillis() - lastReloadMillis <= maxStalenessMs;
+    }
+
+    /**
+     * Answers a listing from the index. Candidates come from the brand postings,
+     * else the state postings, else every device, and are then checked against
+     * the full filter.
+     *
+     * @param filter brands, states and creation time range to match
+     * @return matching devices
+     */
+    public List<Device> find(DeviceFilter filter) {
+        Postings postings = current;
+        if (postings == null) {
+            return List.of();
+        }
+        List<Device> result = new ArrayList<>();
+        if (filter.getBrands() != null && !filter.getBrands().isEmpty()) {
+            for (String brand : filter.getBrands()) {
+                collect(postings, postings.byBrand.getOrDefault(brand, Set.of()), filter, result);
+            }
+        } else if (filter.getStates() != null && !filter.getStates().isEmpty()) {
+            for (DeviceState state : filter.getStates()) {
+                collect(postings, postings.byState[state.ordinal()], filter, result);
+            }
+        } else {
+            for (Device device : postings.byId.values()) {
+                if (filter.matches(device)) {
+                    result.add(copy(device));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void collect(Postings postings, Set<String> ids, DeviceFilter filter, List<Device> result) {
+        for (String id : ids) {
+            Device device = postings.byId.get(id);
+            if (device != null && filter.matches(device)) {
+                result.add(copy(device));
+            }
+        }
+    }
+
+    public int size() {
+        Postings postings = current;
+        return postings == null ? 0 : postings.byId.size();
+    }
+
+    @EventListener
+    public void onDeviceChange(DeviceChangeEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.type() == DeviceChangeEvent.Type.BULK_UPDATED) {
+            invalidate();
+            return;
+        }
+        synchronized (lock) {
+            apply(current, event);
+            if (pending != null) {
+                pending.add(event);
+            }
+        }
+    }
+
+    /**
+     * Stops serving from the index until the next reload, unless a change stream
+     * is delivering the individual changes.
+     */
+    public void invalidate() {
+        synchronized (lock) {
+            invalidations++;
+            lastReloadMillis = 0;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        reload();
+        if (changeStreamEnabled) {
+            Thread watcher = new Thread(this::watchChanges, "device-index-change-stream");
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+    }
+
+    /**
+     * Reloads the index from Mongo, replays the changes seen meanwhile and
+     * records how many entries differed from the copy being replaced.
+     */
+    @Scheduled(fixedDelayString = "${device.index.reload-interval-ms:30000}",
+            initialDelayString = "${device.index.reload-interval-ms:30000}")
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+        Postings fresh = new Postings();
+        long invalidationsAtStart;
+        synchronized (lock) {
+            pending = new ArrayList<>();
+            invalidationsAtStart = invalidations;
+        }
+        try {
+            try (Stream<Device> devices = mongoTemplate.stream(new Query(), Device.class)) {
+                devices.forEach(fresh::put);
+            }
+            synchronized (lock) {
+                for (DeviceChangeEvent event : pending) {
+                    apply(fresh, event);
+                }
+                Postings previous = current;
+                if (previous != null) {
+                    lastDrift = previous.drift(fresh);
+                    if (lastDrift > 0) {
+                        logger.warn("Device index drifted from Mongo by {} entries, repaired", lastDrift);
+                    }
+                }
+                current = fresh;
+                pending = null;
+                if (invalidations == invalidationsAtStart) {
+                    lastReloadMillis = System.currentTimeMillis();
+                } else {
+                    // the scan may have read devices from before the bulk change
+                    logger.info("Device index invalidated during reload, not serving it until the next one");
+                }
+            }
+            logger.info("Device index loaded with {} devices", fresh.byId.size());
+        } catch (Exception e) {
+            synchronized (lock) {
+                pending = null;
+            }
+            logger.error("Failed to reload device index: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = changeCursor;
+        if (cursor != null) {
+            cursor.close();
+        }
+    }
+
+    private void watchChanges() {
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = mongoTemplate
+                .getCollection(DEVICE_COLLECTION).watch().fullDocument(FullDocument.UPDATE_LOOKUP).cursor()) {
+            changeCursor = cursor;
+            changeStreamActive = true;
+            logger.info("Device index following change stream");
+            while (running && cursor.hasNext()) {
+                applyChange(cursor.next());
+            }
+        } catch (Exception e) {
+            if (running) {
+                logger.warn("Device index change stream unavailable, relying on reloads: {}", e.getMessage());
+            }
+        } finally {
+            changeStreamActive = false;
+        }
+    }
+
+    private void applyChange(ChangeStreamDocument<Document> change) {
+        if (change.getDocumentKey() == null) {
+            return;
+        }
+        String id = change.getDocumentKey().getString("_id").getValue();
+        DeviceChangeEvent event = switch (change.getOperationType()) {
+            case INSERT, UPDATE, REPLACE -> change.getFullDocument() == null
+                    ? new DeviceChangeEvent(DeviceChangeEvent.Type.DELETED, id, null)
+                    : new DeviceChangeEvent(DeviceChangeEvent.Type.UPDATED, id,
+                    mongoTemplate.getConverter().read(Device.class, change.getFullDocument()));
+            case DELETE -> new DeviceChangeEvent(DeviceChangeEvent.Type.DELETED, id, null);
+            default -> null;
+        };
+        if (event != null) {
+            onDeviceChange(event);
+        }
+    }
+
+    private static Device copy(Device device) {
+        return new Device(device.getId(), device.getName(), device.getBrand(),
+                device.getState(), device.getCreationTime());
+    }
+
+    private static void apply(Postings postings, DeviceChangeEvent event) {
+        if (postings == null) {
+            return;
+        }
+        switch (event.type()) {
+            case CREATED, UPDATED -> postings.put(event.device());
+            case BRAND_UPDATED -> {
+                Device existing = postings.byId.get(event.deviceId());
+                if (existing != null) {
+                    postings.put(new Device(existing.getId(), existing.getName(), event.device().getBrand(),
+                            existing.getState(), existing.getCreationTime()));
+                }
+            }
+            case DELETED -> postings.remove(event.deviceId());
+            case BULK_UPDATED -> {
+                // handled by invalidate(), the affected ids are unknown
+            }
+        }
+    }
+
+    /**
+     * Id map plus brand and state postings. Mutated only under the index lock,
+     * or by the reload that owns it before it is published; the concurrent
+     * collections let readers proceed without it. Devices are stored as copies.
+     */
+    static final class Postings {
+
+        private final Map<String, Device> byId = new ConcurrentHashMap<>();
+        private final Map<String, Set<String>> byBrand = new ConcurrentHashMap<>();
+        @SuppressWarnings("unchecked")
+        private final Set<String>[] byState = new Set[DeviceState.values().length];
+
+        Postings() {
+            for (int i = 0; i < byState.length; i++) {
+                byState[i] = ConcurrentHashMap.newKeySet();
+            }
+        }
+
+        void put(Device added) {
+            Device device = copy(added);
+            remove(device.getId());
+            if (device.getBrand() != null) {
+                device.setBrand(device.getBrand().intern());
+                byBrand.computeIfAbsent(device.getBrand(), b -> ConcurrentHashMap.newKeySet()).add(device.getId());
+            }
+            if (device.getState() != null) {
+                byState[device.getState().ordinal()].add(device.getId());
+            }
+            byId.put(device.getId(), device);
+        }
+
+        void remove(String id) {
+            Device previous = byId.remove(id);
+            if (previous == null) {
+                return;
+            }
+            if (previous.getBrand() != null) {
+                Set<String> ids = byBrand.get(previous.getBrand());
+                if (ids != null) {
+                    ids.remove(id);
+                }
+            }
+            if (previous.getState() != null) {
+                byState[previous.getState().ordinal()].remove(id);
+            }
+        }
+
+        long drift(Postings other) {
+            long drift = 0;
+            for (Map.Entry<String, Device> entry : other.byId.entrySet()) {
+                if (!Objects.equals(byId.get(entry.getKey()), entry.getValue())) {
+                    drift++;
+                }
+            }
+            for (String id : byId.keySet()) {
+                if (!other.byId.containsKey(id)) {
+                    drift++;
+                }
+            }
+            return drift;
+        }
+    }
+}
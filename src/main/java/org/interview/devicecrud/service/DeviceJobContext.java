@@ -0,0 +1,84 @@
+package org.interview.devicecrud.service;
+
+import org.interview.devicecrud.model.DeviceJob;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Progress reporting for one run of a {@link DeviceJob}. Errors are buffered and
+ * written together with the next checkpoint; every checkpoint also picks up a
+ * cancellation requested through any instance.
+ */
+public class DeviceJobContext {
+
+    static final int MAX_ERRORS = 100;
+
+    private final MongoTemplate mongoTemplate;
+    private final String jobId;
+    private final String initialCheckpoint;
+    private final long initialProcessed;
+    private final long startNanos = System.nanoTime();
+    private final List<String> pendingErrors = new ArrayList<>();
+    private volatile boolean cancelled;
+
+    DeviceJobContext(MongoTemplate mongoTemplate, DeviceJob job) {
+        this.mongoTemplate = mongoTemplate;
+        this.jobId = job.getId();
+        this.initialCheckpoint = job.getCheckpoint();
+        this.initialProcessed = job.getProcessed();
+        this.cancelled = job.isCancelRequested();
+    }
+
+    /**
+     * @return checkpoint the job was started from, {@code null} for a fresh job
+     */
+    public String getCheckpoint() {
+        return initialCheckpoint;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    public synchronized void error(String message) {
+        pendingErrors.add(message);
+    }
+
+    /**
+     * Persists how far the job got. Work before the checkpoint is not repeated
+     * when the job is resumed.
+     *
+     * @param checkpoint handler specific position
+     * @param processed  total items processed, including earlier runs
+     * @param failed     total items failed, including earlier runs
+     */
+    public synchronized void checkpoint(String checkpoint, long processed, long failed) {
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1_000_000_000d;
+        Update update = new Update()
+                .set("checkpoint", checkpoint)
+                .set("processed", processed)
+                .set("failed", failed)
+                .set("throughputPerSecond", elapsedSeconds > 0 ? (processed - initialProcessed) / elapsedSeconds : 0)
+                .set("updatedAt", LocalDateTime.now());
+        if (!pendingErrors.isEmpty()) {
+            update.push("errors").slice(-MAX_ERRORS).each(pendingErrors.toArray());
+            pendingErrors.clear();
+        }
+        DeviceJob current = mongoTemplate.findAndModify(new Query(Criteria.where("id").is(jobId)), update,
+                FindAndModifyOptions.options().returnNew(true), DeviceJob.class);
+        if (current == null || current.isCancelRequested()) {
+            cancelled = true;
+        }
+    }
+}
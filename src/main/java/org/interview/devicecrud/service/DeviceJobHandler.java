@@ -0,0 +1,22 @@
+package org.interview.devicecrud.service;
+
+import org.interview.devicecrud.constants.JobType;
+import org.interview.devicecrud.model.DeviceJob;
+
+/**
+ * Runs one type of {@link DeviceJob}. Handlers work in batches, call
+ * {@link DeviceJobContext#checkpoint} after each one and stop early once
+ * {@link DeviceJobContext#isCancelled()} returns true. A job picked up again
+ * after a restart starts from {@link DeviceJobContext#getCheckpoint()}.
+ */
+public interface DeviceJobHandler {
+
+    JobType type();
+
+    /**
+     * @param job     the job, including the counts of earlier runs
+     * @param context progress reporting and cancellation
+     * @return short summary stored on the finished job
+     */
+    String run(DeviceJob job, DeviceJobContext context) throws Exception;
+}
@@ -0,0 +1,357 @@
+package org.interview.devicecrud.service;
+
+import jakarta.annotation.PreDestroy;
+import org.interview.devicecrud.constants.DeviceStorageLayout;
+import org.interview.devicecrud.constants.ImportFormat;
+import org.interview.devicecrud.constants.JobStatus;
+import org.interview.devicecrud.constants.JobType;
+import org.interview.devicecrud.exception.DeviceFileException;
+import org.interview.devicecrud.exception.MongoDBException;
+import org.interview.devicecrud.model.DeviceJob;
+import org.interview.devicecrud.validator.DeviceCrudValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.interview.devicecrud.constants.DeviceCrudConstants.ARCHIVE_COLLECTION;
+import static org.interview.devicecrud.constants.DeviceCrudConstants.DEVICE_COLLECTION;
+import static org.interview.devicecrud.constants.DeviceCrudConstants.MAX_EXPORT_PARALLELISM;
+import static org.interview.devicecrud.constants.DeviceCrudConstants.MIN_ARCHIVE_AFTER_DAYS;
+
+/**
+ * Runs long bulk operations in the background. A submitted job is stored in the
+ * {@code jobs} collection as {@code QUEUED} and handed to a fixed pool of
+ * workers; when the pool and its queue are full the job simply stays queued and
+ * is picked up by the next dispatch round. A worker claims a job by moving it to
+ * {@code RUNNING} with a single findAndModify, so each job runs once even with
+ * several instances.
+ * <p>
+ * Running jobs refresh {@code updatedAt} with every checkpoint, and the instance
+ * running them refreshes it every {@code device.jobs.heartbeat-interval-ms} in
+ * between, so a long batch is not mistaken for an abandoned job. The heartbeat
+ * has a thread of its own, as the shared scheduler thread can be held by an
+ * index rebuild for longer than the stale bound. A running job
+ * whose {@code updatedAt} is older than {@code device.jobs.stale-after-ms}
+ * belonged to an instance that stopped and is queued again, resuming from its
+ * checkpoint.
+ */
+@Service
+public class DeviceJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceJobService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final DeviceCrudValidator validator;
+    private final Map<JobType, DeviceJobHandler> handlers = new EnumMap<>(JobType.class);
+    private final Path jobDir;
+    private final long staleAfterMs;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService heartbeats;
+    private final Map<String, DeviceJobContext> active = new ConcurrentHashMap<>();
+    private final Set<String> dispatched = ConcurrentHashMap.newKeySet();
+
+    public DeviceJobService(MongoTemplate mongoTemplate,
+                            DeviceCrudValidator validator,
+                            List<DeviceJobHandler> handlers,
+                            @Value("${device.jobs.workers:2}") int workerCount,
+                            @Value("${device.jobs.queue-capacity:10}") int queueCapacity,
+                            @Value("${device.jobs.stale-after-ms:120000}") long staleAfterMs,
+                            @Value("${device.jobs.heartbeat-interval-ms:30000}") long heartbeatIntervalMs,
+                            @Value("${device.jobs.dir:${java.io.tmpdir}/device-jobs}") String jobDir) {
+        this.mongoTemplate = mongoTemplate;
+        this.validator = validator;
+        handlers.forEach(handler -> this.handlers.put(handler.type(), handler));
+        this.staleAfterMs = staleAfterMs;
+        this.jobDir = Paths.get(jobDir);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "device-job-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "device-job-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeatIntervalMs, heartbeatIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stores the request body next to the job so the import can be resumed, then
+     * queues it.
+     */
+    public DeviceJob submitImport(InputStream body, ImportFormat format) {
+        Path file;
+        try {
+            Files.createDirectories(jobDir);
+            file = jobDir.resolve("import-" + UUID.randomUUID() + "." + format.name().toLowerCase());
+            Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.error("Unable to store import body: {}", e.getMessage(), e);
+            throw new DeviceFileException("Failed to store import input: ", e.getMessage(), e);
+        }
+        return submit(JobType.IMPORT, Map.of("file", file.toString(), "format", format.name()));
+    }
+
+    public DeviceJob submitRebrand(String brand, String newBrand) {
+        validator.isBrandValid(brand);
+        validator.isBrandValid(newBrand);
+        return submit(JobType.REBRAND, Map.of("brand", brand, "newBrand", newBrand));
+    }
+
+    public DeviceJob submitExport(List<String> fields, int parallelism) {
+        if (parallelism < 1 || parallelism > MAX_EXPORT_PARALLELISM) {
+            throw new IllegalArgumentException("Export parallelism must be between 1 and " + MAX_EXPORT_PARALLELISM);
+        }
+        return submit(JobType.EXPORT, Map.of(
+                "fields", fields == null ? "" : String.join(",", fields),
+                "parallelism", String.valueOf(parallelism)));
+    }
+
+    /**
+     * Queues an archival of devices inactive for more than {@code afterDays}
+     * days. While an archival is still queued or running that job is returned
+     * instead; two instances racing here both queue one, which is harmless as
+     * archiving a page is repeatable.
+     */
+    public DeviceJob submitArchive(int afterDays) {
+        if (afterDays < MIN_ARCHIVE_AFTER_DAYS) {
+            throw new IllegalArgumentException("Devices can only be archived after at least "
+                    + MIN_ARCHIVE_AFTER_DAYS + " day of inactivity");
+        }
+        DeviceJob pending = mongoTemplate.findOne(new Query(Criteria.where("type").is(JobType.ARCHIVE)
+                .and("status").in(JobStatus.QUEUED, JobStatus.RUNNING)), DeviceJob.class);
+        if (pending != null) {
+            logger.info("Archive job {} is still {}", pending.getId(), pending.getStatus());
+            return pending;
+        }
+        long cutoff = Instant.now().minus(Duration.ofDays(afterDays)).toEpochMilli();
+        return submit(JobType.ARCHIVE, Map.of("afterDays", String.valueOf(afterDays), "cutoff", String.valueOf(cutoff)));
+    }
+
+    /**
+     * Queues a rewrite of the devices in {@code collection} into the
+     * {@code target} layout. The job is repeatable, so running it again after
+     * the configured layout changed picks up the devices written meanwhile.
+     */
+    public DeviceJob submitLayoutMigration(DeviceStorageLayout target, String collection) {
+        if (!DEVICE_COLLECTION.equals(collection) && !ARCHIVE_COLLECTION.equals(collection)) {
+            throw new IllegalArgumentException("Unknown device collection " + collection + ". Must be one of: "
+                    + DEVICE_COLLECTION + ", " + ARCHIVE_COLLECTION);
+        }
+        return submit(JobType.MIGRATE_LAYOUT, Map.of("target", target.name(), "collection", collection));
+    }
+
+    /**
+     * Stores a new job and tries to start it right away.
+     */
+    public DeviceJob submit(JobType type, Map<String, String> params) {
+        if (!handlers.containsKey(type)) {
+            throw new IllegalArgumentException("Unsupported job type: " + type);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        DeviceJob job = DeviceJob.builder()
+                .id(UUID.randomUUID().toString())
+                .type(type)
+                .status(JobStatus.QUEUED)
+                .params(params)
+                .errors(List.of())
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+        try {
+            mongoTemplate.insert(job);
+        } catch (Exception e) {
+            logger.error("Error storing job: {}", e.getMessage(), e);
+            throw new MongoDBException("Failed to submit job: ", e.getMessage());
+        }
+        logger.info("Queued {} job {}", type, job.getId());
+        dispatch(job.getId());
+        return job;
+    }
+
+    public DeviceJob getJob(String id) {
+        DeviceJob job;
+        try {
+            job = mongoTemplate.findById(id, DeviceJob.class);
+        } catch (Exception e) {
+            logger.error("Error fetching job {}: {}", id, e.getMessage(), e);
+            throw new MongoDBException("Failed to fetch job: ", e.getMessage());
+        }
+        if (job == null) {
+            throw new MongoDBException("Job not found with id: ", id);
+        }
+        return job;
+    }
+
+    /**
+     * Cancels a queued job immediately. A running job stops after its current
+     * batch; finished jobs are returned unchanged.
+     */
+    public DeviceJob cancel(String id) {
+        FindAndModifyOptions returnNew = FindAndModifyOptions.options().returnNew(true);
+        LocalDateTime now = LocalDateTime.now();
+        DeviceJob job = mongoTemplate.findAndModify(
+                new Query(Criteria.where("id").is(id).and("status").is(JobStatus.QUEUED)),
+                new Update().set("status", JobStatus.CANCELLED).set("cancelRequested", true)
+                        .set("finishedAt", now).set("updatedAt", now),
+                returnNew, DeviceJob.class);
+        if (job == null) {
+            job = mongoTemplate.findAndModify(
+                    new Query(Criteria.where("id").is(id).and("status").is(JobStatus.RUNNING)),
+                    new Update().set("cancelRequested", true),
+                    returnNew, DeviceJob.class);
+        }
+        DeviceJobContext context = active.get(id);
+        if (context != null) {
+            context.cancel();
+        }
+        return job != null ? job : getJob(id);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        dispatchQueued();
+    }
+
+    /**
+     * Keeps the jobs running here from turning stale while a batch takes longer
+     * than {@code device.jobs.stale-after-ms}.
+     */
+    void heartbeat() {
+        if (active.isEmpty()) {
+            return;
+        }
+        try {
+            mongoTemplate.updateMulti(
+                    new Query(Criteria.where("id").in(List.copyOf(active.keySet())).and("status").is(JobStatus.RUNNING)),
+                    new Update().set("updatedAt", LocalDateTime.now()), DeviceJob.class);
+        } catch (Exception e) {
+            logger.error("Job heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Requeues jobs of stopped instances and starts queued jobs while workers are free.
+     */
+    @Scheduled(fixedDelayString = "${device.jobs.dispatch-interval-ms:5000}")
+    public void dispatchQueued() {
+        try {
+            LocalDateTime staleBefore = LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(staleAfterMs));
+            Criteria stale = Criteria.where("status").is(JobStatus.RUNNING).and("updatedAt").lt(staleBefore);
+            if (!active.isEmpty()) {
+                stale.and("id").nin(active.keySet());
+            }
+            long requeued = mongoTemplate.updateMulti(new Query(stale),
+                    new Update().set("status", JobStatus.QUEUED), DeviceJob.class).getModifiedCount();
+            if (requeued > 0) {
+                logger.info("Requeued {} interrupted jobs", requeued);
+            }
+            Query queued = new Query(Criteria.where("status").is(JobStatus.QUEUED))
+                    .with(Sort.by("createdAt"))
+                    .limit(workers.getMaximumPoolSize() + workers.getQueue().remainingCapacity());
+            queued.fields().include("id");
+            for (DeviceJob job : mongoTemplate.find(queued, DeviceJob.class)) {
+                dispatch(job.getId());
+            }
+        } catch (Exception e) {
+            logger.error("Job dispatch failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        // interrupted jobs stay RUNNING and are resumed once they turn stale
+        workers.shutdownNow();
+        heartbeats.shutdownNow();
+    }
+
+    private void dispatch(String id) {
+        if (!dispatched.add(id)) {
+            return;
+        }
+        try {
+            workers.execute(() -> run(id));
+        } catch (RejectedExecutionException e) {
+            dispatched.remove(id);
+            logger.debug("Workers busy, job {} stays queued", id);
+        }
+    }
+
+    void run(String id) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            DeviceJob job = mongoTemplate.findAndModify(
+                    new Query(Criteria.where("id").is(id).and("status").is(JobStatus.QUEUED)),
+                    new Update().set("status", JobStatus.RUNNING).set("startedAt", now).set("updatedAt", now),
+                    FindAndModifyOptions.options().returnNew(true), DeviceJob.class);
+            if (job == null) {
+                return;
+            }
+            DeviceJobContext context = new DeviceJobContext(mongoTemplate, job);
+            active.put(id, context);
+            logger.info("Running {} job {} from checkpoint {}", job.getType(), id, job.getCheckpoint());
+            try {
+                String summary = handlers.get(job.getType()).run(job, context);
+                finish(id, context.isCancelled() ? JobStatus.CANCELLED : JobStatus.COMPLETED, summary);
+            } catch (Exception e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    logger.warn("Job {} interrupted, it will resume from its checkpoint", id);
+                    return;
+                }
+                logger.error("Job {} failed: {}", id, e.getMessage(), e);
+                finish(id, JobStatus.FAILED, e.getMessage());
+            }
+        } catch (Exception e) {
+            logger.error("Unable to run job {}: {}", id, e.getMessage(), e);
+        } finally {
+            active.remove(id);
+            dispatched.remove(id);
+        }
+    }
+
+    private void finish(String id, JobStatus status, String message) {
+        LocalDateTime now = LocalDateTime.now();
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(id)),
+                new Update().set("status", status).set("message", message)
+                        .set("finishedAt", now).set("updatedAt", now),
+                DeviceJob.class);
+        logger.info("Job {} finished as {}", id, status);
+    }
+}
@@ -0,0 +1,33 @@
+package org.interview.devicecrud.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically returns checked out devices whose lease has expired.
+ */
+@Component
+public class DeviceLeaseSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceLeaseSweeper.class);
+
+    private final DeviceCrudService deviceService;
+
+    public DeviceLeaseSweeper(DeviceCrudService deviceService) {
+        this.deviceService = deviceService;
+    }
+
+    @Scheduled(fixedDelayString = "${device.checkout.sweep-interval-ms:60000}")
+    public void sweep() {
+        try {
+            long released = deviceService.releaseExpiredLeases();
+            if (released > 0) {
+                logger.info("Released {} devices with expired leases", released);
+            }
+        } catch (Exception e) {
+            logger.error("Lease sweep failed: {}", e.getMessage());
+        }
+    }
+}
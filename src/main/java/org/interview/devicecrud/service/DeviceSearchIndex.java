@@ -0,0 +1,298 @@
+package org.interview.devicecrud.service;
+
+import org.bson.Document;
+import org.interview.devicecrud.constants.DeviceStorageLayout;
+import org.interview.devicecrud.event.DeviceChangeEvent;
+import org.interview.devicecrud.model.DeviceSearchHit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static org.interview.devicecrud.constants.DeviceCrudConstants.*;
+
+/**
+ * In-process typeahead index over device names and brands.
+ * <p>
+ * Every lower-cased name and brand is split into trigrams for infix matching,
+ * and the first one and two characters of each word are indexed as prefix keys
+ * so that one and two character queries do not fall back to a scan. Candidates
+ * are the intersection of the postings of the query's grams and are verified
+ * against the actual text before ranking, so the index never returns false
+ * matches. It is built from an id, name and brand projection and kept current
+ * from {@link DeviceChangeEvent}s; set-based updates mark it for a rebuild.
+ */
+@Component
+public class DeviceSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceSearchIndex.class);
+
+    private static final int GRAM = 3;
+    private static final char WORD_START = '^';
+
+    private static final Comparator<Ranked> BEST_FIRST = Comparator.comparingInt(Ranked::score)
+            .thenComparingInt(ranked -> ranked.entry().name().length())
+            .thenComparing(ranked -> ranked.entry().name());
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+
+    private final Object lock = new Object();
+    private volatile Grams current;
+    private Grams building;
+    private volatile boolean dirty;
+
+    public DeviceSearchIndex(MongoTemplate mongoTemplate,
+                             @Value("${device.search.enabled:false}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        return enabled && current != null;
+    }
+
+    /**
+     * @param query text to look for in names and brands, case insensitive
+     * @param limit maximum number of hits
+     * @return best hits first: exact, then prefix, then word prefix, then infix
+     *         matches, names before brands
+     */
+    public List<DeviceSearchHit> search(String query, int limit) {
+        Grams grams = current;
+        if (grams == null) {
+            return List.of();
+        }
+        String needle = query.trim().toLowerCase(Locale.ROOT);
+        Set<String> candidates = grams.candidates(needle);
+        PriorityQueue<Ranked> top = new PriorityQueue<>(limit + 1, BEST_FIRST.reversed());
+        for (String id : candidates) {
+            Entry entry = grams.entries.get(id);
+            if (entry == null) {
+                continue;
+            }
+            int score = score(entry, needle);
+            if (score < 0) {
+                continue;
+            }
+            top.add(new Ranked(entry, score));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<Ranked> ranked = new ArrayList<>(top);
+        ranked.sort(BEST_FIRST);
+        return ranked.stream()
+                .map(r -> new DeviceSearchHit(r.entry().id(), r.entry().name(), r.entry().brand()))
+                .toList();
+    }
+
+    @EventListener
+    public void onDeviceChange(DeviceChangeEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.type() == DeviceChangeEvent.Type.BULK_UPDATED) {
+            dirty = true;
+            return;
+        }
+        synchronized (lock) {
+            apply(current, event);
+            apply(building, event);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        dirty = false;
+        Grams fresh = new Grams();
+        synchronized (lock) {
+            building = fresh;
+        }
+        try {
+            Query query = new Query();
+            for (DeviceStorageLayout layout : DeviceStorageLayout.values()) {
+                query.fields().include(layout.field(FIELD_NAME)).include(layout.field(FIELD_BRAND));
+            }
+            try (Stream<Document> devices = mongoTemplate.stream(query, Document.class, DEVICE_COLLECTION)) {
+                devices.forEach(doc -> {
+                    synchronized (lock) {
+                        fresh.put(doc.getString(FIELD_ID), (String) DeviceStorageLayout.read(doc, FIELD_NAME),
+                                (String) DeviceStorageLayout.read(doc, FIELD_BRAND));
+                    }
+                });
+            }
+            synchronized (lock) {
+                current = fresh;
+                building = null;
+            }
+            logger.info("Device search index built with {} devices", fresh.entries.size());
+        } catch (Exception e) {
+            synchronized (lock) {
+                building = null;
+            }
+            dirty = true;
+            logger.error("Failed to build device search index: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${device.search.rebuild-check-ms:10000}")
+    public void rebuildIfDirty() {
+        if (dirty) {
+            build();
+        }
+    }
+
+    private static void apply(Grams grams, DeviceChangeEvent event) {
+        if (grams == null) {
+            return;
+        }
+        switch (event.type()) {
+            case CREATED, UPDATED -> grams.put(event.deviceId(), event.device().getName(), event.device().getBrand());
+            case BRAND_UPDATED -> {
+                Entry existing = grams.entries.get(event.deviceId());
+                if (existing != null) {
+                    grams.put(existing.id(), existing.name(), event.device().getBrand());
+                }
+            }
+            case DELETED -> grams.remove(event.deviceId());
+            case BULK_UPDATED -> {
+                // the affected ids are unknown, handled by a rebuild
+            }
+        }
+    }
+
+    private static int score(Entry entry, String needle) {
+        int name = score(entry.lowerName(), needle);
+        if (name >= 0) {
+            return name;
+        }
+        int brand = score(entry.lowerBrand(), needle);
+        return brand < 0 ? -1 : brand + 4;
+    }
+
+    private static int score(String text, String needle) {
+        if (text.equals(needle)) {
+            return 0;
+        }
+        if (text.startsWith(needle)) {
+            return 1;
+        }
+        int at = text.indexOf(needle);
+        if (at < 0) {
+            return -1;
+        }
+        return Character.isLetterOrDigit(text.charAt(at - 1)) ? 3 : 2;
+    }
+
+    private static Set<String> keys(String lower) {
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i + GRAM <= lower.length(); i++) {
+            keys.add(lower.substring(i, i + GRAM));
+        }
+        for (String word : lower.split("[^\\p{L}\\p{Nd}]+")) {
+            if (!word.isEmpty()) {
+                keys.add(WORD_START + word.substring(0, 1));
+            }
+            if (word.length() >= 2) {
+                keys.add(WORD_START + word.substring(0, 2));
+            }
+        }
+        return keys;
+    }
+
+    private record Entry(String id, String name, String brand, String lowerName, String lowerBrand) {
+    }
+
+    private record Ranked(Entry entry, int score) {
+    }
+
+    /**
+     * Entries and gram postings. Mutated only under the index lock; the
+     * concurrent collections let searches proceed without it.
+     */
+    private static final class Grams {
+
+        private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+        private final Map<String, Set<String>> postings = new ConcurrentHashMap<>();
+
+        void put(String id, String name, String brand) {
+            remove(id);
+            String safeName = name == null ? "" : name;
+            String safeBrand = brand == null ? "" : brand;
+            Entry entry = new Entry(id, safeName, safeBrand,
+                    safeName.toLowerCase(Locale.ROOT), safeBrand.toLowerCase(Locale.ROOT));
+            entries.put(id, entry);
+            for (String key : entryKeys(entry)) {
+                postings.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+
+        void remove(String id) {
+            Entry previous = entries.remove(id);
+            if (previous == null) {
+                return;
+            }
+            for (String key : entryKeys(previous)) {
+                Set<String> ids = postings.get(key);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        postings.remove(key);
+                    }
+                }
+            }
+        }
+
+        Set<String> candidates(String needle) {
+            if (needle.length() < GRAM) {
+                return postings.getOrDefault(WORD_START + needle, Set.of());
+            }
+            Set<String> smallest = null;
+            List<Set<String>> others = new ArrayList<>();
+            for (int i = 0; i + GRAM <= needle.length(); i++) {
+                Set<String> ids = postings.getOrDefault(needle.substring(i, i + GRAM), Set.of());
+                if (smallest == null || ids.size() < smallest.size()) {
+                    if (smallest != null) {
+                        others.add(smallest);
+                    }
+                    smallest = ids;
+                } else {
+                    others.add(ids);
+                }
+            }
+            Set<String> result = new HashSet<>();
+            for (String id : smallest) {
+                if (others.stream().allMatch(ids -> ids.contains(id))) {
+                    result.add(id);
+                }
+            }
+            return result;
+        }
+
+        private static Set<String> entryKeys(Entry entry) {
+            Set<String> keys = keys(entry.lowerName());
+            keys.addAll(keys(entry.lowerBrand()));
+            return keys;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package org.interview.devicecrud.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.interview.devicecrud.exception.DeviceFileException;
+import org.interview.devicecrud.model.DeviceTrace;
+import org.interview.devicecrud.model.DeviceTraceEndpoint;
+import org.interview.devicecrud.model.DeviceTraceExport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the last {@code device.tracing.recent-per-endpoint} and the slowest
+ * {@code device.tracing.slowest-per-endpoint} traces of every endpoint in
+ * memory. Endpoints are request mappings, so their number is bounded by the
+ * application and so is the buffer.
+ */
+@Component
+public class DeviceTraceBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeviceTraceBuffer.class);
+    private static final Comparator<DeviceTrace> FASTEST_FIRST = Comparator.comparingDouble(DeviceTrace::getDurationMs);
+
+    private final ObjectMapper objectMapper;
+    private final int recentSize;
+    private final int slowestSize;
+    private final Path exportDir;
+    private final Map<String, EndpointTraces> endpoints = new ConcurrentHashMap<>();
+
+    public DeviceTraceBuffer(ObjectMapper objectMapper,
+                             @Value("${device.tracing.recent-per-endpoint:50}") int recentSize,
+                             @Value("${device.tracing.slowest-per-endpoint:20}") int slowestSize,
+                             @Value("${device.tracing.export-dir:${java.io.tmpdir}/device-traces}") String exportDir) {
+        this.objectMapper = objectMapper;
+        this.recentSize = recentSize;
+        this.slowestSize = slowestSize;
+        this.exportDir = Paths.get(exportDir);
+    }
+
+    public void record(DeviceTrace trace) {
+        endpoints.computeIfAbsent(trace.getEndpoint(), endpoint -> new EndpointTraces()).add(trace);
+    }
+
+    /**
+     * @param endpoint endpoint to return, e.g. {@code GET /private/v1/device/{id}}, or {@code null} for all
+     * @return the kept traces per endpoint, in endpoint order
+     */
+    public List<DeviceTraceEndpoint> snapshot(String endpoint) {
+        List<DeviceTraceEndpoint> snapshot = new ArrayList<>();
+        endpoints.forEach((key, traces) -> {
+            if (endpoint == null || endpoint.equals(key)) {
+                snapshot.add(traces.snapshot(key));
+            }
+        });
+        snapshot.sort(Comparator.comparing(DeviceTraceEndpoint::getEndpoint));
+        return snapshot;
+    }
+
+    /**
+     * Writes every kept trace once, as one JSON object per line, to a new file
+     * in {@code device.tracing.export-dir}.
+     */
+    public DeviceTraceExport export() {
+        Map<String, DeviceTrace> traces = new LinkedHashMap<>();
+        for (DeviceTraceEndpoint endpoint : snapshot(null)) {
+            endpoint.getSlowest().forEach(trace -> traces.putIfAbsent(trace.getId(), trace));
+            endpoint.getRecent().forEach(trace -> traces.putIfAbsent(trace.getId(), trace));
+        }
+        Path file = exportDir.resolve("traces-" + System.currentTimeMillis() + ".ndjson");
+        ObjectWriter writer = objectMapper.writerFor(DeviceTrace.class);
+        try {
+            Files.createDirectories(exportDir);
+            try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                for (DeviceTrace trace : traces.values()) {
+                    out.write(writer.writeValueAsString(trace));
+                    out.newLine();
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to export traces to {}: {}", file, e.getMessage(), e);
+            throw new DeviceFileException("Failed to write " + file.getFileName() + ": ", e.getMessage(), e);
+        }
+        logger.info("Exported {} traces to {}", traces.size(), file);
+        return DeviceTraceExport.builder().file(file.toString()).traces(traces.size()).build();
+    }
+
+    private final class EndpointTraces {
+
+        private final Deque<DeviceTrace> recent = new ArrayDeque<>();
+        private final PriorityQueue<DeviceTrace> slowest = new PriorityQueue<>(FASTEST_FIRST);
+        private long recorded;
+
+        synchronized void add(DeviceTrace trace) {
+            recorded++;
+            recent.addFirst(trace);
+            if (recent.size() > recentSize) {
+                recent.removeLast();
+            }
+            slowest.offer(trace);
+            if (slowest.size() > slowestSize) {
+                slowest.poll();
+            }
+        }
+
+        synchronized DeviceTraceEndpoint snapshot(String endpoint) {
+            List<DeviceTrace> slowestFirst = new ArrayList<>(slowest);
+            slowestFirst.sort(FASTEST_FIRST.reversed());
+            return DeviceTraceEndpoint.builder()
+                    .endpoint(endpoint)
+                    .recorded(recorded)
+                    .recent(List.copyOf(recent))
+                    .slowest(slowestFirst)
+                    .build();
+        }
+    }
+}
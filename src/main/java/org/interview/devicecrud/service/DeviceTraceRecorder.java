@@ -0,0 +1,152 @@
+package org.interview.devicecrud.service;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationView;
+import jakarta.servlet.http.HttpServletRequest;
+import org.interview.devicecrud.model.DeviceTrace;
+import org.interview.devicecrud.model.DeviceTraceSpan;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.interview.devicecrud.constants.DeviceCrudConstants.TRACE_LAYER_KEY;
+import static org.interview.devicecrud.constants.DeviceCrudConstants.TRACES_PATH;
+
+/**
+ * Builds a {@link DeviceTrace} for every HTTP request from the observations
+ * started while it is served: the request itself, the layer observations of
+ * {@code LayerObservationPostProcessor} and the Mongo command observations.
+ * Each observation becomes a span of the trace of its parent; observations
+ * without a traced parent, such as background jobs, are ignored. A trace is
+ * handed to the {@link DeviceTraceBuffer} when its request observation stops,
+ * so nothing outside the process is needed.
+ */
+@Component
+public class DeviceTraceRecorder implements ObservationHandler<Observation.Context> {
+
+    private static final double NANOS_PER_MS = 1_000_000.0;
+
+    private final DeviceTraceBuffer buffer;
+    private final boolean enabled;
+    private final int maxSpans;
+
+    public DeviceTraceRecorder(DeviceTraceBuffer buffer,
+                               @Value("${device.tracing.enabled:false}") boolean enabled,
+                               @Value("${device.tracing.max-spans:200}") int maxSpans) {
+        this.buffer = buffer;
+        this.enabled = enabled;
+        this.maxSpans = maxSpans;
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return enabled;
+    }
+
+    @Override
+    public void onStart(Observation.Context context) {
+        ObservationView parent = context.getParentObservation();
+        Span parentSpan = parent == null ? null : parent.getContextView().get(Span.class);
+        if (parentSpan != null) {
+            Span span = new Span(context, parentSpan.trace, parentSpan.depth + 1);
+            if (parentSpan.trace.add(span)) {
+                context.put(Span.class, span);
+            }
+        } else if (context instanceof ServerRequestObservationContext) {
+            Trace trace = new Trace();
+            Span root = new Span(context, trace, 0);
+            trace.add(root);
+            context.put(Span.class, root);
+        }
+    }
+
+    @Override
+    public void onStop(Observation.Context context) {
+        Span span = context.get(Span.class);
+        if (span == null) {
+            return;
+        }
+        span.endNanos = System.nanoTime();
+        if (span.depth == 0 && context instanceof ServerRequestObservationContext request) {
+            String endpoint = endpoint(request);
+            if (!endpoint.contains(TRACES_PATH)) {
+                buffer.record(span.trace.build(endpoint,
+                        request.getResponse() == null ? 0 : request.getResponse().getStatus()));
+            }
+        }
+    }
+
+    private static String endpoint(ServerRequestObservationContext context) {
+        HttpServletRequest request = context.getCarrier();
+        String pattern = context.getPathPattern();
+        return request.getMethod() + " " + (pattern == null ? "UNKNOWN" : pattern);
+    }
+
+    private final class Trace {
+
+        private final Instant startedAt = Instant.now();
+        private final List<Span> spans = new ArrayList<>();
+        private int dropped;
+
+        synchronized boolean add(Span span) {
+            if (spans.size() >= maxSpans) {
+                dropped++;
+                return false;
+            }
+            spans.add(span);
+            return true;
+        }
+
+        synchronized DeviceTrace build(String endpoint, int status) {
+            Span root = spans.get(0);
+            List<DeviceTraceSpan> built = new ArrayList<>(spans.size());
+            for (Span span : spans) {
+                built.add(span.build(root.startNanos));
+            }
+            return DeviceTrace.builder()
+                    .id(UUID.randomUUID().toString())
+                    .endpoint(endpoint)
+                    .status(status)
+                    .startedAt(startedAt)
+                    .durationMs((root.endNanos - root.startNanos) / NANOS_PER_MS)
+                    .spans(built)
+                    .droppedSpans(dropped)
+                    .build();
+        }
+    }
+
+    private static final class Span {
+
+        private final Observation.Context context;
+        private final Trace trace;
+        private final int depth;
+        private final long startNanos = System.nanoTime();
+        private volatile long endNanos;
+
+        private Span(Observation.Context context, Trace trace, int depth) {
+            this.context = context;
+            this.trace = trace;
+            this.depth = depth;
+        }
+
+        private DeviceTraceSpan build(long traceStartNanos) {
+            KeyValue layer = context.getLowCardinalityKeyValue(TRACE_LAYER_KEY);
+            long end = endNanos == 0 ? System.nanoTime() : endNanos;
+            return DeviceTraceSpan.builder()
+                    .layer(layer == null ? context.getName() : layer.getValue())
+                    .operation(context.getContextualName() == null ? context.getName() : context.getContextualName())
+                    .depth(depth)
+                    .offsetMs((startNanos - traceStartNanos) / NANOS_PER_MS)
+                    .durationMs((end - startNanos) / NANOS_PER_MS)
+                    .error(context.getError() == null ? null : context.getError().getMessage())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.interview.devicecrud.service;
+
+import org.interview.devicecrud.constants.JobType;
+import org.interview.devicecrud.model.DeviceExportManifest;
+import org.interview.devicecrud.model.DeviceExportPart;
+import org.interview.devicecrud.model.DeviceJob;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Exports the device collection. The checkpoint is the output directory; parts
+ * already written there are skipped when the job resumes.
+ */
+@Component
+public class ExportJobHandler implements DeviceJobHandler {
+
+    private final DeviceExportService exportService;
+
+    public ExportJobHandler(DeviceExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @Override
+    public JobType type() {
+        return JobType.EXPORT;
+    }
+
+    @Override
+    public String run(DeviceJob job, DeviceJobContext context) {
+        Path dir;
+        if (context.getCheckpoint() == null) {
+            String fields = job.getParams().get("fields");
+            List<String> exported = StringUtils.hasText(fields) ? Arrays.asList(fields.split(",")) : List.of();
+            dir = exportService.plan(exported, Integer.parseInt(job.getParams().get("parallelism")));
+            context.checkpoint(dir.toString(), 0, 0);
+        } else {
+            dir = Paths.get(context.getCheckpoint());
+        }
+        DeviceExportManifest manifest = exportService.export(dir, new DeviceExportService.Progress() {
+            @Override
+            public void partFinished(DeviceExportPart part, long exported) {
+                context.checkpoint(dir.toString(), exported, 0);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return context.isCancelled();
+            }
+        });
+        if (manifest == null) {
+            return "Export cancelled, partial output in " + dir;
+        }
+        return String.format("Exported %d devices in %d parts to %s", manifest.getTotalCount(),
+                manifest.getParts().size(), dir.resolve("manifest.json"));
+    }
+}
@@ -0,0 +1,50 @@
+package org.interview.devicecrud.service;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * The original scheme: environment, the first four letters of the name and of
+ * the brand, and six hex characters of the SHA-256 of name and brand. The same
+ * device always gets the same id, which doubles as the duplicate check; the
+ * 24 bit hash makes that check report false duplicates once enough devices
+ * share the same name and brand prefixes.
+ */
+public class HashedIdStrategy implements IdStrategy {
+
+    private final ConfigService config;
+
+    public HashedIdStrategy(ConfigService config) {
+        this.config = config;
+    }
+
+    @Override
+    public String generateId(String name, String brand) {
+        String encodedName = shorten(name, 4);
+        String encodedBrand = shorten(brand, 4);
+
+        String toHash = name + ":" + brand;
+        String hash = DigestUtils.sha256Hex(toHash).substring(0, 6).toUpperCase();
+
+        return String.format("%s-%s-%s-%s", config.getEnv(), encodedName, encodedBrand, hash);
+    }
+
+    @Override
+    public boolean isDerivedFromDevice() {
+        return true;
+    }
+
+    /**
+     * Shortens the given input string to a specified maximum length after removing
+     * all non-alphanumeric characters and converting it to uppercase.
+     *
+     * @param input     the input string to be shortened
+     * @param maxLength the maximum length of the returned string
+     * @return a shortened, uppercase, alphanumeric-only version of the input string,
+     *         or "UNK" if the input is {@code null}
+     */
+    private String shorten(String input, int maxLength) {
+        if (input == null) return "UNK";
+        String alphanumeric = input.replaceAll("[^A-Za-z0-9]", "").toUpperCase();
+        return alphanumeric.substring(0, Math.min(maxLength, alphanumeric.length()));
+    }
+}
@@ -0,0 +1,20 @@
+package org.interview.devicecrud.service;
+
+/**
+ * Builds the id of a new device.
+ */
+public interface IdStrategy {
+
+    /**
+     * @param name  name of the device
+     * @param brand brand of the device
+     * @return id for a new device
+     */
+    String generateId(String name, String brand);
+
+    /**
+     * @return whether the id is derived from the name and brand alone, so that an
+     *         existing id means the device already exists
+     */
+    boolean isDerivedFromDevice();
+}
@@ -0,0 +1,336 @@
+package org.interview.devicecrud.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.interview.devicecrud.exception.IdempotencyConflictException;
+import org.interview.devicecrud.exception.MongoDBException;
+import org.interview.devicecrud.model.IdempotencyRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Remembers the responses of writes sent with an {@code Idempotency-Key}, so a
+ * client retry gets the original response instead of running the write again.
+ * <p>
+ * The first request for a key claims it by inserting a placeholder into the
+ * {@code idempotency_keys} collection; the unique id makes the claim atomic
+ * across instances. Successful responses are stored on the placeholder and
+ * expire through a TTL index on {@code createdAt}. Failed responses release the
+ * key, so a retry runs again. A bounded in-memory cache in front of the
+ * collection answers most replays without a query.
+ * <p>
+ * A duplicate that arrives while the first request is still running waits for
+ * it: on this instance for its outcome, on another instance by polling the
+ * collection, both up to {@code device.idempotency.wait-ms}. A key reused with
+ * a different request body is rejected.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long POLL_INTERVAL_MS = 50;
+
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final long waitMs;
+    private final long lockTimeoutMs;
+    private final Map<String, IdempotencyRecord> cache;
+    private final Map<String, CompletableFuture<IdempotencyRecord>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(MongoTemplate mongoTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${device.idempotency.enabled:true}") boolean enabled,
+                              @Value("${device.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${device.idempotency.cache-size:10000}") int cacheSize,
+                              @Value("${device.idempotency.wait-ms:10000}") long waitMs,
+                              @Value("${device.idempotency.lock-timeout-ms:60000}") long lockTimeoutMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.waitMs = waitMs;
+        this.lockTimeoutMs = lockTimeoutMs;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IdempotencyRecord> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureTtlIndex() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            mongoTemplate.indexOps(IdempotencyRecord.class)
+                    .ensureIndex(new Index().on("createdAt", Sort.Direction.ASC).expire(ttl));
+        } catch (Exception e) {
+            logger.warn("Unable to create TTL index on idempotency keys: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Claims a key for the given request, or returns the response to replay.
+     * Blocks while another request with the same key is in progress.
+     *
+     * @param operation method and path of the request
+     * @param key       value of the {@value #HEADER} header
+     * @param request   request body
+     * @return a claim that is either a replay or must be completed with
+     *         {@link #complete} or {@link #abandon}
+     * @throws IdempotencyConflictException when the key belongs to a different
+     *         request or the first request does not finish in time
+     */
+    public Claim claim(String operation, String key, byte[] request) {
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IdempotencyConflictException(HEADER + " must be at most " + MAX_KEY_LENGTH + " characters",
+                    HttpStatus.BAD_REQUEST);
+        }
+        String id = operation + ':' + key;
+        String hash = sha256(request);
+        IdempotencyRecord cached = cache.get(id);
+        if (cached != null && !isExpired(cached)) {
+            return replay(cached, hash, "cached");
+        }
+        CompletableFuture<IdempotencyRecord> mine = new CompletableFuture<>();
+        CompletableFuture<IdempotencyRecord> existing = inFlight.putIfAbsent(id, mine);
+        if (existing != null) {
+            return replay(await(existing), hash, "waited");
+        }
+        try {
+            IdempotencyRecord stored = acquire(id, hash);
+            if (stored.getStatus() == null) {
+                return new Claim(id, hash, stored.getCreatedAt(), mine, null);
+            }
+            cache.put(id, stored);
+            inFlight.remove(id, mine);
+            mine.complete(stored);
+            return replay(stored, hash, "stored");
+        } catch (RuntimeException e) {
+            inFlight.remove(id, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Records the response of a claimed request. Only successful responses are
+     * kept; any other response releases the key so that a retry runs again.
+     * Requests waiting on this instance receive the response either way.
+     */
+    public void complete(Claim claim, IdempotencyRecord response) {
+        response.setId(claim.id);
+        response.setRequestHash(claim.requestHash);
+        response.setCreatedAt(claim.createdAt);
+        try {
+            if (HttpStatus.valueOf(response.getStatus()).is2xxSuccessful()) {
+                mongoTemplate.updateFirst(pending(claim),
+                        new Update().set("status", response.getStatus())
+                                .set("contentType", response.getContentType())
+                                .set("body", response.getBody()),
+                        IdempotencyRecord.class);
+                cache.put(claim.id, response);
+                outcome("executed");
+            } else {
+                mongoTemplate.remove(pending(claim), IdempotencyRecord.class);
+                outcome("released");
+            }
+        } catch (Exception e) {
+            logger.error("Unable to record response for {}: {}", claim.id, e.getMessage(), e);
+        } finally {
+            inFlight.remove(claim.id, claim.future);
+            claim.future.complete(response);
+        }
+    }
+
+    /**
+     * Releases a claimed key after the request failed without a response.
+     */
+    public void abandon(Claim claim, Throwable error) {
+        try {
+            mongoTemplate.remove(pending(claim), IdempotencyRecord.class);
+        } catch (Exception e) {
+            logger.error("Unable to release {}: {}", claim.id, e.getMessage(), e);
+        } finally {
+            inFlight.remove(claim.id, claim.future);
+            claim.future.completeExceptionally(error);
+            outcome("released");
+        }
+    }
+
+    /**
+     * Inserts the placeholder for the key, or returns the stored response. A
+     * placeholder of another instance is waited for and taken over once it is
+     * older than the lock timeout, since that instance has most likely stopped.
+     *
+     * @return the stored response, or the inserted placeholder without a status
+     *         when the key was claimed
+     */
+    private IdempotencyRecord acquire(String id, String hash) {
+        long giveUpAt = System.currentTimeMillis() + waitMs;
+        while (true) {
+            IdempotencyRecord placeholder = IdempotencyRecord.builder().id(id).requestHash(hash)
+                    .createdAt(new Date()).build();
+            try {
+                mongoTemplate.insert(placeholder);
+                return placeholder;
+            } catch (DuplicateKeyException e) {
+                // claimed before, look at the current holder below
+            } catch (Exception e) {
+                logger.error("Unable to claim idempotency key {}: {}", id, e.getMessage(), e);
+                throw new MongoDBException("Failed to check idempotency key: ", e.getMessage(), e);
+            }
+            IdempotencyRecord existing = mongoTemplate.findById(id, IdempotencyRecord.class);
+            if (existing == null) {
+                continue;
+            }
+            if (existing.getStatus() != null && !isExpired(existing)) {
+                return existing;
+            }
+            if (isExpired(existing) || existing.getCreatedAt().getTime() < System.currentTimeMillis() - lockTimeoutMs) {
+                logger.warn("Taking over abandoned idempotency key {}", id);
+                mongoTemplate.remove(new Query(Criteria.where("id").is(id).and("createdAt").is(existing.getCreatedAt())),
+                        IdempotencyRecord.class);
+                continue;
+            }
+            if (System.currentTimeMillis() >= giveUpAt) {
+                throw inProgress();
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw inProgress();
+            }
+        }
+    }
+
+    private IdempotencyRecord await(CompletableFuture<IdempotencyRecord> future) {
+        try {
+            return future.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw inProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw inProgress();
+        } catch (ExecutionException e) {
+            // the first request failed without a response; share its error
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private Claim replay(IdempotencyRecord record, String hash, String outcome) {
+        if (!record.getRequestHash().equals(hash)) {
+            outcome("mismatch");
+            throw new IdempotencyConflictException(HEADER + " was already used for a different request",
+                    HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        outcome(outcome);
+        return new Claim(record.getId(), hash, record.getCreatedAt(), null, record);
+    }
+
+    private IdempotencyConflictException inProgress() {
+        outcome("conflict");
+        return new IdempotencyConflictException("A request with this " + HEADER + " is still in progress",
+                HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Matches only the placeholder this claim inserted, not one inserted by an
+     * instance that took the key over after the lock timeout.
+     */
+    private Query pending(Claim claim) {
+        return new Query(Criteria.where("id").is(claim.id).and("status").isNull()
+                .and("createdAt").is(claim.createdAt));
+    }
+
+    /**
+     * A record without a creation time cannot be aged and is treated as expired.
+     */
+    private boolean isExpired(IdempotencyRecord record) {
+        return record.getCreatedAt() == null
+                || record.getCreatedAt().getTime() + ttl.toMillis() < System.currentTimeMillis();
+    }
+
+    private void outcome(String outcome) {
+        meterRegistry.counter("device.idempotency.requests", "outcome", outcome).increment();
+    }
+
+    private static String sha256(byte[] request) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(request));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Outcome of {@link #claim}: either a response to replay, or the right to
+     * execute the request.
+     */
+    public static final class Claim {
+
+        private final String id;
+        private final String requestHash;
+        private final Date createdAt;
+        private final CompletableFuture<IdempotencyRecord> future;
+        private final IdempotencyRecord replay;
+
+        private Claim(String id, String requestHash, Date createdAt, CompletableFuture<IdempotencyRecord> future,
+                      IdempotencyRecord replay) {
+            this.id = id;
+            this.requestHash = requestHash;
+            this.createdAt = createdAt;
+            this.future = future;
+            this.replay = replay;
+        }
+
+        /**
+         * @return the response to send instead of executing the request, or
+         *         {@code null} when the caller holds the key
+         */
+        public IdempotencyRecord getReplay() {
+            return replay;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.interview.devicecrud.service;
+
+import org.interview.devicecrud.constants.ImportFormat;
+import org.interview.devicecrud.constants.JobType;
+import org.interview.devicecrud.model.DeviceImportResult;
+import org.interview.devicecrud.model.DeviceJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Imports a stored request body. The checkpoint is the last input line up to
+ * which every chunk has been written.
+ */
+@Component
+public class ImportJobHandler implements DeviceJobHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportJobHandler.class);
+
+    private final DeviceImportService importService;
+
+    public ImportJobHandler(DeviceImportService importService) {
+        this.importService = importService;
+    }
+
+    @Override
+    public JobType type() {
+        return JobType.IMPORT;
+    }
+
+    @Override
+    public String run(DeviceJob job, DeviceJobContext context) {
+        Path file = Paths.get(job.getParams().get("file"));
+        ImportFormat format = ImportFormat.fromString(job.getParams().get("format"));
+        long resumeAfterLine = context.getCheckpoint() == null ? 0 : Long.parseLong(context.getCheckpoint());
+        long previouslyProcessed = job.getProcessed();
+        long previouslyFailed = job.getFailed();
+
+        DeviceImportResult result = importService.importFile(file, format, resumeAfterLine,
+                new DeviceImportService.Progress() {
+                    @Override
+                    public void committed(long line, long processed, long inserted, long failed) {
+                        context.checkpoint(String.valueOf(line), previouslyProcessed + processed,
+                                previouslyFailed + failed);
+                    }
+
+                    @Override
+                    public void rejected(long line, String message) {
+                        context.error("line " + line + ": " + message);
+                    }
+
+                    @Override
+                    public boolean isCancelled() {
+                        return context.isCancelled();
+                    }
+                });
+        if (!context.isCancelled()) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.warn("Unable to delete import input {}: {}", file, e.getMessage());
+            }
+        }
+        return String.format("Inserted %d devices, %d lines rejected, report at %s",
+                result.getInserted(), result.getFailed(), result.getReportFile());
+    }
+}
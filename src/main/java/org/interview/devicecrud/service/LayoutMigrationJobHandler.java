@@ -0,0 +1,161 @@
+package org.interview.devicecrud.service;
+
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.interview.devicecrud.constants.DeviceOperation;
+import org.interview.devicecrud.constants.DeviceStorageLayout;
+import org.interview.devicecrud.constants.JobType;
+import org.interview.devicecrud.converter.DeviceReadConverter;
+import org.interview.devicecrud.converter.DeviceWriteConverter;
+import org.interview.devicecrud.event.DeviceChangeEvent;
+import org.interview.devicecrud.model.DeviceJob;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.interview.devicecrud.constants.DeviceCrudConstants.*;
+
+/**
+ * Rewrites the documents of a device collection into another
+ * {@link DeviceStorageLayout}, in pages ordered by id.
+ * <p>
+ * Only documents that still hold a key of another layout are read, so a rerun
+ * picks up exactly what is left. Each document is replaced by its conversion,
+ * keeping the keys that are not part of the layout such as leases and
+ * inactivity stamps; the replacement is filtered on the document as it was
+ * read, so a device written in between is left for the next run rather than
+ * overwritten. Pages are separated by {@code device.storage.migration.batch-delay-ms}
+ * to keep the job from competing with live traffic. The checkpoint is the last
+ * id of the last finished page.
+ */
+@Component
+public class LayoutMigrationJobHandler implements DeviceJobHandler {
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ConsistencyTiers consistencyTiers;
+    private final int batchSize;
+    private final long batchDelayMs;
+    private final DeviceReadConverter reader = new DeviceReadConverter();
+
+    public LayoutMigrationJobHandler(MongoTemplate mongoTemplate,
+                                     ApplicationEventPublisher eventPublisher,
+                                     ConsistencyTiers consistencyTiers,
+                                     @Value("${device.storage.migration.batch-size:500}") int batchSize,
+                                     @Value("${device.storage.migration.batch-delay-ms:100}") long batchDelayMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.consistencyTiers = consistencyTiers;
+        this.batchSize = batchSize;
+        this.batchDelayMs = batchDelayMs;
+    }
+
+    @Override
+    public JobType type() {
+        return JobType.MIGRATE_LAYOUT;
+    }
+
+    @Override
+    public String run(DeviceJob job, DeviceJobContext context) throws InterruptedException {
+        DeviceStorageLayout target = DeviceStorageLayout.fromString(job.getParams().get("target"));
+        String collection = job.getParams().get("collection");
+        DeviceWriteConverter writer = new DeviceWriteConverter(target);
+        String lastId = context.getCheckpoint();
+        long migrated = job.getProcessed();
+        long skipped = job.getFailed();
+        while (!context.isCancelled()) {
+            Criteria page = notIn(target);
+            if (lastId != null) {
+                page.and(FIELD_ID).gt(lastId);
+            }
+            Query query = new Query(page).with(Sort.by(FIELD_ID)).limit(batchSize);
+            List<Document> devices = mongoTemplate.find(query, Document.class, collection);
+            if (devices.isEmpty()) {
+                break;
+            }
+            long replaced = migrate(devices, writer, collection);
+            migrated += replaced;
+            skipped += devices.size() - replaced;
+            lastId = devices.get(devices.size() - 1).getString(FIELD_ID);
+            context.checkpoint(lastId, migrated, skipped);
+            if (devices.size() == batchSize && batchDelayMs > 0) {
+                try {
+                    Thread.sleep(batchDelayMs);
+                } catch (InterruptedException e) {
+                    // keep the flag so the job is left to resume from its checkpoint
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+        return String.format("Migrated %d devices in %s to the %s layout, %d changed meanwhile and are left for a rerun",
+                migrated, collection, target, skipped);
+    }
+
+    private long migrate(List<Document> devices, DeviceWriteConverter writer, String collection) {
+        BulkOperations replace = consistencyTiers.bulkOps(DeviceOperation.MIGRATE, mongoTemplate,
+                BulkOperations.BulkMode.UNORDERED, collection);
+        for (Document device : devices) {
+            replace.replaceOne(new Query(matching(device)), convert(device, writer));
+        }
+        BulkWriteResult result = replace.execute();
+        if (result.getModifiedCount() > 0 && DEVICE_COLLECTION.equals(collection)) {
+            eventPublisher.publishEvent(new DeviceChangeEvent(DeviceChangeEvent.Type.BULK_UPDATED, null, null));
+        }
+        return result.getMatchedCount();
+    }
+
+    /**
+     * The device in the target layout plus every key no layout knows about.
+     */
+    Document convert(Document device, DeviceWriteConverter writer) {
+        Document converted = writer.convert(reader.convert(device));
+        for (Map.Entry<String, Object> entry : device.entrySet()) {
+            if (!isLayoutKey(entry.getKey())) {
+                converted.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+        converted.values().removeIf(value -> value == null);
+        return converted;
+    }
+
+    private static Criteria matching(Document device) {
+        Criteria criteria = Criteria.where(FIELD_ID).is(device.get(FIELD_ID));
+        device.forEach((key, value) -> {
+            if (!FIELD_ID.equals(key)) {
+                criteria.and(key).is(value);
+            }
+        });
+        return criteria;
+    }
+
+    private static Criteria notIn(DeviceStorageLayout target) {
+        List<Criteria> stale = new ArrayList<>();
+        for (DeviceStorageLayout layout : DeviceStorageLayout.values()) {
+            if (layout != target) {
+                layout.keys().stream()
+                        .filter(key -> !target.keys().contains(key))
+                        .forEach(key -> stale.add(Criteria.where(key).exists(true)));
+            }
+        }
+        return new Criteria().orOperator(stale);
+    }
+
+    private static boolean isLayoutKey(String key) {
+        for (DeviceStorageLayout layout : DeviceStorageLayout.values()) {
+            if (layout.keys().contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
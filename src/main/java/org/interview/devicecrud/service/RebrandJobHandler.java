@@ -0,0 +1,69 @@
+package org.interview.devicecrud.service;
+
+import org.interview.devicecrud.constants.DeviceState;
+import org.interview.devicecrud.constants.JobType;
+import org.interview.devicecrud.event.DeviceChangeEvent;
+import org.interview.devicecrud.model.Device;
+import org.interview.devicecrud.model.DeviceJob;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Rebrands devices in pages ordered by id. The checkpoint is the last id of the
+ * last finished page, so a resumed job continues with the next page.
+ */
+@Component
+public class RebrandJobHandler implements DeviceJobHandler {
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+
+    public RebrandJobHandler(MongoTemplate mongoTemplate,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${device.jobs.batch-size:1000}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public JobType type() {
+        return JobType.REBRAND;
+    }
+
+    @Override
+    public String run(DeviceJob job, DeviceJobContext context) {
+        String brand = job.getParams().get("brand");
+        String newBrand = job.getParams().get("newBrand");
+        String lastId = context.getCheckpoint();
+        long modified = job.getProcessed();
+        while (!context.isCancelled()) {
+            Criteria page = Criteria.where("brand").is(brand).and("state").ne(DeviceState.IN_USE);
+            if (lastId != null) {
+                page.and("id").gt(lastId);
+            }
+            Query query = new Query(page).with(Sort.by("id")).limit(batchSize);
+            query.fields().include("id");
+            List<String> ids = mongoTemplate.find(query, Device.class).stream().map(Device::getId).toList();
+            if (ids.isEmpty()) {
+                break;
+            }
+            modified += mongoTemplate.updateMulti(
+                    new Query(Criteria.where("id").in(ids).and("brand").is(brand).and("state").ne(DeviceState.IN_USE)),
+                    new Update().set("brand", newBrand), Device.class).getModifiedCount();
+            lastId = ids.get(ids.size() - 1);
+            eventPublisher.publishEvent(new DeviceChangeEvent(DeviceChangeEvent.Type.BULK_UPDATED, null, null));
+            context.checkpoint(lastId, modified, job.getFailed());
+        }
+        return String.format("Moved %d devices from brand \"%s\" to \"%s\"", modified, brand, newBrand);
+    }
+}
@@ -0,0 +1,80 @@
+package org.interview.devicecrud.service;
+
+import org.interview.devicecrud.exception.DeadlineExceededException;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deadline of the request handled by the current thread.
+ * <p>
+ * The deadline is set when a request enters the controller layer and cleared
+ * when it completes. The aggregator calls {@link #check()} before every call into
+ * the service, so no new work starts once the caller has given up, and the
+ * service turns the time that is left into {@code maxTimeMS} on its queries, so
+ * Mongo stops a query the caller is no longer waiting for. Threads without a
+ * deadline, such as background jobs, run without a time limit.
+ */
+public final class RequestDeadline {
+
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    /**
+     * Starts a deadline for the current thread.
+     *
+     * @param budget time the request may take from now
+     */
+    public static void start(Duration budget) {
+        DEADLINE.set(System.nanoTime() + budget.toNanos());
+    }
+
+    public static void clear() {
+        DEADLINE.remove();
+    }
+
+    public static boolean isSet() {
+        return DEADLINE.get() != null;
+    }
+
+    /**
+     * @return time left until the deadline, negative once it has passed, or
+     *         {@code null} when the current thread has no deadline
+     */
+    public static Duration remaining() {
+        Long deadline = DEADLINE.get();
+        return deadline == null ? null : Duration.ofNanos(deadline - System.nanoTime());
+    }
+
+    public static boolean isExpired() {
+        Duration remaining = remaining();
+        return remaining != null && !remaining.isPositive();
+    }
+
+    /**
+     * @throws DeadlineExceededException when the deadline of the current thread has passed
+     */
+    public static void check() {
+        if (isExpired()) {
+            throw new DeadlineExceededException("Request deadline exceeded");
+        }
+    }
+
+    /**
+     * Limits the server side execution time of the query to the time left.
+     * Queries on threads without a deadline are returned unchanged.
+     *
+     * @return the same query
+     */
+    public static Query bound(Query query) {
+        Duration remaining = remaining();
+        if (remaining != null) {
+            // maxTimeMS of 0 means no limit, so an expired deadline still gets the shortest one
+            query.maxTime(Duration.ofMillis(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining.toNanos()))));
+        }
+        return query;
+    }
+}
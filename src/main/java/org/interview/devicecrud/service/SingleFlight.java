@@ -0,0 +1,112 @@
+package org.interview.devicecrud.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.interview.devicecrud.exception.DeadlineExceededException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent identical reads into one. The first caller for a key runs
+ * the load on its own thread; callers arriving while it is in flight wait for and
+ * share its result or exception. Nothing is kept once the load completes, so no
+ * staleness is introduced.
+ * <p>
+ * A waiting caller gives up at its own {@link RequestDeadline}, not the
+ * leader's. When the leader fails because its deadline passed, a caller that
+ * still has time left loads the value itself instead of sharing that failure.
+ */
+@Component
+public class SingleFlight {
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter> collapsed = new ConcurrentHashMap<>();
+
+    public SingleFlight(MeterRegistry meterRegistry,
+                        @Value("${device.coalescing.enabled:true}") boolean enabled) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+    }
+
+    /**
+     * @param operation name of the read, used as metric tag
+     * @param key       arguments that make two reads identical
+     * @param loader    the read itself
+     * @return the loaded value, possibly shared with concurrent callers
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, String key, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        String flightKey = operation + ':' + key;
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, mine);
+        if (existing != null) {
+            collapsedCounter(operation).increment();
+            return (T) await(existing, loader);
+        }
+        try {
+            T result = loader.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, mine);
+        }
+    }
+
+    private Object await(CompletableFuture<Object> future, Supplier<?> loader) {
+        Duration remaining = RequestDeadline.remaining();
+        Throwable failure;
+        if (remaining == null) {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                failure = e.getCause();
+            }
+        } else {
+            try {
+                return future.get(Math.max(0, remaining.toNanos()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                throw new DeadlineExceededException("Request deadline exceeded");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a shared read", e);
+            } catch (ExecutionException e) {
+                failure = e.getCause();
+            }
+        }
+        if (failure instanceof DeadlineExceededException) {
+            // the leader ran out of its own time, which says nothing about ours
+            RequestDeadline.check();
+            return loader.get();
+        }
+        if (failure instanceof RuntimeException cause) {
+            throw cause;
+        }
+        if (failure instanceof Error cause) {
+            throw cause;
+        }
+        throw new CompletionException(failure);
+    }
+
+    private Counter collapsedCounter(String operation) {
+        return collapsed.computeIfAbsent(operation,
+                op -> meterRegistry.counter("device.coalesced.requests", "operation", op));
+    }
+}
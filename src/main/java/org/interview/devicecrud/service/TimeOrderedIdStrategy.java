@@ -0,0 +1,87 @@
+package org.interview.devicecrud.service;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * Ids of the environment and 26 Crockford base32 characters holding 48 bits of
+ * epoch millis followed by 80 random bits, in the manner of a ULID.
+ * <p>
+ * Ids sort by creation time, so inserts append to the right edge of the
+ * {@code _id} index instead of splitting pages all over it, and the random part
+ * makes collisions negligible. Ids from the same millisecond count up from the
+ * previous one, and a clock going backwards keeps the last time, so the ids of
+ * one instance are strictly increasing. The id says nothing about the device;
+ * duplicates are rejected by the unique name and brand index instead.
+ */
+public class TimeOrderedIdStrategy implements IdStrategy {
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int TIME_CHARS = 10;
+    private static final int RANDOM_CHARS = 16;
+
+    private final ConfigService config;
+    private final LongSupplier clock;
+    private final Random random;
+
+    private long lastMillis = -1;
+    private long randomHigh;
+    private long randomLow;
+
+    public TimeOrderedIdStrategy(ConfigService config) {
+        this(config, System::currentTimeMillis, new SecureRandom());
+    }
+
+    TimeOrderedIdStrategy(ConfigService config, LongSupplier clock, Random random) {
+        this.config = config;
+        this.clock = clock;
+        this.random = random;
+    }
+
+    @Override
+    public String generateId(String name, String brand) {
+        long millis;
+        long high;
+        long low;
+        synchronized (this) {
+            millis = Math.max(clock.getAsLong(), lastMillis);
+            if (millis == lastMillis) {
+                randomLow++;
+                if (randomLow == 0) {
+                    randomHigh = (randomHigh + 1) & 0xFFFF;
+                    if (randomHigh == 0) {
+                        // all 80 bits used up within one millisecond, borrow the next one
+                        millis++;
+                    }
+                }
+            } else {
+                randomHigh = random.nextInt(1 << 16);
+                randomLow = random.nextLong();
+            }
+            lastMillis = millis;
+            high = randomHigh;
+            low = randomLow;
+        }
+        return config.getEnv() + "-" + encode(millis, high, low);
+    }
+
+    @Override
+    public boolean isDerivedFromDevice() {
+        return false;
+    }
+
+    private static String encode(long millis, long high, long low) {
+        char[] chars = new char[TIME_CHARS + RANDOM_CHARS];
+        for (int i = TIME_CHARS - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (millis & 31)];
+            millis >>>= 5;
+        }
+        for (int i = TIME_CHARS + RANDOM_CHARS - 1; i >= TIME_CHARS; i--) {
+            chars[i] = ALPHABET[(int) (low & 31)];
+            low = (low >>> 5) | (high << 59);
+            high >>>= 5;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,300 @@
+package org.interview.devicecrud.service;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.interview.devicecrud.constants.DeviceOperation;
+import org.interview.devicecrud.exception.DeadlineExceededException;
+import org.interview.devicecrud.exception.MongoDBException;
+import org.interview.devicecrud.model.Device;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Group commit for single-device {@code $set} updates. Writes submitted within
+ * a few milliseconds of each other are sent as one unordered bulk write and each
+ * caller is completed with whether its own update matched a device, the same
+ * outcome the direct path reports, so an update that changes nothing still
+ * succeeds.
+ * <p>
+ * The bulk result only carries totals, so when fewer documents were matched
+ * than submitted one follow-up query finds which devices now match both their
+ * guard and their new values. Two writes to the same device never share a
+ * batch, which keeps per-device order intact despite the unordered bulk.
+ * Writes of different {@link DeviceOperation}s are sent as separate bulk writes,
+ * each with the write concern of its operation's tier.
+ * Callers wait no longer than their request deadline, or
+ * {@code device.write-coalescing.timeout-ms} without one; a write that times
+ * out may still be applied.
+ */
+@Component
+public class WriteCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteCoalescer.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ConsistencyTiers consistencyTiers;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final long timeoutMs;
+    private final DistributionSummary batchSizes;
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+
+    private volatile boolean running = true;
+    private Thread flusher;
+
+    public WriteCoalescer(MongoTemplate mongoTemplate,
+                          ConsistencyTiers consistencyTiers,
+                          MeterRegistry meterRegistry,
+                          @Value("${device.write-coalescing.enabled:false}") boolean enabled,
+                          @Value("${device.write-coalescing.max-batch-size:500}") int maxBatchSize,
+                          @Value("${device.write-coalescing.max-delay-ms:5}") long maxDelayMs,
+                          @Value("${device.write-coalescing.timeout-ms:10000}") long timeoutMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.consistencyTiers = consistencyTiers;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+        this.timeoutMs = timeoutMs;
+        this.batchSizes = meterRegistry.summary("device.write.batch.size");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        flusher = new Thread(this::run, "device-write-coalescer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (flusher != null) {
+            flusher.interrupt();
+        }
+    }
+
+    /**
+     * Queues one update and waits for the batch it lands in.
+     *
+     * @param operation operation whose consistency tier the write uses
+     * @param id        id of the device the update targets
+     * @param query     filter selecting the device, including any guard
+     * @param update    {@code $set} update to apply
+     * @return whether the device matched
+     * @throws DeadlineExceededException when the request deadline passes first
+     */
+    public boolean apply(DeviceOperation operation, String id, Query query, Update update) {
+        return await(id, submit(operation, id, query, update));
+    }
+
+    /**
+     * Like {@link #apply}, inserting the device when nothing matches.
+     *
+     * @return whether the device was inserted rather than updated
+     */
+    public boolean upsert(DeviceOperation operation, String id, Query query, Update update) {
+        return await(id, submit(operation, id, query, update, true));
+    }
+
+    /**
+     * Queues one update without waiting for it.
+     */
+    public CompletableFuture<Boolean> submit(DeviceOperation operation, String id, Query query, Update update) {
+        return submit(operation, id, query, update, false);
+    }
+
+    private CompletableFuture<Boolean> submit(DeviceOperation operation, String id, Query query, Update update,
+                                              boolean upsert) {
+        PendingWrite write = new PendingWrite(operation, id, query, update, upsert, new CompletableFuture<>());
+        if (!running) {
+            write.result().completeExceptionally(new MongoDBException("Write coalescer is stopped", id));
+            return write.result();
+        }
+        queue.add(write);
+        return write.result();
+    }
+
+    private boolean await(String id, CompletableFuture<Boolean> result) {
+        Duration remaining = RequestDeadline.remaining();
+        long waitMs = remaining == null ? timeoutMs : Math.max(0, remaining.toMillis());
+        try {
+            return result.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (remaining != null) {
+                throw new DeadlineExceededException("Request deadline exceeded waiting for write of " + id);
+            }
+            throw new MongoDBException("Timed out waiting for write: ", id);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MongoDBException("Interrupted waiting for write: ", id);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new MongoDBException("Failed to apply write: ", e.getCause().getMessage());
+        }
+    }
+
+    private void run() {
+        List<PendingWrite> carried = new ArrayList<>();
+        while (running || !queue.isEmpty() || !carried.isEmpty()) {
+            try {
+                List<PendingWrite> batch = collect(carried);
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } catch (InterruptedException e) {
+                if (running) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            } catch (Exception e) {
+                logger.error("Write coalescer flush failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private List<PendingWrite> collect(List<PendingWrite> carried) throws InterruptedException {
+        List<PendingWrite> batch = new ArrayList<>();
+        Set<String> batchIds = new HashSet<>();
+        List<PendingWrite> previous = new ArrayList<>(carried);
+        carried.clear();
+        Set<String> carriedIds = new HashSet<>();
+        for (PendingWrite write : previous) {
+            admit(write, batch, batchIds, carried, carriedIds);
+        }
+        if (batch.isEmpty()) {
+            PendingWrite first = running ? queue.poll(100, TimeUnit.MILLISECONDS) : queue.poll();
+            if (first == null) {
+                return batch;
+            }
+            admit(first, batch, batchIds, carried, carriedIds);
+        }
+        long deadline = System.nanoTime() + maxDelayNanos;
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            PendingWrite next = remaining > 0 && running ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) {
+                break;
+            }
+            admit(next, batch, batchIds, carried, carriedIds);
+        }
+        return batch;
+    }
+
+    private void admit(PendingWrite write, List<PendingWrite> batch, Set<String> batchIds,
+                       List<PendingWrite> carried, Set<String> carriedIds) {
+        if (batch.size() < maxBatchSize && !carriedIds.contains(write.id()) && batchIds.add(write.id())) {
+            batch.add(write);
+        } else {
+            carried.add(write);
+            carriedIds.add(write.id());
+        }
+    }
+
+    void flush(List<PendingWrite> batch) {
+        batchSizes.record(batch.size());
+        batch.stream()
+                .collect(Collectors.groupingBy(PendingWrite::operation, LinkedHashMap::new, Collectors.toList()))
+                .forEach(this::flush);
+    }
+
+    private void flush(DeviceOperation operation, List<PendingWrite> batch) {
+        BulkOperations operations = consistencyTiers.bulkOps(operation, mongoTemplate,
+                BulkOperations.BulkMode.UNORDERED, Device.class);
+        batch.forEach(write -> {
+            if (write.upsert()) {
+                operations.upsert(write.query(), write.update());
+            } else {
+                operations.updateOne(write.query(), write.update());
+            }
+        });
+        BulkWriteResult result;
+        try {
+            result = operations.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                PendingWrite failed = batch.get(error.getIndex());
+                failed.result().completeExceptionally(new MongoDBException("Failed to apply write: ", error.getMessage()));
+            }
+            result = e.getResult();
+        } catch (Exception e) {
+            logger.error("Coalesced write of {} updates failed: {}", batch.size(), e.getMessage(), e);
+            batch.forEach(write -> write.result().completeExceptionally(
+                    new MongoDBException("Failed to apply write: ", e.getMessage())));
+            return;
+        }
+        // every upsert either matched or inserted, so only updates can fall short
+        Set<Integer> inserted = result.getUpserts().stream().map(BulkWriteUpsert::getIndex).collect(Collectors.toSet());
+        boolean allMatched = result.getMatchedCount() + inserted.size() == batch.size();
+        for (int i = 0; i < batch.size(); i++) {
+            PendingWrite write = batch.get(i);
+            if (write.upsert()) {
+                write.result().complete(inserted.contains(i));
+            } else if (allMatched) {
+                write.result().complete(true);
+            }
+        }
+        resolve(batch.stream().filter(write -> !write.result().isDone()).toList());
+    }
+
+    private void resolve(List<PendingWrite> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            List<Document> applied = pending.stream()
+                    .map(write -> new Document("$and", List.of(write.query().getQueryObject(),
+                            write.update().getUpdateObject().get("$set", Document.class))))
+                    .toList();
+            Set<String> appliedIds = mongoTemplate.find(new BasicQuery(new Document("$or", applied),
+                            new Document("_id", 1)), Device.class).stream()
+                    .map(Device::getId)
+                    .collect(Collectors.toSet());
+            pending.forEach(write -> write.result().complete(appliedIds.contains(write.id())));
+        } catch (Exception e) {
+            logger.error("Could not resolve outcome of {} coalesced writes: {}", pending.size(), e.getMessage(), e);
+            pending.forEach(write -> write.result().completeExceptionally(
+                    new MongoDBException("Failed to confirm write: ", e.getMessage())));
+        }
+    }
+
+    record PendingWrite(DeviceOperation operation, String id, Query query, Update update, boolean upsert, CompletableFuture<Boolean> result) {
+    }
+}
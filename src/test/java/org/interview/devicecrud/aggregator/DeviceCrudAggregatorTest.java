@@ -1,10 +1,23 @@
 package org.interview.devicecrud.aggregator;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.interview.devicecrud.constants.BatchOperationStatus;
+import org.interview.devicecrud.constants.BatchOperationType;
 import org.interview.devicecrud.constants.DeviceState;
+import org.interview.devicecrud.constants.ImportFormat;
+import org.interview.devicecrud.event.DeviceChangeEvent;
 import org.interview.devicecrud.exception.*;
 import org.interview.devicecrud.model.*;
+import org.interview.devicecrud.service.CircuitBreaker;
+import org.interview.devicecrud.service.ConcurrencyLimiter;
 import org.interview.devicecrud.service.DeviceCrudService;
+import org.interview.devicecrud.service.DeviceIdBloomFilter;
 import org.interview.devicecrud.service.DeviceIdGenerator;
+import org.interview.devicecrud.service.DeviceImportService;
+import org.interview.devicecrud.service.DeviceIndex;
+import org.interview.devicecrud.service.DeviceSearchIndex;
+import org.interview.devicecrud.service.RequestDeadline;
+import org.interview.devicecrud.service.SingleFlight;
 import org.interview.devicecrud.validator.DeviceCrudValidator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,10 +25,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.lang.reflect.Constructor;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -31,6 +50,20 @@ class DeviceCrudAggregatorTest {
     @Mock DeviceCrudService deviceService;
     @Mock DeviceIdGenerator deviceIdGenerator;
     @Mock DeviceCrudValidator validator;
+    @Mock DeviceImportService importService;
+
+    // disabled filter: every id is reported as possibly present
+    private final DeviceIdBloomFilter idFilter =
+            new DeviceIdBloomFilter(null, new SimpleMeterRegistry(), false, 1000, 0.01);
+    // disabled index: listings always go to the service
+    private final DeviceIndex deviceIndex =
+            new DeviceIndex(null, new SimpleMeterRegistry(), false, false, 60000);
+    private final SingleFlight singleFlight = new SingleFlight(new SimpleMeterRegistry(), true);
+    private final DeviceSearchIndex searchIndex = new DeviceSearchIndex(null, false);
+    private final ConcurrencyLimiter concurrencyLimiter =
+            new ConcurrencyLimiter(new SimpleMeterRegistry(), true, 1, 100, 10, 500, 20, 2, 100);
+    private final CircuitBreaker circuitBreaker =
+            new CircuitBreaker(new SimpleMeterRegistry(), true, 20, 10, 50, 10000, 3, 100);
 
     private DeviceCrudAggregator aggregator;
 
@@ -38,14 +71,26 @@ class DeviceCrudAggregatorTest {
 
     @BeforeEach
     void init() throws Exception {
+        aggregator = newAggregator(idFilter);
+    }
+
+    private DeviceCrudAggregator newAggregator(DeviceIdBloomFilter filter) throws Exception {
         // the constructor in the component is private – use reflection
         Constructor<DeviceCrudAggregator> c =
                 DeviceCrudAggregator.class.getDeclaredConstructor(
                         DeviceCrudService.class,
                         DeviceIdGenerator.class,
-                        DeviceCrudValidator.class);
+                        DeviceCrudValidator.class,
+                        DeviceIdBloomFilter.class,
+                        DeviceIndex.class,
+                        SingleFlight.class,
+                        DeviceSearchIndex.class,
+                        ConcurrencyLimiter.class,
+                        CircuitBreaker.class,
+                        DeviceImportService.class);
         c.setAccessible(true);
-        aggregator = c.newInstance(deviceService, deviceIdGenerator, validator);
+        return c.newInstance(deviceService, deviceIdGenerator, validator, filter, deviceIndex, singleFlight,
+                searchIndex, concurrencyLimiter, circuitBreaker, importService);
     }
 
     /* ------------------------------------------------------------------
@@ -103,6 +148,35 @@ class DeviceCrudAggregatorTest {
         verify(deviceService, never()).createNewDevice(any());
     }
 
+    @Test
+    void createDevice_whenIdFilterRulesOutId_skipsExistenceCheck() throws Exception {
+        DeviceIdBloomFilter filter = mock(DeviceIdBloomFilter.class);
+        when(filter.mightContain("APPLE_IPHONE_15")).thenReturn(false);
+        DeviceCrudAggregator filtered = newAggregator(filter);
+
+        DeviceCreationRequest req = DeviceCreationRequest.builder()
+                .name("iPhone 15").brand("Apple").state("AVAILABLE").creationTime(now).build();
+        when(deviceIdGenerator.generateId("iPhone 15", "Apple")).thenReturn("APPLE_IPHONE_15");
+
+        filtered.createDevice(req);
+
+        verify(deviceService, never()).deviceExists(anyString());
+        verify(deviceService).createNewDevice(any(Device.class));
+    }
+
+    @Test
+    void createDevice_whenIdsAreUniqueByIndex_skipsExistenceCheck() {
+        DeviceCreationRequest req = DeviceCreationRequest.builder()
+                .name("iPhone 15").brand("Apple").state("AVAILABLE").creationTime(now).build();
+        when(deviceIdGenerator.generateId("iPhone 15", "Apple")).thenReturn("DEV-01HZX3K8Q2M9V7T4R6N5B1C0DE");
+        when(deviceIdGenerator.isUniqueByIndex()).thenReturn(true);
+
+        aggregator.createDevice(req);
+
+        verify(deviceService, never()).deviceExists(anyString());
+        verify(deviceService).createNewDevice(any(Device.class));
+    }
+
     /* ------------------------------------------------------------------
      * updateDevice
      * ------------------------------------------------------------------ */
@@ -157,43 +231,104 @@ class DeviceCrudAggregatorTest {
         verify(validator).validateId("X");
     }
 
+    @Test
+    void getDeviceById_whenIdFilterRulesOutId_throwsWithoutLookup() throws Exception {
+        DeviceIdBloomFilter filter = mock(DeviceIdBloomFilter.class);
+        when(filter.mightContain("MISSING")).thenReturn(false);
+        DeviceCrudAggregator filtered = newAggregator(filter);
+
+        assertThrows(MongoDBException.class, () -> filtered.getDeviceById("MISSING"));
+
+        verify(deviceService, never()).fetchDeviceById(anyString());
+    }
+
+    @Test
+    void getDevicesByIds_keepsRequestOrderAndReportsMissing() {
+        Device a = Device.builder().id("A").name("Any").brand("Any")
+                .state(DeviceState.AVAILABLE).creationTime(now).build();
+        Device c = Device.builder().id("C").name("Any").brand("Any")
+                .state(DeviceState.AVAILABLE).creationTime(now).build();
+
+        when(deviceService.fetchDevicesByIds(List.of("C", "B", "A"))).thenReturn(List.of(a, c));
+
+        DeviceMultiGetResult result = aggregator.getDevicesByIds(List.of("C", "B", "A", "C"));
+
+        assertThat(result.getDevices()).extracting(Device::getId).containsExactly("C", "A");
+        assertThat(result.getMissing()).containsExactly("B");
+    }
+
+    @Test
+    void getDevicesByIds_fallsBackToArchiveForMissingIds() {
+        Device a = Device.builder().id("A").name("Any").brand("Any")
+                .state(DeviceState.AVAILABLE).creationTime(now).build();
+        Device b = Device.builder().id("B").name("Any").brand("Any")
+                .state(DeviceState.INACTIVE).creationTime(now).build();
+
+        when(deviceService.fetchDevicesByIds(List.of("A", "B", "C"))).thenReturn(List.of(a));
+        when(deviceService.fetchArchivedDevicesByIds(List.of("B", "C"))).thenReturn(List.of(b));
+
+        DeviceMultiGetResult result = aggregator.getDevicesByIds(List.of("A", "B", "C"));
+
+        assertThat(result.getDevices()).extracting(Device::getId).containsExactly("A", "B");
+        assertThat(result.getMissing()).containsExactly("C");
+    }
+
     /* ------------------------------------------------------------------
      * fetchDevices
      * ------------------------------------------------------------------ */
     @Test
-    void fetchDevices_noFilters_callsGetAll() {
-        when(deviceService.getAllDevices()).thenReturn(List.of());
+    void fetchDevices_noFilters_queriesWithEmptyFilter() {
+        when(deviceService.findDevices(any(DeviceFilter.class))).thenReturn(List.of());
 
-        aggregator.fetchDevices(null, null);
+        aggregator.fetchDevices(null, null, null, null);
 
-        verify(deviceService).getAllDevices();
+        verify(deviceService).findDevices(DeviceFilter.builder()
+                .brands(List.of()).states(List.of()).build());
     }
 
     @Test
-    void fetchDevices_brandOnly_callsGetByBrand() {
-        aggregator.fetchDevices("Samsung", null);
+    void fetchDevices_brandsAndStates_buildsSingleFilter() {
+        aggregator.fetchDevices(List.of("Dell", "Apple", "Dell"), List.of("IN_USE", "available"), null, null);
 
-        verify(deviceService).getDevicesByBrand("Samsung");
+        verify(deviceService).findDevices(DeviceFilter.builder()
+                .brands(List.of("Dell", "Apple"))
+                .states(List.of(DeviceState.IN_USE, DeviceState.AVAILABLE))
+                .build());
     }
 
     @Test
-    void fetchDevices_stateOnly_callsGetByState() {
-        aggregator.fetchDevices(null, "AVAILABLE");
+    void fetchDevices_timeRange_passedThrough() {
+        LocalDateTime to = now.plusDays(1);
+
+        aggregator.fetchDevices(null, null, now, to);
 
-        verify(deviceService).getDevicesByState(DeviceState.AVAILABLE);
+        verify(deviceService).findDevices(DeviceFilter.builder()
+                .brands(List.of()).states(List.of()).createdFrom(now).createdTo(to).build());
     }
 
     @Test
-    void fetchDevices_brandAndState_callsGetByBrandAndState() {
-        aggregator.fetchDevices("Dell", "IN_USE");
-
-        verify(deviceService).getDevicesByBrandAndState("Dell", DeviceState.IN_USE);
+    void fetchDevices_invalidState_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class,
+                () -> aggregator.fetchDevices(null, List.of("WRONG"), null, null));
     }
 
     @Test
-    void fetchDevices_invalidState_throwsIllegalArgument() {
+    void fetchDevices_invertedTimeRange_throwsIllegalArgument() {
         assertThrows(IllegalArgumentException.class,
-                () -> aggregator.fetchDevices(null, "WRONG"));
+                () -> aggregator.fetchDevices(null, null, now, now.minusDays(1)));
+    }
+
+    /* ------------------------------------------------------------------
+     * searchDevices
+     * ------------------------------------------------------------------ */
+    @Test
+    void searchDevices_blankQuery_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> aggregator.searchDevices(" ", null));
+    }
+
+    @Test
+    void searchDevices_indexDisabled_throwsSearchUnavailable() {
+        assertThrows(SearchUnavailableException.class, () -> aggregator.searchDevices("pix", null));
     }
 
     /* ------------------------------------------------------------------
@@ -232,4 +367,135 @@ class DeviceCrudAggregatorTest {
         assertThrows(InvalidDeviceIdException.class,
                 () -> aggregator.deleteDevice(" "));
     }
+
+    /* ------------------------------------------------------------------
+     * applyBatch
+     * ------------------------------------------------------------------ */
+    @Test
+    void applyBatch_appliesRulesAndWritesOnce() {
+        Device inUse = Device.builder().id("INUSE-1").name("Modem")
+                .brand("Netgear").state(DeviceState.IN_USE).creationTime(now).build();
+        Device available = Device.builder().id("AV-1").name("Router")
+                .brand("Cisco").state(DeviceState.AVAILABLE).creationTime(now).build();
+        DeviceBatchRequest request = DeviceBatchRequest.builder().ordered(false).operations(List.of(
+                DeviceBatchOperation.builder().operation(BatchOperationType.CREATE)
+                        .name("Galaxy S24").brand("Samsung").state("AVAILABLE").creationTime(now).build(),
+                DeviceBatchOperation.builder().operation(BatchOperationType.DELETE).id("INUSE-1").build(),
+                DeviceBatchOperation.builder().operation(BatchOperationType.UPDATE_BRAND)
+                        .id("AV-1").brand("Juniper").build())).build();
+
+        when(deviceIdGenerator.generateId("Galaxy S24", "Samsung")).thenReturn("NEW-1");
+        when(deviceService.fetchDevicesByIds(any())).thenReturn(List.of(inUse, available));
+        when(deviceService.applyChanges(anyList(), eq(false)))
+                .thenReturn(DeviceBatchWriteResult.builder().failures(Map.of()).executed(2).build());
+
+        List<DeviceBatchResult> results = aggregator.applyBatch(request);
+
+        assertThat(results).extracting(DeviceBatchResult::getStatus).containsExactly(
+                BatchOperationStatus.APPLIED, BatchOperationStatus.FAILED, BatchOperationStatus.APPLIED);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<DeviceChangeEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(deviceService).applyChanges(captor.capture(), eq(false));
+        assertThat(captor.getValue()).extracting(DeviceChangeEvent::type).containsExactly(
+                DeviceChangeEvent.Type.CREATED, DeviceChangeEvent.Type.BRAND_UPDATED);
+    }
+
+    @Test
+    void applyBatch_createOfArchivedDevice_failsAsDuplicate() {
+        DeviceBatchRequest request = DeviceBatchRequest.builder().ordered(false).operations(List.of(
+                DeviceBatchOperation.builder().operation(BatchOperationType.CREATE)
+                        .name("Galaxy S24").brand("Samsung").state("AVAILABLE").creationTime(now).build())).build();
+
+        when(deviceIdGenerator.generateId("Galaxy S24", "Samsung")).thenReturn("ARCHIVED-1");
+        when(deviceService.fetchDevicesByIds(any())).thenReturn(List.of());
+        when(deviceService.archivedDuplicates(anyList())).thenReturn(Set.of("ARCHIVED-1"));
+        when(deviceService.applyChanges(anyList(), eq(false)))
+                .thenReturn(DeviceBatchWriteResult.builder().failures(Map.of()).executed(0).build());
+
+        List<DeviceBatchResult> results = aggregator.applyBatch(request);
+
+        assertThat(results).extracting(DeviceBatchResult::getStatus).containsExactly(BatchOperationStatus.FAILED);
+        assertThat(results.get(0).getMessage()).isEqualTo("Device with same name and brand already exists.");
+        verify(deviceService).applyChanges(List.of(), false);
+    }
+
+    @Test
+    void applyBatch_ordered_skipsOperationsAfterFailure() {
+        DeviceBatchRequest request = DeviceBatchRequest.builder().ordered(true).operations(List.of(
+                DeviceBatchOperation.builder().operation(BatchOperationType.DELETE).id("MISSING").build(),
+                DeviceBatchOperation.builder().operation(BatchOperationType.DELETE).id("OTHER").build())).build();
+
+        when(deviceService.fetchDevicesByIds(any())).thenReturn(List.of());
+        when(deviceService.applyChanges(anyList(), eq(true)))
+                .thenReturn(DeviceBatchWriteResult.builder().failures(Map.of()).executed(0).build());
+
+        List<DeviceBatchResult> results = aggregator.applyBatch(request);
+
+        assertThat(results).extracting(DeviceBatchResult::getStatus).containsExactly(
+                BatchOperationStatus.FAILED, BatchOperationStatus.SKIPPED);
+    }
+
+    @Test
+    void checkoutDevice_passesBrandsAndLease() {
+        Device claimed = new Device("1", "Pixel", "Google", DeviceState.IN_USE, now);
+        when(deviceService.checkoutDevice(any(DeviceFilter.class), any(Duration.class))).thenReturn(claimed);
+
+        assertThat(aggregator.checkoutDevice(List.of("Google", " "), 300L)).isEqualTo(claimed);
+
+        verify(deviceService).checkoutDevice(DeviceFilter.builder().brands(List.of("Google")).build(),
+                Duration.ofSeconds(300));
+    }
+
+    @Test
+    void checkoutDevice_invalidLease_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> aggregator.checkoutDevice(null, 0L));
+        verifyNoInteractions(deviceService);
+    }
+
+    @Test
+    void getDeviceById_storageDown_servesLastKnownDevice() {
+        Device device = new Device("ID1", "Pixel", "Google", DeviceState.AVAILABLE, now);
+        when(deviceService.fetchDeviceById("ID1"))
+                .thenReturn(device)
+                .thenThrow(new MongoDBException("Failed to fetch device ", "timeout",
+                        new DataAccessResourceFailureException("timeout")));
+
+        assertThat(aggregator.getDeviceById("ID1")).isEqualTo(device);
+        assertThat(aggregator.getDeviceById("ID1")).isEqualTo(device);
+    }
+
+    @Test
+    void updateDevice_deadlinePassed_doesNotCallService() {
+        RequestDeadline.start(Duration.ZERO);
+        try {
+            assertThrows(DeadlineExceededException.class, () -> aggregator.updateDevice("ID1",
+                    DeviceUpdationRequest.builder().name("Pixel").brand("Google").state("AVAILABLE").build()));
+        } finally {
+            RequestDeadline.clear();
+        }
+
+        verifyNoInteractions(deviceService);
+    }
+
+    @Test
+    void importDevices_goesThroughTheImportService() {
+        InputStream body = new ByteArrayInputStream(new byte[0]);
+        DeviceImportResult result = DeviceImportResult.builder().processed(0).inserted(0).failed(0).build();
+        when(importService.importDevices(body, ImportFormat.CSV)).thenReturn(result);
+
+        assertThat(aggregator.importDevices(body, "CSV")).isSameAs(result);
+    }
+
+    @Test
+    void importDevices_deadlinePassed_doesNotStartImport() {
+        RequestDeadline.start(Duration.ZERO);
+        try {
+            assertThrows(DeadlineExceededException.class,
+                    () -> aggregator.importDevices(new ByteArrayInputStream(new byte[0]), "NDJSON"));
+        } finally {
+            RequestDeadline.clear();
+        }
+
+        verifyNoInteractions(importService);
+    }
 }
@@ -0,0 +1,82 @@
+package org.interview.devicecrud.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import org.interview.devicecrud.service.IdempotencyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link IdempotencyFilter}.
+ */
+class IdempotencyFilterTest {
+
+    private final AtomicInteger executions = new AtomicInteger();
+    private IdempotencyFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        IdempotencyService service = new IdempotencyService(mock(MongoTemplate.class), new SimpleMeterRegistry(),
+                true, 24, 100, 1000, 60000);
+        filter = new IdempotencyFilter(service, new ObjectMapper().findAndRegisterModules());
+    }
+
+    private MockHttpServletResponse send(String key, String body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/private/v1/device/create");
+        if (key != null) {
+            request.addHeader(IdempotencyService.HEADER, key);
+        }
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> {
+            executions.incrementAndGet();
+            String received = new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            ((HttpServletResponse) res).setStatus(201);
+            res.setContentType("application/json");
+            res.getWriter().write("{\"echo\":" + received + "}");
+        });
+        return response;
+    }
+
+    @Test
+    void retryWithSameKey_replaysOriginalResponse() throws Exception {
+        MockHttpServletResponse first = send("key-1", "{\"name\":\"Pixel\"}");
+        MockHttpServletResponse retry = send("key-1", "{\"name\":\"Pixel\"}");
+
+        assertThat(executions).hasValue(1);
+        assertThat(first.getStatus()).isEqualTo(201);
+        assertThat(first.getContentAsString()).isEqualTo("{\"echo\":{\"name\":\"Pixel\"}}");
+        assertThat(retry.getStatus()).isEqualTo(201);
+        assertThat(retry.getContentAsString()).isEqualTo(first.getContentAsString());
+        assertThat(retry.getHeader(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    void sameKeyDifferentBody_returns422() throws Exception {
+        send("key-1", "{\"name\":\"Pixel\"}");
+
+        MockHttpServletResponse reused = send("key-1", "{\"name\":\"Galaxy\"}");
+
+        assertThat(executions).hasValue(1);
+        assertThat(reused.getStatus()).isEqualTo(422);
+    }
+
+    @Test
+    void withoutKey_alwaysExecutes() throws Exception {
+        send(null, "{\"name\":\"Pixel\"}");
+        send(null, "{\"name\":\"Pixel\"}");
+
+        assertThat(executions).hasValue(2);
+    }
+}
@@ -0,0 +1,76 @@
+package org.interview.devicecrud.config;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.interview.devicecrud.validator.DeviceCrudValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.interview.devicecrud.constants.DeviceCrudConstants.TRACE_LAYER_KEY;
+import static org.interview.devicecrud.constants.DeviceCrudConstants.TRACE_LAYER_OBSERVATION;
+
+/**
+ * Tests for {@link LayerObservationPostProcessor}.
+ */
+class LayerObservationPostProcessorTest {
+
+    private final ObservationRegistry registry = ObservationRegistry.create();
+    private final List<Observation.Context> stopped = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        registry.observationConfig().observationHandler(new ObservationHandler<>() {
+            @Override
+            public boolean supportsContext(Observation.Context context) {
+                return true;
+            }
+
+            @Override
+            public void onStop(Observation.Context context) {
+                stopped.add(context);
+            }
+        });
+    }
+
+    private LayerObservationPostProcessor processor(boolean enabled) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(Map.of("observationRegistry", registry));
+        return new LayerObservationPostProcessor(beans.getBeanProvider(ObservationRegistry.class), enabled);
+    }
+
+    @Test
+    void layerBean_isProxiedAndObservedWithItsLayer() {
+        Object bean = processor(true).postProcessAfterInitialization(new DeviceCrudValidator(), "deviceCrudValidator");
+
+        assertThat(AopUtils.isAopProxy(bean)).isTrue();
+        ((DeviceCrudValidator) bean).validateId("DEV-1");
+
+        assertThat(stopped).hasSize(1);
+        Observation.Context context = stopped.get(0);
+        assertThat(context.getName()).isEqualTo(TRACE_LAYER_OBSERVATION);
+        assertThat(context.getContextualName()).isEqualTo("DeviceCrudValidator.validateId");
+        assertThat(context.getLowCardinalityKeyValue(TRACE_LAYER_KEY).getValue()).isEqualTo("validator");
+    }
+
+    @Test
+    void otherBean_isLeftAlone() {
+        Object bean = new Object();
+
+        assertThat(processor(true).postProcessAfterInitialization(bean, "other")).isSameAs(bean);
+    }
+
+    @Test
+    void disabled_leavesLayerBeanAlone() {
+        DeviceCrudValidator validator = new DeviceCrudValidator();
+
+        assertThat(processor(false).postProcessAfterInitialization(validator, "deviceCrudValidator")).isSameAs(validator);
+        assertThat(stopped).isEmpty();
+    }
+}
@@ -0,0 +1,93 @@
+package org.interview.devicecrud.config;
+
+import org.interview.devicecrud.service.RequestDeadline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link RequestDeadlineInterceptor}.
+ */
+class RequestDeadlineInterceptorTest {
+
+    private final MockEnvironment environment = new MockEnvironment().withProperty("device.deadline.scan-ms", "8000");
+    private final RequestDeadlineInterceptor interceptor =
+            new RequestDeadlineInterceptor(environment, true, 5000, 20000);
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @AfterEach
+    void clear() {
+        RequestDeadline.clear();
+    }
+
+    @Test
+    void header_takesPrecedenceOverEndpointBudget() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(RequestDeadlineInterceptor.TIMEOUT_HEADER, "300");
+
+        interceptor.preHandle(request, response, handler("scan"));
+
+        assertThat(RequestDeadline.remaining().toMillis()).isBetween(1L, 300L);
+    }
+
+    @Test
+    void endpointBudget_resolvesPlaceholder() throws Exception {
+        interceptor.preHandle(new MockHttpServletRequest(), response, handler("scan"));
+
+        assertThat(RequestDeadline.remaining().toMillis()).isBetween(5001L, 8000L);
+    }
+
+    @Test
+    void unannotatedEndpoint_usesDefault() throws Exception {
+        interceptor.preHandle(new MockHttpServletRequest(), response, handler("write"));
+
+        assertThat(RequestDeadline.remaining().toMillis()).isBetween(1L, 5000L);
+    }
+
+    @Test
+    void header_isCappedAtMaximum() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(RequestDeadlineInterceptor.TIMEOUT_HEADER, "3600000");
+
+        interceptor.preHandle(request, response, handler("write"));
+
+        assertThat(RequestDeadline.remaining().toMillis()).isBetween(5001L, 20000L);
+    }
+
+    @Test
+    void invalidHeader_isRejected() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(RequestDeadlineInterceptor.TIMEOUT_HEADER, "soon");
+
+        assertThrows(IllegalArgumentException.class, () -> interceptor.preHandle(request, response, handler("write")));
+    }
+
+    @Test
+    void afterCompletion_clearsDeadline() throws Exception {
+        interceptor.preHandle(new MockHttpServletRequest(), response, handler("write"));
+
+        interceptor.afterCompletion(new MockHttpServletRequest(), response, handler("write"), null);
+
+        assertThat(RequestDeadline.isSet()).isFalse();
+    }
+
+    private HandlerMethod handler(String name) throws NoSuchMethodException {
+        return new HandlerMethod(new Endpoints(), Endpoints.class.getMethod(name));
+    }
+
+    static class Endpoints {
+
+        @RequestTimeout("${device.deadline.scan-ms:10000}")
+        public void scan() {
+        }
+
+        public void write() {
+        }
+    }
+}
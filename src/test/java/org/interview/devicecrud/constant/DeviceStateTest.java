@@ -49,4 +49,24 @@ public class DeviceStateTest {
         assertThat(DeviceState.INACTIVE.getValue()).isEqualTo("INACTIVE");
         assertThat(DeviceState.INVALID.getValue()).isEqualTo("INVALID");
     }
+
+    @Test
+    @DisplayName("Should resolve stored values and fall back for non-canonical input")
+    void testFromValue() {
+        assertThat(DeviceState.fromValue("AVAILABLE")).isEqualTo(DeviceState.AVAILABLE);
+        assertThat(DeviceState.fromValue("IN_USE")).isEqualTo(DeviceState.IN_USE);
+        assertThat(DeviceState.fromValue("INACTIVE")).isEqualTo(DeviceState.INACTIVE);
+        assertThat(DeviceState.fromValue("in_use")).isEqualTo(DeviceState.IN_USE);
+        assertThat(DeviceState.fromValue("RANDOM")).isEqualTo(DeviceState.INVALID);
+        assertThat(DeviceState.fromValue(null)).isEqualTo(DeviceState.INVALID);
+    }
+
+    @Test
+    @DisplayName("Should round trip every state through its storage code")
+    void testFromCode() {
+        for (DeviceState state : DeviceState.values()) {
+            assertThat(DeviceState.fromCode(state.getCode())).isEqualTo(state);
+        }
+        assertThat(DeviceState.fromCode(42)).isEqualTo(DeviceState.INVALID);
+    }
 }
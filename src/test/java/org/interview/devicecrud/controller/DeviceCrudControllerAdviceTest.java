@@ -1,11 +1,13 @@
 package org.interview.devicecrud.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoExecutionTimeoutException;
 import org.interview.devicecrud.aggregator.DeviceCrudAggregator;
 import org.interview.devicecrud.exception.*;
 import org.interview.devicecrud.model.DeviceCreationRequest;
 import org.interview.devicecrud.model.DeviceUpdationRequest;
 import org.interview.devicecrud.service.DeviceCrudService;
+import org.interview.devicecrud.service.DeviceTraceBuffer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -17,6 +19,7 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 
 import static org.hamcrest.Matchers.*;
@@ -26,9 +29,10 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 
-@WebMvcTest(DeviceCrudController.class)
+@WebMvcTest({DeviceCrudController.class, DeviceTraceController.class})
 @ContextConfiguration(classes = {
         DeviceCrudController.class,
+        DeviceTraceController.class,
         DeviceCrudControllerAdvice.class
 })
 @ExtendWith(MockitoExtension.class)
@@ -39,6 +43,7 @@ class DeviceCrudControllerAdviceTest {
 
     @MockBean DeviceCrudAggregator aggregator;
     @MockBean DeviceCrudService    service;
+    @MockBean DeviceTraceBuffer    traceBuffer;
 
     private String creationJson() throws Exception {
         DeviceCreationRequest req = DeviceCreationRequest.builder()
@@ -101,6 +106,18 @@ class DeviceCrudControllerAdviceTest {
                 .andExpect(jsonPath("$.message").value("Illegal state transition"));
     }
 
+    @Test
+    void overloaded_returns503WithRetryAfter() throws Exception {
+        doThrow(new ServiceOverloadedException("Device service is overloaded, please retry later", 2))
+                .when(aggregator).getDeviceById("123");
+
+        mvc.perform(get("/private/v1/device/fetch/123"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(jsonPath("$.status").value(503))
+                .andExpect(jsonPath("$.message").value("Device service is overloaded, please retry later"));
+    }
+
     @Test
     void invalidId_returns400() throws Exception {
         doThrow(new InvalidDeviceIdException("Device ID must not be blank.", ""))
@@ -127,7 +144,7 @@ class DeviceCrudControllerAdviceTest {
     @Test
     void mongoError_returns500() throws Exception {
         doThrow(new MongoDBException("Failed to update brand", "duplicate key"))
-                .when(service).updateBrandIfNotInUse(eq("ABC"), eq("Apple"));
+                .when(aggregator).updateBrand(eq("ABC"), eq("Apple"));
 
         mvc.perform(put("/private/v1/device/updateBrand/ABC/Apple"))
                 .andExpect(status().isInternalServerError())
@@ -136,10 +153,42 @@ class DeviceCrudControllerAdviceTest {
     }
 
 
+    @Test
+    void fileError_returns500() throws Exception {
+        doThrow(new DeviceFileException("Failed to write traces.ndjson: ", "No space left on device", null))
+                .when(traceBuffer).export();
+
+        mvc.perform(post("/private/v1/device/traces/export"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.message",
+                        is("Failed to write traces.ndjson:  No space left on device")));
+    }
+
+
+    @Test
+    void deadlineExceeded_returns504() throws Exception {
+        doThrow(new DeadlineExceededException("Request deadline exceeded"))
+                .when(aggregator).getDeviceById("ABC");
+
+        mvc.perform(get("/private/v1/device/fetch/ABC"))
+                .andExpect(status().isGatewayTimeout())
+                .andExpect(jsonPath("$.message").value("Request deadline exceeded"));
+    }
+
+    @Test
+    void queryMaxTimeExceeded_returns504() throws Exception {
+        doThrow(new MongoDBException("Failed to fetch devices: ", "operation exceeded time limit",
+                new MongoExecutionTimeoutException(50, "operation exceeded time limit")))
+                .when(aggregator).fetchDevices(isNull(), isNull(), isNull(), isNull());
+
+        mvc.perform(get("/private/v1/device/fetch"))
+                .andExpect(status().isGatewayTimeout());
+    }
+
     @Test
     void illegalArgument_returns400() throws Exception {
         doThrow(new IllegalArgumentException("Invalid or blank device state."))
-                .when(aggregator).fetchDevices(eq("Samsung"), eq("BAD"));
+                .when(aggregator).fetchDevices(eq(List.of("Samsung")), eq(List.of("BAD")), isNull(), isNull());
 
         mvc.perform(get("/private/v1/device/fetch")
                         .param("brand", "Samsung")
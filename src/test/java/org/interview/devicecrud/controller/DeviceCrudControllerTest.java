@@ -6,8 +6,8 @@ import org.interview.devicecrud.constants.DeviceState;
 import org.interview.devicecrud.exception.DuplicateDeviceException;
 import org.interview.devicecrud.model.Device;
 import org.interview.devicecrud.model.DeviceCreationRequest;
+import org.interview.devicecrud.model.DeviceMultiGetResult;
 import org.interview.devicecrud.model.DeviceUpdationRequest;
-import org.interview.devicecrud.service.DeviceCrudService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -32,14 +32,13 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 class DeviceCrudControllerTest {
 
     @Mock  DeviceCrudAggregator aggregator;
-    @Mock  DeviceCrudService    service;
 
     private MockMvc  mockMvc;
 
 
     @BeforeEach
     void setUp() {
-        DeviceCrudController controller = new DeviceCrudController(aggregator, service);
+        DeviceCrudController controller = new DeviceCrudController(aggregator);
 
         mockMvc = MockMvcBuilders
                 .standaloneSetup(controller)
@@ -121,7 +120,7 @@ class DeviceCrudControllerTest {
 
     @Test
     void updateBrand_returns200AndText() throws Exception {
-        when(service.updateBrandIfNotInUse("D-002", "Apple"))
+        when(aggregator.updateBrand("D-002", "Apple"))
                 .thenReturn("Brand updated");
 
         mockMvc.perform(put("/private/v1/device/updateBrand/{id}/{newBrand}",
@@ -129,7 +128,7 @@ class DeviceCrudControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().string("Brand updated"));
 
-        verify(service).updateBrandIfNotInUse("D-002", "Apple");
+        verify(aggregator).updateBrand("D-002", "Apple");
     }
 
     @Test
@@ -148,46 +147,78 @@ class DeviceCrudControllerTest {
     }
 
 
+    @Test
+    void getMany_returnsFoundAndMissing() throws Exception {
+        Device dev = Device.builder()
+                .id("XYZ").name("Router").brand("Cisco")
+                .state(DeviceState.IN_USE).creationTime(LocalDateTime.now()).build();
+
+        when(aggregator.getDevicesByIds(List.of("XYZ", "NOPE")))
+                .thenReturn(DeviceMultiGetResult.builder().devices(List.of(dev)).missing(List.of("NOPE")).build());
+
+        mockMvc.perform(post("/private/v1/device/fetchMany")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"XYZ\",\"NOPE\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.devices[0].id").value("XYZ"))
+                .andExpect(jsonPath("$.missing[0]").value("NOPE"));
+    }
+
     @Test
     void getAll_noParams_callsAggregatorWithNulls() throws Exception {
-        when(aggregator.fetchDevices(null, null)).thenReturn(List.of());
+        when(aggregator.fetchDevices(null, null, null, null)).thenReturn(List.of());
 
         mockMvc.perform(get("/private/v1/device/fetch"))
                 .andExpect(status().isOk());
 
-        verify(aggregator).fetchDevices(null, null);
+        verify(aggregator).fetchDevices(null, null, null, null);
     }
 
     @Test
     void getAll_brandOnly() throws Exception {
-        when(aggregator.fetchDevices("Samsung", null)).thenReturn(List.of());
+        when(aggregator.fetchDevices(List.of("Samsung"), null, null, null)).thenReturn(List.of());
 
         mockMvc.perform(get("/private/v1/device/fetch").param("brand", "Samsung"))
                 .andExpect(status().isOk());
 
-        verify(aggregator).fetchDevices("Samsung", null);
+        verify(aggregator).fetchDevices(List.of("Samsung"), null, null, null);
     }
 
     @Test
     void getAll_stateOnly() throws Exception {
-        when(aggregator.fetchDevices(null, "AVAILABLE")).thenReturn(List.of());
+        when(aggregator.fetchDevices(null, List.of("AVAILABLE"), null, null)).thenReturn(List.of());
 
         mockMvc.perform(get("/private/v1/device/fetch").param("state", "AVAILABLE"))
                 .andExpect(status().isOk());
 
-        verify(aggregator).fetchDevices(null, "AVAILABLE");
+        verify(aggregator).fetchDevices(null, List.of("AVAILABLE"), null, null);
     }
 
     @Test
     void getAll_brandAndState() throws Exception {
-        when(aggregator.fetchDevices("Dell", "IN_USE")).thenReturn(List.of());
+        when(aggregator.fetchDevices(List.of("Dell"), List.of("IN_USE"), null, null)).thenReturn(List.of());
 
         mockMvc.perform(get("/private/v1/device/fetch")
                         .param("brand", "Dell")
                         .param("state", "IN_USE"))
                 .andExpect(status().isOk());
 
-        verify(aggregator).fetchDevices("Dell", "IN_USE");
+        verify(aggregator).fetchDevices(List.of("Dell"), List.of("IN_USE"), null, null);
+    }
+
+    @Test
+    void getAll_multipleBrandsAndTimeRange() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 12, 31, 23, 59, 59);
+        when(aggregator.fetchDevices(List.of("Dell", "Apple"), null, from, to)).thenReturn(List.of());
+
+        mockMvc.perform(get("/private/v1/device/fetch")
+                        .param("brand", "Dell", "Apple")
+                        .param("createdFrom", "2024-01-01T00:00:00")
+                        .param("createdTo", "2024-12-31T23:59:59"))
+                .andExpect(status().isOk());
+
+        verify(aggregator).fetchDevices(List.of("Dell", "Apple"), null, from, to);
     }
 
     @Test
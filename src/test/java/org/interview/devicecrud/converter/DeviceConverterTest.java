@@ -0,0 +1,94 @@
+package org.interview.devicecrud.converter;
+
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.interview.devicecrud.constants.DeviceState;
+import org.interview.devicecrud.constants.DeviceStorageLayout;
+import org.interview.devicecrud.model.Device;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link DeviceReadConverter} and {@link DeviceWriteConverter}.
+ */
+class DeviceConverterTest {
+
+    private final DeviceReadConverter reader = new DeviceReadConverter();
+    private final DeviceWriteConverter writer = new DeviceWriteConverter();
+
+    private final LocalDateTime now = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+    @Test
+    void write_thenRead_roundTrips() {
+        Device device = new Device("DEV-PIXE-GOOG-7508E2", "PIXEL", "GOOGLE",
+                DeviceState.IN_USE, now);
+
+        Document document = writer.convert(device);
+
+        assertThat(document.getString("_id")).isEqualTo("DEV-PIXE-GOOG-7508E2");
+        assertThat(document.getString("state")).isEqualTo("IN_USE");
+        assertThat(document.get("creationTime")).isInstanceOf(Date.class);
+        assertThat(reader.convert(document)).isEqualTo(device);
+    }
+
+    @Test
+    void read_storedDocument_mapsAllFields() {
+        Document document = new Document("_id", "X")
+                .append("name", "Router")
+                .append("brand", "Cisco")
+                .append("state", "AVAILABLE")
+                .append("creationTime", Date.from(now.atZone(ZoneId.systemDefault()).toInstant()))
+                .append("_class", "org.interview.devicecrud.model.Device");
+
+        Device device = reader.convert(document);
+
+        assertThat(device.getId()).isEqualTo("X");
+        assertThat(device.getName()).isEqualTo("Router");
+        assertThat(device.getBrand()).isEqualTo("Cisco");
+        assertThat(device.getState()).isEqualTo(DeviceState.AVAILABLE);
+        assertThat(device.getCreationTime()).isEqualTo(now);
+    }
+
+    @Test
+    void read_missingOptionalFields_leavesThemNull() {
+        Device device = reader.convert(new Document("_id", "X"));
+
+        assertThat(device.getState()).isNull();
+        assertThat(device.getCreationTime()).isNull();
+    }
+
+    @Test
+    void compactLayout_writesShortKeysCodesAndMillis_andReadsBack() {
+        DeviceWriteConverter compact = new DeviceWriteConverter(DeviceStorageLayout.COMPACT);
+        Device device = new Device("DEV-PIXE-GOOG-7508E2", "PIXEL", "GOOGLE",
+                DeviceState.IN_USE, now);
+
+        Document document = compact.convert(device);
+
+        assertThat(document.keySet()).containsExactly("_id", "n", "b", "s", "t");
+        assertThat(document.get("s")).isEqualTo(2);
+        assertThat(document.get("t")).isEqualTo(now.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        assertThat(reader.convert(document)).isEqualTo(device);
+    }
+
+    @Test
+    void compactLayout_storesSmallerDocuments() {
+        Device device = new Device("DEV-PIXE-GOOG-7508E2", "PIXEL", "GOOGLE",
+                DeviceState.AVAILABLE, now);
+
+        int standard = bsonSize(writer.convert(device));
+        int compact = bsonSize(new DeviceWriteConverter(DeviceStorageLayout.COMPACT).convert(device));
+
+        assertThat(compact).isLessThan(standard - 20);
+    }
+
+    private static int bsonSize(Document document) {
+        return new RawBsonDocument(document, new DocumentCodec()).getByteBuffer().remaining();
+    }
+}
@@ -0,0 +1,53 @@
+package org.interview.devicecrud.serializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.interview.devicecrud.constants.DeviceState;
+import org.interview.devicecrud.model.Device;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link DeviceJsonSerializer}.
+ */
+class DeviceJsonSerializerTest {
+
+    private final ObjectMapper defaultMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final ObjectMapper customMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .registerModule(new SimpleModule().addSerializer(new DeviceJsonSerializer()))
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void serialize_matchesBeanSerialization() throws Exception {
+        List<Device> devices = List.of(
+                new Device("A", "Galaxy S24", "Samsung", DeviceState.AVAILABLE,
+                        LocalDateTime.of(2024, 5, 24, 10, 15, 30)),
+                new Device("B", "XPS \"13\"", "Dell", DeviceState.IN_USE,
+                        LocalDateTime.of(2024, 5, 24, 10, 15, 30, 123_000_000)));
+
+        String expected = defaultMapper.writeValueAsString(devices);
+        String actual = customMapper.writeValueAsString(devices);
+
+        assertThat(customMapper.readTree(actual)).isEqualTo(defaultMapper.readTree(expected));
+    }
+
+    @Test
+    void serialize_nullFields_writesNulls() throws Exception {
+        Device device = Device.builder().id("A").build();
+
+        String json = customMapper.writeValueAsString(device);
+
+        assertThat(json).isEqualTo(
+                "{\"id\":\"A\",\"name\":null,\"brand\":null,\"state\":null,\"creationTime\":null}");
+    }
+}
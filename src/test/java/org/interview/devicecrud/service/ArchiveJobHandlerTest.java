@@ -0,0 +1,108 @@
+package org.interview.devicecrud.service;
+
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.interview.devicecrud.constants.JobType;
+import org.interview.devicecrud.event.DeviceChangeEvent;
+import org.interview.devicecrud.model.DeviceJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for {@link ArchiveJobHandler}.
+ */
+@ExtendWith(MockitoExtension.class)
+class ArchiveJobHandlerTest {
+
+    @Mock MongoTemplate mongoTemplate;
+    @Mock ApplicationEventPublisher eventPublisher;
+    @Mock DeviceJobContext context;
+    @Mock BulkOperations bulkOperations;
+    @Mock UpdateResult updateResult;
+
+    private ArchiveJobHandler handler;
+    private DeviceJob job;
+
+    @BeforeEach
+    void setUp() {
+        handler = new ArchiveJobHandler(mongoTemplate, eventPublisher,
+                new ConsistencyTiers(new SimpleMeterRegistry(), Map.of()), 2, 0);
+        job = DeviceJob.builder().id("job-1").type(JobType.ARCHIVE)
+                .params(Map.of("afterDays", "90", "cutoff", "1700000000000")).build();
+    }
+
+    private Document device(String id) {
+        return new Document("_id", id).append("name", "Pixel").append("state", "INACTIVE");
+    }
+
+    private void stubStamp() {
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq("device"))).thenReturn(updateResult);
+    }
+
+    @Test
+    void run_copiesEachPageBeforeRemovingItAndCheckpoints() throws Exception {
+        stubStamp();
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("device")))
+                .thenReturn(List.of(device("A"), device("B")), List.of(device("C")), List.of());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "device_archive")).thenReturn(bulkOperations);
+        when(mongoTemplate.remove(any(Query.class), eq("device")))
+                .thenReturn(DeleteResult.acknowledged(2), DeleteResult.acknowledged(1));
+
+        String summary = handler.run(job, context);
+
+        var order = inOrder(bulkOperations, mongoTemplate);
+        order.verify(bulkOperations, atLeastOnce()).execute();
+        order.verify(mongoTemplate, atLeastOnce()).remove(any(Query.class), eq("device"));
+        verify(bulkOperations, times(3)).replaceOne(any(Query.class), any(Document.class),
+                any(FindAndReplaceOptions.class));
+        verify(context).checkpoint("B", 2, 0);
+        verify(context).checkpoint("C", 3, 0);
+        verify(eventPublisher, times(2)).publishEvent(any(DeviceChangeEvent.class));
+        assertThat(summary).contains("Archived 3");
+    }
+
+    @Test
+    void run_deviceChangedMeanwhile_dropsItsArchiveCopy() throws Exception {
+        stubStamp();
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("device")))
+                .thenReturn(List.of(device("A"), device("B")), List.of(new Document("_id", "B")), List.of());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "device_archive")).thenReturn(bulkOperations);
+        when(mongoTemplate.remove(any(Query.class), eq("device"))).thenReturn(DeleteResult.acknowledged(1));
+
+        handler.run(job, context);
+
+        ArgumentCaptor<Query> dropped = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(dropped.capture(), eq("device_archive"));
+        assertThat(dropped.getValue().toString()).contains("\"B\"").doesNotContain("\"A\"");
+        verify(context).checkpoint("B", 1, 0);
+    }
+
+    @Test
+    void run_cancelled_touchesNothing() throws Exception {
+        when(context.isCancelled()).thenReturn(true);
+
+        handler.run(job, context);
+
+        verifyNoInteractions(mongoTemplate, eventPublisher);
+    }
+}
@@ -0,0 +1,121 @@
+package org.interview.devicecrud.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.interview.devicecrud.constants.OperationType;
+import org.interview.devicecrud.exception.MongoDBException;
+import org.interview.devicecrud.exception.ServiceOverloadedException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link CircuitBreaker}.
+ */
+class CircuitBreakerTest {
+
+    private static final Supplier<String> DOWN = () -> {
+        throw new MongoDBException("Failed to fetch devices: ", "timeout",
+                new DataAccessResourceFailureException("timeout"));
+    };
+
+    private CircuitBreaker breaker(long openDurationMs) {
+        return new CircuitBreaker(new SimpleMeterRegistry(), true, 4, 4, 50, openDurationMs, 2, 100);
+    }
+
+    private void fail(CircuitBreaker breaker, OperationType operation, int times) {
+        for (int i = 0; i < times; i++) {
+            assertThrows(MongoDBException.class, () -> breaker.execute(operation, DOWN));
+        }
+    }
+
+    @Test
+    void execute_opensAfterFailureRateAndFailsFast() {
+        CircuitBreaker breaker = breaker(60000);
+        breaker.execute(OperationType.WRITE, () -> "ok");
+        breaker.execute(OperationType.WRITE, () -> "ok");
+        fail(breaker, OperationType.WRITE, 2);
+
+        assertThat(breaker.getState(OperationType.WRITE)).isEqualTo(CircuitBreaker.Breaker.State.OPEN);
+        ServiceOverloadedException rejected = assertThrows(ServiceOverloadedException.class,
+                () -> breaker.execute(OperationType.WRITE, () -> "ok"));
+        assertThat(rejected.getRetryAfterSeconds()).isPositive();
+        assertThat(breaker.getState(OperationType.POINT_READ)).isEqualTo(CircuitBreaker.Breaker.State.CLOSED);
+    }
+
+    @Test
+    void execute_businessErrors_doNotOpen() {
+        CircuitBreaker breaker = breaker(60000);
+        for (int i = 0; i < 10; i++) {
+            assertThrows(MongoDBException.class, () -> breaker.execute(OperationType.POINT_READ, () -> {
+                throw new MongoDBException("Device not found with id: ", "X");
+            }));
+        }
+
+        assertThat(breaker.getState(OperationType.POINT_READ)).isEqualTo(CircuitBreaker.Breaker.State.CLOSED);
+    }
+
+    @Test
+    void read_open_servesSnapshot() {
+        CircuitBreaker breaker = breaker(60000);
+        assertThat(breaker.read(OperationType.SCAN, "brand=Apple", () -> "devices")).isEqualTo("devices");
+        for (int i = 0; i < 4; i++) {
+            assertThat(breaker.read(OperationType.SCAN, "brand=Apple", DOWN)).isEqualTo("devices");
+        }
+
+        assertThat(breaker.getState(OperationType.SCAN)).isEqualTo(CircuitBreaker.Breaker.State.OPEN);
+        assertThat(breaker.read(OperationType.SCAN, "brand=Apple", () -> "fresh")).isEqualTo("devices");
+        assertThrows(ServiceOverloadedException.class,
+                () -> breaker.read(OperationType.SCAN, "brand=Dell", () -> "fresh"));
+    }
+
+    @Test
+    void snapshot_boundedByCachedElements() {
+        CircuitBreaker.Snapshot snapshot = new CircuitBreaker.Snapshot(5);
+        snapshot.put("brand=Apple", List.of(1, 2, 3));
+        snapshot.put("brand=Dell", List.of(4, 5));
+
+        snapshot.put("brand=HP", List.of(6));
+
+        assertThat(snapshot.get("brand=Apple")).isNull();
+        assertThat(snapshot.get("brand=Dell")).isEqualTo(List.of(4, 5));
+        assertThat(snapshot.weight()).isEqualTo(3);
+    }
+
+    @Test
+    void snapshot_resultLargerThanCapacity_isNotKept() {
+        CircuitBreaker.Snapshot snapshot = new CircuitBreaker.Snapshot(2);
+        snapshot.put("all", List.of(1));
+
+        snapshot.put("all", List.of(1, 2, 3));
+
+        assertThat(snapshot.get("all")).isNull();
+        assertThat(snapshot.weight()).isZero();
+    }
+
+    @Test
+    void halfOpen_closesAfterSuccessfulProbes() {
+        CircuitBreaker breaker = breaker(0);
+        fail(breaker, OperationType.WRITE, 4);
+
+        breaker.execute(OperationType.WRITE, () -> "probe");
+        assertThat(breaker.getState(OperationType.WRITE)).isEqualTo(CircuitBreaker.Breaker.State.HALF_OPEN);
+        breaker.execute(OperationType.WRITE, () -> "probe");
+
+        assertThat(breaker.getState(OperationType.WRITE)).isEqualTo(CircuitBreaker.Breaker.State.CLOSED);
+    }
+
+    @Test
+    void halfOpen_failedProbeReopens() {
+        CircuitBreaker breaker = breaker(0);
+        fail(breaker, OperationType.WRITE, 4);
+
+        fail(breaker, OperationType.WRITE, 1);
+
+        assertThat(breaker.getState(OperationType.WRITE)).isEqualTo(CircuitBreaker.Breaker.State.OPEN);
+    }
+}
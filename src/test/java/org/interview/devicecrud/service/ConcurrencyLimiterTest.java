@@ -0,0 +1,86 @@
+package org.interview.devicecrud.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.interview.devicecrud.constants.OperationType;
+import org.interview.devicecrud.exception.ServiceOverloadedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link ConcurrencyLimiter}.
+ */
+class ConcurrencyLimiterTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    @Test
+    void limit_shrinksWhenLatencyRises() {
+        ConcurrencyLimiter.GradientLimit limit = new ConcurrencyLimiter.GradientLimit(20, 2, 100);
+        for (int i = 0; i < 50; i++) {
+            limit.sample(5 * MILLIS, 20);
+        }
+        double steady = limit.getLimit();
+        for (int i = 0; i < 50; i++) {
+            limit.sample(50 * MILLIS, (int) limit.getLimit());
+        }
+
+        assertThat(steady).isGreaterThan(20);
+        assertThat(limit.getLimit()).isLessThan(steady / 2);
+        assertThat(limit.getLimit()).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void limit_unusedCapacity_doesNotGrow() {
+        ConcurrencyLimiter.GradientLimit limit = new ConcurrencyLimiter.GradientLimit(20, 2, 100);
+        for (int i = 0; i < 50; i++) {
+            limit.sample(5 * MILLIS, 1);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(20);
+    }
+
+    @Test
+    void execute_overScanBudget_shedsScansButNotPointReads() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(registry, true, 3, 10, 10, 10, 1, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> limiter.execute(OperationType.SCAN, () -> {
+                started.countDown();
+                try {
+                    return release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            ServiceOverloadedException shed = assertThrows(ServiceOverloadedException.class,
+                    () -> limiter.execute(OperationType.SCAN, () -> "scan"));
+            assertThat(shed.getRetryAfterSeconds()).isEqualTo(3);
+            assertThat(limiter.execute(OperationType.POINT_READ, () -> "point")).isEqualTo("point");
+            assertThat(limiter.execute(OperationType.WRITE, () -> "write")).isEqualTo("write");
+            assertThat(registry.counter("device.limiter.rejections", "operation", "scan").count()).isEqualTo(1);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void execute_disabled_neverSheds() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(new SimpleMeterRegistry(), false, 1, 0, 0, 0, 0, 0, 0);
+
+        assertThat(limiter.execute(OperationType.SCAN, () -> "scan")).isEqualTo("scan");
+    }
+}
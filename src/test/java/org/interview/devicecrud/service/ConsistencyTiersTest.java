@@ -0,0 +1,95 @@
+package org.interview.devicecrud.service;
+
+import com.mongodb.ReadConcern;
+import com.mongodb.WriteConcern;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.interview.devicecrud.constants.ConsistencyTier;
+import org.interview.devicecrud.constants.DeviceOperation;
+import org.interview.devicecrud.model.Device;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoAction;
+import org.springframework.data.mongodb.core.MongoActionOperation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link ConsistencyTiers}.
+ */
+class ConsistencyTiersTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConsistencyTiers tiers = new ConsistencyTiers(meterRegistry, Map.of(
+            DeviceOperation.UPDATE_BRAND, ConsistencyTier.FAST,
+            DeviceOperation.TRANSITION, ConsistencyTier.DURABLE,
+            DeviceOperation.SCAN, ConsistencyTier.FAST));
+
+    private MongoAction update() {
+        return new MongoAction(WriteConcern.ACKNOWLEDGED, MongoActionOperation.UPDATE, "device", Device.class,
+                new Document(), new Document());
+    }
+
+    @Test
+    void resolve_usesTierOfRunningOperation() {
+        WriteConcern brand = tiers.write(DeviceOperation.UPDATE_BRAND, () -> tiers.resolve(update()));
+        WriteConcern transition = tiers.write(DeviceOperation.TRANSITION, () -> tiers.resolve(update()));
+
+        assertThat(brand).isEqualTo(WriteConcern.W1);
+        assertThat(transition).isEqualTo(WriteConcern.MAJORITY.withJournal(true));
+    }
+
+    @Test
+    void resolve_outsideOperationOrDefaultTier_keepsDefault() {
+        assertThat(tiers.resolve(update())).isEqualTo(WriteConcern.ACKNOWLEDGED);
+        assertThat(tiers.write(DeviceOperation.CREATE, () -> tiers.resolve(update())))
+                .isEqualTo(WriteConcern.ACKNOWLEDGED);
+    }
+
+    @Test
+    void write_restoresOuterOperation() {
+        WriteConcern outer = tiers.write(DeviceOperation.TRANSITION, () -> {
+            tiers.write(DeviceOperation.UPDATE_BRAND, () -> null);
+            return tiers.resolve(update());
+        });
+
+        assertThat(outer).isEqualTo(WriteConcern.MAJORITY.withJournal(true));
+        assertThat(tiers.resolve(update())).isEqualTo(WriteConcern.ACKNOWLEDGED);
+    }
+
+    @Test
+    void read_setsReadConcernOfTier() {
+        assertThat(tiers.read(DeviceOperation.SCAN, new Query()).getReadConcern()).isEqualTo(ReadConcern.LOCAL);
+        assertThat(tiers.read(DeviceOperation.POINT_READ, new Query()).getReadConcern()).isNull();
+    }
+
+    @Test
+    void operations_areCountedPerTier() {
+        tiers.read(DeviceOperation.SCAN, new Query());
+        tiers.write(DeviceOperation.TRANSITION, () -> null);
+
+        assertThat(meterRegistry.get("device.consistency.operations")
+                .tags("operation", "scan", "tier", "fast").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("device.consistency.operations")
+                .tags("operation", "transition", "tier", "durable").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void environment_configuresTiersByOperationKey() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("device.consistency.update-brand", "fast")
+                .withProperty("device.consistency.checkout", "DURABLE");
+
+        ConsistencyTiers configured = new ConsistencyTiers(environment, meterRegistry);
+
+        assertThat(configured.getTier(DeviceOperation.UPDATE_BRAND)).isEqualTo(ConsistencyTier.FAST);
+        assertThat(configured.getTier(DeviceOperation.CHECKOUT)).isEqualTo(ConsistencyTier.DURABLE);
+        assertThat(configured.getTier(DeviceOperation.DELETE)).isEqualTo(ConsistencyTier.DEFAULT);
+        assertThrows(IllegalArgumentException.class, () -> new ConsistencyTiers(
+                new MockEnvironment().withProperty("device.consistency.scan", "eventual"), meterRegistry));
+    }
+}
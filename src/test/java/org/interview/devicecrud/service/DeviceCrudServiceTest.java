@@ -1,24 +1,48 @@
 package org.interview.devicecrud.service;
 
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.interview.devicecrud.constants.DeviceOperation;
 import org.interview.devicecrud.constants.DeviceState;
+import org.interview.devicecrud.event.DeviceChangeEvent;
+import org.interview.devicecrud.exception.DuplicateDeviceException;
 import org.interview.devicecrud.exception.MongoDBException;
+import org.interview.devicecrud.exception.NoAvailableDeviceException;
 import org.interview.devicecrud.model.Device;
+import org.interview.devicecrud.model.DeviceBatchWriteResult;
+import org.interview.devicecrud.model.DeviceBulkUpdateResult;
+import org.interview.devicecrud.model.DeviceFilter;
 import org.interview.devicecrud.repository.DeviceCrudMongoRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
 
+import static org.interview.devicecrud.constants.DeviceCrudConstants.ARCHIVE_COLLECTION;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -33,13 +57,30 @@ class DeviceCrudServiceTest {
     @Mock
     private MongoTemplate mongoTemplate;
 
-    @InjectMocks
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private WriteCoalescer writeCoalescer;
+
+    @Mock
+    private DeviceIdGenerator deviceIdGenerator;
+
+    @Spy
+    private ConsistencyTiers consistencyTiers = new ConsistencyTiers(new SimpleMeterRegistry(), Map.of());
+
     private DeviceCrudService service;
 
     private Device device;
 
+    private DeviceCrudService service(boolean archiveFallback) {
+        return new DeviceCrudService(repository, mongoTemplate, eventPublisher, writeCoalescer, consistencyTiers,
+                deviceIdGenerator, false, archiveFallback);
+    }
+
     @BeforeEach
     void setUp() {
+        service = service(false);
         device = new Device("DEV-PIXE-GOOG-7508E2","PIXEL",
                 "GOOGLE",DeviceState.AVAILABLE ,LocalDateTime.now());
     }
@@ -54,6 +95,16 @@ class DeviceCrudServiceTest {
         verify(repository).save(device);
     }
 
+    @Test
+    void createNewDevice_publishesCreatedEvent() {
+        when(repository.save(device)).thenReturn(device);
+
+        service.createNewDevice(device);
+
+        verify(eventPublisher).publishEvent(
+                new DeviceChangeEvent(DeviceChangeEvent.Type.CREATED, device.getId(), device));
+    }
+
     @Test
     void createNewDevice_failure_wrapsException() {
         when(repository.save(device)).thenThrow(new RuntimeException("db down"));
@@ -64,19 +115,119 @@ class DeviceCrudServiceTest {
         assertTrue(ex.getMessage().contains("Failed to create device"));
     }
 
+    @Test
+    void createNewDevice_nameAndBrandTaken_throwsDuplicateDevice() {
+        when(repository.save(device)).thenThrow(new DuplicateKeyException("E11000 duplicate key"));
+
+        assertThrows(DuplicateDeviceException.class, () -> service.createNewDevice(device));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void createNewDevice_timeOrderedIds_nameAndBrandArchived_throwsDuplicateDevice() {
+        service = service(true);
+        when(deviceIdGenerator.isUniqueByIndex()).thenReturn(true);
+        when(mongoTemplate.find(any(Query.class), eq(Device.class), eq(ARCHIVE_COLLECTION))).thenReturn(List.of(
+                new Device("OTHER-ID", device.getName(), device.getBrand(), DeviceState.INACTIVE, LocalDateTime.now())));
+
+        assertThrows(DuplicateDeviceException.class, () -> service.createNewDevice(device));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void archivedDuplicates_matchesArchivedIds() {
+        service = service(true);
+        Device other = new Device("DEV-2", "XPS", "Dell", DeviceState.AVAILABLE, LocalDateTime.now());
+        when(mongoTemplate.find(any(Query.class), eq(Device.class), eq(ARCHIVE_COLLECTION))).thenReturn(List.of(
+                new Device(device.getId(), device.getName(), device.getBrand(), DeviceState.INACTIVE, LocalDateTime.now())));
+
+        assertEquals(Set.of(device.getId()), service.archivedDuplicates(List.of(device, other)));
+    }
+
+    @Test
+    void archivedDuplicates_withoutArchive_queriesNothing() {
+        assertTrue(service.archivedDuplicates(List.of(device)).isEmpty());
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void ensureNameBrandIndex_timeOrderedIds_createsUniqueIndex() {
+        IndexOperations indexOps = mock(IndexOperations.class);
+        when(mongoTemplate.indexOps(Device.class)).thenReturn(indexOps);
+        when(deviceIdGenerator.isUniqueByIndex()).thenReturn(true);
+
+        service.ensureNameBrandIndex();
+
+        ArgumentCaptor<IndexDefinition> index = ArgumentCaptor.forClass(IndexDefinition.class);
+        verify(indexOps).ensureIndex(index.capture());
+        assertEquals(true, index.getValue().getIndexOptions().get("unique"));
+    }
+
+    @Test
+    void ensureNameBrandIndex_derivedIds_createsNothing() {
+        when(deviceIdGenerator.isUniqueByIndex()).thenReturn(false);
+
+        service.ensureNameBrandIndex();
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    private void upsertMatches() {
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(Device.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+    }
+
     @Test
     void updateDevice_success() {
-        when(repository.save(device)).thenReturn(device);
+        upsertMatches();
 
         Device updated = service.updateDevice(device.getId(), device);
 
         assertEquals(device, updated);
-        verify(repository).save(device);
+        verify(mongoTemplate).upsert(any(Query.class), any(Update.class), eq(Device.class));
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(Device.class), eq("device_archive"));
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void updateDevice_archived_writesBackAndRemovesArchivedCopy() {
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(Device.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, new BsonString(device.getId())));
+
+        service.updateDevice(device.getId(), device);
+
+        verify(mongoTemplate).remove(any(Query.class), eq(Device.class), eq("device_archive"));
+    }
+
+    @Test
+    void updateDevice_whileLeased_keepsLease() {
+        upsertMatches();
+        Device leased = new Device("1", "Pixel 9", "Google", DeviceState.IN_USE, LocalDateTime.now());
+
+        service.updateDevice("1", leased);
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(any(Query.class), update.capture(), eq(Device.class));
+        assertTrue(update.getValue().modifies("name"));
+        assertFalse(update.getValue().modifies("leaseExpiresAt"));
+    }
+
+    @Test
+    void updateDevice_leavingInUse_dropsLease() {
+        upsertMatches();
+
+        service.updateDevice(device.getId(), device);
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(any(Query.class), update.capture(), eq(Device.class));
+        assertTrue(update.getValue().getUpdateObject().get("$unset", Document.class)
+                .containsKey("leaseExpiresAt"));
     }
 
     @Test
     void updateDevice_failure() {
-        when(repository.save(any())).thenThrow(new RuntimeException("db error"));
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(Device.class)))
+                .thenThrow(new RuntimeException("db error"));
 
         assertThrows(MongoDBException.class,
                 () -> service.updateDevice("DEV-PIXE-GOOG-7508E2", device));
@@ -86,7 +237,7 @@ class DeviceCrudServiceTest {
     @Test
     void updateBrandIfNotInUse_success() {
         UpdateResult result = mock(UpdateResult.class);
-        when(result.getModifiedCount()).thenReturn(1L);
+        when(result.getMatchedCount()).thenReturn(1L);
         when(mongoTemplate.updateFirst(any(Query.class), any(), eq(Device.class)))
                 .thenReturn(result);
 
@@ -96,9 +247,9 @@ class DeviceCrudServiceTest {
     }
 
     @Test
-    void updateBrandIfNotInUse_zeroModified_throws() {
+    void updateBrandIfNotInUse_zeroMatched_throws() {
         UpdateResult result = mock(UpdateResult.class);
-        when(result.getModifiedCount()).thenReturn(0L);
+        when(result.getMatchedCount()).thenReturn(0L);
         when(mongoTemplate.updateFirst(any(Query.class), any(), eq(Device.class)))
                 .thenReturn(result);
 
@@ -106,9 +257,36 @@ class DeviceCrudServiceTest {
                 () -> service.updateBrandIfNotInUse("DEV-PIXE-GOOG-7508E2", "Dell"));
     }
 
+    @Test
+    void updateBrandIfNotInUse_archived_restoresWithNewBrand() {
+        service = service(true);
+        UpdateResult result = mock(UpdateResult.class);
+        when(mongoTemplate.updateFirst(any(Query.class), any(), eq(Device.class))).thenReturn(result);
+        Device archived = new Device(device.getId(), "PIXEL", "GOOGLE", DeviceState.INACTIVE, LocalDateTime.now());
+        when(mongoTemplate.findOne(any(Query.class), eq(Device.class), eq("device_archive"))).thenReturn(archived);
+
+        service.updateBrandIfNotInUse(device.getId(), "Dell");
+
+        ArgumentCaptor<Device> restored = ArgumentCaptor.forClass(Device.class);
+        verify(mongoTemplate).insert(restored.capture());
+        assertEquals("Dell", restored.getValue().getBrand());
+        verify(mongoTemplate).remove(any(Query.class), eq(Device.class), eq("device_archive"));
+    }
+
+    @Test
+    void updateBrandIfNotInUse_inUseAndNotArchived_throws() {
+        service = service(true);
+        UpdateResult result = mock(UpdateResult.class);
+        when(mongoTemplate.updateFirst(any(Query.class), any(), eq(Device.class))).thenReturn(result);
+        when(mongoTemplate.findOne(any(Query.class), eq(Device.class), eq("device_archive"))).thenReturn(null);
+
+        assertThrows(MongoDBException.class, () -> service.updateBrandIfNotInUse(device.getId(), "Dell"));
+        verify(mongoTemplate, never()).insert(any(Device.class));
+    }
+
     @Test
     void fetchDeviceById_found() {
-        when(repository.findById("DEV-PIXE-GOOG-7508E2")).thenReturn(Optional.of(device));
+        when(mongoTemplate.findOne(any(Query.class), eq(Device.class))).thenReturn(device);
 
         Device found = service.fetchDeviceById("DEV-PIXE-GOOG-7508E2");
 
@@ -117,67 +295,91 @@ class DeviceCrudServiceTest {
 
     @Test
     void fetchDeviceById_notFound() {
-        when(repository.findById("DEV-PIXE-GOOG-7508E2")).thenReturn(Optional.empty());
+        when(mongoTemplate.findOne(any(Query.class), eq(Device.class))).thenReturn(null);
 
         assertThrows(MongoDBException.class,
                 () -> service.fetchDeviceById("DEV-PIXE-GOOG-7508E2"));
     }
 
     @Test
-    void getAllDevices_success() {
-        when(repository.findAll()).thenReturn(List.of(device));
-
-        List<Device> devices = service.getAllDevices();
+    void fetchDeviceById_archived_fallsBackToArchive() {
+        service = service(true);
+        when(mongoTemplate.findOne(any(Query.class), eq(Device.class))).thenReturn(null);
+        when(mongoTemplate.findOne(any(Query.class), eq(Device.class), eq("device_archive"))).thenReturn(device);
 
-        assertEquals(1, devices.size());
-        verify(repository).findAll();
+        assertEquals(device, service.fetchDeviceById("DEV-PIXE-GOOG-7508E2"));
     }
 
     @Test
-    void deviceExists_true() {
-        when(repository.existsById("DEV-PIXE-GOOG-7508E2")).thenReturn(true);
+    void deleteDevice_archiveFallback_removesArchivedCopy() {
+        service = service(true);
 
-        assertTrue(service.deviceExists("DEV-PIXE-GOOG-7508E2"));
+        service.deleteDevice("DEV-PIXE-GOOG-7508E2");
+
+        verify(repository).deleteById("DEV-PIXE-GOOG-7508E2");
+        verify(mongoTemplate).remove(any(Query.class), eq(Device.class), eq("device_archive"));
     }
 
     @Test
-    void getDevicesByBrand_success() {
-        when(repository.findByBrand("Google")).thenReturn(List.of(device));
+    void fetchArchivedDevicesByIds_fallbackDisabled_skipsQuery() {
+        assertTrue(service.fetchArchivedDevicesByIds(List.of("DEV-PIXE-GOOG-7508E2")).isEmpty());
+        verifyNoInteractions(mongoTemplate);
+    }
 
-        List<Device> result = service.getDevicesByBrand("Google");
+    @Test
+    void fetchDeviceById_withDeadline_setsMaxTime() {
+        when(mongoTemplate.findOne(any(Query.class), eq(Device.class))).thenReturn(device);
+        RequestDeadline.start(Duration.ofSeconds(2));
+        try {
+            service.fetchDeviceById("DEV-PIXE-GOOG-7508E2");
+        } finally {
+            RequestDeadline.clear();
+        }
 
-        assertEquals(1, result.size());
+        ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).findOne(captor.capture(), eq(Device.class));
+        Long maxTimeMs = captor.getValue().getMeta().getMaxTimeMsec();
+        assertNotNull(maxTimeMs);
+        assertTrue(maxTimeMs > 0 && maxTimeMs <= 2000);
     }
 
     @Test
-    void getDevicesByState_success() {
-        when(repository.findByState(DeviceState.AVAILABLE))
-                .thenReturn(List.of(device));
+    void findDevices_withoutDeadline_hasNoMaxTime() {
+        when(mongoTemplate.find(any(Query.class), eq(Device.class))).thenReturn(List.of(device));
 
-        List<Device> result = service.getDevicesByState(DeviceState.AVAILABLE);
+        service.findDevices(DeviceFilter.builder().build());
 
-        assertEquals(1, result.size());
+        ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(captor.capture(), eq(Device.class));
+        assertNull(captor.getValue().getMeta().getMaxTimeMsec());
     }
 
     @Test
-    void getDevicesByBrandAndState_success() {
-        when(mongoTemplate.find(any(Query.class), eq(Device.class)))
-                .thenReturn(List.of(device));
+    void deviceExists_true() {
+        when(repository.existsById("DEV-PIXE-GOOG-7508E2")).thenReturn(true);
 
-        List<Device> result = service.getDevicesByBrandAndState("Google",
-                DeviceState.AVAILABLE);
+        assertTrue(service.deviceExists("DEV-PIXE-GOOG-7508E2"));
+    }
 
-        assertEquals(1, result.size());
+    @Test
+    void findDevices_multipleValues_runsSingleInQuery() {
+        when(mongoTemplate.find(any(Query.class), eq(Device.class))).thenReturn(List.of(device));
+
+        List<Device> result = service.findDevices(DeviceFilter.builder()
+                .brands(List.of("Google", "Apple"))
+                .states(List.of(DeviceState.AVAILABLE))
+                .createdFrom(LocalDateTime.of(2024, 1, 1, 0, 0))
+                .build());
 
-        // Optional –- make sure the query contained both criteria:
+        assertEquals(1, result.size());
         ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
         verify(mongoTemplate).find(captor.capture(), eq(Device.class));
         String q = captor.getValue().toString();
-        assertTrue(q.contains("brand"));
+        assertTrue(q.contains("$in"));
         assertTrue(q.contains("state"));
+        assertTrue(q.contains("$gte"));
     }
 
-
     @Test
     void deleteDevice_success() {
         doNothing().when(repository).deleteById("DEV-PIXE-GOOG-7508E2");
@@ -187,4 +389,191 @@ class DeviceCrudServiceTest {
         assertEquals("Device with id: DEV-PIXE-GOOG-7508E2 deleted", msg);
         verify(repository).deleteById("DEV-PIXE-GOOG-7508E2");
     }
+
+    @Test
+    void rebrandDevices_returnsCountsAndGuardsInUse() {
+        UpdateResult result = mock(UpdateResult.class);
+        when(result.getMatchedCount()).thenReturn(3L);
+        when(result.getModifiedCount()).thenReturn(2L);
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Device.class)))
+                .thenReturn(result);
+
+        DeviceBulkUpdateResult counts = service.rebrandDevices("Google", "Alphabet");
+
+        assertEquals(3L, counts.getMatched());
+        assertEquals(2L, counts.getModified());
+        ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateMulti(captor.capture(), any(Update.class), eq(Device.class));
+        assertTrue(captor.getValue().toString().contains("IN_USE"));
+        verify(eventPublisher).publishEvent(
+                new DeviceChangeEvent(DeviceChangeEvent.Type.BULK_UPDATED, null, null));
+    }
+
+    @Test
+    void transitionDevices_fromInUse_throws() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.transitionDevices("Google", DeviceState.IN_USE, DeviceState.INACTIVE));
+    }
+
+    @Test
+    void applyChanges_brandGuardMatchesNothing_failsChangeWithoutEvent() {
+        BulkOperations bulk = mock(BulkOperations.class);
+        BulkWriteResult result = mock(BulkWriteResult.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Device.class)).thenReturn(bulk);
+        when(bulk.execute()).thenReturn(result);
+        when(result.getMatchedCount()).thenReturn(0);
+        when(mongoTemplate.find(any(Query.class), eq(Device.class))).thenReturn(List.of());
+        DeviceChangeEvent created = new DeviceChangeEvent(DeviceChangeEvent.Type.CREATED, device.getId(), device);
+        DeviceChangeEvent rebranded = new DeviceChangeEvent(DeviceChangeEvent.Type.BRAND_UPDATED, "1",
+                Device.builder().id("1").brand("Apple").build());
+
+        DeviceBatchWriteResult written = service.applyChanges(List.of(created, rebranded), false);
+
+        assertEquals(Map.of(1, "Device is either in use or not found."), written.getFailures());
+        assertEquals(2, written.getExecuted());
+        verify(eventPublisher).publishEvent(created);
+        verify(eventPublisher, never()).publishEvent(rebranded);
+    }
+
+    @Test
+    void applyChanges_rebrandThenDelete_onlyChecksUpdatesWithoutLaterWrites() {
+        BulkOperations bulk = mock(BulkOperations.class);
+        BulkWriteResult result = mock(BulkWriteResult.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Device.class)).thenReturn(bulk);
+        when(bulk.execute()).thenReturn(result);
+        // the rebrand of 1 matched, the update of 2 found no device
+        when(result.getMatchedCount()).thenReturn(1);
+        when(mongoTemplate.find(any(Query.class), eq(Device.class))).thenReturn(List.of());
+        DeviceChangeEvent updated = new DeviceChangeEvent(DeviceChangeEvent.Type.UPDATED, "2",
+                new Device("2", "XPS 13", "Dell", DeviceState.AVAILABLE, LocalDateTime.now()));
+        DeviceChangeEvent rebranded = new DeviceChangeEvent(DeviceChangeEvent.Type.BRAND_UPDATED, "1",
+                Device.builder().id("1").brand("Apple").build());
+        DeviceChangeEvent deleted = new DeviceChangeEvent(DeviceChangeEvent.Type.DELETED, "1", null);
+
+        DeviceBatchWriteResult written = service.applyChanges(List.of(updated, rebranded, deleted), true);
+
+        assertEquals(Map.of(0, "Device not found."), written.getFailures());
+        ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(captor.capture(), eq(Device.class));
+        assertFalse(captor.getValue().toString().contains("Apple"));
+        verify(eventPublisher, never()).publishEvent(updated);
+        verify(eventPublisher).publishEvent(rebranded);
+        verify(eventPublisher).publishEvent(deleted);
+    }
+
+    @Test
+    void applyChanges_duplicateCreate_failsAsDuplicateDevice() {
+        BulkOperations bulk = mock(BulkOperations.class);
+        BulkOperationException failed = mock(BulkOperationException.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Device.class)).thenReturn(bulk);
+        when(bulk.execute()).thenThrow(failed);
+        when(failed.getErrors()).thenReturn(List.of(
+                new BulkWriteError(11000, "E11000 duplicate key error index: name_1_brand_1", new BsonDocument(), 0)));
+        when(failed.getResult()).thenReturn(BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(), List.of()));
+        DeviceChangeEvent created = new DeviceChangeEvent(DeviceChangeEvent.Type.CREATED, device.getId(), device);
+
+        DeviceBatchWriteResult written = service.applyChanges(List.of(created), false);
+
+        assertEquals(Map.of(0, "Device with same name and brand already exists."), written.getFailures());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void applyChanges_allMatched_skipsVerification() {
+        BulkOperations bulk = mock(BulkOperations.class);
+        BulkWriteResult result = mock(BulkWriteResult.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Device.class)).thenReturn(bulk);
+        when(bulk.execute()).thenReturn(result);
+        when(result.getMatchedCount()).thenReturn(1);
+        DeviceChangeEvent rebranded = new DeviceChangeEvent(DeviceChangeEvent.Type.BRAND_UPDATED, "1",
+                Device.builder().id("1").brand("Apple").build());
+
+        DeviceBatchWriteResult written = service.applyChanges(List.of(rebranded), true);
+
+        assertTrue(written.getFailures().isEmpty());
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Device.class));
+        verify(eventPublisher).publishEvent(rebranded);
+    }
+
+    @Test
+    void checkoutDevice_claimsAvailableDeviceWithLease() {
+        Device claimed = new Device("1", "Pixel", "Google", DeviceState.IN_USE, LocalDateTime.now());
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Device.class))).thenReturn(claimed);
+
+        Device result = service.checkoutDevice(DeviceFilter.builder().brands(List.of("Google")).build(),
+                Duration.ofMinutes(5));
+
+        assertEquals(claimed, result);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(),
+                any(FindAndModifyOptions.class), eq(Device.class));
+        assertTrue(query.getValue().toString().contains("AVAILABLE"));
+        assertTrue(query.getValue().toString().contains("Google"));
+        assertTrue(update.getValue().modifies("leaseExpiresAt"));
+        verify(eventPublisher).publishEvent(new DeviceChangeEvent(DeviceChangeEvent.Type.UPDATED, "1", claimed));
+    }
+
+    @Test
+    void checkoutDevice_noneAvailable_throws() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Device.class))).thenReturn(null);
+
+        assertThrows(NoAvailableDeviceException.class,
+                () -> service.checkoutDevice(DeviceFilter.builder().build(), null));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void checkinDevice_notInUse_throws() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Device.class))).thenReturn(null);
+
+        assertThrows(MongoDBException.class, () -> service.checkinDevice("1"));
+    }
+
+    @Test
+    void releaseExpiredLeases_returnsModifiedCount() {
+        UpdateResult result = mock(UpdateResult.class);
+        when(result.getModifiedCount()).thenReturn(2L);
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Device.class)))
+                .thenReturn(result);
+
+        assertEquals(2L, service.releaseExpiredLeases());
+        verify(eventPublisher).publishEvent(
+                new DeviceChangeEvent(DeviceChangeEvent.Type.BULK_UPDATED, null, null));
+    }
+
+    @Test
+    void updateBrandIfNotInUse_coalesced_goesThroughCoalescer() {
+        when(writeCoalescer.isEnabled()).thenReturn(true);
+        when(writeCoalescer.apply(eq(DeviceOperation.UPDATE_BRAND), eq("1"), any(Query.class), any(Update.class))).thenReturn(true);
+
+        service.updateBrandIfNotInUse("1", "Apple");
+
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(Device.class));
+        verify(eventPublisher).publishEvent(new DeviceChangeEvent(DeviceChangeEvent.Type.BRAND_UPDATED, "1",
+                Device.builder().id("1").brand("Apple").build()));
+    }
+
+    @Test
+    void updateBrandIfNotInUse_coalescedNotMatched_throws() {
+        when(writeCoalescer.isEnabled()).thenReturn(true);
+        when(writeCoalescer.apply(eq(DeviceOperation.UPDATE_BRAND), eq("1"), any(Query.class), any(Update.class))).thenReturn(false);
+
+        assertThrows(MongoDBException.class, () -> service.updateBrandIfNotInUse("1", "Apple"));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void updateDevice_coalesced_upsertsThroughCoalescer() {
+        Device update = new Device("1", "Pixel", "Google", DeviceState.AVAILABLE, LocalDateTime.now());
+        when(writeCoalescer.isEnabled()).thenReturn(true);
+
+        service.updateDevice("1", update);
+
+        verify(writeCoalescer).upsert(eq(DeviceOperation.UPDATE), eq("1"), any(Query.class), any(Update.class));
+        verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), eq(Device.class));
+    }
 }
@@ -0,0 +1,110 @@
+package org.interview.devicecrud.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.interview.devicecrud.constants.DeviceState;
+import org.interview.devicecrud.model.Device;
+import org.interview.devicecrud.model.DeviceExportManifest;
+import org.interview.devicecrud.model.DeviceExportPart;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for {@link DeviceExportService}.
+ */
+@ExtendWith(MockitoExtension.class)
+class DeviceExportServiceTest {
+
+    @Mock MongoTemplate mongoTemplate;
+    @Mock MongoCollection<Document> collection;
+
+    @TempDir Path exportDir;
+
+    private DeviceExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        exportService = new DeviceExportService(mongoTemplate, objectMapper, exportDir.toString(), 100);
+    }
+
+    private Device device(String id) {
+        return new Device(id, "Pixel", "Google", DeviceState.AVAILABLE, LocalDateTime.of(2024, 5, 24, 10, 15, 30));
+    }
+
+    @Test
+    void plan_splitsIdSpaceIntoRanges() throws Exception {
+        when(mongoTemplate.getCollection("device")).thenReturn(collection);
+        when(collection.estimatedDocumentCount()).thenReturn(100L);
+        when(mongoTemplate.findOne(any(Query.class), eq(Device.class))).thenReturn(device("M"));
+
+        Path dir = exportService.plan(List.of("brand"), 2);
+
+        DeviceExportManifest plan = new ObjectMapper().registerModule(new JavaTimeModule())
+                .readValue(dir.resolve("plan.json").toFile(), DeviceExportManifest.class);
+        assertThat(plan.getParts()).extracting(DeviceExportPart::getFromId).containsExactly(null, "M");
+        assertThat(plan.getParts()).extracting(DeviceExportPart::getToId).containsExactly("M", null);
+        assertThat(plan.getFields()).containsExactly("brand");
+    }
+
+    @Test
+    void plan_unknownField_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> exportService.plan(List.of("secret"), 1));
+    }
+
+    @Test
+    void export_writesGzipNdjsonWithChecksumAndSkipsFinishedParts() throws Exception {
+        when(mongoTemplate.getCollection("device")).thenReturn(collection);
+        when(collection.estimatedDocumentCount()).thenReturn(2L);
+        when(mongoTemplate.stream(any(Query.class), eq(Device.class)))
+                .thenReturn(Stream.of(device("A"), device("B")));
+        Path dir = exportService.plan(List.of(), 1);
+
+        DeviceExportManifest manifest = exportService.export(dir, DeviceExportService.Progress.NONE);
+
+        assertThat(manifest.getTotalCount()).isEqualTo(2);
+        DeviceExportPart part = manifest.getParts().get(0);
+        Path file = dir.resolve(part.getFile());
+        assertThat(part.getSha256()).isEqualTo(
+                HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file))));
+        assertThat(part.getBytes()).isEqualTo(Files.size(file));
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            assertThat(reader.lines().toList()).hasSize(2).first().asString().contains("\"id\":\"A\"");
+        }
+        assertThat(dir.resolve("manifest.json")).exists();
+
+        DeviceExportManifest resumed = exportService.export(dir, DeviceExportService.Progress.NONE);
+
+        assertThat(resumed.getTotalCount()).isEqualTo(2);
+        verify(mongoTemplate, times(1)).stream(any(Query.class), eq(Device.class));
+    }
+}
@@ -0,0 +1,176 @@
+package org.interview.devicecrud.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.interview.devicecrud.constants.DeviceState;
+import org.interview.devicecrud.event.DeviceChangeEvent;
+import org.interview.devicecrud.model.Device;
+import org.interview.devicecrud.model.DeviceHistoryEntry;
+import org.interview.devicecrud.model.DeviceHistoryPage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeviceHistoryServiceTest {
+
+    @Mock MongoTemplate mongoTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DeviceHistoryService historyService;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (historyService != null) {
+            historyService.stop();
+        }
+    }
+
+    private DeviceHistoryService create(int bufferSize, String overflowPolicy) {
+        historyService = new DeviceHistoryService(mongoTemplate,
+                new ConsistencyTiers(meterRegistry, Map.of()), meterRegistry,
+                true, bufferSize, overflowPolicy, 500, 1000, 10);
+        return historyService;
+    }
+
+    private DeviceChangeEvent updated(String id) {
+        return new DeviceChangeEvent(DeviceChangeEvent.Type.UPDATED, id,
+                Device.builder().id(id).name("Galaxy").brand("Samsung").state(DeviceState.IN_USE).build());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<DeviceHistoryEntry> flushedEntries() {
+        ArgumentCaptor<Collection<DeviceHistoryEntry>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(mongoTemplate, atLeastOnce()).insert(captor.capture(), eq(DeviceHistoryEntry.class));
+        List<DeviceHistoryEntry> entries = new ArrayList<>();
+        captor.getAllValues().forEach(entries::addAll);
+        return entries;
+    }
+
+    @Test
+    void changes_areBufferedAndWrittenAsOneBatch() {
+        create(100, "DROP_NEWEST");
+
+        historyService.onDeviceChange(updated("1"));
+        historyService.onDeviceChange(new DeviceChangeEvent(DeviceChangeEvent.Type.DELETED, "2", null));
+        verifyNoInteractions(mongoTemplate);
+        historyService.flushBuffered();
+
+        verify(mongoTemplate, times(1)).insert(anyCollection(), eq(DeviceHistoryEntry.class));
+        List<DeviceHistoryEntry> entries = flushedEntries();
+        assertThat(entries).extracting(DeviceHistoryEntry::getDeviceId).containsExactly("1", "2");
+        assertThat(entries.get(0).getState()).isEqualTo(DeviceState.IN_USE);
+        assertThat(entries.get(0).getChangedAt()).isNotNull();
+        assertThat(entries.get(1).getType()).isEqualTo(DeviceChangeEvent.Type.DELETED);
+        assertThat(entries.get(1).getName()).isNull();
+        assertThat(meterRegistry.counter("device.history.written").count()).isEqualTo(2);
+    }
+
+    @Test
+    void bulkUpdates_areNotRecorded() {
+        create(100, "DROP_NEWEST");
+
+        historyService.onDeviceChange(new DeviceChangeEvent(DeviceChangeEvent.Type.BULK_UPDATED, null, null));
+        historyService.flushBuffered();
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void fullBuffer_dropNewest_keepsBufferedChanges() {
+        create(2, "DROP_NEWEST");
+
+        IntStream.rangeClosed(1, 3).forEach(i -> historyService.onDeviceChange(updated(String.valueOf(i))));
+        historyService.flushBuffered();
+
+        assertThat(flushedEntries()).extracting(DeviceHistoryEntry::getDeviceId).containsExactly("1", "2");
+        assertThat(meterRegistry.counter("device.history.dropped").count()).isEqualTo(1);
+    }
+
+    @Test
+    void fullBuffer_dropOldest_keepsNewChanges() {
+        create(2, "DROP_OLDEST");
+
+        IntStream.rangeClosed(1, 3).forEach(i -> historyService.onDeviceChange(updated(String.valueOf(i))));
+        historyService.flushBuffered();
+
+        assertThat(flushedEntries()).extracting(DeviceHistoryEntry::getDeviceId).containsExactly("2", "3");
+        assertThat(meterRegistry.counter("device.history.dropped").count()).isEqualTo(1);
+    }
+
+    @Test
+    void fullBuffer_block_dropsAfterTimeout() {
+        create(1, "BLOCK");
+
+        historyService.onDeviceChange(updated("1"));
+        historyService.onDeviceChange(updated("2"));
+        historyService.flushBuffered();
+
+        assertThat(flushedEntries()).extracting(DeviceHistoryEntry::getDeviceId).containsExactly("1");
+        assertThat(meterRegistry.counter("device.history.dropped").count()).isEqualTo(1);
+    }
+
+    @Test
+    void failedWrite_isCountedAndNotRethrown() {
+        create(100, "DROP_NEWEST");
+        when(mongoTemplate.insert(anyCollection(), eq(DeviceHistoryEntry.class)))
+                .thenThrow(new RuntimeException("DB down"));
+
+        historyService.onDeviceChange(updated("1"));
+        historyService.flushBuffered();
+
+        assertThat(meterRegistry.counter("device.history.failed").count()).isEqualTo(1);
+    }
+
+    @Test
+    void backgroundWriter_flushesWithinInterval() {
+        create(100, "DROP_NEWEST").start();
+
+        historyService.onDeviceChange(updated("1"));
+
+        verify(mongoTemplate, timeout(5000)).insert(anyCollection(), eq(DeviceHistoryEntry.class));
+    }
+
+    @Test
+    void getHistory_returnsPageAndDetectsMore() {
+        create(100, "DROP_NEWEST");
+        List<DeviceHistoryEntry> stored = IntStream.range(0, 3)
+                .mapToObj(i -> DeviceHistoryEntry.builder().deviceId("1").build()).toList();
+        when(mongoTemplate.find(any(Query.class), eq(DeviceHistoryEntry.class))).thenReturn(stored);
+
+        DeviceHistoryPage page = historyService.getHistory("1", 1, 2);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(DeviceHistoryEntry.class));
+        assertThat(query.getValue().getSkip()).isEqualTo(2);
+        assertThat(query.getValue().getLimit()).isEqualTo(3);
+        assertThat(page.isHasMore()).isTrue();
+        assertThat(page.getEntries()).hasSize(2);
+    }
+
+    @Test
+    void getHistory_invalidPageSize_throws() {
+        create(100, "DROP_NEWEST");
+
+        assertThrows(IllegalArgumentException.class, () -> historyService.getHistory("1", 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> historyService.getHistory("1", -1, 20));
+        verifyNoInteractions(mongoTemplate);
+    }
+}
@@ -0,0 +1,78 @@
+package org.interview.devicecrud.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.interview.devicecrud.event.DeviceChangeEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link DeviceIdBloomFilter}.
+ */
+@ExtendWith(MockitoExtension.class)
+class DeviceIdBloomFilterTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private SimpleMeterRegistry registry;
+    private DeviceIdBloomFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        filter = new DeviceIdBloomFilter(mongoTemplate, registry, true, 1000, 0.01);
+    }
+
+    @Test
+    void beforeFirstBuild_everyIdMightBePresent() {
+        assertThat(filter.mightContain("NEVER-ISSUED")).isTrue();
+    }
+
+    @Test
+    void disabled_everyIdMightBePresent() {
+        DeviceIdBloomFilter disabled = new DeviceIdBloomFilter(mongoTemplate, registry, false, 1000, 0.01);
+        disabled.rebuild();
+
+        assertThat(disabled.mightContain("NEVER-ISSUED")).isTrue();
+    }
+
+    @Test
+    void rebuild_loadsIdsFromScan() {
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("device")))
+                .thenReturn(IntStream.range(0, 500).mapToObj(i -> new Document("_id", "DEV-" + i)));
+
+        filter.rebuild();
+
+        assertThat(IntStream.range(0, 500).allMatch(i -> filter.mightContain("DEV-" + i))).isTrue();
+        long falsePositives = IntStream.range(0, 1000)
+                .filter(i -> filter.mightContain("OTHER-" + i))
+                .count();
+        assertThat(falsePositives).isLessThan(50);
+        assertThat(registry.get("device.bloom.memory.bytes").gauge().value()).isPositive();
+    }
+
+    @Test
+    void createdEvent_addsIdToFilter() {
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("device")))
+                .thenReturn(Stream.empty());
+        filter.rebuild();
+
+        filter.onDeviceChange(new DeviceChangeEvent(DeviceChangeEvent.Type.CREATED, "NEW-1", null));
+
+        assertThat(filter.mightContain("NEW-1")).isTrue();
+    }
+}
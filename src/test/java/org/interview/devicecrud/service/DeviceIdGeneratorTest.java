@@ -81,4 +81,18 @@ public class DeviceIdGeneratorTest {
 
         assertThat(id1).isNotEqualTo(id2);
     }
+
+    @Test
+    @DisplayName("Should generate time-ordered ids when configured")
+    void testGenerateId_timeOrderedStrategy() {
+        when(configService.getEnv()).thenReturn("DEV");
+        when(configService.getStrategy()).thenReturn("time_ordered");
+        DeviceIdGenerator generator = new DeviceIdGenerator(configService);
+
+        String deviceId = generator.generateId("Iphone14", "Apple");
+
+        assertThat(deviceId).startsWith("DEV-").hasSize(30);
+        assertThat(generator.isUniqueByIndex()).isTrue();
+        assertThat(deviceIdGenerator.isUniqueByIndex()).isFalse();
+    }
 }
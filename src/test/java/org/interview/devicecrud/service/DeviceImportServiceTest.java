@@ -0,0 +1,234 @@
+package org.interview.devicecrud.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.interview.devicecrud.constants.DeviceOperation;
+import org.interview.devicecrud.constants.ImportFormat;
+import org.interview.devicecrud.event.DeviceChangeEvent;
+import org.interview.devicecrud.exception.DeadlineExceededException;
+import org.interview.devicecrud.exception.DeviceFileException;
+import org.interview.devicecrud.model.Device;
+import org.interview.devicecrud.model.DeviceImportResult;
+import org.interview.devicecrud.validator.DeviceCrudValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for {@link DeviceImportService}.
+ */
+@ExtendWith(MockitoExtension.class)
+class DeviceImportServiceTest {
+
+    @Mock MongoTemplate mongoTemplate;
+    @Mock ConsistencyTiers consistencyTiers;
+    @Mock BulkOperations bulkOperations;
+    @Mock DeviceIdGenerator deviceIdGenerator;
+    @Mock DeviceCrudService deviceService;
+    @Mock ApplicationEventPublisher eventPublisher;
+
+    @TempDir Path reportDir;
+
+    private DeviceImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        importService = new DeviceImportService(mongoTemplate, consistencyTiers, new DeviceCrudValidator(),
+                deviceIdGenerator, deviceService, objectMapper, eventPublisher, 2, 2, reportDir.toString());
+        // lenient, as inputs that fail before parsing never reach them
+        lenient().when(consistencyTiers.bulkOps(DeviceOperation.IMPORT, mongoTemplate,
+                BulkOperations.BulkMode.UNORDERED, Device.class)).thenReturn(bulkOperations);
+        lenient().when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        lenient().when(deviceIdGenerator.generateId(anyString(), anyString()))
+                .thenAnswer(inv -> inv.getArgument(0) + "-" + inv.getArgument(1));
+    }
+
+    private ByteArrayInputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void importNdjson_insertsValidLinesInChunksAndReportsInvalidOnes() throws Exception {
+        String ndjson = """
+                {"name":"Galaxy S24","brand":"Samsung","state":"AVAILABLE","creationTime":"2024-05-24T10:15:30"}
+                {"name":"","brand":"Samsung","state":"AVAILABLE","creationTime":"2024-05-24T10:15:30"}
+                {"name":"XPS 13","brand":"Dell","state":"IN_USE","creationTime":"2024-05-24T10:15:30"}
+                {"name":"iPhone 15","brand":"Apple","state":"AVAILABLE","creationTime":"2024-05-24T10:15:30"}
+                """;
+
+        DeviceImportResult result = importService.importDevices(input(ndjson), ImportFormat.NDJSON);
+
+        assertThat(result.getProcessed()).isEqualTo(4);
+        assertThat(result.getInserted()).isEqualTo(3);
+        assertThat(result.getFailed()).isEqualTo(1);
+        verify(bulkOperations, times(2)).execute();
+        verify(eventPublisher, times(3)).publishEvent(any(DeviceChangeEvent.class));
+        assertThat(Files.readString(Path.of(result.getReportFile()))).contains("line 2:");
+    }
+
+    @Test
+    void importCsv_skipsHeaderAndParsesColumns() {
+        String csv = """
+                name,brand,state,creationTime
+                Galaxy S24,Samsung,AVAILABLE,2024-05-24T10:15:30
+                """;
+
+        DeviceImportResult result = importService.importDevices(input(csv), ImportFormat.CSV);
+
+        assertThat(result.getInserted()).isEqualTo(1);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Device>> captor = ArgumentCaptor.forClass(List.class);
+        verify(bulkOperations).insert(captor.capture());
+        assertThat(captor.getValue()).extracting(Device::getId).containsExactly("Galaxy S24-Samsung");
+    }
+
+    @Test
+    void importDevices_archivedDevice_isRejectedAndOthersInserted() throws Exception {
+        when(deviceService.archivedDuplicates(anyList())).thenReturn(Set.of("Galaxy S24-Samsung"));
+        String csv = """
+                Galaxy S24,Samsung,AVAILABLE,2024-05-24T10:15:30
+                XPS 13,Dell,AVAILABLE,2024-05-24T10:15:30
+                """;
+
+        DeviceImportResult result = importService.importDevices(input(csv), ImportFormat.CSV);
+
+        assertThat(result.getInserted()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(1);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Device>> captor = ArgumentCaptor.forClass(List.class);
+        verify(bulkOperations).insert(captor.capture());
+        assertThat(captor.getValue()).extracting(Device::getId).containsExactly("XPS 13-Dell");
+        assertThat(Files.readString(Path.of(result.getReportFile())))
+                .contains("line 1:").contains("Device with same name and brand already exists.");
+    }
+
+    @Test
+    void importFile_missingFile_throwsDeviceFileException() {
+        assertThrows(DeviceFileException.class,
+                () -> importService.importFile(reportDir.resolve("missing.ndjson"), ImportFormat.NDJSON));
+    }
+
+    @Test
+    void importDevices_unwritableReportDir_throwsDeviceFileException() throws Exception {
+        Path notADir = Files.writeString(reportDir.resolve("file"), "");
+        DeviceImportService blocked = new DeviceImportService(mongoTemplate, consistencyTiers,
+                new DeviceCrudValidator(), deviceIdGenerator, deviceService, new ObjectMapper(), eventPublisher,
+                2, 2, notADir.toString());
+
+        assertThrows(DeviceFileException.class, () -> blocked.importDevices(input(""), ImportFormat.NDJSON));
+    }
+
+    @Test
+    void importDevices_eachRunGetsItsOwnReport() {
+        DeviceImportResult first = importService.importDevices(input(""), ImportFormat.NDJSON);
+        DeviceImportResult second = importService.importDevices(input(""), ImportFormat.NDJSON);
+
+        assertThat(first.getReportFile()).isNotEqualTo(second.getReportFile());
+    }
+
+    @Test
+    void importDevices_insertsWithImportTier() {
+        String csv = """
+                Galaxy S24,Samsung,AVAILABLE,2024-05-24T10:15:30
+                """;
+
+        importService.importDevices(input(csv), ImportFormat.CSV);
+
+        verify(consistencyTiers).bulkOps(DeviceOperation.IMPORT, mongoTemplate, BulkOperations.BulkMode.UNORDERED,
+                Device.class);
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(Device.class));
+    }
+
+    @Test
+    void importDevices_expiredDeadline_stopsBeforeWritingAChunk() {
+        String csv = """
+                Galaxy S24,Samsung,AVAILABLE,2024-05-24T10:15:30
+                XPS 13,Dell,AVAILABLE,2024-05-24T10:15:30
+                """;
+        RequestDeadline.start(Duration.ZERO);
+        try {
+            assertThrows(DeadlineExceededException.class,
+                    () -> importService.importDevices(input(csv), ImportFormat.CSV));
+        } finally {
+            RequestDeadline.clear();
+        }
+        verify(bulkOperations, never()).execute();
+    }
+
+    @Test
+    void importCsv_quotedFieldsKeepCommasAndQuotes() {
+        String csv = """
+                "Galaxy S24, ""Ultra""\",Samsung,AVAILABLE,2024-05-24T10:15:30
+                """;
+
+        DeviceImportResult result = importService.importDevices(input(csv), ImportFormat.CSV);
+
+        assertThat(result.getInserted()).isEqualTo(1);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Device>> captor = ArgumentCaptor.forClass(List.class);
+        verify(bulkOperations).insert(captor.capture());
+        assertThat(captor.getValue()).extracting(Device::getName).containsExactly("Galaxy S24, \"Ultra\"");
+    }
+
+    @Test
+    void importCsv_unterminatedQuote_rejectsLine() throws Exception {
+        String csv = """
+                "Galaxy S24,Samsung,AVAILABLE,2024-05-24T10:15:30
+                XPS 13,Dell,AVAILABLE,2024-05-24T10:15:30
+                """;
+
+        DeviceImportResult result = importService.importDevices(input(csv), ImportFormat.CSV);
+
+        assertThat(result.getInserted()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(Files.readString(Path.of(result.getReportFile())))
+                .contains("line 1:").contains("Unterminated quoted field in column 1");
+    }
+
+    @Test
+    void importFile_resumesAfterCheckpointAndReportsCommittedLines() throws Exception {
+        Path file = reportDir.resolve("devices.ndjson");
+        Files.writeString(file, """
+                {"name":"Galaxy S24","brand":"Samsung","state":"AVAILABLE","creationTime":"2024-05-24T10:15:30"}
+                {"name":"XPS 13","brand":"Dell","state":"IN_USE","creationTime":"2024-05-24T10:15:30"}
+                {"name":"iPhone 15","brand":"Apple","state":"AVAILABLE","creationTime":"2024-05-24T10:15:30"}
+                """);
+        List<Long> committed = new ArrayList<>();
+
+        DeviceImportResult result = importService.importFile(file, ImportFormat.NDJSON, 2,
+                new DeviceImportService.Progress() {
+                    @Override
+                    public void committed(long line, long processed, long inserted, long failed) {
+                        committed.add(line);
+                    }
+                });
+
+        assertThat(result.getProcessed()).isEqualTo(1);
+        assertThat(result.getInserted()).isEqualTo(1);
+        assertThat(committed).containsExactly(3L);
+        verify(deviceIdGenerator).generateId("iPhone 15", "Apple");
+        verifyNoMoreInteractions(deviceIdGenerator);
+    }
+}
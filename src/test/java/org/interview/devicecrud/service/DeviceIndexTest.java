@@ -0,0 +1,154 @@
+package org.interview.devicecrud.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.interview.devicecrud.constants.DeviceState;
+import org.interview.devicecrud.event.DeviceChangeEvent;
+import org.interview.devicecrud.model.Device;
+import org.interview.devicecrud.model.DeviceFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link DeviceIndex}.
+ */
+@ExtendWith(MockitoExtension.class)
+class DeviceIndexTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private DeviceIndex index;
+
+    private final LocalDateTime now = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+    @BeforeEach
+    void setUp() {
+        index = new DeviceIndex(mongoTemplate, new SimpleMeterRegistry(), true, false, 60000);
+    }
+
+    private Device device(String id, String brand, DeviceState state) {
+        return new Device(id, id, brand, state, now);
+    }
+
+    private List<Device> find(String brand, DeviceState state) {
+        return index.find(DeviceFilter.builder()
+                .brands(brand == null ? List.of() : List.of(brand))
+                .states(state == null ? List.of() : List.of(state))
+                .build());
+    }
+
+    private void load(Device... devices) {
+        when(mongoTemplate.stream(any(Query.class), eq(Device.class))).thenReturn(Stream.of(devices));
+        index.reload();
+    }
+
+    @Test
+    void notServableUntilLoaded() {
+        assertThat(index.isServable()).isFalse();
+
+        load();
+
+        assertThat(index.isServable()).isTrue();
+    }
+
+    @Test
+    void find_filtersByBrandStateAndBoth() {
+        load(device("A", "Apple", DeviceState.AVAILABLE),
+                device("B", "Apple", DeviceState.IN_USE),
+                device("C", "Dell", DeviceState.AVAILABLE));
+
+        assertThat(find(null, null)).hasSize(3);
+        assertThat(find("Apple", null)).extracting(Device::getId).containsExactlyInAnyOrder("A", "B");
+        assertThat(find(null, DeviceState.AVAILABLE)).extracting(Device::getId)
+                .containsExactlyInAnyOrder("A", "C");
+        assertThat(find("Apple", DeviceState.AVAILABLE)).extracting(Device::getId).containsExactly("A");
+        assertThat(find("Samsung", null)).isEmpty();
+        assertThat(index.find(DeviceFilter.builder()
+                .brands(List.of("Apple", "Dell"))
+                .states(List.of(DeviceState.AVAILABLE))
+                .createdFrom(now).createdTo(now)
+                .build())).extracting(Device::getId).containsExactlyInAnyOrder("A", "C");
+    }
+
+    @Test
+    void changeEvents_keepPostingsCurrent() {
+        load(device("A", "Apple", DeviceState.AVAILABLE));
+
+        index.onDeviceChange(new DeviceChangeEvent(DeviceChangeEvent.Type.CREATED, "B",
+                device("B", "Dell", DeviceState.AVAILABLE)));
+        index.onDeviceChange(new DeviceChangeEvent(DeviceChangeEvent.Type.BRAND_UPDATED, "A",
+                Device.builder().id("A").brand("Dell").build()));
+        index.onDeviceChange(new DeviceChangeEvent(DeviceChangeEvent.Type.UPDATED, "B",
+                device("B", "Dell", DeviceState.IN_USE)));
+
+        assertThat(find("Apple", null)).isEmpty();
+        assertThat(find("Dell", DeviceState.AVAILABLE)).extracting(Device::getId).containsExactly("A");
+        assertThat(find("Dell", DeviceState.IN_USE)).extracting(Device::getId).containsExactly("B");
+
+        index.onDeviceChange(new DeviceChangeEvent(DeviceChangeEvent.Type.DELETED, "B", null));
+
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void reload_replaysChangesMadeWhileStreaming() {
+        load(device("A", "Apple", DeviceState.AVAILABLE));
+        Device stale = device("A", "Apple", DeviceState.AVAILABLE);
+        when(mongoTemplate.stream(any(Query.class), eq(Device.class))).thenReturn(Stream.of(stale)
+                .peek(read -> index.onDeviceChange(new DeviceChangeEvent(DeviceChangeEvent.Type.UPDATED, "A",
+                        device("A", "Apple", DeviceState.IN_USE)))));
+
+        index.reload();
+
+        assertThat(find("Apple", DeviceState.IN_USE)).extracting(Device::getId).containsExactly("A");
+        assertThat(find(null, DeviceState.AVAILABLE)).isEmpty();
+    }
+
+    @Test
+    void reload_bulkChangeWhileStreaming_staysUnservable() {
+        load(device("A", "Apple", DeviceState.AVAILABLE));
+        when(mongoTemplate.stream(any(Query.class), eq(Device.class))).thenReturn(Stream.of(
+                        device("A", "Apple", DeviceState.AVAILABLE))
+                .peek(read -> index.onDeviceChange(new DeviceChangeEvent(DeviceChangeEvent.Type.BULK_UPDATED,
+                        null, null))));
+
+        index.reload();
+
+        assertThat(index.isServable()).isFalse();
+
+        load(device("A", "Apple", DeviceState.IN_USE));
+
+        assertThat(index.isServable()).isTrue();
+    }
+
+    @Test
+    void find_returnsCopiesOfCachedDevices() {
+        load(device("A", "Apple", DeviceState.AVAILABLE));
+
+        find("Apple", null).get(0).setState(DeviceState.INACTIVE);
+
+        assertThat(find("Apple", null)).extracting(Device::getState).containsExactly(DeviceState.AVAILABLE);
+    }
+
+    @Test
+    void disabled_neverServable() {
+        DeviceIndex disabled = new DeviceIndex(mongoTemplate, new SimpleMeterRegistry(), false, false, 60000);
+        disabled.reload();
+
+        assertThat(disabled.isServable()).isFalse();
+    }
+}
@@ -0,0 +1,225 @@
+package org.interview.devicecrud.service;
+
+import com.mongodb.client.result.UpdateResult;
+import org.interview.devicecrud.constants.DeviceStorageLayout;
+import org.interview.devicecrud.constants.JobStatus;
+import org.interview.devicecrud.constants.JobType;
+import org.interview.devicecrud.exception.MongoDBException;
+import org.interview.devicecrud.model.DeviceJob;
+import org.interview.devicecrud.validator.DeviceCrudValidator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for {@link DeviceJobService}.
+ */
+@ExtendWith(MockitoExtension.class)
+class DeviceJobServiceTest {
+
+    @Mock MongoTemplate mongoTemplate;
+    @Mock DeviceJobHandler handler;
+
+    @TempDir Path jobDir;
+
+    private DeviceJobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        when(handler.type()).thenReturn(JobType.REBRAND);
+        jobService = new DeviceJobService(mongoTemplate, new DeviceCrudValidator(), List.of(handler),
+                1, 1, 60000, 60000, jobDir.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobService.stop();
+    }
+
+    private DeviceJob running(String checkpoint) {
+        return DeviceJob.builder().id("job-1").type(JobType.REBRAND).status(JobStatus.RUNNING)
+                .params(Map.of("brand", "Google", "newBrand", "Alphabet")).checkpoint(checkpoint).build();
+    }
+
+    @Test
+    void submit_storesQueuedJob() {
+        DeviceJob job = jobService.submit(JobType.REBRAND, Map.of("brand", "Google", "newBrand", "Alphabet"));
+
+        assertThat(job.getStatus()).isEqualTo(JobStatus.QUEUED);
+        assertThat(job.getId()).isNotBlank();
+        verify(mongoTemplate).insert(job);
+    }
+
+    @Test
+    void submit_unknownType_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> jobService.submit(JobType.IMPORT, Map.of()));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void submitArchive_whileArchivePending_returnsPendingJob() {
+        DeviceJob pending = DeviceJob.builder().id("job-9").type(JobType.ARCHIVE).status(JobStatus.RUNNING).build();
+        when(mongoTemplate.findOne(any(Query.class), eq(DeviceJob.class))).thenReturn(pending);
+
+        assertThat(jobService.submitArchive(90)).isSameAs(pending);
+        verify(mongoTemplate, never()).insert(any(DeviceJob.class));
+    }
+
+    @Test
+    void submitArchive_lessThanADay_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> jobService.submitArchive(0));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void submitLayoutMigration_unknownCollection_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class,
+                () -> jobService.submitLayoutMigration(DeviceStorageLayout.COMPACT, "device_history"));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void run_claimsJobAndRecordsCompletion() throws Exception {
+        DeviceJob job = running("DEV-42");
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(DeviceJob.class))).thenReturn(job);
+        when(handler.run(eq(job), any(DeviceJobContext.class))).thenAnswer(inv -> {
+            DeviceJobContext context = inv.getArgument(1);
+            assertThat(context.getCheckpoint()).isEqualTo("DEV-42");
+            return "done";
+        });
+
+        jobService.run("job-1");
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(DeviceJob.class));
+        assertThat(update.getValue().toString()).contains("COMPLETED").contains("done");
+    }
+
+    @Test
+    void run_failingHandler_marksJobFailed() throws Exception {
+        DeviceJob job = running(null);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(DeviceJob.class))).thenReturn(job);
+        when(handler.run(eq(job), any(DeviceJobContext.class))).thenThrow(new IllegalStateException("boom"));
+
+        jobService.run("job-1");
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(DeviceJob.class));
+        assertThat(update.getValue().toString()).contains("FAILED").contains("boom");
+    }
+
+    @Test
+    void run_jobAlreadyClaimed_doesNothing() throws Exception {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(DeviceJob.class))).thenReturn(null);
+
+        jobService.run("job-1");
+
+        verify(handler, never()).run(any(), any());
+    }
+
+    @Test
+    void heartbeat_whileJobRuns_refreshesUpdatedAt() throws Exception {
+        DeviceJob job = running(null);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(DeviceJob.class))).thenReturn(job);
+        when(handler.run(eq(job), any(DeviceJobContext.class))).thenAnswer(inv -> {
+            jobService.heartbeat();
+            return "done";
+        });
+
+        jobService.run("job-1");
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateMulti(query.capture(), update.capture(), eq(DeviceJob.class));
+        assertThat(query.getValue().toString()).contains("job-1").contains("RUNNING");
+        assertThat(update.getValue().toString()).contains("updatedAt");
+    }
+
+    @Test
+    void heartbeat_whileScheduledDispatchBlocks_stillRefreshesRunningJob() throws Exception {
+        jobService.stop();
+        jobService = new DeviceJobService(mongoTemplate, new DeviceCrudValidator(), List.of(handler),
+                1, 1, 60000, 20, jobDir.toString());
+        DeviceJob job = running(null);
+        CountDownLatch beat = new CountDownLatch(1);
+        CountDownLatch dispatchBlocked = new CountDownLatch(1);
+        CountDownLatch releaseDispatch = new CountDownLatch(1);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(DeviceJob.class))).thenReturn(job);
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(DeviceJob.class))).thenAnswer(inv -> {
+            if (inv.getArgument(0, Query.class).toString().contains("job-1")) {
+                beat.countDown();
+            }
+            return UpdateResult.acknowledged(0, 0L, null);
+        });
+        when(mongoTemplate.find(any(Query.class), eq(DeviceJob.class))).thenAnswer(inv -> {
+            dispatchBlocked.countDown();
+            releaseDispatch.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        when(handler.run(eq(job), any(DeviceJobContext.class)))
+                .thenAnswer(inv -> beat.await(5, TimeUnit.SECONDS) ? "done" : "no heartbeat");
+        Thread dispatcher = new Thread(jobService::dispatchQueued);
+        dispatcher.start();
+        assertThat(dispatchBlocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            jobService.run("job-1");
+        } finally {
+            releaseDispatch.countDown();
+            dispatcher.join();
+        }
+
+        assertThat(beat.getCount()).isZero();
+    }
+
+    @Test
+    void heartbeat_withoutRunningJobs_doesNothing() {
+        jobService.heartbeat();
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void cancel_queuedJob_isCancelledImmediately() {
+        DeviceJob cancelled = DeviceJob.builder().id("job-1").status(JobStatus.CANCELLED).build();
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(DeviceJob.class))).thenReturn(cancelled);
+
+        assertThat(jobService.cancel("job-1").getStatus()).isEqualTo(JobStatus.CANCELLED);
+        verify(mongoTemplate, times(1)).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(DeviceJob.class));
+    }
+
+    @Test
+    void getJob_unknown_throws() {
+        when(mongoTemplate.findById("missing", DeviceJob.class)).thenReturn(null);
+
+        assertThrows(MongoDBException.class, () -> jobService.getJob("missing"));
+    }
+}
@@ -0,0 +1,76 @@
+package org.interview.devicecrud.service;
+
+import org.bson.Document;
+import org.interview.devicecrud.event.DeviceChangeEvent;
+import org.interview.devicecrud.model.Device;
+import org.interview.devicecrud.model.DeviceSearchHit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link DeviceSearchIndex}.
+ */
+@ExtendWith(MockitoExtension.class)
+class DeviceSearchIndexTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private DeviceSearchIndex index;
+
+    private static Document doc(String id, String name, String brand) {
+        return new Document("_id", id).append("name", name).append("brand", brand);
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new DeviceSearchIndex(mongoTemplate, true);
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("device"))).thenReturn(Stream.of(
+                doc("1", "Pixel 8", "Google"),
+                doc("2", "Pixel 8 Pro", "Google"),
+                doc("3", "Galaxy S24", "Samsung"),
+                doc("4", "Chromebook Pixel", "Google")));
+        index.build();
+    }
+
+    @Test
+    void prefixInfixAndBrandMatches_areRanked() {
+        assertThat(index.search("pixel", 10)).extracting(DeviceSearchHit::getId)
+                .containsExactly("1", "2", "4");
+        assertThat(index.search("xel 8", 10)).extracting(DeviceSearchHit::getId)
+                .containsExactlyInAnyOrder("1", "2");
+        assertThat(index.search("goo", 10)).extracting(DeviceSearchHit::getId)
+                .containsExactlyInAnyOrder("1", "2", "4");
+    }
+
+    @Test
+    void shortQuery_matchesWordPrefixes() {
+        assertThat(index.search("s2", 10)).extracting(DeviceSearchHit::getId).containsExactly("3");
+        assertThat(index.search("G", 1)).hasSize(1);
+    }
+
+    @Test
+    void changeEvents_updateIndex() {
+        index.onDeviceChange(new DeviceChangeEvent(DeviceChangeEvent.Type.CREATED, "5",
+                Device.builder().id("5").name("Pixel Tablet").brand("Google").build()));
+        index.onDeviceChange(new DeviceChangeEvent(DeviceChangeEvent.Type.DELETED, "2", null));
+        index.onDeviceChange(new DeviceChangeEvent(DeviceChangeEvent.Type.BRAND_UPDATED, "3",
+                Device.builder().id("3").brand("Samsung Mobile").build()));
+
+        assertThat(index.search("pixel", 10)).extracting(DeviceSearchHit::getId)
+                .containsExactlyInAnyOrder("1", "4", "5");
+        assertThat(index.search("mobile", 10)).extracting(DeviceSearchHit::getId).containsExactly("3");
+    }
+}
@@ -0,0 +1,74 @@
+package org.interview.devicecrud.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.interview.devicecrud.model.DeviceTrace;
+import org.interview.devicecrud.model.DeviceTraceEndpoint;
+import org.interview.devicecrud.model.DeviceTraceExport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link DeviceTraceBuffer}.
+ */
+class DeviceTraceBufferTest {
+
+    @TempDir Path exportDir;
+
+    private DeviceTraceBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        buffer = new DeviceTraceBuffer(new ObjectMapper().findAndRegisterModules(), 3, 2, exportDir.toString());
+    }
+
+    private static DeviceTrace trace(String id, String endpoint, double durationMs) {
+        return DeviceTrace.builder().id(id).endpoint(endpoint).status(200)
+                .startedAt(Instant.now()).durationMs(durationMs).spans(List.of()).build();
+    }
+
+    @Test
+    void snapshot_keepsLatestNewestFirstAndSlowestSlowestFirst() {
+        buffer.record(trace("1", "GET /private/v1/device", 90));
+        buffer.record(trace("2", "GET /private/v1/device", 5));
+        buffer.record(trace("3", "GET /private/v1/device", 40));
+        buffer.record(trace("4", "GET /private/v1/device", 7));
+        buffer.record(trace("5", "GET /private/v1/device", 6));
+
+        DeviceTraceEndpoint endpoint = buffer.snapshot(null).get(0);
+
+        assertThat(endpoint.getRecorded()).isEqualTo(5);
+        assertThat(endpoint.getRecent()).extracting(DeviceTrace::getId).containsExactly("5", "4", "3");
+        assertThat(endpoint.getSlowest()).extracting(DeviceTrace::getId).containsExactly("1", "3");
+    }
+
+    @Test
+    void snapshot_ofOneEndpoint_leavesOutTheOthers() {
+        buffer.record(trace("1", "GET /private/v1/device", 10));
+        buffer.record(trace("2", "POST /private/v1/device", 10));
+
+        List<DeviceTraceEndpoint> snapshot = buffer.snapshot("POST /private/v1/device");
+
+        assertThat(snapshot).extracting(DeviceTraceEndpoint::getEndpoint).containsExactly("POST /private/v1/device");
+    }
+
+    @Test
+    void export_writesEveryKeptTraceOnce() throws Exception {
+        buffer.record(trace("1", "GET /private/v1/device", 90));
+        buffer.record(trace("2", "POST /private/v1/device", 10));
+
+        DeviceTraceExport export = buffer.export();
+
+        List<String> lines = Files.readAllLines(Path.of(export.getFile()));
+        assertThat(export.getTraces()).isEqualTo(2);
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).contains("\"id\":\"1\"");
+    }
+}
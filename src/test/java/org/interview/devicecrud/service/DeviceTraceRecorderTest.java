@@ -0,0 +1,120 @@
+package org.interview.devicecrud.service;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.interview.devicecrud.model.DeviceTrace;
+import org.interview.devicecrud.model.DeviceTraceSpan;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for {@link DeviceTraceRecorder}.
+ */
+@ExtendWith(MockitoExtension.class)
+class DeviceTraceRecorderTest {
+
+    @Mock DeviceTraceBuffer buffer;
+
+    private ObservationRegistry registry(int maxSpans) {
+        ObservationRegistry registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(new DeviceTraceRecorder(buffer, true, maxSpans));
+        return registry;
+    }
+
+    private void request(ObservationRegistry registry, String pattern, Runnable work) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/private/v1/device/X");
+        ServerRequestObservationContext context = new ServerRequestObservationContext(request, new MockHttpServletResponse());
+        context.setPathPattern(pattern);
+        Observation http = Observation.createNotStarted("http.server.requests", () -> context, registry).start();
+        try (Observation.Scope scope = http.openScope()) {
+            work.run();
+        } finally {
+            http.stop();
+        }
+    }
+
+    private static Observation layer(ObservationRegistry registry, String layer, String operation) {
+        return Observation.createNotStarted("device.layer", registry)
+                .contextualName(operation)
+                .lowCardinalityKeyValue("layer", layer);
+    }
+
+    @Test
+    void request_recordsNestedLayersInStartOrder() {
+        ObservationRegistry registry = registry(200);
+
+        request(registry, "/private/v1/device/{id}", () -> layer(registry, "aggregator", "DeviceCrudAggregator.fetchDevice")
+                .observe(() -> layer(registry, "service", "DeviceCrudService.fetchDeviceById").observe(() -> { })));
+
+        ArgumentCaptor<DeviceTrace> trace = ArgumentCaptor.forClass(DeviceTrace.class);
+        verify(buffer).record(trace.capture());
+        assertThat(trace.getValue().getEndpoint()).isEqualTo("GET /private/v1/device/{id}");
+        assertThat(trace.getValue().getStatus()).isEqualTo(200);
+        assertThat(trace.getValue().getSpans()).extracting(DeviceTraceSpan::getLayer)
+                .containsExactly("http.server.requests", "aggregator", "service");
+        assertThat(trace.getValue().getSpans()).extracting(DeviceTraceSpan::getDepth).containsExactly(0, 1, 2);
+        assertThat(trace.getValue().getSpans().get(2).getOperation()).isEqualTo("DeviceCrudService.fetchDeviceById");
+    }
+
+    @Test
+    void request_failingLayer_recordsTheError() {
+        ObservationRegistry registry = registry(200);
+
+        request(registry, "/private/v1/device/{id}", () -> {
+            try {
+                layer(registry, "service", "DeviceCrudService.fetchDeviceById").observe(() -> {
+                    throw new IllegalStateException("db down");
+                });
+            } catch (IllegalStateException expected) {
+                // surfaces to the caller, the span keeps it
+            }
+        });
+
+        ArgumentCaptor<DeviceTrace> trace = ArgumentCaptor.forClass(DeviceTrace.class);
+        verify(buffer).record(trace.capture());
+        assertThat(trace.getValue().getSpans().get(1).getError()).isEqualTo("db down");
+    }
+
+    @Test
+    void request_beyondMaxSpans_countsTheDroppedOnes() {
+        ObservationRegistry registry = registry(2);
+
+        request(registry, "/private/v1/device", () -> {
+            for (int i = 0; i < 3; i++) {
+                layer(registry, "service", "DeviceCrudService.findDevices").observe(() -> { });
+            }
+        });
+
+        ArgumentCaptor<DeviceTrace> trace = ArgumentCaptor.forClass(DeviceTrace.class);
+        verify(buffer).record(trace.capture());
+        assertThat(trace.getValue().getSpans()).hasSize(2);
+        assertThat(trace.getValue().getDroppedSpans()).isEqualTo(2);
+    }
+
+    @Test
+    void observationOutsideARequest_isIgnored() {
+        ObservationRegistry registry = registry(200);
+
+        layer(registry, "service", "DeviceCrudService.sweepExpiredLeases").observe(() -> { });
+
+        verifyNoInteractions(buffer);
+    }
+
+    @Test
+    void traceEndpoint_isNotRecorded() {
+        ObservationRegistry registry = registry(200);
+
+        request(registry, "/private/v1/device/traces", () -> { });
+
+        verifyNoInteractions(buffer);
+    }
+}
@@ -0,0 +1,176 @@
+package org.interview.devicecrud.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.interview.devicecrud.exception.IdempotencyConflictException;
+import org.interview.devicecrud.model.IdempotencyRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for {@link IdempotencyService}.
+ */
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    private static final String OPERATION = "POST /private/v1/device/create";
+    private static final byte[] REQUEST = "{\"name\":\"Pixel\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RESPONSE = "{\"id\":\"DEV-PIXE-GOOG-7508E2\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private IdempotencyService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new IdempotencyService(mongoTemplate, new SimpleMeterRegistry(), true, 24, 100, 200, 60000);
+    }
+
+    private IdempotencyRecord created() {
+        return IdempotencyRecord.builder().status(201).contentType("application/json").body(RESPONSE).build();
+    }
+
+    @Test
+    void firstRequest_claimsKeyAndStoresSuccess() {
+        IdempotencyService.Claim claim = service.claim(OPERATION, "k1", REQUEST);
+
+        assertThat(claim.getReplay()).isNull();
+        verify(mongoTemplate).insert(any(IdempotencyRecord.class));
+
+        service.complete(claim, created());
+
+        verify(mongoTemplate).updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class));
+    }
+
+    @Test
+    void retry_isReplayedFromCacheWithoutQuery() {
+        service.complete(service.claim(OPERATION, "k1", REQUEST), created());
+        clearInvocations(mongoTemplate);
+
+        IdempotencyService.Claim retry = service.claim(OPERATION, "k1", REQUEST);
+
+        assertThat(retry.getReplay().getStatus()).isEqualTo(201);
+        assertThat(retry.getReplay().getBody()).isEqualTo(RESPONSE);
+        assertThat(retry.getReplay().getCreatedAt()).isNotNull();
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void retry_afterTtl_isNotReplayedFromCache() throws Exception {
+        service = new IdempotencyService(mongoTemplate, new SimpleMeterRegistry(), true, 0, 100, 200, 60000);
+        service.complete(service.claim(OPERATION, "k1", REQUEST), created());
+        Thread.sleep(5);
+
+        IdempotencyService.Claim retry = service.claim(OPERATION, "k1", REQUEST);
+
+        assertThat(retry.getReplay()).isNull();
+        verify(mongoTemplate, times(2)).insert(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void retry_onOtherInstance_isReplayedFromCollection() {
+        IdempotencyRecord stored = created();
+        stored.setId(OPERATION + ":k1");
+        stored.setCreatedAt(new Date());
+        stored.setRequestHash(sha256(REQUEST));
+        when(mongoTemplate.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+        when(mongoTemplate.findById(OPERATION + ":k1", IdempotencyRecord.class)).thenReturn(stored);
+
+        IdempotencyService.Claim retry = service.claim(OPERATION, "k1", REQUEST);
+
+        assertThat(retry.getReplay().getStatus()).isEqualTo(201);
+    }
+
+    @Test
+    void reusedKeyWithDifferentBody_isRejected() {
+        service.complete(service.claim(OPERATION, "k1", REQUEST), created());
+
+        IdempotencyConflictException e = assertThrows(IdempotencyConflictException.class,
+                () -> service.claim(OPERATION, "k1", "{\"name\":\"Other\"}".getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(e.getStatus()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    @Test
+    void failedResponse_releasesKey() {
+        IdempotencyService.Claim claim = service.claim(OPERATION, "k1", REQUEST);
+
+        service.complete(claim, IdempotencyRecord.builder().status(500).build());
+
+        verify(mongoTemplate).remove(any(Query.class), eq(IdempotencyRecord.class));
+        assertThat(service.claim(OPERATION, "k1", REQUEST).getReplay()).isNull();
+    }
+
+    @Test
+    void complete_onlyTouchesThePlaceholderOfThisClaim() {
+        IdempotencyService.Claim claim = service.claim(OPERATION, "k1", REQUEST);
+        ArgumentCaptor<IdempotencyRecord> inserted = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(mongoTemplate).insert(inserted.capture());
+
+        service.complete(claim, created());
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateFirst(query.capture(), any(Update.class), eq(IdempotencyRecord.class));
+        assertThat(query.getValue().getQueryObject().get("createdAt")).isEqualTo(inserted.getValue().getCreatedAt());
+    }
+
+    @Test
+    void inFlightDuplicate_waitsForFirstResponse() throws Exception {
+        IdempotencyService slow = new IdempotencyService(mongoTemplate, new SimpleMeterRegistry(), true, 24, 100,
+                5000, 60000);
+        IdempotencyService.Claim first = slow.claim(OPERATION, "k1", REQUEST);
+
+        CompletableFuture<IdempotencyService.Claim> duplicate =
+                CompletableFuture.supplyAsync(() -> slow.claim(OPERATION, "k1", REQUEST));
+        Thread.sleep(50);
+        assertThat(duplicate).isNotDone();
+        slow.complete(first, created());
+
+        assertThat(duplicate.get(5, TimeUnit.SECONDS).getReplay().getStatus()).isEqualTo(201);
+        verify(mongoTemplate, times(1)).insert(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void keyHeldElsewhere_conflictsAfterWaiting() {
+        IdempotencyRecord pending = IdempotencyRecord.builder().id(OPERATION + ":k1")
+                .requestHash(sha256(REQUEST)).createdAt(new Date()).build();
+        when(mongoTemplate.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+        when(mongoTemplate.findById(OPERATION + ":k1", IdempotencyRecord.class)).thenReturn(pending);
+
+        IdempotencyConflictException e = assertThrows(IdempotencyConflictException.class,
+                () -> service.claim(OPERATION, "k1", REQUEST));
+
+        assertThat(e.getStatus()).isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
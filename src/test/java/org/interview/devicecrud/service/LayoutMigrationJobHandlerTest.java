@@ -0,0 +1,117 @@
+package org.interview.devicecrud.service;
+
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.interview.devicecrud.constants.DeviceStorageLayout;
+import org.interview.devicecrud.constants.JobType;
+import org.interview.devicecrud.converter.DeviceWriteConverter;
+import org.interview.devicecrud.event.DeviceChangeEvent;
+import org.interview.devicecrud.model.DeviceJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for {@link LayoutMigrationJobHandler}.
+ */
+@ExtendWith(MockitoExtension.class)
+class LayoutMigrationJobHandlerTest {
+
+    @Mock MongoTemplate mongoTemplate;
+    @Mock ApplicationEventPublisher eventPublisher;
+    @Mock DeviceJobContext context;
+    @Mock BulkOperations bulkOperations;
+    @Mock BulkWriteResult bulkWriteResult;
+
+    private LayoutMigrationJobHandler handler;
+    private DeviceJob job;
+
+    @BeforeEach
+    void setUp() {
+        handler = new LayoutMigrationJobHandler(mongoTemplate, eventPublisher,
+                new ConsistencyTiers(new SimpleMeterRegistry(), Map.of()), 2, 0);
+        job = DeviceJob.builder().id("job-1").type(JobType.MIGRATE_LAYOUT)
+                .params(Map.of("target", "COMPACT", "collection", "device")).build();
+    }
+
+    private Document device(String id) {
+        return new Document("_id", id).append("name", "Pixel").append("brand", "Google")
+                .append("state", "AVAILABLE").append("creationTime", new Date(1700000000000L));
+    }
+
+    @Test
+    void run_replacesEachPageAndCheckpoints() throws Exception {
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("device")))
+                .thenReturn(List.of(device("A"), device("B")), List.of(device("C")), List.of());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "device")).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getMatchedCount()).thenReturn(2, 1);
+        when(bulkWriteResult.getModifiedCount()).thenReturn(2, 1);
+
+        String summary = handler.run(job, context);
+
+        ArgumentCaptor<Object> replacements = ArgumentCaptor.forClass(Object.class);
+        verify(bulkOperations, times(3)).replaceOne(any(Query.class), replacements.capture());
+        assertThat(((Document) replacements.getAllValues().get(0)).keySet())
+                .containsExactlyInAnyOrder("_id", "n", "b", "s", "t");
+        verify(context).checkpoint("B", 2, 0);
+        verify(context).checkpoint("C", 3, 0);
+        verify(eventPublisher, times(2)).publishEvent(any(DeviceChangeEvent.class));
+        assertThat(summary).contains("Migrated 3");
+    }
+
+    @Test
+    void run_deviceChangedMeanwhile_isCountedAsLeftOver() throws Exception {
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq("device")))
+                .thenReturn(List.of(device("A"), device("B")), List.of());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "device")).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getMatchedCount()).thenReturn(1);
+        when(bulkWriteResult.getModifiedCount()).thenReturn(1);
+
+        handler.run(job, context);
+
+        ArgumentCaptor<Query> filters = ArgumentCaptor.forClass(Query.class);
+        verify(bulkOperations, times(2)).replaceOne(filters.capture(), any(Object.class));
+        assertThat(filters.getAllValues().get(0).getQueryObject())
+                .containsEntry("_id", "A").containsEntry("state", "AVAILABLE");
+        verify(context).checkpoint("B", 1, 1);
+    }
+
+    @Test
+    void convert_keepsKeysOutsideTheLayout() {
+        Date lease = new Date();
+        Document stored = device("A").append("leaseExpiresAt", lease);
+
+        Document converted = handler.convert(stored, new DeviceWriteConverter(DeviceStorageLayout.COMPACT));
+
+        assertThat(converted).containsEntry("leaseExpiresAt", lease).containsEntry("s", 1)
+                .doesNotContainKeys("name", "brand", "state", "creationTime");
+    }
+
+    @Test
+    void run_cancelled_touchesNothing() throws Exception {
+        when(context.isCancelled()).thenReturn(true);
+
+        handler.run(job, context);
+
+        verifyNoInteractions(mongoTemplate, eventPublisher);
+    }
+}
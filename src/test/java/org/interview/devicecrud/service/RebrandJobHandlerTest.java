@@ -0,0 +1,74 @@
+package org.interview.devicecrud.service;
+
+import com.mongodb.client.result.UpdateResult;
+import org.interview.devicecrud.constants.DeviceState;
+import org.interview.devicecrud.constants.JobType;
+import org.interview.devicecrud.model.Device;
+import org.interview.devicecrud.model.DeviceJob;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for {@link RebrandJobHandler}.
+ */
+@ExtendWith(MockitoExtension.class)
+class RebrandJobHandlerTest {
+
+    @Mock MongoTemplate mongoTemplate;
+    @Mock ApplicationEventPublisher eventPublisher;
+    @Mock DeviceJobContext context;
+    @Mock UpdateResult updateResult;
+
+    private Device device(String id) {
+        return new Device(id, "Pixel", "Google", DeviceState.AVAILABLE, LocalDateTime.now());
+    }
+
+    @Test
+    void run_resumesAfterCheckpointAndCheckpointsEveryPage() {
+        RebrandJobHandler handler = new RebrandJobHandler(mongoTemplate, eventPublisher, 2);
+        DeviceJob job = DeviceJob.builder().id("job-1").type(JobType.REBRAND).processed(5)
+                .params(Map.of("brand", "Google", "newBrand", "Alphabet")).build();
+        when(context.getCheckpoint()).thenReturn("A");
+        when(mongoTemplate.find(any(Query.class), eq(Device.class)))
+                .thenReturn(List.of(device("B"), device("C")), List.of(device("D")), List.of());
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Device.class))).thenReturn(updateResult);
+        when(updateResult.getModifiedCount()).thenReturn(2L, 1L);
+
+        String summary = handler.run(job, context);
+
+        ArgumentCaptor<Query> pages = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(3)).find(pages.capture(), eq(Device.class));
+        assertThat(pages.getAllValues().get(0).toString()).contains("\"$gt\" : \"A\"");
+        verify(context).checkpoint("C", 7, 0);
+        verify(context).checkpoint("D", 8, 0);
+        assertThat(summary).contains("8");
+    }
+
+    @Test
+    void run_cancelled_stopsBeforeNextPage() {
+        RebrandJobHandler handler = new RebrandJobHandler(mongoTemplate, eventPublisher, 2);
+        DeviceJob job = DeviceJob.builder().id("job-1").type(JobType.REBRAND)
+                .params(Map.of("brand", "Google", "newBrand", "Alphabet")).build();
+        when(context.isCancelled()).thenReturn(true);
+
+        handler.run(job, context);
+
+        verifyNoInteractions(mongoTemplate);
+    }
+}
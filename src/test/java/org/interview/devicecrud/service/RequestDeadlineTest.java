@@ -0,0 +1,62 @@
+package org.interview.devicecrud.service;
+
+import org.interview.devicecrud.exception.DeadlineExceededException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link RequestDeadline}.
+ */
+class RequestDeadlineTest {
+
+    @AfterEach
+    void clear() {
+        RequestDeadline.clear();
+    }
+
+    @Test
+    void noDeadline_leavesQueryUnboundedAndNeverExpires() {
+        Query query = RequestDeadline.bound(new Query());
+
+        assertThat(query.getMeta().getMaxTimeMsec()).isNull();
+        assertThat(RequestDeadline.remaining()).isNull();
+        assertDoesNotThrow(RequestDeadline::check);
+    }
+
+    @Test
+    void bound_setsRemainingTimeAsMaxTime() {
+        RequestDeadline.start(Duration.ofSeconds(5));
+
+        Query query = RequestDeadline.bound(new Query());
+
+        assertThat(query.getMeta().getMaxTimeMsec()).isBetween(1L, 5000L);
+    }
+
+    @Test
+    void expired_checkThrowsAndBoundUsesShortestLimit() {
+        RequestDeadline.start(Duration.ofMillis(-10));
+
+        assertThat(RequestDeadline.isExpired()).isTrue();
+        assertThrows(DeadlineExceededException.class, RequestDeadline::check);
+        assertThat(RequestDeadline.bound(new Query()).getMeta().getMaxTimeMsec()).isEqualTo(1L);
+    }
+
+    @Test
+    void deadline_doesNotLeakToOtherThreads() throws Exception {
+        RequestDeadline.start(Duration.ofSeconds(5));
+        boolean[] seen = new boolean[1];
+
+        Thread other = new Thread(() -> seen[0] = RequestDeadline.isSet());
+        other.start();
+        other.join();
+
+        assertThat(seen[0]).isFalse();
+    }
+}
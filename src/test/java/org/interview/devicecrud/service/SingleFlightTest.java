@@ -0,0 +1,154 @@
+package org.interview.devicecrud.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.interview.devicecrud.exception.DeadlineExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link SingleFlight}.
+ */
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SingleFlight singleFlight = new SingleFlight(registry, true);
+
+    private double collapsed(String operation) {
+        return registry.counter("device.coalesced.requests", "operation", operation).count();
+    }
+
+    @Test
+    void concurrentCallers_shareOneLoad() throws Exception {
+        int callers = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> singleFlight.execute("fetchById", "X", () -> {
+                    loads.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "device";
+                })));
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (collapsed("fetchById") < callers - 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("device");
+            }
+            assertThat(loads.get()).isEqualTo(1);
+            assertThat(collapsed("fetchById")).isEqualTo(callers - 1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void sequentialCallers_eachLoad() {
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.execute("fetchById", "X", loads::incrementAndGet);
+        singleFlight.execute("fetchById", "X", loads::incrementAndGet);
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void failure_propagatesToCaller() {
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("fetchById", "X", () -> {
+            throw new IllegalStateException("db down");
+        }));
+    }
+
+    @Test
+    void follower_givesUpAtItsOwnDeadline() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> leader = pool.submit(() -> singleFlight.execute("fetchById", "X", () -> {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "device";
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            RequestDeadline.start(Duration.ofMillis(50));
+            try {
+                assertThrows(DeadlineExceededException.class,
+                        () -> singleFlight.execute("fetchById", "X", () -> "own"));
+            } finally {
+                RequestDeadline.clear();
+                release.countDown();
+            }
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("device");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void leaderOutOfTime_followerWithTimeLeftLoadsItself() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = pool.submit(() -> singleFlight.execute("fetchById", "X", () -> {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new DeadlineExceededException("Request deadline exceeded");
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<String> follower = pool.submit(() -> {
+                RequestDeadline.start(Duration.ofSeconds(5));
+                try {
+                    return singleFlight.execute("fetchById", "X", () -> "own");
+                } finally {
+                    RequestDeadline.clear();
+                }
+            });
+            long deadline = System.currentTimeMillis() + 5000;
+            while (collapsed("fetchById") < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("own");
+            ExecutionException failed = assertThrows(ExecutionException.class,
+                    () -> leader.get(5, TimeUnit.SECONDS));
+            assertThat(failed.getCause()).isInstanceOf(DeadlineExceededException.class);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
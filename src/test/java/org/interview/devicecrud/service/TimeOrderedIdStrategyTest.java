@@ -0,0 +1,77 @@
+package org.interview.devicecrud.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link TimeOrderedIdStrategy}.
+ */
+@ExtendWith(MockitoExtension.class)
+class TimeOrderedIdStrategyTest {
+
+    @Mock ConfigService config;
+
+    private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+    private TimeOrderedIdStrategy strategy;
+
+    @BeforeEach
+    void setUp() {
+        when(config.getEnv()).thenReturn("DEV");
+        strategy = new TimeOrderedIdStrategy(config, clock::get, new Random(42));
+    }
+
+    @Test
+    void generateId_isEnvAndTwentySixBase32Characters() {
+        String id = strategy.generateId("Pixel", "Google");
+
+        assertThat(id).matches("DEV-[0-9A-HJKMNP-TV-Z]{26}");
+    }
+
+    @Test
+    void generateId_sameDevice_getsDistinctIds() {
+        assertThat(strategy.generateId("Pixel", "Google")).isNotEqualTo(strategy.generateId("Pixel", "Google"));
+    }
+
+    @Test
+    void generateId_increasesWithinAndAcrossMilliseconds() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            if (i % 100 == 0) {
+                clock.addAndGet(1);
+            }
+            ids.add(strategy.generateId("Pixel", "Google"));
+        }
+
+        assertThat(ids).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void generateId_clockGoesBack_staysOrdered() {
+        String before = strategy.generateId("Pixel", "Google");
+        clock.addAndGet(-5000);
+        String after = strategy.generateId("Pixel", "Google");
+
+        assertThat(after).isGreaterThan(before);
+    }
+
+    @Test
+    void generateId_laterMillisecond_changesTheTimePrefix() {
+        String first = strategy.generateId("Pixel", "Google");
+        clock.addAndGet(1);
+        String second = strategy.generateId("Pixel", "Google");
+
+        assertThat(second.substring(0, 14)).isGreaterThan(first.substring(0, 14));
+        assertThat(strategy.isDerivedFromDevice()).isFalse();
+    }
+}
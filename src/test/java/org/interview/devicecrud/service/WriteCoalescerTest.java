@@ -0,0 +1,181 @@
+package org.interview.devicecrud.service;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.interview.devicecrud.constants.DeviceOperation;
+import org.interview.devicecrud.constants.DeviceState;
+import org.bson.BsonString;
+import org.interview.devicecrud.exception.DeadlineExceededException;
+import org.interview.devicecrud.exception.MongoDBException;
+import org.interview.devicecrud.model.Device;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WriteCoalescerTest {
+
+    @Mock MongoTemplate mongoTemplate;
+    @Mock BulkOperations bulkOperations;
+    @Mock BulkWriteResult bulkWriteResult;
+    @Spy ConsistencyTiers consistencyTiers = new ConsistencyTiers(new SimpleMeterRegistry(), Map.of());
+
+    private WriteCoalescer coalescer;
+
+    @AfterEach
+    void tearDown() {
+        if (coalescer != null) {
+            coalescer.stop();
+        }
+    }
+
+    private WriteCoalescer start(int maxBatchSize, long maxDelayMs) {
+        coalescer = new WriteCoalescer(mongoTemplate, consistencyTiers, new SimpleMeterRegistry(), true, maxBatchSize, maxDelayMs, 5000);
+        coalescer.start();
+        return coalescer;
+    }
+
+    private Query byId(String id) {
+        return new Query(Criteria.where("id").is(id));
+    }
+
+    private Update brand(String brand) {
+        return new Update().set("brand", brand);
+    }
+
+    @Test
+    void concurrentWrites_flushAsOneBulkWrite() throws Exception {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Device.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getMatchedCount()).thenReturn(2);
+        start(2, 1000);
+
+        CompletableFuture<Boolean> first = coalescer.submit(DeviceOperation.UPDATE_BRAND, "1", byId("1"), brand("Apple"));
+        CompletableFuture<Boolean> second = coalescer.submit(DeviceOperation.UPDATE_BRAND, "2", byId("2"), brand("Apple"));
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.get(5, TimeUnit.SECONDS)).isTrue();
+        verify(mongoTemplate, times(1)).bulkOps(BulkOperations.BulkMode.UNORDERED, Device.class);
+        verify(bulkOperations, times(2)).updateOne(any(Query.class), any(Update.class));
+    }
+
+    @Test
+    void writesOfDifferentOperations_useTheirOwnTierTemplate() throws Exception {
+        ConsistencyTiers tiers = mock(ConsistencyTiers.class);
+        BulkOperations brandOperations = mock(BulkOperations.class);
+        when(tiers.bulkOps(DeviceOperation.UPDATE, mongoTemplate, BulkOperations.BulkMode.UNORDERED, Device.class))
+                .thenReturn(bulkOperations);
+        when(tiers.bulkOps(DeviceOperation.UPDATE_BRAND, mongoTemplate, BulkOperations.BulkMode.UNORDERED, Device.class))
+                .thenReturn(brandOperations);
+        when(bulkOperations.execute()).thenReturn(bulkWriteResult);
+        when(brandOperations.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getMatchedCount()).thenReturn(1);
+        coalescer = new WriteCoalescer(mongoTemplate, tiers, new SimpleMeterRegistry(), true, 2, 1000, 5000);
+        coalescer.start();
+
+        CompletableFuture<Boolean> update = coalescer.submit(DeviceOperation.UPDATE, "1", byId("1"), brand("Apple"));
+        CompletableFuture<Boolean> rebrand = coalescer.submit(DeviceOperation.UPDATE_BRAND, "2", byId("2"), brand("Dell"));
+
+        assertThat(update.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(rebrand.get(5, TimeUnit.SECONDS)).isTrue();
+        verify(bulkOperations).updateOne(byId("1"), brand("Apple"));
+        verify(brandOperations).updateOne(byId("2"), brand("Dell"));
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(Device.class));
+    }
+
+    @Test
+    void partialModification_resolvesEachCaller() throws Exception {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Device.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getMatchedCount()).thenReturn(1);
+        when(mongoTemplate.find(any(Query.class), eq(Device.class))).thenReturn(
+                List.of(new Device("1", "Pixel", "Apple", DeviceState.AVAILABLE, LocalDateTime.now())));
+        start(2, 1000);
+
+        CompletableFuture<Boolean> first = coalescer.submit(DeviceOperation.UPDATE_BRAND, "1", byId("1"), brand("Apple"));
+        CompletableFuture<Boolean> second = coalescer.submit(DeviceOperation.UPDATE_BRAND, "2", byId("2"), brand("Apple"));
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.get(5, TimeUnit.SECONDS)).isFalse();
+    }
+
+    @Test
+    void writesToSameDevice_goToSeparateBatches() throws Exception {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Device.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getMatchedCount()).thenReturn(1);
+        start(10, 50);
+
+        CompletableFuture<Boolean> first = coalescer.submit(DeviceOperation.UPDATE_BRAND, "1", byId("1"), brand("Apple"));
+        CompletableFuture<Boolean> second = coalescer.submit(DeviceOperation.UPDATE_BRAND, "1", byId("1"), brand("Dell"));
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.get(5, TimeUnit.SECONDS)).isTrue();
+        verify(bulkOperations, times(2)).execute();
+    }
+
+    @Test
+    void unchangedDevice_countsAsApplied() throws Exception {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Device.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getMatchedCount()).thenReturn(1);
+        start(1, 1);
+
+        assertThat(coalescer.apply(DeviceOperation.UPDATE_BRAND, "1", byId("1"), brand("Apple"))).isTrue();
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Device.class));
+    }
+
+    @Test
+    void upsert_missingDevice_isInserted() throws Exception {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Device.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getUpserts()).thenReturn(List.of(new BulkWriteUpsert(0, new BsonString("1"))));
+        start(1, 1);
+
+        assertThat(coalescer.upsert(DeviceOperation.UPDATE, "1", byId("1"), brand("Apple"))).isTrue();
+        verify(bulkOperations).upsert(any(Query.class), any(Update.class));
+    }
+
+    @Test
+    void apply_pastDeadline_throwsDeadlineExceeded() {
+        // never started, so the write stays queued
+        coalescer = new WriteCoalescer(mongoTemplate, consistencyTiers, new SimpleMeterRegistry(), true, 1, 1, 5000);
+        RequestDeadline.start(Duration.ofMillis(20));
+        try {
+            assertThrows(DeadlineExceededException.class, () -> coalescer.apply(DeviceOperation.UPDATE_BRAND, "1", byId("1"), brand("Apple")));
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+
+    @Test
+    void failedFlush_failsEveryCaller() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Device.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenThrow(new RuntimeException("down"));
+        start(1, 1);
+
+        assertThrows(MongoDBException.class, () -> coalescer.apply(DeviceOperation.UPDATE_BRAND, "1", byId("1"), brand("Apple")));
+    }
+}